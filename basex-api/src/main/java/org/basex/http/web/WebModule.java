@@ -1,7 +1,6 @@
 package org.basex.http.web;
 
 import static org.basex.query.QueryError.*;
-import static org.basex.util.Token.*;
 
 import java.io.*;
 import java.util.*;
@@ -13,6 +12,7 @@ import org.basex.http.ws.*;
 import org.basex.io.*;
 import org.basex.query.*;
 import org.basex.query.func.*;
+import org.basex.query.util.parse.*;
 import org.basex.util.*;
 
 /**
@@ -90,6 +90,7 @@ public final class WebModule {
 
   /**
    * Retrieves a query context for the given module.
+   * The module string and the strings of imported modules are cached until the files change.
    * @param ctx database context
    * @return query context
    * @throws QueryException query exception
@@ -97,7 +98,7 @@ public final class WebModule {
   public QueryContext qc(final Context ctx) throws QueryException {
     final QueryContext qc = new QueryContext(ctx);
     try {
-      qc.parse(string(file.read()), file.path());
+      qc.parse(ModuleCache.read(file), file.path());
       return qc;
     } catch(final IOException ex) {
       // may be triggered when reading the file
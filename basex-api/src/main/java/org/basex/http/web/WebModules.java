@@ -15,6 +15,7 @@ import org.basex.http.ws.*;
 import org.basex.io.*;
 import org.basex.query.*;
 import org.basex.query.ann.*;
+import org.basex.query.util.parse.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.util.*;
@@ -82,7 +83,10 @@ public final class WebModules {
    * @param update only update new modules
    */
   public synchronized void init(final boolean update) {
-    if(!update) modules = new HashMap<>();
+    if(!update) {
+      modules = new HashMap<>();
+      ModuleCache.clear();
+    }
     parsed = false;
   }
 
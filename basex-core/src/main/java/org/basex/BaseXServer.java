@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
 
 import org.basex.api.client.*;
@@ -31,6 +32,8 @@ public final class BaseXServer extends CLI implements Runnable {
   private volatile boolean stop;
   /** Server socket. */
   private ServerSocket socket;
+  /** Selector for client sessions (can be {@code null}). */
+  private ClientSelector selector;
   /** Start as service. */
   private boolean service;
   /** Daemon flag. */
@@ -100,9 +103,12 @@ public final class BaseXServer extends CLI implements Runnable {
     }
 
     try {
-      socket = new ServerSocket();
+      // multiplex sessions over worker threads, or create a thread for each session
+      final int threads = sopts.get(StaticOptions.SERVERTHREADS);
+      socket = threads > 0 ? ServerSocketChannel.open().socket() : new ServerSocket();
       socket.setReuseAddress(true);
       socket.bind(new InetSocketAddress(addr, port));
+      if(threads > 0) selector = new ClientSelector(threads);
       stopFile = stopFile(getClass(), port);
     } catch(final BindException ex) {
       context.log.writeServer(LogType.ERROR, Util.message(ex));
@@ -153,15 +159,11 @@ public final class BaseXServer extends CLI implements Runnable {
           // create client listener, stop authentication after timeout
           final ClientListener cl = new ClientListener(s, context, this);
           if(ka > 0) {
-            cl.timeout.schedule(new TimerTask() {
-              @Override
-              public void run() {
-                cl.close();
-              }
-            }, ka);
+            cl.timeout = context.jobs.schedule(cl::close, ka, 0);
             authorizing.add(cl);
           }
-          cl.start();
+          if(selector != null) selector.start(cl);
+          else cl.start();
         }
       } catch(final SocketException ex) {
         Util.debug(ex);
@@ -197,6 +199,7 @@ public final class BaseXServer extends CLI implements Runnable {
       cl.close();
     }
     context.sessions.close();
+    if(selector != null) selector.close();
 
     try {
       // close interactive input if server was stopped by another process
@@ -346,7 +349,8 @@ public final class BaseXServer extends CLI implements Runnable {
    */
   public void remove(final ClientListener client) {
     synchronized(authorizing) {
-      client.timeout.cancel();
+      final TimerWheel.Task timeout = client.timeout;
+      if(timeout != null) timeout.cancel();
       authorizing.remove(client);
     }
   }
@@ -31,6 +31,10 @@ public final class DiskBuilder extends Builder {
   private DataOutput vout;
   /** Output stream for temporary values. */
   private DataOutput sout;
+  /** Compressed text blocks (only assigned if block compression is enabled). */
+  private TextBlocks xblocks;
+  /** Compressed value blocks (only assigned if block compression is enabled). */
+  private TextBlocks vblocks;
 
   /** Static options. */
   private final StaticOptions sopts;
@@ -70,14 +74,21 @@ public final class DiskBuilder extends Builder {
     try {
       try {
         tout = new DataOutput(new TableOutput(meta, DATATBL));
-        xout = new DataOutput(meta.dbFile(DATATXT), bs);
-        vout = new DataOutput(meta.dbFile(DATAATV), bs);
+        if(meta.blockcompress) {
+          xblocks = DiskData.blocks(meta, true);
+          vblocks = DiskData.blocks(meta, false);
+        } else {
+          xout = new DataOutput(meta.dbFile(DATATXT), bs);
+          vout = new DataOutput(meta.dbFile(DATAATV), bs);
+        }
         sout = new DataOutput(meta.dbFile(DATATMP), bs);
         parse();
       } finally {
         if(tout != null) tout.close();
         if(xout != null) xout.close();
         if(vout != null) vout.close();
+        if(xblocks != null) xblocks.close();
+        if(vblocks != null) vblocks.close();
         if(sout != null) sout.close();
       }
 
@@ -164,6 +175,8 @@ public final class DiskBuilder extends Builder {
     // try to inline value
     final long inlined = Inline.pack(value);
     if(inlined != 0) return inlined;
+    // store text in compressed block
+    if(meta.blockcompress) return (text ? xblocks : vblocks).add(value);
 
     // store text to heap file
     final byte[] packed = Compress.pack(value);
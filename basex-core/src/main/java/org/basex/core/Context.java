@@ -127,6 +127,7 @@ public final class Context {
     user = users.get(UserText.ADMIN);
     jobs = new JobPool(soptions);
     client = null;
+    PageCache.get().init(soptions.get(StaticOptions.PAGECACHE));
   }
 
   /**
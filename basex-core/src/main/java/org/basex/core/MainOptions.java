@@ -99,8 +99,12 @@ public final class MainOptions extends Options {
   public static final BooleanOption UPDINDEX = new BooleanOption("UPDINDEX", false);
   /** Flag for automatic index updates. */
   public static final BooleanOption AUTOOPTIMIZE = new BooleanOption("AUTOOPTIMIZE", false);
+  /** Flag for storing texts and attribute values in compressed blocks. */
+  public static final BooleanOption BLOCKCOMPRESS = new BooleanOption("BLOCKCOMPRESS", false);
   /** Index split size. */
   public static final NumberOption SPLITSIZE = new NumberOption("SPLITSIZE", 0);
+  /** Number of threads for building index structures. */
+  public static final NumberOption INDEXTHREADS = new NumberOption("INDEXTHREADS", 1);
 
   // Full-Text
 
@@ -145,6 +149,8 @@ public final class MainOptions extends Options {
   public static final BooleanOption ENFORCEINDEX = new BooleanOption("ENFORCEINDEX", false);
   /** Deep node copies. */
   public static final BooleanOption COPYNODE = new BooleanOption("COPYNODE", true);
+  /** Number of tuples that are cached before they are spilled to disk (0: memory-based). */
+  public static final NumberOption SPILLSIZE = new NumberOption("SPILLSIZE", 0);
 
   // Serialize
 
@@ -166,6 +172,10 @@ public final class MainOptions extends Options {
 
   /** Flushes the database after each update. */
   public static final BooleanOption AUTOFLUSH = new BooleanOption("AUTOFLUSH", true);
+  /** Uses memory-mapped files for reading opened databases. */
+  public static final BooleanOption MMAP = new BooleanOption("MMAP", false);
+  /** Reads snapshots of databases that are currently updated. */
+  public static final BooleanOption SNAPSHOTS = new BooleanOption("SNAPSHOTS", false);
   /** Writes original files back after updates. */
   public static final BooleanOption WRITEBACK = new BooleanOption("WRITEBACK", false);
   /** Maximum number of index occurrences to print. */
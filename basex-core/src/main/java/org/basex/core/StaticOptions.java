@@ -33,6 +33,8 @@ public final class StaticOptions extends Options {
   public static final BooleanOption FAIRLOCK = new BooleanOption("FAIRLOCK", false);
   /** Timeout (seconds) for remembering result of asynchronous queries. */
   public static final NumberOption CACHETIMEOUT = new NumberOption("CACHETIMEOUT", 3600);
+  /** Size (MB) of the shared page cache, assigned by the first context (0: deactivated). */
+  public static final NumberOption PAGECACHE = new NumberOption("PAGECACHE", 32);
 
   /** Comment: written to options file. */
   public static final Comment C_CLIENT = new Comment("Client/Server Architecture");
@@ -49,6 +51,8 @@ public final class StaticOptions extends Options {
   public static final StringOption PASSWORD = new StringOption("PASSWORD", "");
   /** Server: host, used for binding the server. Empty string for wildcard. */
   public static final StringOption SERVERHOST = new StringOption("SERVERHOST", "");
+  /** Server: number of worker threads for client sessions (0: one thread per session). */
+  public static final NumberOption SERVERTHREADS = new NumberOption("SERVERTHREADS", 0);
   /** Server: proxy host (default: ignored). */
   public static final StringOption PROXYHOST = new StringOption("PROXYHOST", "");
   /** Server: proxy port (default: ignored). */
@@ -66,10 +70,16 @@ public final class StaticOptions extends Options {
   public static final NumberOption KEEPALIVE = new NumberOption("KEEPALIVE", 600);
   /** Defines the number of parallel readers. */
   public static final NumberOption PARALLEL = new NumberOption("PARALLEL", 8);
+  /** Maximum number of threads for parallel query evaluation (0: number of processors). */
+  public static final NumberOption QUERYTHREADS = new NumberOption("QUERYTHREADS", 0);
   /** Logging flag. */
   public static final BooleanOption LOG = new BooleanOption("LOG", true);
   /** Log message cut-off. */
   public static final NumberOption LOGMSGMAXLEN = new NumberOption("LOGMSGMAXLEN", 1000);
+  /** Number of log entries buffered for asynchronous writing (0: synchronous writing). */
+  public static final NumberOption LOGBUFFER = new NumberOption("LOGBUFFER", 1024);
+  /** Interval for collecting buffered log entries before they are written (ms). */
+  public static final NumberOption LOGFLUSH = new NumberOption("LOGFLUSH", 0);
   /** Write trace output to logs. */
   public static final BooleanOption LOGTRACE = new BooleanOption("LOGTRACE", true);
 
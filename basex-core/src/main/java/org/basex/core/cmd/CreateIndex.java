@@ -3,6 +3,7 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.*;
@@ -60,6 +61,7 @@ public final class CreateIndex extends ACreate {
     }
     data.meta.names(type, options);
     data.meta.splitsize = options.get(MainOptions.SPLITSIZE);
+    data.meta.indexthreads = options.get(MainOptions.INDEXTHREADS);
 
     return update(data, new Code() {
       @Override
@@ -82,10 +84,12 @@ public final class CreateIndex extends ACreate {
    * @throws IOException I/O exception
    */
   static void create(final Data data, final ACreate cmd) throws IOException {
-    if(data.meta.createtext) create(IndexType.TEXT, data, cmd);
-    if(data.meta.createattr) create(IndexType.ATTRIBUTE, data, cmd);
-    if(data.meta.createtoken) create(IndexType.TOKEN, data, cmd);
-    if(data.meta.createft) create(IndexType.FULLTEXT, data, cmd);
+    final ArrayList<IndexType> types = new ArrayList<>();
+    if(data.meta.createtext) types.add(IndexType.TEXT);
+    if(data.meta.createattr) types.add(IndexType.ATTRIBUTE);
+    if(data.meta.createtoken) types.add(IndexType.TOKEN);
+    if(data.meta.createft) types.add(IndexType.FULLTEXT);
+    create(types, data, cmd);
   }
 
   /**
@@ -96,8 +100,24 @@ public final class CreateIndex extends ACreate {
    * @throws IOException I/O exception
    */
   static void create(final IndexType type, final Data data, final ACreate cmd) throws IOException {
-    DropIndex.drop(type, data);
-    data.createIndex(type, cmd);
-    data.meta.index(type, true);
+    final ArrayList<IndexType> types = new ArrayList<>(1);
+    types.add(type);
+    create(types, data, cmd);
+  }
+
+  /**
+   * Builds the specified indexes. Depending on the {@link MainOptions#INDEXTHREADS} option,
+   * independent indexes will be built in parallel.
+   * @param types indexes to be built
+   * @param data data reference
+   * @param cmd calling command (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  static void create(final ArrayList<IndexType> types, final Data data, final ACreate cmd)
+      throws IOException {
+    if(types.isEmpty()) return;
+    for(final IndexType type : types) DropIndex.drop(type, data);
+    data.createIndexes(types, cmd);
+    for(final IndexType type : types) data.meta.index(type, true);
   }
 }
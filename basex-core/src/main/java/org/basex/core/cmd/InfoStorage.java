@@ -1,5 +1,6 @@
 package org.basex.core.cmd;
 
+import static org.basex.core.Text.*;
 import static org.basex.util.Strings.*;
 
 import java.io.*;
@@ -8,6 +9,8 @@ import org.basex.core.locks.*;
 import org.basex.core.parse.*;
 import org.basex.core.parse.Commands.*;
 import org.basex.data.*;
+import org.basex.io.random.*;
+import org.basex.util.*;
 
 /**
  * Evaluates the 'info storage' command and returns the table representation
@@ -39,6 +42,15 @@ public final class InfoStorage extends AInfo {
     }
     dp.add(start, end);
     out.print(dp.finish());
+
+    if(!data.inMemory()) {
+      final PageCache cache = PageCache.get();
+      final TokenBuilder tb = new TokenBuilder().add(NL).add("Page Cache").add(COL).add(NL);
+      info(tb, "Pages", cache.pages() + "/" + cache.max());
+      info(tb, "Hits", cache.hits());
+      info(tb, "Misses", cache.misses());
+      out.print(tb.finish());
+    }
     return true;
   }
 
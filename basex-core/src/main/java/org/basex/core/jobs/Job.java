@@ -18,8 +18,8 @@ public abstract class Job {
   /** Job context. */
   private JobContext jc = new JobContext(this);
   // state and control flags must be volatile so that all threads see the actual non-cached values
-  /** Timer. */
-  private volatile Timer timer;
+  /** Timeout task. */
+  private volatile TimerWheel.Task timer;
 
   /** This flag indicates that a job is updating. */
   public volatile boolean updating;
@@ -48,7 +48,7 @@ public abstract class Job {
     state(JobState.RUNNING);
     jc.performance = new Performance();
     // non-admin users: stop process after timeout
-    if(!ctx.user().has(Perm.ADMIN)) startTimeout(ctx.soptions.get(StaticOptions.TIMEOUT));
+    if(!ctx.user().has(Perm.ADMIN)) startTimeout(ctx);
   }
 
   /**
@@ -184,24 +184,21 @@ public abstract class Job {
   // PRIVATE FUNCTIONS ============================================================================
 
   /**
-   * Starts a timeout thread.
-   * @param sec seconds wait; deactivated if set to 0
+   * Schedules a timeout.
+   * @param ctx database context
    */
-  private void startTimeout(final long sec) {
-    if(sec == 0) return;
-    timer = new Timer(true);
-    timer.schedule(new TimerTask() {
-      @Override
-      public void run() { timeout(); }
-    }, sec * 1000L);
+  private void startTimeout(final Context ctx) {
+    final long sec = ctx.soptions.get(StaticOptions.TIMEOUT);
+    if(sec != 0) timer = ctx.jobs.timer.schedule(this::timeout, sec * 1000L);
   }
 
   /**
-   * Stops the timeout thread.
+   * Cancels the timeout.
    */
   private void stopTimeout() {
-    if(timer != null) {
-      timer.cancel();
+    final TimerWheel.Task task = timer;
+    if(task != null) {
+      task.cancel();
       timer = null;
     }
   }
@@ -2,9 +2,11 @@ package org.basex.core.jobs;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import org.basex.core.*;
-import org.basex.util.Performance;
+import org.basex.query.*;
+import org.basex.util.*;
 
 /**
  * Job pool.
@@ -15,6 +17,8 @@ import org.basex.util.Performance;
 public final class JobPool {
   /** Number of queries to be queued. */
   public static final int MAXQUERIES = 1000;
+  /** Maximum number of threads for blocking I/O tasks. */
+  public static final int IOTHREADS = 64;
   /** Queued or running jobs. */
   public final Map<String, Job> active = new ConcurrentHashMap<>();
   /** Cached results. */
@@ -22,10 +26,20 @@ public final class JobPool {
   /** Timer tasks. */
   public final Map<String, QueryJobTask> tasks = new ConcurrentHashMap<>();
 
-  /** Timer. */
-  final Timer timer = new Timer(true);
+  /** Timer wheel for timeouts and scheduled jobs (shared by all jobs). */
+  public final TimerWheel timer = new TimerWheel();
   /** Timeout (ms). */
   private final long timeout;
+  /** Number of threads for parallel query evaluation. */
+  private final int threads;
+  /** Thread pool for parallel query evaluation (lazy instantiation). */
+  private ForkJoinPool forkJoin;
+  /** Thread pool for scheduled jobs (lazy instantiation). */
+  private ThreadPoolExecutor executor;
+  /** Thread pool for blocking I/O tasks (lazy instantiation). */
+  private ThreadPoolExecutor io;
+  /** Resources that are shared by all queries (e.g. connection pools). */
+  private final Map<Class<? extends QueryResource>, QueryResource> resources = new HashMap<>();
 
   /**
    * Constructor.
@@ -33,6 +47,88 @@ public final class JobPool {
    */
   public JobPool(final StaticOptions sopts) {
     timeout = sopts.get(StaticOptions.CACHETIMEOUT) * 1000L;
+    final int qt = sopts.get(StaticOptions.QUERYTHREADS);
+    threads = qt > 0 ? qt : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Returns the work-stealing thread pool for parallel query evaluation.
+   * The pool is shared by all queries.
+   * @return thread pool
+   */
+  public synchronized ForkJoinPool forkJoin() {
+    if(forkJoin == null) forkJoin = new ForkJoinPool(threads);
+    return forkJoin;
+  }
+
+  /**
+   * Returns the thread pool for blocking I/O tasks of queries (e.g. parallel HTTP requests).
+   * Tasks are not queued: if all {@link #IOTHREADS} threads are busy, they will be rejected,
+   * and the caller is expected to run them by itself.
+   * @return thread pool
+   */
+  public synchronized ExecutorService io() {
+    if(io == null) io = pool(IOTHREADS);
+    return io;
+  }
+
+  /**
+   * Runs a scheduled job. Idle threads are discarded after a minute, and the number of
+   * threads is limited by {@link #MAXQUERIES}.
+   * @param job job
+   * @throws RejectedExecutionException if all threads are busy
+   */
+  public void execute(final Runnable job) {
+    executor().execute(job);
+  }
+
+  /**
+   * Schedules a task that may take longer than the tasks of the timer wheel. The wheel only
+   * triggers the task, which is then run by the thread pool for scheduled jobs.
+   * Repeated executions are skipped while the previous one is still running.
+   * @param task task
+   * @param delay delay (ms)
+   * @param interval interval (ms; no repetition: {@code 0})
+   * @return timer task
+   */
+  public TimerWheel.Task schedule(final Runnable task, final long delay, final long interval) {
+    final AtomicBoolean running = new AtomicBoolean();
+    return timer.schedule(() -> {
+      if(!running.compareAndSet(false, true)) return;
+      try {
+        executor().execute(() -> {
+          try {
+            task.run();
+          } finally {
+            running.set(false);
+          }
+        });
+      } catch(final RejectedExecutionException ex) {
+        Util.debug(ex);
+        running.set(false);
+      }
+    }, delay, interval);
+  }
+
+  /**
+   * Returns or creates a resource of the specified class that is shared by all queries.
+   * The resource will be closed when the job pool is closed.
+   * @param <R> resource
+   * @param resource resource class
+   * @return resource
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized <R extends QueryResource> R resource(final Class<? extends R> resource) {
+    QueryResource value = resources.get(resource);
+    if(value == null) {
+      try {
+        value = resource.getDeclaredConstructor().newInstance();
+        resources.put(resource, value);
+      } catch(final Throwable ex) {
+        throw Util.notExpected(ex);
+      }
+    }
+    return (R) value;
   }
 
   /**
@@ -57,9 +153,14 @@ public final class JobPool {
    */
   public synchronized void close() {
     // stop running tasks and queries
-    timer.cancel();
+    timer.close();
     for(final Job job : active.values()) job.stop();
     while(!active.isEmpty()) Performance.sleep(1);
+    if(forkJoin != null) forkJoin.shutdown();
+    if(executor != null) executor.shutdown();
+    if(io != null) io.shutdown();
+    for(final QueryResource resource : resources.values()) resource.close();
+    resources.clear();
   }
 
   /**
@@ -67,11 +168,31 @@ public final class JobPool {
    * @param job job
    */
   public void scheduleResult(final Job job) {
-    timer.schedule(new TimerTask() {
-      @Override
-      public void run() {
-        results.remove(job.jc().id());
-      }
-    }, timeout);
+    timer.schedule(() -> results.remove(job.jc().id()), timeout);
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the thread pool for scheduled jobs.
+   * @return thread pool
+   */
+  private synchronized ThreadPoolExecutor executor() {
+    if(executor == null) executor = pool(MAXQUERIES);
+    return executor;
+  }
+
+  /**
+   * Creates a thread pool with daemon threads that are discarded after a minute of idleness.
+   * @param max maximum number of threads
+   * @return thread pool
+   */
+  private static ThreadPoolExecutor pool(final int max) {
+    return new ThreadPoolExecutor(0, max, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+      runnable -> {
+        final Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+      });
   }
 }
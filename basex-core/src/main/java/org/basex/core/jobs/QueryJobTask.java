@@ -1,6 +1,10 @@
 package org.basex.core.jobs;
 
-import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.server.Log.*;
+import org.basex.util.*;
 
 /**
  * Scheduled job.
@@ -8,7 +12,7 @@ import java.util.*;
  * @author BaseX Team 2005-20, BSD License
  * @author Christian Gruen
  */
-public final class QueryJobTask extends TimerTask {
+public final class QueryJobTask extends TimerWheel.Task {
   /** Job. */
   public final QueryJob job;
   /** Job pool. */
@@ -49,6 +53,16 @@ public final class QueryJobTask extends TimerTask {
       cancel();
     }
     // skip execution if same job is still running
-    if(!jobs.active.containsKey(job.jc().id())) new Thread(job).start();
+    if(!jobs.active.containsKey(job.jc().id())) {
+      try {
+        jobs.execute(job);
+      } catch(final RejectedExecutionException ex) {
+        // skip execution if all threads are busy
+        Util.debug(ex);
+        final Context ctx = job.jc().context;
+        ctx.log.write(LogType.ERROR, "Execution skipped: all threads are busy.", null,
+            "JOB:" + job.jc().id(), ctx);
+      }
+    }
   }
 }
@@ -9,6 +9,7 @@ import java.util.concurrent.locks.*;
 
 import org.basex.core.*;
 import org.basex.core.jobs.*;
+import org.basex.data.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -90,6 +91,7 @@ public final class Locking {
     // prepare lock strings and acquire locks
     final Locks locks = job.jc().locks;
     locks.finish(ctx);
+    if(locks.readSnapshots) snapshots(locks, ctx);
     try {
       acquire(locks);
     } catch(final InterruptedException ex) {
@@ -150,6 +152,7 @@ public final class Locking {
     final Locks locks = locked.remove(id);
     final LockList reads = locks.reads, writes = locks.writes;
     final boolean lock = reads.locking() || writes.locking();
+    locks.release();
 
     // release all local locks
     for(final String string : reads) unpin(string).readLock().unlock();
@@ -178,6 +181,41 @@ public final class Locking {
     queue.release();
   }
 
+  /**
+   * Replaces read locks of opened databases that are currently write-locked with snapshots.
+   * Databases that are referenced by a partial context are locked as before, and so are
+   * databases with index structures if the query may access them.
+   * @param locks locks
+   * @param ctx database context
+   */
+  private void snapshots(final Locks locks, final Context ctx) {
+    final LockList reads = locks.reads, replaced = new LockList();
+    for(final String string : reads) {
+      if(string.startsWith(INTERNAL_PREFIX) || string.startsWith(BASEX_PREFIX)) continue;
+      final LocalReadWriteLock lock;
+      synchronized(localLocks) {
+        lock = localLocks.get(string);
+      }
+      if(lock == null || !lock.isWriteLocked()) continue;
+
+      final Data data = ctx.datas.pin(string);
+      if(data == null) continue;
+      // a partial context (e.g. a single opened document) refers to pres of the current database
+      // snapshots have no index structures
+      final MetaData meta = data.meta;
+      final boolean indexed = meta.textindex || meta.attrindex || meta.tokenindex || meta.ftindex;
+      final Data snapshot = (data != ctx.data() || ctx.root()) && !(locks.indexes && indexed) ?
+        data.snapshot() : null;
+      if(snapshot != null) {
+        locks.snapshot(data, snapshot, ctx.datas);
+        replaced.add(string);
+      } else {
+        ctx.datas.unpin(data);
+      }
+    }
+    reads.remove(replaced);
+  }
+
   /**
    * Pins a lock string. Creates a new lock if necessary.
    * @param string lock string
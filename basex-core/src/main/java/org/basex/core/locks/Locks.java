@@ -1,7 +1,10 @@
 package org.basex.core.locks;
 
+import java.util.*;
+
 import org.basex.core.*;
 import org.basex.data.*;
+import org.basex.util.*;
 
 /**
  * Read and write locks of a single job.
@@ -14,6 +17,17 @@ public final class Locks {
   public final LockList reads = new LockList();
   /** Write locks. */
   public final LockList writes = new LockList();
+  /** Indicates if snapshots of write-locked databases can be read (see {@link Data#snapshot()}). */
+  public boolean readSnapshots;
+  /** Indicates if the query may access index structures (which are not part of snapshots). */
+  public boolean indexes;
+
+  /** Pinned databases, for which snapshots are read. */
+  private final ArrayList<Data> pinned = new ArrayList<>(0);
+  /** Snapshots of the pinned databases. */
+  private final ArrayList<Data> snapshots = new ArrayList<>(0);
+  /** Pinned data references (only assigned if snapshots exist). */
+  private Datas datas;
 
   /**
    * Finalizes locks. Replaces context references with current database, sorts entries,
@@ -34,6 +48,45 @@ public final class Locks {
     reads.remove(writes);
   }
 
+  /**
+   * Returns the snapshot of the database with the specified name.
+   * @param name name of database
+   * @return snapshot or {@code null}
+   */
+  public Data snapshot(final String name) {
+    for(final Data snapshot : snapshots) {
+      final String db = snapshot.meta.name;
+      if(Prop.CASE ? db.equals(name) : db.equalsIgnoreCase(name)) return snapshot;
+    }
+    return null;
+  }
+
+  /**
+   * Registers the snapshot of a database.
+   * @param data pinned database
+   * @param snapshot snapshot
+   * @param dt pinned data references
+   */
+  void snapshot(final Data data, final Data snapshot, final Datas dt) {
+    pinned.add(data);
+    snapshots.add(snapshot);
+    datas = dt;
+  }
+
+  /**
+   * Closes all snapshots and unpins the databases.
+   */
+  void release() {
+    final int ds = pinned.size();
+    for(int d = 0; d < ds; d++) {
+      snapshots.get(d).close();
+      datas.unpin(pinned.get(d));
+    }
+    pinned.clear();
+    snapshots.clear();
+    datas = null;
+  }
+
   @Override
   public String toString() {
     return "Reads: " + reads + ", Writes: " + writes;
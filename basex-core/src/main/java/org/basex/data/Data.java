@@ -149,6 +149,18 @@ public abstract class Data {
    */
   public abstract void createIndex(IndexType type, Command cmd) throws IOException;
 
+  /**
+   * Creates the specified indexes.
+   * @param types types of indexes to be created
+   * @param cmd calling command (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  public void createIndexes(final ArrayList<IndexType> types, final Command cmd)
+      throws IOException {
+
+    for(final IndexType type : types) createIndex(type, cmd);
+  }
+
   /**
    * Drops the specified index.
    * @param type index to be dropped
@@ -170,6 +182,15 @@ public abstract class Data {
    */
   public abstract void finishUpdate(MainOptions opts);
 
+  /**
+   * Returns a read-only snapshot of the database, which will not be affected by concurrent
+   * updates. The snapshot must be closed after it has been used.
+   * @return snapshot, or {@code null} if no snapshot is available
+   */
+  public Data snapshot() {
+    return null;
+  }
+
   /**
    * Flushes updated data.
    * @param all flush all data
@@ -544,18 +565,22 @@ public abstract class Data {
       } else {
         // update element name
         final IntList pres = new IntList();
-        // update text index
-        if(meta.updindex && meta.textindex) {
+        // update text and full-text index
+        if(meta.updindex && (meta.textindex || meta.ftindex)) {
           final int last = pre + size;
           for(int curr = pre + attSize(pre, kind); curr < last; curr += size(curr, kind(curr))) {
             if(kind(curr) == TEXT) pres.add(curr);
           }
-          textIndex.delete(new ValueCache(pres, IndexType.TEXT, this));
+          if(meta.textindex) textIndex.delete(new ValueCache(pres, IndexType.TEXT, this));
+          if(meta.ftindex) ftIndex.delete(new ValueCache(pres, IndexType.FULLTEXT, this));
         }
         table.write1(pre, 3, uriId);
         final int nameId = elemNames.put(name);
         table.write2(nsPre, 1, (nsFlag || nsFlag(nsPre) ? 1 << 15 : 0) | nameId);
-        if(!pres.isEmpty()) textIndex.add(new ValueCache(pres, IndexType.TEXT, this));
+        if(!pres.isEmpty()) {
+          if(meta.textindex) textIndex.add(new ValueCache(pres, IndexType.TEXT, this));
+          if(meta.ftindex) ftIndex.add(new ValueCache(pres, IndexType.FULLTEXT, this));
+        }
       }
     }
   }
@@ -1080,6 +1105,7 @@ public abstract class Data {
       if(meta.textindex) textIndex.delete(new ValueCache(pre, size, IndexType.TEXT, this));
       if(meta.attrindex) attrIndex.delete(new ValueCache(pre, size, IndexType.ATTRIBUTE, this));
       if(meta.tokenindex) tokenIndex.delete(new ValueCache(pre, size, IndexType.TOKEN, this));
+      if(meta.ftindex) ftIndex.delete(new ValueCache(pre, size, IndexType.FULLTEXT, this));
       if(id != -1) idmap.delete(pre, id, -size);
     }
   }
@@ -1098,6 +1124,7 @@ public abstract class Data {
       if(meta.textindex) textIndex.add(new ValueCache(pre, size, IndexType.TEXT, this));
       if(meta.attrindex) attrIndex.add(new ValueCache(pre, size, IndexType.ATTRIBUTE, this));
       if(meta.tokenindex) tokenIndex.add(new ValueCache(pre, size, IndexType.TOKEN, this));
+      if(meta.ftindex) ftIndex.add(new ValueCache(pre, size, IndexType.FULLTEXT, this));
     }
   }
 
@@ -13,6 +13,8 @@ public interface DataText {
 
   /** Database version; older version cannot open these instances. */
   String STORAGE = "9.0.1";
+  /** Database version of databases with compressed text blocks. */
+  String BLOCKSTORAGE = "9.4";
   /** Index version; older version cannot open indexes of these instances. */
   String ISTORAGE = "8.6";
 
@@ -34,6 +36,8 @@ public interface DataText {
   String DBUPDIDX = "UPDINDEX";
   /** Automatic optimization. */
   String DBAUTOOPT = "AUTOOPT";
+  /** Block compression of texts and attribute values. */
+  String DBBLOCKS = "BLOCKCOMP";
   /** Text index. */
   String DBTXTIDX = "TXTINDEX";
   /** Attribute index. */
@@ -42,6 +46,10 @@ public interface DataText {
   String DBTOKIDX = "TOKINDEX";
   /** Full-text index. */
   String DBFTXIDX = "FTXINDEX";
+  /** Full-text index: node ids are stored instead of pre values. */
+  String DBFTXIDS = "FTXIDS";
+  /** Full-text index: long entries are preceded by skip tables. */
+  String DBFTXSKP = "FTXSKIPS";
   /** Text index: names. */
   String DBTXTINC = "TXTINC";
   /** Attribute index: names. */
@@ -5,6 +5,7 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.build.*;
 import org.basex.core.*;
@@ -16,6 +17,7 @@ import org.basex.index.path.*;
 import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
+import org.basex.io.out.ArrayOutput;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
@@ -47,6 +49,15 @@ import org.basex.util.*;
  *   - NOT COMPRESSED: return external text unchanged
  * </pre>
  *
+ * If {@link MetaData#blockcompress} is enabled, external texts are stored in compressed blocks,
+ * and the 38 remaining bits contain the block number and the offset in the block
+ * (see {@link TextBlocks}).
+ *
+ * If {@link MetaData#snapshots} is enabled, a read-only snapshot of the database is created
+ * before an update is started (see {@link #snapshot()}). Snapshots share the files of the
+ * database. Table pages that are referenced by snapshots are never overwritten, and texts are
+ * only appended as long as snapshots are enabled. Index structures are not included in snapshots.
+ *
  * @author BaseX Team 2005-20, BSD License
  * @author Christian Gruen
  * @author Tim Petrowsky
@@ -56,6 +67,19 @@ public final class DiskData extends Data {
   private DataAccess texts;
   /** Values access file. */
   private DataAccess values;
+  /** Compressed text blocks (only assigned if block compression is enabled). */
+  private TextBlocks textBlocks;
+  /** Compressed value blocks (only assigned if block compression is enabled). */
+  private TextBlocks valueBlocks;
+
+  /** Database instance of a snapshot (otherwise {@code null}). */
+  private final DiskData origin;
+  /** Current snapshot (can be {@code null}). */
+  private DiskData snapshot;
+  /** Number of pins of a snapshot. */
+  private int pins;
+  /** Indicates if an update is running. */
+  private boolean updating;
 
   /**
    * Default constructor, called from {@link Open#open}.
@@ -64,20 +88,10 @@ public final class DiskData extends Data {
    */
   public DiskData(final MetaData meta) throws IOException {
     super(meta);
+    origin = null;
 
     try(DataInput in = new DataInput(meta.dbFile(DATAINF))) {
-      meta.read(in);
-      while(true) {
-        final String k = string(in.readToken());
-        if(k.isEmpty()) break;
-        switch(k) {
-          case DBTAGS: elemNames = new Names(in, meta); break;
-          case DBATTS: attrNames = new Names(in, meta); break;
-          case DBPATH: paths = new PathIndex(this, in); break;
-          case DBNS:   nspaces = new Namespaces(in); break;
-          case DBDOCS: resources.read(in); break;
-        }
-      }
+      read(in);
     }
 
     // open data and indexes
@@ -108,6 +122,7 @@ public final class DiskData extends Data {
       final PathIndex paths, final Namespaces nspaces) throws IOException {
 
     super(meta);
+    origin = null;
     this.elemNames = elemNames;
     this.attrNames = attrNames;
     this.paths = paths;
@@ -117,14 +132,89 @@ public final class DiskData extends Data {
     init();
   }
 
+  /**
+   * Constructor for a read-only snapshot of the specified database.
+   * @param data database
+   * @throws IOException I/O Exception
+   */
+  private DiskData(final DiskData data) throws IOException {
+    super(new MetaData(data.meta));
+    origin = data;
+
+    // copy meta data and main-memory structures
+    final ArrayOutput ao = new ArrayOutput();
+    try(DataOutput out = new DataOutput(ao)) {
+      data.write(out);
+    }
+    try(DataInput in = new DataInput(new IOContent(ao.finish()))) {
+      read(in);
+    }
+    // index structures are not versioned
+    meta.textindex = false;
+    meta.attrindex = false;
+    meta.tokenindex = false;
+    meta.ftindex = false;
+    meta.updindex = false;
+    meta.corrupt = false;
+
+    table = ((TableDiskAccess) data.table).snapshot(meta);
+    if(meta.blockcompress) {
+      textBlocks = data.textBlocks.snapshot();
+      valueBlocks = data.valueBlocks.snapshot();
+    } else {
+      // texts are only appended: share the stores, read flushed contents
+      data.texts.flush();
+      data.values.flush();
+      texts = data.texts;
+      values = data.values;
+    }
+  }
+
+  /**
+   * Reads the meta data and the main-memory structures.
+   * @param in input stream
+   * @throws IOException I/O exception
+   */
+  private void read(final DataInput in) throws IOException {
+    meta.read(in);
+    while(true) {
+      final String k = string(in.readToken());
+      if(k.isEmpty()) break;
+      switch(k) {
+        case DBTAGS: elemNames = new Names(in, meta); break;
+        case DBATTS: attrNames = new Names(in, meta); break;
+        case DBPATH: paths = new PathIndex(this, in); break;
+        case DBNS:   nspaces = new Namespaces(in); break;
+        case DBDOCS: resources.read(in); break;
+      }
+    }
+  }
+
   /**
    * Initializes the database.
    * @throws IOException I/O exception
    */
   private void init() throws IOException {
     table = new TableDiskAccess(meta, false);
-    texts = new DataAccess(meta.dbFile(DATATXT));
-    values = new DataAccess(meta.dbFile(DATAATV));
+    if(meta.blockcompress) {
+      textBlocks = blocks(meta, true);
+      valueBlocks = blocks(meta, false);
+    } else {
+      texts = new DataAccess(meta.dbFile(DATATXT), meta.mmap);
+      values = new DataAccess(meta.dbFile(DATAATV), meta.mmap);
+    }
+  }
+
+  /**
+   * Opens a store for compressed text or attribute value blocks.
+   * @param meta meta data
+   * @param text text or attribute flag
+   * @return store
+   * @throws IOException I/O exception
+   */
+  public static TextBlocks blocks(final MetaData meta, final boolean text) throws IOException {
+    final String file = text ? DATATXT : DATAATV;
+    return new TextBlocks(meta.dbFile(file), meta.dbFile(file + 'b'), meta.mmap);
   }
 
   /**
@@ -135,32 +225,111 @@ public final class DiskData extends Data {
     if(!meta.dirty) return;
 
     try(DataOutput out = new DataOutput(meta.dbFile(DATAINF))) {
-      meta.write(out);
-      out.writeToken(token(DBTAGS));
-      elemNames.write(out);
-      out.writeToken(token(DBATTS));
-      attrNames.write(out);
-      out.writeToken(token(DBPATH));
-      paths.write(out);
-      out.writeToken(token(DBNS));
-      nspaces.write(out);
-      out.writeToken(token(DBDOCS));
-      resources.write(out);
-      out.write(0);
+      write(out);
     }
     if(meta.updindex) idmap.write(meta.dbFile(DATAIDP));
     meta.dirty = false;
   }
 
+  /**
+   * Writes the meta data and the main-memory structures.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  private void write(final DataOutput out) throws IOException {
+    meta.write(out);
+    out.writeToken(token(DBTAGS));
+    elemNames.write(out);
+    out.writeToken(token(DBATTS));
+    attrNames.write(out);
+    out.writeToken(token(DBPATH));
+    paths.write(out);
+    out.writeToken(token(DBNS));
+    nspaces.write(out);
+    out.writeToken(token(DBDOCS));
+    resources.write(out);
+    out.write(0);
+  }
+
+  /**
+   * Returns the current snapshot of the database, or creates a new one.
+   * A snapshot is only returned if {@link MetaData#snapshots} is enabled.
+   * It is shared by all readers, and it must be released by calling {@link #close()}.
+   * @return snapshot or {@code null}
+   */
+  @Override
+  public synchronized Data snapshot() {
+    if(!meta.snapshots || closed || origin != null) return null;
+    if(snapshot == null) {
+      // snapshots cannot be created while the database is updated
+      if(updating) return null;
+      publish();
+      if(snapshot == null) return null;
+    }
+    snapshot.pins++;
+    return snapshot;
+  }
+
+  /**
+   * Creates a new snapshot and releases the old one.
+   */
+  private void publish() {
+    discard();
+    try {
+      snapshot = new DiskData(this);
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+  }
+
+  /**
+   * Discards the current snapshot. It will be released if it is not pinned anymore.
+   */
+  private void discard() {
+    final DiskData snap = snapshot;
+    snapshot = null;
+    if(snap != null && snap.pins == 0) snap.release();
+  }
+
+  /**
+   * Unpins a snapshot and releases it if it is not required anymore.
+   * @param snap snapshot
+   */
+  private synchronized void unpin(final DiskData snap) {
+    if(--snap.pins == 0 && snap != snapshot) snap.release();
+  }
+
+  /**
+   * Releases the resources of a snapshot.
+   */
+  private void release() {
+    closed = true;
+    try {
+      table.close();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
   @Override
   public synchronized void close() {
+    if(origin != null) {
+      origin.unpin(this);
+      return;
+    }
     if(closed) return;
     super.close();
+    snapshot = null;
     try {
       write();
       table.close();
-      texts.close();
-      values.close();
+      if(meta.blockcompress) {
+        textBlocks.close();
+        valueBlocks.close();
+      } else {
+        texts.close();
+        values.close();
+      }
       close(IndexType.TEXT);
       close(IndexType.ATTRIBUTE);
       close(IndexType.TOKEN);
@@ -187,12 +356,7 @@ public final class DiskData extends Data {
   public void createIndex(final IndexType type, final Command cmd) throws IOException {
     // close existing index
     close(type);
-    final IndexBuilder ib;
-    switch(type) {
-      case TEXT: case ATTRIBUTE: case TOKEN: ib = new DiskValuesBuilder(this, type); break;
-      case FULLTEXT: ib = new FTBuilder(this); break;
-      default: throw Util.notExpected();
-    }
+    final IndexBuilder ib = builder(type);
     try {
       if(cmd != null) cmd.pushJob(ib);
       set(type, ib.build());
@@ -201,6 +365,53 @@ public final class DiskData extends Data {
     }
   }
 
+  @Override
+  public void createIndexes(final ArrayList<IndexType> types, final Command cmd)
+      throws IOException {
+
+    final int tl = types.size(), threads = Math.min(meta.indexthreads, tl);
+    if(threads < 2) {
+      super.createIndexes(types, cmd);
+      return;
+    }
+
+    // build indexes in parallel
+    final IndexBuilder[] builders = new IndexBuilder[tl];
+    final ValueIndex[] indexes = new ValueIndex[tl];
+    final ArrayList<Parallel.Task> tasks = new ArrayList<>(tl);
+    for(int t = 0; t < tl; t++) {
+      close(types.get(t));
+      final IndexBuilder ib = builder(types.get(t));
+      final int i = t;
+      builders[t] = ib;
+      tasks.add(() -> indexes[i] = ib.build());
+    }
+    // split the memory budget among all builders
+    for(final IndexBuilder ib : builders) ib.share(builders);
+    try {
+      if(cmd != null) {
+        for(final IndexBuilder ib : builders) cmd.pushJob(ib);
+      }
+      Parallel.run(tasks, threads, () -> {
+        for(final IndexBuilder ib : builders) ib.stop();
+      });
+    } catch(final IOException | RuntimeException | Error ex) {
+      // drop indexes that have successfully been built
+      for(final ValueIndex index : indexes) {
+        if(index != null) {
+          index.close();
+          index.drop();
+        }
+      }
+      throw ex;
+    } finally {
+      if(cmd != null) {
+        for(int t = 0; t < tl; t++) cmd.popJob();
+      }
+    }
+    for(int t = 0; t < tl; t++) set(types.get(t), indexes[t]);
+  }
+
   @Override
   public void dropIndex(final IndexType type) throws BaseXException {
     close(type);
@@ -208,6 +419,20 @@ public final class DiskData extends Data {
     if(index != null && !index.drop()) throw new BaseXException(INDEX_NOT_DROPPED_X, type);
   }
 
+  /**
+   * Returns a builder for the specified index.
+   * @param type index type
+   * @return index builder
+   * @throws IOException I/O exception
+   */
+  private IndexBuilder builder(final IndexType type) throws IOException {
+    switch(type) {
+      case TEXT: case ATTRIBUTE: case TOKEN: return new DiskValuesBuilder(this, type);
+      case FULLTEXT: return new FTBuilder(this);
+      default: throw Util.notExpected();
+    }
+  }
+
   /**
    * Assigns the specified index.
    * @param type index to be opened
@@ -225,18 +450,23 @@ public final class DiskData extends Data {
   }
 
   @Override
-  public void startUpdate(final MainOptions opts) throws BaseXException {
+  public synchronized void startUpdate(final MainOptions opts) throws BaseXException {
+    if(origin != null) throw Util.notExpected("Snapshots cannot be updated.");
     if(!table.lock(true)) throw new BaseXException(DB_PINNED_X, meta.name);
     if(opts.get(MainOptions.AUTOFLUSH)) {
       final IOFile upd = meta.updateFile();
       if(upd.exists()) throw new BaseXException(DB_UPDATED_X, meta.name);
       if(!upd.touch()) throw Util.notExpected("%: could not create lock file.", meta.name);
     }
+    // readers will access the state of the database before the update
+    if(meta.snapshots && snapshot == null) publish();
+    updating = true;
   }
 
   @Override
   public synchronized void finishUpdate(final MainOptions opts) {
     // OPTIMIZE ALL / db:optimize(..., true) will close the database before this function is called
+    updating = false;
     if(closed) return;
 
     // remove updating file
@@ -249,6 +479,8 @@ public final class DiskData extends Data {
 
     flush(auto);
     if(!table.lock(false)) throw Util.notExpected("Database '%': could not unlock.", meta.name);
+    // new snapshots will be created on demand
+    if(meta.snapshots) discard();
   }
 
   @Override
@@ -257,10 +489,16 @@ public final class DiskData extends Data {
       table.flush(all);
       if(all) {
         write();
-        texts.flush();
-        values.flush();
+        if(meta.blockcompress) {
+          textBlocks.flush();
+          valueBlocks.flush();
+        } else {
+          texts.flush();
+          values.flush();
+        }
         if(textIndex != null) textIndex.flush();
         if(attrIndex != null) attrIndex.flush();
+        if(ftIndex != null) ftIndex.flush();
       }
     } catch(final IOException ex) {
       Util.stack(ex);
@@ -289,11 +527,12 @@ public final class DiskData extends Data {
   public int textLen(final int pre, final boolean text) {
     final long value = textRef(pre);
     if(Inline.inlined(value)) return Inline.unpackLength(value);
+    if(meta.blockcompress) return (text ? textBlocks : valueBlocks).length(value);
 
-    final DataAccess da = text ? texts : values;
-    final int l = da.readNum(value & Compress.COMPRESS - 1);
+    final DataReader dr = reader(text);
+    final int l = dr.readNum(value & Compress.COMPRESS - 1);
     // if text is compressed, read number of compressed bytes
-    return Compress.compressed(value) ? da.readNum() : l;
+    return Compress.compressed(value) ? dr.readNum() : l;
   }
 
   /**
@@ -303,10 +542,22 @@ public final class DiskData extends Data {
    * @return text
    */
   private byte[] txt(final long offset, final boolean text) {
-    final byte[] txt = (text ? texts : values).readToken(offset & Compress.COMPRESS - 1);
+    if(meta.blockcompress) return (text ? textBlocks : valueBlocks).text(offset);
+    final byte[] txt = reader(text).readToken(offset & Compress.COMPRESS - 1);
     return Compress.compressed(offset) ? Compress.unpack(txt) : txt;
   }
 
+  /**
+   * Returns a reader for texts or attribute values.
+   * @param text text or attribute flag
+   * @return reader
+   */
+  private DataReader reader(final boolean text) {
+    final DataAccess store = text ? texts : values;
+    // snapshots ignore texts that have been appended later on
+    return origin != null ? store.diskReader() : store.reader();
+  }
+
   @Override
   public boolean inMemory() {
     return false;
@@ -319,7 +570,11 @@ public final class DiskData extends Data {
     // old entry (offset or value)
     final long old = textRef(pre);
     // if old text was not inlined, fill unused space in text file with zero bytes
-    if(!Inline.inlined(old)) (text ? texts : values).free(old & Compress.COMPRESS - 1, 0);
+    // (space of compressed text blocks and of texts that may be referenced by snapshots
+    // will be reclaimed by optimizations)
+    if(!Inline.inlined(old) && !meta.blockcompress && !meta.snapshots) {
+      (text ? texts : values).free(old & Compress.COMPRESS - 1, 0);
+    }
   }
 
   @Override
@@ -334,9 +589,12 @@ public final class DiskData extends Data {
 
     // check if new entry can be inlined
     final long v = Inline.packInt(value);
-    if(v != -1) {
+    if(meta.blockcompress) {
+      // compressed text blocks: append new entry
+      textRef(pre, v != -1 ? v : (kind == ATTR ? valueBlocks : textBlocks).add(value));
+    } else if(v != -1) {
       // invalidate old entry if it was not inlined
-      if(!Inline.inlined(oldRef)) store.free(oldRef & Compress.COMPRESS - 1, 0);
+      if(!Inline.inlined(oldRef) && !meta.snapshots) store.free(oldRef & Compress.COMPRESS - 1, 0);
       // inline integer value
       textRef(pre, v);
     } else {
@@ -345,8 +603,8 @@ public final class DiskData extends Data {
 
       // choose inserting position
       final long off;
-      if(Inline.inlined(oldRef)) {
-        // old entry was inlined: append new entry to heap file
+      if(Inline.inlined(oldRef) || meta.snapshots) {
+        // old entry was inlined or may be referenced by a snapshot: append new entry to heap file
         off = store.length();
       } else {
         // otherwise, compute inserting position and invalidate old entry
@@ -367,6 +625,7 @@ public final class DiskData extends Data {
     // try to inline value
     final long inlined = Inline.pack(value);
     if(inlined != 0) return inlined;
+    if(meta.blockcompress) return (text ? textBlocks : valueBlocks).add(value);
 
     // store text in heap file
     final byte[] packed = Compress.pack(value);
@@ -47,11 +47,17 @@ public final class MetaData {
   public boolean tokenindex;
   /** Indicates if a full-text index exists. */
   public boolean ftindex;
+  /** Indicates if the full-text index stores node ids instead of pre values. */
+  public boolean ftids;
+  /** Indicates if long entries of the full-text index are preceded by skip tables. */
+  public boolean ftskips;
 
   /** Flag for activated automatic index update. */
   public boolean updindex;
   /** Flag for automatic index updating. */
   public boolean autooptimize;
+  /** Flag for storing texts and attribute values in compressed blocks. */
+  public boolean blockcompress;
 
   /** Indicates if the text index is to be recreated. */
   public boolean createtext;
@@ -95,6 +101,12 @@ public final class MetaData {
   public boolean corrupt;
   /** Dirty flag. */
   public boolean dirty;
+  /** Flag for using memory-mapped files (not stored on disk). */
+  public boolean mmap;
+  /** Flag for reading snapshots of updated databases (not stored on disk). */
+  public boolean snapshots;
+  /** Number of threads for building index structures (not stored on disk). */
+  public int indexthreads;
 
   /** Number of nodes. */
   public int size;
@@ -140,6 +152,7 @@ public final class MetaData {
     casesens = options.get(MainOptions.CASESENS);
     updindex = options.get(MainOptions.UPDINDEX);
     autooptimize = options.get(MainOptions.AUTOOPTIMIZE);
+    blockcompress = options.get(MainOptions.BLOCKCOMPRESS);
     maxlen = options.get(MainOptions.MAXLEN);
     maxcats = options.get(MainOptions.MAXCATS);
     stopwords = options.get(MainOptions.STOPWORDS);
@@ -149,6 +162,22 @@ public final class MetaData {
     tokeninclude = options.get(MainOptions.TOKENINCLUDE);
     ftinclude = options.get(MainOptions.FTINCLUDE);
     splitsize = options.get(MainOptions.SPLITSIZE);
+    mmap = options.get(MainOptions.MMAP);
+    snapshots = options.get(MainOptions.SNAPSHOTS);
+    indexthreads = options.get(MainOptions.INDEXTHREADS);
+  }
+
+  /**
+   * Constructor for the meta data of a database snapshot.
+   * Persistent meta data must be assigned via {@link #read(DataInput)}.
+   * @param meta meta data of the database
+   */
+  MetaData(final MetaData meta) {
+    name = meta.name;
+    dir = meta.dir;
+    mmap = meta.mmap;
+    snapshots = meta.snapshots;
+    indexthreads = meta.indexthreads;
   }
 
   // STATIC METHODS ===============================================================================
@@ -403,10 +432,13 @@ public final class MetaData {
         case DBFTDC:     diacritics = toBoolean(v); break;
         case DBUPDIDX:   updindex = toBoolean(v); break;
         case DBAUTOOPT:  autooptimize = toBoolean(v); break;
+        case DBBLOCKS:   blockcompress = toBoolean(v); break;
         case DBTXTIDX:   textindex = toBoolean(v); break;
         case DBATVIDX:   attrindex = toBoolean(v); break;
         case DBTOKIDX:   tokenindex = toBoolean(v); break;
         case DBFTXIDX:   ftindex = toBoolean(v); break;
+        case DBFTXIDS:   ftids = toBoolean(v); break;
+        case DBFTXSKP:   ftskips = toBoolean(v); break;
         case DBTXTINC:   textinclude = v; break;
         case DBATVINC:   attrinclude = v; break;
         case DBTOKINC:   tokeninclude = v; break;
@@ -423,11 +455,14 @@ public final class MetaData {
     }
 
     // check version of database storage
-    if(!storage.equals(STORAGE) && new Version(storage).compareTo(new Version(
-        STORAGE)) > 0) throw new BuildException(H_DB_FORMAT, storage);
+    if(!storage.equals(STORAGE) && !storage.equals(BLOCKSTORAGE) && new Version(storage).compareTo(
+        new Version(STORAGE)) > 0) throw new BuildException(H_DB_FORMAT, storage);
     // check version of database indexes
     oldindex = !istorage.equals(ISTORAGE) &&
         new Version(istorage).compareTo(new Version(ISTORAGE)) > 0;
+    // discard full-text index of an updatable database without node ids (older versions):
+    // it will be recreated with the next optimization
+    if(ftindex && ftids != updindex) ftindex = false;
     corrupt = dbFile(DATAUPD).exists();
   }
 
@@ -437,7 +472,8 @@ public final class MetaData {
    * @throws IOException I/O Exception
    */
   void write(final DataOutput out) throws IOException {
-    writeInfo(out, DBSTR,      STORAGE);
+    // databases with compressed text blocks cannot be opened by older versions
+    writeInfo(out, DBSTR,      blockcompress ? BLOCKSTORAGE : STORAGE);
     writeInfo(out, DBFNAME,    original);
     writeInfo(out, DBTIME,     time);
     writeInfo(out, IDBSTR,     ISTORAGE);
@@ -446,10 +482,13 @@ public final class MetaData {
     writeInfo(out, DBSIZE,     size);
     writeInfo(out, DBUPDIDX,   updindex);
     writeInfo(out, DBAUTOOPT,  autooptimize);
+    writeInfo(out, DBBLOCKS,   blockcompress);
     writeInfo(out, DBTXTIDX,   textindex);
     writeInfo(out, DBATVIDX,   attrindex);
     writeInfo(out, DBTOKIDX,   tokenindex);
     writeInfo(out, DBFTXIDX,   ftindex);
+    writeInfo(out, DBFTXIDS,   ftids);
+    writeInfo(out, DBFTXSKP,   ftskips);
     writeInfo(out, DBTXTINC,   textinclude);
     writeInfo(out, DBATVINC,   attrinclude);
     writeInfo(out, DBTOKINC,   tokeninclude);
@@ -483,8 +522,8 @@ public final class MetaData {
       textindex = false;
       attrindex = false;
       tokenindex = false;
+      ftindex = false;
     }
-    ftindex = false;
   }
 
   /**
@@ -46,6 +46,12 @@ public abstract class IndexBuilder extends Job {
   protected int splits;
   /** Threshold for freeing memory when estimating main memory consumption. */
   private int gcCount;
+  /** Builders that share the memory budget ({@code null} if the budget is not shared). */
+  private IndexBuilder[] builders;
+  /** Number of index operations at the time the last partial index was written. */
+  private long written;
+  /** Number of index operations that have not been written to disk yet. */
+  private volatile long cached;
 
   /**
    * Constructor.
@@ -64,6 +70,14 @@ public abstract class IndexBuilder extends Job {
     if(Performance.memory() >= maxMem) clean();
   }
 
+  /**
+   * Assigns the builders that are run at the same time and share the memory budget.
+   * @param ib builders, including this builder
+   */
+  public final void share(final IndexBuilder[] ib) {
+    builders = ib;
+  }
+
   /**
    * Builds the index structure and returns an index instance.
    * @return index instance
@@ -82,11 +96,12 @@ public abstract class IndexBuilder extends Job {
   }
 
   /**
-   * Checks if the current entry should be indexed.
+   * Checks if the specified entry should be indexed.
+   * @param pr pre value
    * @return result of check
    */
-  protected final boolean indexEntry() {
-    return data.kind(pre) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(pre, text);
+  protected final boolean indexEntry(final int pr) {
+    return data.kind(pr) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(pr, text);
   }
 
   /**
@@ -102,7 +117,7 @@ public abstract class IndexBuilder extends Job {
       split = count >= (splits + 1L) * splitSize;
     } else {
       // if not, estimate how much main memory is left
-      split = Performance.memory() >= maxMem;
+      split = Performance.memory() >= maxMem && exceeded();
       // stop operation if index splitting degenerates
       int gc = gcCount;
       if(split) {
@@ -113,10 +128,35 @@ public abstract class IndexBuilder extends Job {
       }
       gcCount = gc;
     }
-    if(split && Prop.debug) Util.err("|");
+    if(split) {
+      written = count;
+      cached = 0;
+      if(Prop.debug) Util.err("|");
+    }
     return split;
   }
 
+  /**
+   * Checks if this builder exceeds its share of the memory budget. If builders are run at the
+   * same time, the budget is split evenly among all builders with cached entries, and the
+   * consumed memory is assumed to be proportional to the number of cached index operations.
+   * @return result of check
+   */
+  private boolean exceeded() {
+    if(builders == null) return true;
+    cached = count - written;
+    long total = 0;
+    int active = 0;
+    for(final IndexBuilder ib : builders) {
+      final long c = ib.cached;
+      if(c > 0) {
+        total += c;
+        active++;
+      }
+    }
+    return cached * active >= total;
+  }
+
   /**
    * Performs memory cleanup after writing partial memory if necessary.
    */
@@ -128,6 +168,7 @@ public abstract class IndexBuilder extends Job {
    * Prints some final debugging information.
    */
   protected final void finishIndex() {
+    cached = 0;
     if(!Prop.debug) return;
 
     final StringBuilder sb = new StringBuilder();
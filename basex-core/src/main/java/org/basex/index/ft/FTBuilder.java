@@ -12,6 +12,7 @@ import org.basex.index.*;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
 import org.basex.util.ft.*;
+import org.basex.util.hash.*;
 import org.basex.util.list.*;
 
 /**
@@ -35,22 +36,31 @@ public final class FTBuilder extends IndexBuilder {
    */
   public FTBuilder(final Data data) throws IOException {
     super(data, IndexType.FULLTEXT);
-    final MetaData meta = data.meta;
     tree = new FTIndexTrees(data.meta.maxlen);
+    lexer = lexer(data);
+  }
 
+  /**
+   * Creates a lexer for the full-text options of the specified database.
+   * @param data data reference
+   * @return lexer
+   * @throws IOException I/O exception
+   */
+  static FTLexer lexer(final Data data) throws IOException {
+    final MetaData meta = data.meta;
     final FTOpt fto = new FTOpt();
     fto.set(FTFlag.DC, meta.diacritics);
     fto.set(FTFlag.ST, meta.stemming);
     fto.cs = meta.casesens ? FTCase.SENSITIVE : FTCase.INSENSITIVE;
     fto.sw = new StopWords(data, meta.stopwords);
-    fto.ln = data.meta.language;
+    fto.ln = meta.language;
 
     if(!Tokenizer.supportFor(fto.ln))
       throw new BaseXException(NO_TOKENIZER_X, fto.ln);
     if(meta.stemming && !Stemmer.supportFor(fto.ln))
       throw new BaseXException(NO_STEMMER_X, fto.ln);
 
-    lexer = new FTLexer(fto);
+    return new FTLexer(fto);
   }
 
   @Override
@@ -58,9 +68,12 @@ public final class FTBuilder extends IndexBuilder {
     Util.debug(detailedInfo());
 
     try {
+      // updatable index structures: store node ids, discard obsolete updates
+      final boolean updindex = data.meta.updindex;
+      data.meta.drop(DATAFTX + "[de]");
       for(pre = 0; pre < size; ++pre) {
         if((pre & 0x0FFF) == 0) check();
-        if(!indexEntry()) continue;
+        if(!indexEntry(pre)) continue;
 
         // current lexer position
         final StopWords sw = lexer.ftOpt().sw;
@@ -76,7 +89,7 @@ public final class FTBuilder extends IndexBuilder {
               writeIndex(true);
               clean();
             }
-            tree.index(token, pre, pos, splits);
+            tree.index(token, updindex ? data.id(pre) : pre, pos, splits);
             count++;
           }
         }
@@ -85,6 +98,8 @@ public final class FTBuilder extends IndexBuilder {
       // finalize partial or all index structures
       write(splits > 0);
 
+      data.meta.ftids = updindex;
+      data.meta.ftskips = !updindex;
       finishIndex();
       return new FTIndex(data);
 
@@ -104,18 +119,30 @@ public final class FTBuilder extends IndexBuilder {
     writeIndex(partial);
     if(!partial) return;
 
-    // merges temporary index files
-    try(DataOutput outX = new DataOutput(data.meta.dbFile(DATAFTX + 'x'));
-        DataOutput outY = new DataOutput(data.meta.dbFile(DATAFTX + 'y'));
-        DataOutput outZ = new DataOutput(data.meta.dbFile(DATAFTX + 'z'))) {
+    final FTList[] lists = new FTList[splits];
+    for(int b = 0; b < splits; ++b) lists[b] = new FTList(data, b);
+    merge(data, lists, DATAFTX, null);
+  }
 
-      final IntList ind = new IntList();
+  /**
+   * Merges index files. The input files will be closed.
+   * @param data data reference
+   * @param v index files to be merged
+   * @param target name of the resulting index files (without suffix)
+   * @param deleted ids to be skipped in the first index file (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  static void merge(final Data data, final FTList[] v, final String target, final IntSet deleted)
+      throws IOException {
 
-      // open all temporary sorted lists
-      final FTList[] v = new FTList[splits];
-      for(int b = 0; b < splits; ++b) v[b] = new FTList(data, b);
+    // skip tables are only written if pre values are stored, as node ids are not ordered
+    final int splits = v.length;
+    final boolean skips = !data.meta.updindex;
+    try(DataOutput outX = new DataOutput(data.meta.dbFile(target + 'x'));
+        DataOutput outY = new DataOutput(data.meta.dbFile(target + 'y'));
+        DataOutput outZ = new DataOutput(data.meta.dbFile(target + 'z'))) {
 
-      final IntList il = new IntList();
+      final IntList ind = new IntList(), il = new IntList();
       while(check(v)) {
         il.reset();
         int m = 0;
@@ -134,19 +161,27 @@ public final class FTBuilder extends IndexBuilder {
           }
         }
 
-        if(ind.isEmpty() || ind.get(ind.size() - 2) < v[m].token.length) {
-          ind.add(v[m].token.length);
+        // merge and write data; skip tokens without remaining entries
+        final byte[] token = v[m].token;
+        final long dr = outZ.size();
+        final int ds = merge(outZ, il, v, deleted, skips);
+        if(ds == 0) continue;
+
+        if(ind.isEmpty() || ind.get(ind.size() - 2) < token.length) {
+          ind.add(token.length);
           ind.add((int) outY.size());
         }
 
         // write token
-        outY.writeBytes(v[m].token);
-        // pointer on full-text data
-        outY.write5(outZ.size());
-        // merge and write data size
-        outY.write4(merge(outZ, il, v));
+        outY.writeBytes(token);
+        // pointer on full-text data (behind the skip table)
+        outY.write5(dr + skipTable(ds, skips));
+        // data size
+        outY.write4(ds);
       }
-      writeInd(outX, ind, ind.get(ind.size() - 2) + 1, (int) outY.size());
+      writeInd(outX, ind, ind.isEmpty() ? 1 : ind.get(ind.size() - 2) + 1, (int) outY.size());
+    } finally {
+      for(final FTList list : v) list.close();
     }
   }
 
@@ -158,7 +193,7 @@ public final class FTBuilder extends IndexBuilder {
    * @param lp last offset
    * @throws IOException I/O exception
    */
-  private static void writeInd(final DataOutput outX, final IntList il, final int ls, final int lp)
+  static void writeInd(final DataOutput outX, final IntList il, final int ls, final int lp)
       throws IOException {
 
     final int is = il.size();
@@ -183,8 +218,8 @@ public final class FTBuilder extends IndexBuilder {
         DataOutput outZ = new DataOutput(data.meta.dbFile(name + 'z'))) {
 
       final IntList ind = new IntList();
+      final boolean skips = !partial && !data.meta.updindex;
       tree.init();
-      long dr = 0;
       int tr = 0, j = 0;
       while(tree.more(splits)) {
         final FTIndexTree t = tree.nextTree();
@@ -198,14 +233,14 @@ public final class FTBuilder extends IndexBuilder {
           ind.add(tr);
         }
         for(int i = 0; i < j; ++i) outY.write1(key[i]);
-        // write pointer on full-text data
-        outY.write5(dr);
+        // write pointer on full-text data (behind the skip table)
+        final int ds = t.nextNumPre();
+        outY.write5(outZ.size() + skipTable(ds, skips));
         // write full-text data size (number of pre values)
-        outY.write4(t.nextNumPre());
+        outY.write4(ds);
         // write compressed pre and pos arrays
-        writeFTData(outZ, t.nextPres(), t.nextPoss());
+        writeFTData(outZ, t.nextPres(), t.nextPoss(), skips);
 
-        dr = outZ.size();
         tr = (int) outY.size();
       }
       writeInd(outX, ind, ++j, tr);
@@ -221,11 +256,13 @@ public final class FTBuilder extends IndexBuilder {
    * @param out full-text data
    * @param il array mapping
    * @param list full-text list
+   * @param deleted ids to be skipped in the first list (can be {@code null})
+   * @param skips write skip table
    * @return written size
    * @throws IOException I/O exception
    */
-  private static int merge(final DataOutput out, final IntList il, final FTList[] list)
-      throws IOException {
+  private static int merge(final DataOutput out, final IntList il, final FTList[] list,
+      final IntSet deleted, final boolean skips) throws IOException {
 
     final ByteList tbp = new ByteList().add(new byte[4]), tbo = new ByteList().add(new byte[4]);
     // merge full-text data of all sorted lists with the same token
@@ -233,9 +270,14 @@ public final class FTBuilder extends IndexBuilder {
     final int is = il.size();
     for(int j = 0; j < is; ++j) {
       final int m = il.get(j);
-      for(final int p : list[m].prv) tbp.add(Num.num(p));
-      for(final int p : list[m].pov) tbo.add(Num.num(p));
-      s += list[m].size;
+      final int[] prv = list[m].prv, pov = list[m].pov;
+      final int ps = prv.length;
+      for(int p = 0; p < ps; p++) {
+        if(m == 0 && deleted != null && deleted.contains(prv[p])) continue;
+        tbp.add(Num.num(prv[p]));
+        tbo.add(Num.num(pov[p]));
+        s++;
+      }
       list[m].next();
     }
     // write compressed pre and pos arrays
@@ -245,23 +287,51 @@ public final class FTBuilder extends IndexBuilder {
     Num.size(po, po.length);
 
     // write full-text data
-    writeFTData(out, pr, po);
+    writeFTData(out, pr, po, skips);
     return s;
   }
 
+  /**
+   * Returns the size of the skip table of a token.
+   * @param size number of pre values
+   * @param skips skip tables are written
+   * @return size in bytes
+   */
+  private static long skipTable(final int size, final boolean skips) {
+    return skips ? (long) FTIndex.skips(size) * FTIndex.SKIP : 0;
+  }
+
   /**
    * Writes full-text data for a single token to disk.
    * Format: {@code score? pre1 pos1 pre2 pos2 ... (0 score)? pre...}
+   * If skip tables are written, entries with more than {@link FTIndex#BLOCK} pre values are
+   * preceded by the first pre value and the relative data offset of each subsequent block.
    * @param out DataOutput for disk access
    * @param vpre compressed pre values
    * @param vpos compressed pos values
+   * @param skips write skip table
    * @throws IOException IOException
    */
-  private static void writeFTData(final DataOutput out, final byte[] vpre, final byte[] vpos)
-      throws IOException {
+  private static void writeFTData(final DataOutput out, final byte[] vpre, final byte[] vpos,
+      final boolean skips) throws IOException {
 
     int np = 4, pp = 4;
     final int ns = Num.size(vpre);
+    if(skips) {
+      long off = 0;
+      for(int c = 0; np < ns; c++) {
+        if(c > 0 && c % FTIndex.BLOCK == 0) {
+          out.write4(Num.get(vpre, np));
+          out.write5(off);
+        }
+        final int lpre = Num.length(vpre, np), lpos = Num.length(vpos, pp);
+        np += lpre;
+        pp += lpos;
+        off += lpre + lpos;
+      }
+      np = 4;
+      pp = 4;
+    }
     while(np < ns) {
       // full-text data is stored here, with -scoreU, pre1, pos1, ...,
       // -scoreU, preU, posU
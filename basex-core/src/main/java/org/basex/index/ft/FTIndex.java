@@ -6,6 +6,7 @@ import static org.basex.util.Token.*;
 import static org.basex.util.ft.FTFlag.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -13,6 +14,10 @@ import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
 import org.basex.index.value.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.query.expr.ft.*;
 import org.basex.query.util.ft.*;
@@ -44,33 +49,71 @@ import org.basex.util.similarity.*;
  * </li>
  * <li>File <b>z</b> contains the {@code id/pos} references.
  *   The values are ordered, but not distinct:
- *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}]</li>
+ *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}]
+ *   If {@link MetaData#ftskips} is set, entries with more than {@link #BLOCK} values are
+ *   preceded by a skip table, which contains the first pre value and the data offset
+ *   of each subsequent block: {@code [p, o] ...}. {@code p} is the pre value [int],
+ *   {@code o} the offset, relative to the pointer on the data entries [long].</li>
  * </ul>
  *
+ * <p>If the index is updatable ({@link MetaData#updindex}), node ids are stored instead of
+ * pre values ({@link MetaData#ftids}). New entries are added to an in-memory delta structure,
+ * and ids of deleted or updated entries are registered as tombstones. The updated texts and
+ * their ids are appended to the file <b>d</b> when the index is flushed, and they are
+ * tokenized again when the index is opened. If the delta structure gets too large, it is
+ * merged with the main files in a background thread: the merged index is written to the files
+ * <b>mx</b>, <b>my</b> and <b>mz</b>, and the file <b>m</b> is created as soon as they are
+ * complete. In the meantime, new changes are appended to the file <b>e</b>. The main files
+ * and <b>d</b> are replaced with the next flush or when the index is closed. A merge that has
+ * been interrupted is completed or discarded when the index is opened again.</p>
+ *
  * @author BaseX Team 2005-20, BSD License
  * @author Christian Gruen
  */
 public final class FTIndex extends ValueIndex {
   /** Minimum fixed size for each token entry. */
   private static final int ENTRY = 9;
+  /** Number of id/pos pairs per block of an index entry. */
+  static final int BLOCK = 128;
+  /** Size of a skip table entry. */
+  static final int SKIP = 9;
 
   /** Cached texts. Increases used memory, but speeds up repeated queries. */
-  private final IntObjMap<byte[]> ctext = new IntObjMap<>();
+  private IntObjMap<byte[]> ctext;
   /** Levenshtein reference. */
   private final Levenshtein ls = new Levenshtein();
 
   /** Index storing each unique token length and pointer
    * on the first token with this length. */
-  private final DataAccess dataX;
+  private DataAccess dataX;
   /** Index storing each token, its data size and pointer on the data. */
-  private final DataAccess dataY;
+  private DataAccess dataY;
   /** Storing pre and pos values for each token. */
-  private final DataAccess dataZ;
+  private DataAccess dataZ;
 
   /** Cache for number of hits and data reference per token. */
-  private final IndexCache cache = new IndexCache();
+  private IndexCache cache;
   /** Token positions. */
-  private final int[] positions;
+  private int[] positions;
+
+  /** Updatable index (node ids are stored instead of pre values). */
+  private final boolean updatable;
+  /** Entries that have been added since the last merge: tokens and id/pos pairs. */
+  private final TokenObjMap<IntList> delta = new TokenObjMap<>();
+  /** Ids of the entries in the main files that have been deleted or updated. */
+  private IntSet deleted = new IntSet();
+  /** Number of id/pos pairs in the delta structure. */
+  private int deltaSize;
+  /** Changes that have not been written to disk yet. */
+  private final ArrayOutput buffer = new ArrayOutput();
+  /** Output for writing changes to the buffer. */
+  private final DataOutput changes = new DataOutput(buffer);
+  /** Background merge ({@code null} if no merge is running). */
+  private Thread merge;
+  /** Indicates if the background merge was successful. */
+  private volatile boolean merged;
+  /** Lexer for tokenizing updated texts (lazy instantiation). */
+  private FTLexer lexer;
 
   /**
    * Constructor, initializing the index structure.
@@ -79,18 +122,10 @@ public final class FTIndex extends ValueIndex {
    */
   public FTIndex(final Data data) throws IOException {
     super(data, IndexType.FULLTEXT);
-    // cache token length index
-    dataX = new DataAccess(data.meta.dbFile(DATAFTX + 'x'));
-    dataY = new DataAccess(data.meta.dbFile(DATAFTX + 'y'));
-    dataZ = new DataAccess(data.meta.dbFile(DATAFTX + 'z'));
-    positions = new int[data.meta.maxlen + 3];
-    final int pl = positions.length;
-    for(int p = 0; p < pl; p++) positions[p] = -1;
-    for(int is = dataX.readNum(); --is >= 0;) {
-      final int p = dataX.readNum();
-      positions[p] = dataX.read4();
-    }
-    positions[pl - 1] = (int) dataY.length();
+    updatable = data.meta.updindex;
+    if(updatable) recover();
+    open();
+    if(updatable) read();
   }
 
   @Override
@@ -101,7 +136,7 @@ public final class FTIndex extends ValueIndex {
     // estimate costs for queries which stretch over multiple index entries
     final FTOpt opt = ((FTLexer) search).ftOpt();
     return IndexCosts.get(opt.is(FZ) || opt.is(WC) ? Math.max(1, data.meta.size >> 4) :
-      entry(token).size);
+      entry(token).size + pairs(delta.get(token)));
   }
 
   @Override
@@ -125,12 +160,10 @@ public final class FTIndex extends ValueIndex {
 
     // return cached or new result
     final IndexEntry entry = entry(token);
-    if(entry.size > 0) {
-      return iter(entry.offset, entry.size, dataZ, token);
-    }
-
-    // no results
-    return FTIndexIterator.FTEMPTY;
+    final FTIndexIterator iter = entry.size > 0 ? iter(entry.offset, entry.size, token) :
+      FTIndexIterator.FTEMPTY;
+    final IntList list = delta.get(token);
+    return pairs(list) > 0 ? FTIndexIterator.union(iter(list, token), iter) : iter;
   }
 
   /**
@@ -150,6 +183,50 @@ public final class FTIndex extends ValueIndex {
   @Override
   public EntryIterator entries(final IndexEntries entries) {
     final byte[] token = entries.token();
+    final EntryIterator iter = entries(token);
+    if(delta.isEmpty()) return iter;
+
+    // include tokens of the delta structure
+    return new EntryIterator() {
+      TokenList added;
+      int a, nr;
+
+      @Override
+      public byte[] next() {
+        synchronized(FTIndex.this) {
+          final byte[] entry = iter.next();
+          if(entry != null) {
+            nr = iter.count() + pairs(delta.get(entry));
+            return entry;
+          }
+          if(added == null) {
+            added = new TokenList();
+            for(final byte[] tok : delta) {
+              if(startsWith(tok, token) && pairs(delta.get(tok)) > 0 && token(tok) == -1) {
+                added.add(tok);
+              }
+            }
+            added.sort();
+          }
+          if(a == added.size()) return null;
+          final byte[] tok = added.get(a++);
+          nr = pairs(delta.get(tok));
+          return tok;
+        }
+      }
+      @Override
+      public int count() {
+        return nr;
+      }
+    };
+  }
+
+  /**
+   * Returns an iterator for all tokens of the main files that start with the specified prefix.
+   * @param token prefix
+   * @return iterator
+   */
+  private EntryIterator entries(final byte[] token) {
     return new EntryIterator() {
       int p = token.length - 1, start, end, nr;
       boolean inner;
@@ -248,9 +325,19 @@ public final class FTIndex extends ValueIndex {
 
   @Override
   public synchronized void close() {
-    dataX.close();
-    dataY.close();
-    dataZ.close();
+    flush();
+    // wait for a background merge, replace main files if it was successful
+    if(merge != null) await();
+    closeFiles();
+    if(merged) {
+      merged = false;
+      try {
+        swap();
+      } catch(final IOException ex) {
+        // merge will be completed when the index is opened again
+        Util.stack(ex);
+      }
+    }
   }
 
   @Override
@@ -353,15 +440,54 @@ public final class FTIndex extends ValueIndex {
       int t = s + 1, r = -1;
       while(t < pl && r == -1) r = positions[t++];
       while(p < r) {
-        if(ls.similar(dataY.readBytes(p, s), token, k)) {
-          iter = FTIndexIterator.union(iter(pointer(p, s), size(p, s), dataZ, token), iter);
+        final byte[] tok = dataY.readBytes(p, s);
+        final int m = ls.mismatch(tok, token, k);
+        if(m == -1) {
+          iter = FTIndexIterator.union(iter(pointer(p, s), size(p, s), token), iter);
         }
-        p += s + ENTRY;
+        // skip all tokens with a prefix that rules out a similarity
+        p = m == -1 || m >= s ? p + s + ENTRY : skip(tok, m, p + s + ENTRY, r, s);
+      }
+    }
+    for(final byte[] tok : delta) {
+      final IntList list = delta.get(tok);
+      if(pairs(list) > 0 && ls.similar(tok, token, k)) {
+        iter = FTIndexIterator.union(iter(list, token), iter);
       }
     }
     return iter;
   }
 
+  /**
+   * Returns the position of the first token that does not start with the specified prefix.
+   * As tokens are sorted, this is the first token that is greater than the prefix.
+   * @param token token
+   * @param pl length of the prefix
+   * @param start position of the first token to be checked
+   * @param end end position (exclusive)
+   * @param tl token length
+   * @return position
+   */
+  private int skip(final byte[] token, final int pl, final int start, final int end,
+      final int tl) {
+    // compute the smallest prefix that is greater than all tokens starting with the prefix
+    int l = pl;
+    while(l > 0 && token[l - 1] == (byte) 0xFF) l--;
+    if(l == 0) return end;
+    final byte[] next = Arrays.copyOf(token, l);
+    next[l - 1]++;
+
+    // binary search
+    final int o = tl + ENTRY;
+    int s = 0, e = (end - start) / o;
+    while(s < e) {
+      final int m = s + e >>> 1;
+      if(diff(dataY.readBytes(start + m * o, l), next) < 0) s = m + 1;
+      else e = m;
+    }
+    return start + s * o;
+  }
+
   /**
    * Performs a wildcard search for the specified token.
    * @param wc wildcard matcher
@@ -387,13 +513,18 @@ public final class FTIndex extends ValueIndex {
           dataZ.cursor(pointer(start, p));
           final int s = size(start, p);
           for(int d = 0; d < s; d++) {
-            pr.add(dataZ.readNum());
-            ps.add(dataZ.readNum());
+            final int pre = pre(dataZ.readNum()), pos = dataZ.readNum();
+            if(pre == -1) continue;
+            pr.add(pre);
+            ps.add(pos);
           }
         }
         start += p + ENTRY;
       }
     }
+    for(final byte[] tok : delta) {
+      if(startsWith(tok, prefix) && wc.match(tok)) add(delta.get(tok), pr, ps);
+    }
     return iter(new FTCache(pr, ps), token);
   }
 
@@ -401,21 +532,194 @@ public final class FTIndex extends ValueIndex {
    * Returns an iterator for an index entry.
    * @param off offset on entries
    * @param size number of id/pos entries
-   * @param da data source
    * @param token index token
    * @return iterator
    */
-  private static FTIndexIterator iter(final long off, final int size, final DataAccess da,
-      final byte[] token) {
-    da.cursor(off);
+  private FTIndexIterator iter(final long off, final int size, final byte[] token) {
+    if(!updatable && data.meta.ftskips && size > BLOCK) return blocks(off, size, token);
+
+    dataZ.cursor(off);
     final IntList pr = new IntList(size), ps = new IntList(size);
     for(int c = 0; c < size; c++) {
-      pr.add(da.readNum());
-      ps.add(da.readNum());
+      final int pre = pre(dataZ.readNum()), pos = dataZ.readNum();
+      if(pre == -1) continue;
+      pr.add(pre);
+      ps.add(pos);
     }
     return iter(new FTCache(pr, ps), token);
   }
 
+  /**
+   * Returns an iterator for an index entry with a skip table.
+   * The entry is decoded block by block, and skipped blocks are not decoded at all.
+   * @param off offset on entries
+   * @param size number of pre/pos entries
+   * @param token index token
+   * @return iterator
+   */
+  private FTIndexIterator blocks(final long off, final int size, final byte[] token) {
+    final int bs = skips(size);
+
+    return new FTIndexIterator() {
+      final FTMatches all = new FTMatches();
+      final int[] pres = new int[BLOCK], poss = new int[BLOCK];
+      /** First pre values of the blocks after the first one (lazy instantiation). */
+      int[] firsts;
+      /** Data offsets of the blocks after the first one. */
+      long[] offsets;
+      /** Offset of the next block. */
+      long next = off;
+      int pos, pre, b = -1, p, l;
+
+      @Override
+      public boolean more() {
+        if(!pair()) return false;
+        all.reset(pos);
+        pre = pres[p];
+        all.or(poss[p++]);
+        while(pair() && pres[p] == pre) all.or(poss[p++]);
+        return true;
+      }
+
+      @Override
+      public boolean skip(final int pr) {
+        if(firsts == null) {
+          firsts = new int[bs];
+          offsets = new long[bs];
+          synchronized(FTIndex.this) {
+            dataZ.cursor(off - (long) bs * SKIP);
+            for(int s = 0; s < bs; s++) {
+              firsts[s] = dataZ.read4();
+              offsets[s] = dataZ.read5();
+            }
+          }
+        }
+        // find the last remaining block with a smaller first pre value
+        int lo = Math.max(b, 0), hi = bs;
+        while(lo < hi) {
+          final int m = lo + hi + 1 >>> 1;
+          if(firsts[m - 1] < pr) lo = m;
+          else hi = m - 1;
+        }
+        if(lo > b) {
+          next = off + (lo > 0 ? offsets[lo - 1] : 0);
+          read(lo);
+        }
+        while(pair() && pres[p] < pr) p++;
+        return more();
+      }
+
+      /**
+       * Checks if another pair exists, and reads the next block if required.
+       * @return result of check
+       */
+      private boolean pair() {
+        if(p < l) return true;
+        if(b == bs) return false;
+        read(b + 1);
+        return true;
+      }
+
+      /**
+       * Reads a block.
+       * @param n block number
+       */
+      private void read(final int n) {
+        l = Math.min(BLOCK, size - n * BLOCK);
+        synchronized(FTIndex.this) {
+          dataZ.cursor(next);
+          for(int i = 0; i < l; i++) {
+            pres[i] = dataZ.readNum();
+            poss[i] = dataZ.readNum();
+          }
+          next = dataZ.cursor();
+        }
+        b = n;
+        p = 0;
+      }
+
+      @Override
+      public FTMatches matches() {
+        return all;
+      }
+
+      @Override
+      public int pre() {
+        return pre;
+      }
+
+      @Override
+      public void pos(final int ps) {
+        pos = ps;
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public String toString() {
+        return Strings.concat(token, '(', size, "x)");
+      }
+    };
+  }
+
+  /**
+   * Returns the number of entries of the skip table of an index entry.
+   * @param size number of pre/pos entries
+   * @return number of skip table entries
+   */
+  static int skips(final int size) {
+    return (size - 1) / BLOCK;
+  }
+
+  /**
+   * Returns an iterator for an entry of the delta structure.
+   * @param list id/pos pairs
+   * @param token index token
+   * @return iterator
+   */
+  private FTIndexIterator iter(final IntList list, final byte[] token) {
+    final IntList pr = new IntList(), ps = new IntList();
+    add(list, pr, ps);
+    return iter(new FTCache(pr, ps), token);
+  }
+
+  /**
+   * Adds the pre values and positions of an entry of the delta structure.
+   * @param list id/pos pairs (can be {@code null})
+   * @param pr pre values
+   * @param ps positions
+   */
+  private void add(final IntList list, final IntList pr, final IntList ps) {
+    final int sz = list != null ? list.size() : 0;
+    for(int l = 0; l < sz; l += 2) {
+      final int pre = data.pre(list.get(l));
+      if(pre == -1) continue;
+      pr.add(pre);
+      ps.add(list.get(l + 1));
+    }
+  }
+
+  /**
+   * Returns the pre value for a value stored in the main files.
+   * @param value pre value or (if the index is updatable) node id
+   * @return pre value, or {@code -1} if the entry has been deleted
+   */
+  private int pre(final int value) {
+    return !updatable ? value : deleted.contains(value) ? -1 : data.pre(value);
+  }
+
+  /**
+   * Returns the number of id/pos pairs of an entry of the delta structure.
+   * @param list id/pos pairs (can be {@code null})
+   * @return number of pairs
+   */
+  private static int pairs(final IntList list) {
+    return list != null ? list.size() >> 1 : 0;
+  }
+
   /**
    * Returns an iterator for an index entry.
    * @param ftc id cache
@@ -441,6 +745,25 @@ public final class FTIndex extends ValueIndex {
         return true;
       }
 
+      @Override
+      public boolean skip(final int p) {
+        // results have already been decoded and sorted: find upper bound via galloping search,
+        // perform binary search in the last interval
+        int l = c, d = 1;
+        while(l + d < size && ftc.pre.get(ftc.order[l + d - 1]) < p) {
+          l += d;
+          d <<= 1;
+        }
+        int h = Math.min(l + d, size);
+        while(l < h) {
+          final int m = l + h >>> 1;
+          if(ftc.pre.get(ftc.order[m]) < p) l = m + 1;
+          else h = m;
+        }
+        c = l;
+        return more();
+      }
+
       @Override
       public FTMatches matches() {
         return all;
@@ -485,25 +808,398 @@ public final class FTIndex extends ValueIndex {
      * @param ps positions
      */
     private FTCache(final IntList pr, final IntList ps) {
+      // skip sorting if entries are already ordered
       final int s = pr.size();
       final long[] v = new long[s];
-      for(int i = 0; i < s; i++) v[i] = (long) pr.get(i) << 32 | ps.get(i);
-      order = Array.createOrder(v, true);
+      boolean sorted = true;
+      for(int i = 0; i < s; i++) {
+        v[i] = (long) pr.get(i) << 32 | ps.get(i);
+        if(sorted && i > 0 && v[i] < v[i - 1]) sorted = false;
+      }
+      if(sorted) {
+        order = new int[s];
+        for(int i = 0; i < s; i++) order[i] = i;
+      } else {
+        order = Array.createOrder(v, true);
+      }
       pre = pr;
       pos = ps;
     }
   }
 
   @Override
-  public void add(final ValueCache values) {
-    throw Util.notExpected();
+  public synchronized void add(final ValueCache values) {
+    for(final byte[] text : values) {
+      final IntList ids = values.ids(text);
+      add(text, ids);
+      log(true, text, ids);
+    }
   }
 
   @Override
-  public void delete(final ValueCache values) {
-    throw Util.notExpected();
+  public synchronized void delete(final ValueCache values) {
+    for(final byte[] text : values) {
+      final IntList ids = values.ids(text);
+      delete(text, ids);
+      log(false, text, ids);
+    }
   }
 
   @Override
-  public void flush() { }
+  public synchronized void flush() {
+    if(buffer.size() == 0) return;
+    try {
+      append();
+      // replace main files if a background merge has been completed
+      if(merge != null && !merge.isAlive()) complete();
+      // merge delta structure if it gets too large
+      if(merge == null && (deltaSize + (long) deleted.size()) * 16 > dataZ.length()) merge();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Opens the main files.
+   * @throws IOException I/O Exception
+   */
+  private void open() throws IOException {
+    final MetaData meta = data.meta;
+    dataX = new DataAccess(meta.dbFile(DATAFTX + 'x'), meta.mmap);
+    dataY = new DataAccess(meta.dbFile(DATAFTX + 'y'), meta.mmap);
+    dataZ = new DataAccess(meta.dbFile(DATAFTX + 'z'), meta.mmap);
+    cache = new IndexCache();
+    ctext = new IntObjMap<>();
+
+    // cache token length index
+    positions = new int[meta.maxlen + 3];
+    final int pl = positions.length;
+    for(int p = 0; p < pl; p++) positions[p] = -1;
+    for(int is = dataX.readNum(); --is >= 0;) {
+      final int p = dataX.readNum();
+      positions[p] = dataX.read4();
+    }
+    positions[pl - 1] = (int) dataY.length();
+  }
+
+  /**
+   * Adds the tokens of a text to the delta structure.
+   * @param text text
+   * @param ids ids of the text
+   */
+  private void add(final byte[] text, final IntList ids) {
+    final FTLexer lex = lexer();
+    final StopWords sw = lex.ftOpt().sw;
+    final int is = ids.size();
+    lex.init(text);
+    int pos = -1;
+    while(lex.hasNext()) {
+      final byte[] token = lex.nextToken();
+      ++pos;
+      // skip too long and stopword tokens
+      if(token.length <= data.meta.maxlen && !sw.contains(token)) {
+        final IntList list = delta.computeIfAbsent(token, IntList::new);
+        for(int i = 0; i < is; i++) list.add(ids.get(i)).add(pos);
+        deltaSize += is;
+      }
+    }
+  }
+
+  /**
+   * Registers tombstones for the ids of a text, and removes its tokens from the delta structure.
+   * @param text text
+   * @param ids ids of the text
+   */
+  private void delete(final byte[] text, final IntList ids) {
+    final FTLexer lex = lexer();
+    final int is = ids.size();
+    // register tombstones for the entries of the main files
+    for(int i = 0; i < is; i++) deleted.add(ids.get(i));
+    // remove entries from the delta structure
+    lex.init(text);
+    while(lex.hasNext()) {
+      final IntList list = delta.get(lex.nextToken());
+      final int sz = list != null ? list.size() : 0;
+      int n = 0;
+      for(int l = 0; l < sz; l += 2) {
+        if(ids.contains(list.get(l))) continue;
+        list.set(n++, list.get(l));
+        list.set(n++, list.get(l + 1));
+      }
+      if(n < sz) {
+        list.size(n);
+        deltaSize -= sz - n >> 1;
+      }
+    }
+  }
+
+  /**
+   * Buffers a change, which will be appended to the delta file when the index is flushed.
+   * @param add added or deleted text
+   * @param text text
+   * @param ids ids of the text
+   */
+  private void log(final boolean add, final byte[] text, final IntList ids) {
+    try {
+      changes.writeBool(add);
+      changes.writeToken(text);
+      changes.writeNums(ids.toArray());
+    } catch(final IOException ex) {
+      // writing to main memory
+      throw Util.notExpected(ex);
+    }
+  }
+
+  /**
+   * Closes the main files.
+   */
+  private void closeFiles() {
+    dataX.close();
+    dataY.close();
+    dataZ.close();
+  }
+
+  /**
+   * Returns an index file.
+   * @param suffix suffix
+   * @return file
+   */
+  private IOFile file(final char suffix) {
+    return data.meta.dbFile(DATAFTX + suffix);
+  }
+
+  /**
+   * Returns the file to which changes are appended: the second delta file, if it exists,
+   * or the delta file.
+   * @return file
+   */
+  private IOFile deltaFile() {
+    final IOFile file = file('e');
+    return file.exists() ? file : file('d');
+  }
+
+  /**
+   * Reads the delta files and applies the changes to the delta structure and the tombstones.
+   * @throws IOException I/O Exception
+   */
+  private void read() throws IOException {
+    for(final IOFile file : new IOFile[] { file('d'), file('e') }) {
+      if(!file.exists()) continue;
+      try(DataInput in = new DataInput(file)) {
+        final long length = in.length();
+        while(in.size() < length) {
+          final int size = in.readNum(), end = in.size() + size;
+          // ignore incomplete changes of an interrupted write operation
+          if(end > length) break;
+          while(in.size() < end) {
+            final boolean add = in.readBool();
+            final byte[] text = in.readToken();
+            final IntList ids = new IntList(in.readNums());
+            if(add) add(text, ids);
+            else delete(text, ids);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Appends the buffered changes to the delta file.
+   * @throws IOException I/O Exception
+   */
+  private void append() throws IOException {
+    append(deltaFile(), buffer.toArray());
+    buffer.reset();
+  }
+
+  /**
+   * Appends changes to a delta file.
+   * @param file delta file
+   * @param bytes changes
+   * @throws IOException I/O Exception
+   */
+  private static void append(final IOFile file, final byte[] bytes) throws IOException {
+    try(DataOutput out = new DataOutput(
+        new BufferOutput(new FileOutputStream(file.file(), true)))) {
+      out.writeNum(bytes.length);
+      out.writeBytes(bytes);
+    }
+  }
+
+  /**
+   * Starts a background merge of the main files with the delta structure. The delta structure
+   * is written to temporary index files, which are then merged with the main files by the
+   * {@link FTBuilder}. Subsequent changes are appended to a second delta file.
+   * @throws IOException I/O Exception
+   */
+  private void merge() throws IOException {
+    // second delta file of a discarded merge: append it to the delta file
+    final IOFile d = file('d'), e = file('e');
+    if(e.exists()) {
+      append(d, e.read());
+      if(!e.delete()) throw new IOException("Could not delete " + e);
+    }
+    try {
+      writeDelta();
+      e.write(EMPTY);
+    } catch(final IOException ex) {
+      data.meta.drop(DATAFTX + "1[xyz]");
+      throw ex;
+    }
+
+    final IntSet ids = new IntSet();
+    for(final int id : deleted.toArray()) ids.add(id);
+    merged = false;
+    merge = new Thread(() -> {
+      final FTList[] lists = new FTList[2];
+      try {
+        lists[0] = new FTList(data, DATAFTX, false);
+        lists[1] = new FTList(data, 1);
+        // merge files, skip deleted entries of the main files
+        FTBuilder.merge(data, lists, DATAFTX + 'm', ids);
+        marker().write(EMPTY);
+        merged = true;
+      } catch(final IOException ex) {
+        // keep main files and delta structure
+        Util.stack(ex);
+        for(final FTList list : lists) {
+          if(list != null) list.close();
+        }
+      }
+    }, "FTIndexMerge");
+    merge.start();
+  }
+
+  /**
+   * Completes a background merge. If it was successful, the main files and the delta files
+   * are replaced, and the delta structure is read again.
+   * @throws IOException I/O Exception
+   */
+  private void complete() throws IOException {
+    await();
+    if(merged) {
+      merged = false;
+      closeFiles();
+      swap();
+      delta.clear();
+      deleted = new IntSet();
+      deltaSize = 0;
+      open();
+      read();
+    } else {
+      data.meta.drop(DATAFTX + "[1m][xyz]?");
+    }
+  }
+
+  /**
+   * Waits until the background merge has been finished.
+   */
+  private void await() {
+    while(merge.isAlive()) {
+      try {
+        merge.join();
+      } catch(final InterruptedException ex) {
+        Util.debug(ex);
+      }
+    }
+    merge = null;
+  }
+
+  /**
+   * Writes the delta structure to temporary index files, sorted by token length and tokens.
+   * @throws IOException I/O Exception
+   */
+  private void writeDelta() throws IOException {
+    final MetaData meta = data.meta;
+    final byte[][] tokens = tokens().finish();
+    Arrays.sort(tokens, (t1, t2) -> t1.length != t2.length ? t1.length - t2.length :
+      diff(t1, t2));
+    try(DataOutput outX = new DataOutput(meta.dbFile(DATAFTX + 1 + 'x'));
+        DataOutput outY = new DataOutput(meta.dbFile(DATAFTX + 1 + 'y'));
+        DataOutput outZ = new DataOutput(meta.dbFile(DATAFTX + 1 + 'z'))) {
+      final IntList ind = new IntList();
+      for(final byte[] token : tokens) {
+        if(ind.isEmpty() || ind.get(ind.size() - 2) < token.length) {
+          ind.add(token.length);
+          ind.add((int) outY.size());
+        }
+        final IntList list = delta.get(token);
+        outY.writeBytes(token);
+        outY.write5(outZ.size());
+        outY.write4(pairs(list));
+        for(final int value : list.toArray()) outZ.writeNum(value);
+      }
+      FTBuilder.writeInd(outX, ind, ind.isEmpty() ? 1 : ind.get(ind.size() - 2) + 1,
+          (int) outY.size());
+    }
+  }
+
+  /**
+   * Replaces the main files with the merged files, replaces the delta file with the second
+   * delta file, and deletes the marker of a completed merge.
+   * @throws IOException I/O Exception
+   */
+  private void swap() throws IOException {
+    final MetaData meta = data.meta;
+    for(final char ch : new char[] { 'x', 'y', 'z' }) {
+      final IOFile source = meta.dbFile(DATAFTX + 'm' + ch), target = file(ch);
+      // file may already have been replaced by an interrupted swap
+      if(source.exists() && !(target.delete() && source.rename(target)))
+        throw new IOException("Could not rename " + source);
+    }
+    // delta file may already have been replaced by an interrupted swap
+    final IOFile source = file('e'), target = file('d');
+    if(source.exists() && !(target.delete() && source.rename(target)))
+      throw new IOException("Could not rename " + source);
+    if(target.length() == 0) target.delete();
+    marker().delete();
+  }
+
+  /**
+   * Completes a merge that has been interrupted after the merged files have been written,
+   * or deletes the files of an incomplete merge.
+   * @throws IOException I/O Exception
+   */
+  private void recover() throws IOException {
+    if(marker().exists()) swap();
+    else data.meta.drop(DATAFTX + "[1m][xyz]");
+  }
+
+  /**
+   * Returns the marker file, which indicates that the merged files have been completely written.
+   * @return file
+   */
+  private IOFile marker() {
+    return file('m');
+  }
+
+  /**
+   * Returns all tokens of the delta structure with at least one entry.
+   * @return tokens
+   */
+  private TokenList tokens() {
+    final TokenList tokens = new TokenList(delta.size());
+    for(final byte[] token : delta) {
+      if(pairs(delta.get(token)) > 0) tokens.add(token);
+    }
+    return tokens;
+  }
+
+  /**
+   * Returns a lexer for tokenizing updated texts.
+   * @return lexer
+   */
+  private FTLexer lexer() {
+    if(lexer == null) {
+      try {
+        lexer = FTBuilder.lexer(data);
+      } catch(final IOException ex) {
+        // tokenizers were available when the index was created
+        throw Util.notExpected(ex);
+      }
+    }
+    return lexer;
+  }
 }
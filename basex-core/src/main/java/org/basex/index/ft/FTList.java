@@ -25,8 +25,12 @@ final class FTList {
   private final IOFile files;
   /** Data file. */
   private final IOFile filed;
+  /** Indicates if the input files will be deleted after they have been read. */
+  private final boolean temporary;
   /** Wasted flag. */
   private boolean wasted;
+  /** Closed flag. */
+  private boolean closed;
 
   /** Size file. */
   private final IOFile sizes;
@@ -52,20 +56,32 @@ final class FTList {
   int[] pov;
 
   /**
-   * Constructor, initializing the index structure.
+   * Constructor, initializing the index structure of a temporary index.
    * @param data data
    * @param prefix prefix
    * @throws IOException I/O exception
    */
   FTList(final Data data, final int prefix) throws IOException {
-    files = data.meta.dbFile(DATAFTX + prefix + 'y');
-    filed = data.meta.dbFile(DATAFTX + prefix + 'z');
+    this(data, DATAFTX + prefix, true);
+  }
+
+  /**
+   * Constructor, initializing the index structure.
+   * @param data data
+   * @param name name of the index files (without suffix)
+   * @param temporary delete the input files after they have been read
+   * @throws IOException I/O exception
+   */
+  FTList(final Data data, final String name, final boolean temporary) throws IOException {
+    this.temporary = temporary;
+    files = data.meta.dbFile(name + 'y');
+    filed = data.meta.dbFile(name + 'z');
     str = new DataAccess(files);
     dat = new DataAccess(filed);
     tp = new int[data.meta.maxlen + 3];
     final int tl = tp.length;
     for(int t = 0; t < tl; t++) tp[t] = -1;
-    sizes = data.meta.dbFile(DATAFTX + prefix + 'x');
+    sizes = data.meta.dbFile(name + 'x');
     try(DataAccess li = new DataAccess(sizes)) {
       int is = li.readNum();
       while(--is >= 0) {
@@ -100,14 +116,18 @@ final class FTList {
   }
 
   /**
-   * Closes and deletes the input files.
+   * Closes the input files and deletes temporary files.
    */
-  private void close() {
+  void close() {
+    if(closed) return;
+    closed = true;
     str.close();
     dat.close();
-    files.delete();
-    filed.delete();
-    sizes.delete();
+    if(temporary) {
+      files.delete();
+      filed.delete();
+      sizes.delete();
+    }
   }
 
   /**
@@ -125,8 +145,9 @@ final class FTList {
     if(ctl == tp.length) return EMPTY;
 
     final byte[] t = str.readBytes(ptok, ctl);
-    // skip pointer
-    size = str.read4(str.cursor() + 5);
+    // jump to full-text data (skip tables will be ignored)
+    dat.cursor(str.read5());
+    size = str.read4();
     // position will always fit in an integer...
     ptok = (int) str.cursor();
     return t;
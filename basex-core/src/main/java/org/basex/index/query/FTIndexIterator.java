@@ -35,6 +35,22 @@ public abstract class FTIndexIterator implements IndexIterator {
    */
   public abstract void pos(int p);
 
+  /**
+   * Skips all results with pre values smaller than the specified value.
+   * Returns true if another result can be returned. If the current result has not been
+   * returned yet, it will be skipped as well (as with {@link #more()}).
+   * Long entries of a full-text index with skip tables are decoded block by block, and blocks
+   * with smaller pre values are not decoded at all.
+   * @param pre pre value
+   * @return result of check
+   */
+  public boolean skip(final int pre) {
+    while(more()) {
+      if(pre() >= pre) return true;
+    }
+    return false;
+  }
+
   /**
    * Merges two index array iterators.
    * @param i1 first index array iterator to merge
@@ -50,6 +66,22 @@ public abstract class FTIndexIterator implements IndexIterator {
       public boolean more() {
         if(diff <= 0) ii1 = i1.more() ? i1 : null;
         if(diff >= 0) ii2 = i2.more() ? i2 : null;
+        return next();
+      }
+
+      @Override
+      public boolean skip(final int pre) {
+        // advance returned results and pending results with smaller pre values
+        if(diff <= 0 || ii1 != null && ii1.pre() < pre) ii1 = i1.skip(pre) ? i1 : null;
+        if(diff >= 0 || ii2 != null && ii2.pre() < pre) ii2 = i2.skip(pre) ? i2 : null;
+        return next();
+      }
+
+      /**
+       * Chooses the next result.
+       * @return result of check
+       */
+      private boolean next() {
         diff = ii1 != null ? ii2 != null ? ii1.pre() - ii2.pre() : -1 : 1;
         next = diff <= 0 ? ii1 : ii2;
         return next != null;
@@ -102,24 +134,45 @@ public abstract class FTIndexIterator implements IndexIterator {
 
       @Override
       public boolean more() {
-        int d = 0;
-        while(true) {
-          if(d <= 0) ii1 = i1.more() ? i1 : null;
-          if(d >= 0) ii2 = i2.more() ? i2 : null;
-          if(ii1 == null || ii2 == null) return false;
-          d = ii1.pre() - ii2.pre();
-          if(d != 0) continue;
-          all = ii1.matches();
-          final FTMatches all2 = ii2.matches();
-          if(dis == 0) {
-            for(final FTMatch m1 : all) {
-              for(final FTMatch m2 : all2) m1.add(m2);
+        ii1 = i1.more() ? i1 : null;
+        ii2 = i2.more() ? i2 : null;
+        return next();
+      }
+
+      @Override
+      public boolean skip(final int pre) {
+        ii1 = i1.skip(pre) ? i1 : null;
+        ii2 = i2.skip(pre) ? i2 : null;
+        return next();
+      }
+
+      /**
+       * Finds the next result. Results of the iterator with the smaller pre value are skipped
+       * until the pre value of the other iterator is reached.
+       * @return result of check
+       */
+      private boolean next() {
+        while(ii1 != null && ii2 != null) {
+          final int pre1 = ii1.pre(), pre2 = ii2.pre();
+          if(pre1 < pre2) {
+            ii1 = i1.skip(pre2) ? i1 : null;
+          } else if(pre1 > pre2) {
+            ii2 = i2.skip(pre1) ? i2 : null;
+          } else {
+            all = ii1.matches();
+            final FTMatches all2 = ii2.matches();
+            if(dis == 0) {
+              for(final FTMatch m1 : all) {
+                for(final FTMatch m2 : all2) m1.add(m2);
+              }
+              return true;
             }
-            return true;
-          } else if(all.phrase(all2, dis)) {
-            return true;
+            if(all.phrase(all2, dis)) return true;
+            ii1 = i1.more() ? i1 : null;
+            ii2 = i2.more() ? i2 : null;
           }
         }
+        return false;
       }
 
       @Override
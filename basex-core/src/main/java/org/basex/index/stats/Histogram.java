@@ -0,0 +1,289 @@
+package org.basex.index.stats;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Value distribution of an indexed node, which is used to estimate the costs of queries.
+ * While values are added, a random sample of the values and a HyperLogLog sketch are
+ * maintained. When the statistics are written, the sample is converted to an equi-depth
+ * histogram, and the number of distinct values is estimated.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class Histogram {
+  /** Marker for serialized histograms. */
+  private static final byte MARKER = 'H';
+  /** Maximum size of the sample. */
+  private static final int SAMPLE = 256;
+  /** Maximum length of sampled strings. */
+  private static final int MAXLEN = 64;
+  /** Number of buckets. */
+  private static final int BUCKETS = 16;
+  /** Number of bits used for addressing HyperLogLog registers. */
+  private static final int BITS = 8;
+  /** Number of HyperLogLog registers. */
+  private static final int REGISTERS = 1 << BITS;
+
+  /** Estimated number of distinct values. */
+  private int distinct;
+  /** Numeric bucket bounds (can be {@code null}). */
+  private double[] numbers;
+  /** String bucket bounds (can be {@code null}). */
+  private byte[][] strings;
+
+  /** Sample (only assigned while values are added). */
+  private byte[][] sample;
+  /** HyperLogLog registers (only assigned while values are added). */
+  private byte[] registers;
+  /** Random number generator for sampling (only assigned while values are added). */
+  private Random random;
+  /** Number of added values. */
+  private int count;
+
+  /**
+   * Constructor for adding values.
+   */
+  Histogram() {
+    sample = new byte[SAMPLE][];
+    registers = new byte[REGISTERS];
+    random = new Random(0);
+  }
+
+  /**
+   * Constructor for a serialized histogram.
+   * @param token serialized histogram
+   * @throws IOException I/O exception
+   */
+  private Histogram(final byte[] token) throws IOException {
+    try(DataInput in = new DataInput(new IOContent(token))) {
+      in.read();
+      distinct = in.readNum();
+      final int bs = in.readNum();
+      if(in.readBool()) {
+        numbers = new double[bs];
+        for(int b = 0; b < bs; b++) numbers[b] = in.readDouble();
+      } else {
+        strings = new byte[bs][];
+        for(int b = 0; b < bs; b++) strings[b] = in.readToken();
+      }
+    }
+  }
+
+  /**
+   * Returns a histogram for the specified serialized token.
+   * @param token token
+   * @return histogram or {@code null}
+   * @throws IOException I/O exception
+   */
+  static Histogram get(final byte[] token) throws IOException {
+    return token.length > 0 && token[0] == MARKER ? new Histogram(token) : null;
+  }
+
+  /**
+   * Adds a value. Values that are added after the histogram has been finalized are ignored.
+   * @param value value
+   */
+  void add(final byte[] value) {
+    if(sample == null) return;
+
+    // sample: reservoir sampling (long strings are truncated)
+    final byte[] v = value.length > MAXLEN ? Arrays.copyOf(value, MAXLEN) : value;
+    if(count < SAMPLE) {
+      sample[count] = v;
+    } else {
+      final int r = random.nextInt(count + 1);
+      if(r < SAMPLE) sample[r] = v;
+    }
+    count++;
+
+    // HyperLogLog: register is addressed by the highest bits of the hash value
+    final int hash = mix(hash(value));
+    final int reg = hash >>> 32 - BITS;
+    final int rank = Math.min(32 - BITS, Integer.numberOfLeadingZeros(hash << BITS)) + 1;
+    if(registers[reg] < rank) registers[reg] = (byte) rank;
+  }
+
+  /**
+   * Finalizes the histogram and returns a serialized representation.
+   * @param numeric numeric values
+   * @return serialized histogram
+   * @throws IOException I/O exception
+   */
+  byte[] finish(final boolean numeric) throws IOException {
+    if(sample != null) {
+      distinct = estimate();
+      if(numeric) numbers = numbers();
+      if(numbers == null) strings = strings();
+      sample = null;
+      registers = null;
+      random = null;
+    }
+
+    final ArrayOutput ao = new ArrayOutput();
+    try(DataOutput out = new DataOutput(ao)) {
+      out.write1(MARKER);
+      out.writeNum(distinct);
+      final boolean num = numbers != null;
+      final int bs = num ? numbers.length : strings.length;
+      out.writeNum(bs);
+      out.writeBool(num);
+      for(int b = 0; b < bs; b++) {
+        if(num) out.writeDouble(numbers[b]);
+        else out.writeToken(strings[b]);
+      }
+    }
+    return ao.finish();
+  }
+
+  /**
+   * Returns the estimated number of distinct values.
+   * @return number of distinct values
+   */
+  public int distinct() {
+    return sample != null ? estimate() : distinct;
+  }
+
+  /**
+   * Returns the estimated fraction of values in the specified numeric range.
+   * Must only be called if all values are numeric.
+   * @param min minimum value
+   * @param max maximum value
+   * @return fraction (between 0 and 1), or {@link Double#NaN} if no estimate is possible
+   */
+  public double fraction(final double min, final double max) {
+    final double[] bounds = numbers();
+    return bounds == null ? Double.NaN : Math.max(0, position(bounds, max) - position(bounds, min));
+  }
+
+  /**
+   * Returns the estimated fraction of values in the specified string range.
+   * @param min minimum value
+   * @param max maximum value
+   * @return fraction (between 0 and 1), or {@link Double#NaN} if no estimate is possible
+   */
+  public double fraction(final byte[] min, final byte[] max) {
+    final byte[][] bounds = strings();
+    if(bounds == null) return Double.NaN;
+
+    // count bounds within the range; add half a bucket for each partially covered bucket
+    final int bs = bounds.length;
+    int lo = 0, in = 0;
+    for(final byte[] bound : bounds) {
+      if(diff(bound, min) < 0) lo++;
+      else if(diff(bound, max) <= 0) in++;
+    }
+    if(lo == bs || in == 0 && lo == 0) return 0;
+    final double partial = (lo > 0 ? 0.5 : 0) + (lo + in < bs ? 0.5 : 0);
+    return Math.min(1, Math.max(0.5, in - 1 + partial) / (bs - 1));
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the numeric bucket bounds.
+   * @return bounds or {@code null}
+   */
+  private double[] numbers() {
+    if(sample == null) return numbers;
+    final DoubleList list = new DoubleList();
+    final int ss = Math.min(count, SAMPLE);
+    for(int s = 0; s < ss; s++) {
+      final double d = toDouble(sample[s]);
+      if(!Double.isNaN(d)) list.add(d);
+    }
+    if(list.isEmpty()) return null;
+    final double[] nums = list.finish();
+    Arrays.sort(nums);
+    final double[] bounds = new double[BUCKETS + 1];
+    for(int b = 0; b <= BUCKETS; b++) bounds[b] = nums[quantile(b, nums.length)];
+    return bounds;
+  }
+
+  /**
+   * Returns the string bucket bounds.
+   * @return bounds or {@code null}
+   */
+  private byte[][] strings() {
+    if(sample == null) return strings;
+    final byte[][] values = Arrays.copyOf(sample, Math.min(count, SAMPLE));
+    Arrays.sort(values, Token::diff);
+    final byte[][] bounds = new byte[BUCKETS + 1][];
+    for(int b = 0; b <= BUCKETS; b++) bounds[b] = values[quantile(b, values.length)];
+    return bounds;
+  }
+
+  /**
+   * Returns the relative position of a value in the numeric distribution.
+   * @param bounds bucket bounds
+   * @param value value
+   * @return position (between 0 and 1)
+   */
+  private static double position(final double[] bounds, final double value) {
+    final int buckets = bounds.length - 1;
+    if(value < bounds[0]) return 0;
+    if(value >= bounds[buckets]) return 1;
+    int b = 0;
+    while(b < buckets - 1 && value >= bounds[b + 1]) b++;
+    final double lo = bounds[b], hi = bounds[b + 1];
+    return (b + (hi > lo ? (value - lo) / (hi - lo) : 1)) / buckets;
+  }
+
+  /**
+   * Returns the sample position of the specified bucket bound.
+   * @param bucket bucket
+   * @param size sample size
+   * @return position
+   */
+  private static int quantile(final int bucket, final int size) {
+    return (int) Math.min(size - 1, (long) bucket * size / BUCKETS);
+  }
+
+  /**
+   * Estimates the number of distinct values with the current HyperLogLog registers.
+   * @return number of distinct values
+   */
+  private int estimate() {
+    double sum = 0;
+    int zeros = 0;
+    for(final byte reg : registers) {
+      sum += 1.0 / (1L << reg);
+      if(reg == 0) zeros++;
+    }
+    final double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+    double est = alpha * REGISTERS * REGISTERS / sum;
+    // small range correction
+    if(est <= 2.5 * REGISTERS && zeros > 0) est = REGISTERS * Math.log((double) REGISTERS / zeros);
+    return (int) Math.min(count, Math.round(est));
+  }
+
+  /**
+   * Scrambles the bits of a hash value.
+   * @param hash hash value
+   * @return new hash value
+   */
+  private static int mix(final int hash) {
+    int h = hash;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + "[distinct: " + distinct() + ']';
+  }
+}
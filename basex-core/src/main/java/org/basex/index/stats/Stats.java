@@ -27,9 +27,13 @@ public final class Stats {
   public int count;
   /** Data type. */
   public byte type;
+  /** Value distribution (can be {@code null}). */
+  public Histogram histogram;
 
   /** Leaf node flag. Indicates if all nodes only have a text node as child. */
   private boolean leaf;
+  /** Indicates if values will be sampled (statistics have been created from scratch). */
+  private boolean sampling;
 
   /**
    * Default constructor.
@@ -40,6 +44,7 @@ public final class Stats {
     min = Double.MAX_VALUE;
     max = -Double.MAX_VALUE;
     leaf = true;
+    sampling = true;
   }
 
   /**
@@ -61,7 +66,8 @@ public final class Stats {
     }
     count = in.readNum();
     leaf = in.readBool();
-    in.readDouble();
+    // slot was used for a legacy double value (required before version 7.1)
+    histogram = Histogram.get(in.readToken());
   }
 
   /**
@@ -91,8 +97,10 @@ public final class Stats {
 
     out.writeNum(count);
     out.writeBool(leaf);
-    // legacy (required before version 7.1)
-    out.writeDouble(0);
+    // histograms are only stored if no distinct values are available.
+    // otherwise, a legacy double value is written (required before version 7.1)
+    if(values == null && histogram != null) out.writeToken(histogram.finish(isNumeric(type)));
+    else out.writeDouble(0);
   }
 
   /**
@@ -135,6 +143,12 @@ public final class Stats {
     }
     type = t;
 
+    // sample values
+    if(vl > 0 && sampling) {
+      if(histogram == null) histogram = new Histogram();
+      histogram.add(value);
+    }
+
     // save distinct values
     if(values != null) {
       if(vl > meta.maxlen || vl > 0 && ws(value)) {
@@ -148,6 +162,53 @@ public final class Stats {
     }
   }
 
+  /**
+   * Returns the estimated number of distinct values.
+   * @return number of distinct values, or {@code -1} if no estimate is possible
+   */
+  public int distinct() {
+    return values != null ? values.size() : histogram != null ? histogram.distinct() : -1;
+  }
+
+  /**
+   * Returns the estimated number of values in the specified numeric range.
+   * @param mn minimum value
+   * @param mx maximum value
+   * @return number of values, or {@code -1} if no estimate is possible
+   */
+  public int count(final double mn, final double mx) {
+    if(!isNumeric(type)) return -1;
+    if(values != null) {
+      // distinct values are available: return exact count
+      int c = 0;
+      for(final byte[] value : values) {
+        final double d = toDouble(value);
+        if(d >= mn && d <= mx) c += values.get(value);
+      }
+      return c;
+    }
+    return histogram != null ? count(histogram.fraction(mn, mx)) : -1;
+  }
+
+  /**
+   * Returns the estimated number of values in the specified string range.
+   * @param mn minimum value
+   * @param mx maximum value
+   * @return number of values, or {@code -1} if no estimate is possible
+   */
+  public int count(final byte[] mn, final byte[] mx) {
+    if(isNone(type)) return -1;
+    if(values != null) {
+      // distinct values are available: return exact count
+      int c = 0;
+      for(final byte[] value : values) {
+        if(diff(value, mn) >= 0 && diff(value, mx) <= 0) c += values.get(value);
+      }
+      return c;
+    }
+    return histogram != null && !isNumeric(type) ? count(histogram.fraction(mn, mx)) : -1;
+  }
+
   /**
    * Getter for leaf flag.
    * @return leaf flag
@@ -164,6 +225,16 @@ public final class Stats {
     leaf = l;
   }
 
+  /**
+   * Converts a fraction to the estimated number of values. As the histogram is based on a sample,
+   * the result is at least {@code 1}.
+   * @param fraction fraction
+   * @return number of values, or {@code -1} if no estimate is possible
+   */
+  private int count(final double fraction) {
+    return Double.isNaN(fraction) ? -1 : Math.max(1, (int) Math.ceil(fraction * count));
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder(count + "x");
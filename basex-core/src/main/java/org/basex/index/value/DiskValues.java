@@ -12,6 +12,7 @@ import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.io.*;
 import org.basex.io.random.*;
 import org.basex.query.util.index.*;
 import org.basex.util.*;
@@ -37,6 +38,9 @@ public class DiskValues extends ValueIndex {
   /** Number of current index entries. */
   final AtomicInteger size = new AtomicInteger();
 
+  /** Numeric keys (can be {@code null}). */
+  private DiskValuesNumbers numbers;
+
   /** Synchronization object. */
   private final Object monitor = new Object();
 
@@ -59,9 +63,12 @@ public class DiskValues extends ValueIndex {
    */
   DiskValues(final Data data, final IndexType type, final String pref) throws IOException {
     super(data, type);
-    idxl = new DataAccess(data.meta.dbFile(pref + 'l'));
-    idxr = new DataAccess(data.meta.dbFile(pref + 'r'));
+    idxl = new DataAccess(data.meta.dbFile(pref + 'l'), data.meta.mmap);
+    idxr = new DataAccess(data.meta.dbFile(pref + 'r'), data.meta.mmap);
     size.set(idxl.read4());
+    // numeric keys: only available for static indexes
+    final IOFile file = data.meta.dbFile(pref + 'n');
+    if(!data.meta.updindex && file.exists()) numbers = new DiskValuesNumbers(file, data.meta.mmap);
   }
 
   @Override
@@ -92,9 +99,11 @@ public class DiskValues extends ValueIndex {
 
   @Override
   public final IndexCosts costs(final IndexSearch search) {
+    final NumericRange nr = search instanceof NumericRange ? (NumericRange) search : null;
     return IndexCosts.get(
       search instanceof StringRange ? Math.max(1, data.meta.size / 10) :
-      search instanceof NumericRange ? Math.max(1, data.meta.size / 3) :
+      nr != null ? numbers != null ? numbers.count(nr.min, nr.max) :
+        Math.max(1, data.meta.size / 3) :
       entry(search.token()).size);
   }
 
@@ -132,6 +141,7 @@ public class DiskValues extends ValueIndex {
     synchronized(monitor) {
       idxl.close();
       idxr.close();
+      if(numbers != null) numbers.close();
     }
   }
 
@@ -153,12 +163,46 @@ public class DiskValues extends ValueIndex {
     return keysFrom(token, entries.descending);
   }
 
+  @Override
+  public final boolean numeric() {
+    return numbers != null;
+  }
+
   @Override
   public final void flush() {
     idxl.flush();
     idxr.flush();
   }
 
+  /**
+   * Creates the tree with the numeric keys of this index.
+   * No tree will be created if the index is updatable, or if it contains no numeric keys.
+   * @throws IOException I/O exception
+   */
+  final void createNumbers() throws IOException {
+    final IOFile file = data.meta.dbFile(fileSuffix(type) + 'n');
+    file.delete();
+    if(data.meta.updindex || type == IndexType.TOKEN) return;
+
+    final DoubleList values = new DoubleList();
+    final IntList indexes = new IntList(), counts = new IntList();
+    synchronized(monitor) {
+      final int entries = size();
+      for(int index = 0; index < entries; index++) {
+        final int count = idxl.readNum(idxr.read5(index * 5L));
+        final double value = toDouble(key(idxl.readNum()));
+        if(!Double.isNaN(value)) {
+          values.add(value);
+          indexes.add(index);
+          counts.add(count);
+        }
+      }
+      if(values.isEmpty()) return;
+      DiskValuesNumbers.write(file, values, indexes, counts);
+      numbers = new DiskValuesNumbers(file, data.meta.mmap);
+    }
+  }
+
   /**
    * Returns the {@code pre} value for the specified id.
    * @param id id value
@@ -428,8 +472,25 @@ public class DiskValues extends ValueIndex {
    * @return results
    */
   private IntList idRange(final NumericRange tok) {
-    // check if min and max are positive integers with the same number of digits
     final double min = tok.min, max = tok.max;
+    if(numbers != null) {
+      // tree with numeric keys: add ids of all keys in the range
+      final IntList pres = new IntList();
+      final IntList indexes = numbers.indexes(min, max);
+      synchronized(monitor) {
+        final int is = indexes.size();
+        for(int i = 0; i < is; i++) {
+          final int count = idxl.readNum(idxr.read5(indexes.get(i) * 5L));
+          for(int c = 0, id = 0; c < count; c++) {
+            id += idxl.readNum();
+            pres.add(pre(id));
+          }
+        }
+      }
+      return pres.sort();
+    }
+
+    // check if min and max are positive integers with the same number of digits
     final int len = max > 0 && (long) max == max ? token(max).length : 0;
     final boolean simple = len != 0 && min > 0 && (long) min == min && token(min).length == len;
 
@@ -3,6 +3,7 @@ package org.basex.index.value;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
@@ -26,15 +27,28 @@ import org.basex.util.list.*;
  *   structure. Instead, they can be found by following the id references to
  *   the main table.
  * </li>
+ * <li> {@code DATATXT/ATV + 'n'}: contains the numeric keys of static indexes.
+ *   The structure is described in the {@link DiskValuesNumbers} class.
+ * </li>
  * </ul>
  *
  * @author BaseX Team 2005-20, BSD License
  * @author Christian Gruen
  */
 public final class DiskValuesBuilder extends ValuesBuilder {
+  /** Minimum number of nodes processed by a single thread. */
+  private static final int RANGE = 1 << 16;
+
   /** Temporary value tree. */
   private IndexTree index;
 
+  /** Number of active threads (parallel build). */
+  private int active;
+  /** Number of threads that need to write partial indexes (parallel build). */
+  private int pending;
+  /** Generation of partial indexes (parallel build). */
+  private int generation;
+
   /**
    * Constructor.
    * @param data data reference
@@ -50,33 +64,32 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     Util.debug(detailedInfo());
 
     try {
-      final boolean updindex = data.meta.updindex;
-      for(pre = 0; pre < size; ++pre) {
-        if((pre & 0x0FFF) == 0) check();
-        if(indexEntry()) {
-          final int id = updindex ? data.id(pre) : pre;
-          if(tokenize) {
-            int pos = 0;
-            for(final byte[] token : distinctTokens(data.text(pre, text))) {
-              index.add(token, id, pos++);
-              count++;
-            }
-          } else if(data.textLen(pre, text) <= data.meta.maxlen) {
-            index.add(data.text(pre, text), id, 0);
-            count++;
-          }
-        }
-      }
-
-      writeIndex(splits > 0);
-      if(splits > 1) {
+      final int threads = Math.min(data.meta.indexthreads, size / RANGE);
+      if(threads > 1) {
+        // parallel build: merge partial indexes of all threads
         index = null;
-        clean();
+        parallel(threads);
         merge();
+      } else {
+        for(pre = 0; pre < size; ++pre) {
+          if((pre & 0x0FFF) == 0) check();
+          count += add(index, pre);
+        }
+
+        writeIndex(splits > 0);
+        if(splits > 1) {
+          index = null;
+          clean();
+          merge();
+        }
       }
 
       finishIndex();
-      return updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
+      if(data.meta.updindex) return new UpdatableDiskValues(data, type);
+
+      final DiskValues values = new DiskValues(data, type);
+      values.createNumbers();
+      return values;
 
     } catch(final Throwable th) {
       // drop index files
@@ -96,6 +109,109 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     }
   }
 
+  /**
+   * Adds the index entries of the specified node to an index tree.
+   * @param tree index tree
+   * @param pr pre value
+   * @return number of added entries
+   */
+  private int add(final IndexTree tree, final int pr) {
+    if(!indexEntry(pr)) return 0;
+
+    final int id = data.meta.updindex ? data.id(pr) : pr;
+    if(tokenize) {
+      int pos = 0;
+      for(final byte[] token : distinctTokens(data.text(pr, text))) tree.add(token, id, pos++);
+      return pos;
+    }
+    if(data.textLen(pr, text) > data.meta.maxlen) return 0;
+    tree.add(data.text(pr, text), id, 0);
+    return 1;
+  }
+
+  /**
+   * Builds partial indexes with multiple threads. Each thread indexes a range of nodes.
+   * If main memory is exhausted, all threads write their current index trees to disk.
+   * @param threads number of threads
+   * @throws IOException I/O exception
+   */
+  private void parallel(final int threads) throws IOException {
+    final ArrayList<Parallel.Task> tasks = new ArrayList<>(threads);
+    final int range = (size + threads - 1) / threads;
+    for(int t = 0; t < threads; t++) {
+      final int start = t * range, end = Math.min(size, start + range);
+      tasks.add(() -> {
+        IndexTree tree = new IndexTree(type);
+        int gen = 0, last = start, added = 0;
+        for(int pr = start; pr < end; pr++) {
+          if((pr & 0x0FFF) == 0) {
+            final int g = check(pr - last, added, gen);
+            last = pr;
+            added = 0;
+            if(g != gen) {
+              // write current tree to disk
+              writeIndex(tree, true, split());
+              tree = new IndexTree(type);
+              written();
+              gen = g;
+            }
+          }
+          added += add(tree, pr);
+        }
+        check(end - last, added, gen);
+        writeIndex(tree, true, split());
+        finished(gen);
+      });
+    }
+    active = threads;
+    Parallel.run(tasks, threads, this::stop);
+  }
+
+  /**
+   * Reports progress of a thread and checks if partial indexes need to be written.
+   * @param processed number of processed nodes
+   * @param added number of added index entries
+   * @param gen generation of partial indexes known by the thread
+   * @return current generation
+   * @throws IOException I/O exception
+   */
+  private synchronized int check(final int processed, final int added, final int gen)
+      throws IOException {
+    pre += processed;
+    count += added;
+    super.check();
+    // wait until all threads have written the previous partial indexes
+    if(pending == 0 && gen == generation && splitRequired()) {
+      pending = active;
+      generation++;
+    }
+    return generation;
+  }
+
+  /**
+   * Returns the number of the next partial index.
+   * @return split number
+   */
+  private synchronized int split() {
+    return splits++;
+  }
+
+  /**
+   * Registers that a thread has written its partial index.
+   */
+  private synchronized void written() {
+    if(--pending == 0) clean();
+  }
+
+  /**
+   * Registers that a thread has finished.
+   * @param gen generation of partial indexes known by the thread
+   */
+  private synchronized void finished(final int gen) {
+    active--;
+    if(gen != generation) written();
+  }
+
   /**
    * Merges cached index files.
    * @throws IOException I/O exception
@@ -168,16 +284,29 @@ public final class DiskValuesBuilder extends ValuesBuilder {
    * @throws IOException I/O exception
    */
   private void writeIndex(final boolean partial) throws IOException {
+    writeIndex(index, partial, splits++);
+  }
+
+  /**
+   * Writes an index tree to disk.
+   * @param tree index tree
+   * @param partial partial flag
+   * @param split number of partial index
+   * @throws IOException I/O exception
+   */
+  private void writeIndex(final IndexTree tree, final boolean partial, final int split)
+      throws IOException {
+
     // write id arrays and references
-    final String name = DiskValues.fileSuffix(type) + (partial ? splits : "");
+    final String name = DiskValues.fileSuffix(type) + (partial ? split : "");
     try(DataOutput outL = new DataOutput(data.meta.dbFile(name + 'l'));
         DataOutput outR = new DataOutput(data.meta.dbFile(name + 'r'))) {
-      outL.write4(index.size());
+      outL.write4(tree.size());
 
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
-      index.init();
-      while(index.more()) {
-        final byte[] values = index.ids.get(index.next());
+      tree.init();
+      while(tree.more()) {
+        final byte[] values = tree.ids.get(tree.next());
         final int vs = Num.size(values);
 
         if(partial) {
@@ -202,12 +331,10 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     // temporarily write texts
     if(partial) {
       try(DataOutput outT = new DataOutput(data.meta.dbFile(name + 't'))) {
-        index.init();
-        while(index.more()) outT.writeToken(index.keys.get(index.next()));
+        tree.init();
+        while(tree.more()) outT.writeToken(tree.keys.get(tree.next()));
       }
     }
-    // increase split counter
-    splits++;
   }
 
   /**
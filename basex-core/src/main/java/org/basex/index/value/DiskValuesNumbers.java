@@ -0,0 +1,165 @@
+package org.basex.index.value;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class provides access to the numeric keys of a value index, which are stored in a
+ * static B+-tree. The tree is used to answer numeric range queries without converting all
+ * index keys to numbers.</p>
+ *
+ * <p>The leaf level is stored on disk ({@code DATATXT/ATV + 'n'}). It contains the number of
+ * records in the first 4 bytes, followed by records with a fixed size of 16 bytes, which are
+ * sorted by their numeric values: [value (8 bytes), index of the key in the value index,
+ * number of ids]. The inner level contains the first value of each leaf. It is created in
+ * main memory when the index is opened.</p>
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class DiskValuesNumbers {
+  /** Number of records per leaf. */
+  private static final int LEAF = 256;
+  /** Size of a record. */
+  private static final int RECORD = 16;
+
+  /** Leaf records. */
+  private final DataAccess leaves;
+  /** First values of the leaves. */
+  private final double[] inner;
+  /** Number of records. */
+  private final int size;
+
+  /**
+   * Constructor.
+   * @param file file with leaf records
+   * @param mmap memory mapping
+   * @throws IOException I/O Exception
+   */
+  DiskValuesNumbers(final IOFile file, final boolean mmap) throws IOException {
+    leaves = new DataAccess(file, mmap);
+    size = leaves.read4(0);
+    final int is = (size + LEAF - 1) / LEAF;
+    inner = new double[is];
+    for(int i = 0; i < is; i++) inner[i] = value(i * LEAF);
+  }
+
+  /**
+   * Writes the leaf records of a tree.
+   * @param file output file
+   * @param values numeric values
+   * @param indexes indexes of the keys in the value index
+   * @param counts number of ids
+   * @throws IOException I/O Exception
+   */
+  static void write(final IOFile file, final DoubleList values, final IntList indexes,
+      final IntList counts) throws IOException {
+
+    final int vs = values.size();
+    final double[] vals = values.finish();
+    final int[] order = Array.createOrder(vals, true);
+    try(DataOutput out = new DataOutput(file)) {
+      out.write4(vs);
+      for(int v = 0; v < vs; v++) {
+        final long bits = Double.doubleToLongBits(vals[v]);
+        out.write4((int) (bits >>> 32));
+        out.write4((int) bits);
+        out.write4(indexes.get(order[v]));
+        out.write4(counts.get(order[v]));
+      }
+    }
+  }
+
+  /**
+   * Returns the indexes of all keys in the specified range.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param min minimum value (inclusive)
+   * @param max maximum value (inclusive)
+   * @return indexes
+   */
+  IntList indexes(final double min, final double max) {
+    final IntList list = new IntList();
+    synchronized(leaves) {
+      for(int r = first(min); r < size && value(r) <= max; r++) {
+        list.add(leaves.read4(offset(r) + 8));
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Returns the number of ids of all keys in the specified range.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param min minimum value (inclusive)
+   * @param max maximum value (inclusive)
+   * @return number of ids
+   */
+  int count(final double min, final double max) {
+    long count = 0;
+    synchronized(leaves) {
+      for(int r = first(min); r < size && value(r) <= max; r++) {
+        count += leaves.read4(offset(r) + 12);
+      }
+    }
+    return (int) Math.min(Integer.MAX_VALUE, count);
+  }
+
+  /**
+   * Closes the file.
+   */
+  void close() {
+    leaves.close();
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the position of the first record with a value that is equal to or greater than
+   * the specified value.
+   * @param min minimum value
+   * @return record position
+   */
+  private int first(final double min) {
+    // inner level: find last leaf with a smaller first value
+    int l = 0, h = inner.length;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(inner[m] < min) l = m + 1;
+      else h = m;
+    }
+    // leaf level: binary search in the leaf
+    l = Math.max(0, l - 1) * LEAF;
+    h = Math.min(size, l + LEAF);
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(value(m) < min) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the value of the specified record.
+   * @param r record position
+   * @return value
+   */
+  private double value(final int r) {
+    final long pos = offset(r);
+    return Double.longBitsToDouble((long) leaves.read4(pos) << 32 |
+        leaves.read4(pos + 4) & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the file offset of the specified record.
+   * @param r record position
+   * @return offset
+   */
+  private static long offset(final int r) {
+    return 4 + (long) r * RECORD;
+  }
+}
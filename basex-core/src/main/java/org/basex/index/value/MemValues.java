@@ -30,6 +30,8 @@ public final class MemValues extends ValueIndex {
   private IntList lenList;
   /** Order flags. */
   private BoolList reorder;
+  /** Sorted columns for range queries (lazily created, discarded after updates). */
+  private volatile MemValuesColumns columns;
 
   /**
    * Constructor.
@@ -49,17 +51,31 @@ public final class MemValues extends ValueIndex {
 
   @Override
   public IndexIterator iter(final IndexSearch search) {
-    final int id = values.id(search.token());
-    if(id == 0) return IndexIterator.EMPTY;
-
-    final int len = lenList.get(id);
-    final int[] ids = idsList.get(id), pres;
-    if(data.meta.updindex) {
-      final IntList tmp = new IntList();
-      for(int i = 0; i < len; ++i) tmp.add(data.pre(ids[i]));
-      pres = tmp.sort().finish();
-    } else {
+    final int len;
+    final int[] pres;
+    if(search instanceof StringRange || search instanceof NumericRange) {
+      final MemValuesColumns cols = columns();
+      final int[] ids = search instanceof StringRange ? cols.ids((StringRange) search) :
+        cols.ids((NumericRange) search);
+      len = ids.length;
+      if(data.meta.updindex) {
+        for(int i = 0; i < len; ++i) ids[i] = data.pre(ids[i]);
+      }
+      Arrays.sort(ids);
       pres = ids;
+    } else {
+      final int id = values.id(search.token());
+      if(id == 0) return IndexIterator.EMPTY;
+
+      len = lenList.get(id);
+      final int[] ids = idsList.get(id);
+      if(data.meta.updindex) {
+        final IntList tmp = new IntList();
+        for(int i = 0; i < len; ++i) tmp.add(data.pre(ids[i]));
+        pres = tmp.sort().finish();
+      } else {
+        pres = ids;
+      }
     }
 
     return new IndexIterator() {
@@ -75,7 +91,10 @@ public final class MemValues extends ValueIndex {
 
   @Override
   public IndexCosts costs(final IndexSearch search) {
-    return IndexCosts.get(lenList.get(values.id(search.token())));
+    return IndexCosts.get(
+      search instanceof StringRange ? columns().count((StringRange) search) :
+      search instanceof NumericRange ? columns().count((NumericRange) search) :
+      lenList.get(values.id(search.token())));
   }
 
   @Override
@@ -131,6 +150,7 @@ public final class MemValues extends ValueIndex {
   public boolean drop() {
     idsList = null;
     lenList = null;
+    columns = null;
     return true;
   }
 
@@ -150,18 +170,37 @@ public final class MemValues extends ValueIndex {
     }
   }
 
+  @Override
+  public boolean numeric() {
+    return true;
+  }
+
   @Override
   public void flush() { }
 
   @Override
   public void close() { }
 
+  /**
+   * Returns the sorted columns for range queries.
+   * @return columns
+   */
+  private MemValuesColumns columns() {
+    MemValuesColumns cols = columns;
+    if(cols == null) {
+      cols = new MemValuesColumns(values, idsList, lenList);
+      columns = cols;
+    }
+    return cols;
+  }
+
   /**
    * Adds values to the index.
    * @param key key to be indexed
    * @param vals sorted values
    */
   void add(final byte[] key, final int... vals) {
+    columns = null;
     // token index: add values. otherwise, reference existing values
     final int id = type == IndexType.TOKEN ? values.put(key) : values.id(key), vl = vals.length;
     // updatable index: if required, resize existing arrays
@@ -201,6 +240,7 @@ public final class MemValues extends ValueIndex {
    * @param vals sorted values
    */
   void delete(final byte[] key, final int... vals) {
+    columns = null;
     final int id = values.id(key), vl = vals.length, l = lenList.get(id), s = l - vl;
     final int[] ids = idsList.get(id);
     for(int i = 0, n = 0, v = 0; i < l; i++) {
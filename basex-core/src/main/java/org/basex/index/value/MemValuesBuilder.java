@@ -32,7 +32,7 @@ public class MemValuesBuilder extends ValuesBuilder {
     final boolean updindex = data.meta.updindex;
     for(pre = 0; pre < size; pre++) {
       if((pre & 0x0FFF) == 0) check();
-      if(indexEntry()) {
+      if(indexEntry(pre)) {
         if(tokenize) {
           for(final byte[] token : distinctTokens(data.text(pre, text))) {
             index.add(token, updindex ? data.id(pre) : pre);
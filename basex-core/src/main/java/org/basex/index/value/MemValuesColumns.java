@@ -0,0 +1,226 @@
+package org.basex.index.value;
+
+import static org.basex.util.Token.*;
+
+import java.util.*;
+
+import org.basex.index.query.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * Sorted, columnar representation of a main-memory value index, which is used for range queries.
+ * The index keys are stored in a sorted dictionary, and the ids of all keys are stored in a
+ * single contiguous array. Numeric keys are additionally stored in a sorted numeric column.
+ * A range query is answered by two binary searches, followed by a contiguous copy of the ids.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class MemValuesColumns {
+  /** Sorted keys. */
+  private final byte[][] keys;
+  /** Offsets of the ids of the sorted keys (the last entry contains the total number of ids). */
+  private final int[] offsets;
+  /** Ids, ordered by keys. */
+  private final int[] ids;
+
+  /** Sorted numeric values. */
+  private final double[] numbers;
+  /** Offsets of the ids of the numeric values. */
+  private final int[] numOffsets;
+  /** Ids, ordered by numeric values. */
+  private final int[] numIds;
+
+  /**
+   * Constructor.
+   * @param values index keys
+   * @param idsList ids of the index keys
+   * @param lenList number of ids of the index keys
+   */
+  MemValuesColumns(final TokenSet values, final ArrayList<int[]> idsList, final IntList lenList) {
+    // collect non-empty keys
+    final IntList list = new IntList();
+    final int ls = lenList.size();
+    for(int id = 1; id < ls; id++) {
+      if(lenList.get(id) > 0) list.add(id);
+    }
+    final int[] vids = list.finish();
+    final int vs = vids.length;
+
+    // create sorted dictionary and id column
+    keys = new byte[vs][];
+    for(int v = 0; v < vs; v++) keys[v] = values.key(vids[v]);
+    final int[] order = Array.createOrder(keys, false, true);
+    offsets = new int[vs + 1];
+    ids = column(order, vids, idsList, lenList, offsets);
+
+    // create numeric column
+    final DoubleList nums = new DoubleList();
+    final IntList nids = new IntList();
+    for(int v = 0; v < vs; v++) {
+      final double d = toDouble(values.key(vids[v]));
+      if(!Double.isNaN(d)) {
+        nums.add(d);
+        nids.add(vids[v]);
+      }
+    }
+    numbers = nums.finish();
+    final int[] norder = Array.createOrder(numbers, true);
+    numOffsets = new int[numbers.length + 1];
+    numIds = column(norder, nids.finish(), idsList, lenList, numOffsets);
+  }
+
+  /**
+   * Returns the ids of a string range.
+   * @param range string range
+   * @return ids (sorted per key)
+   */
+  int[] ids(final StringRange range) {
+    return ids(ids, offsets, start(range), end(range));
+  }
+
+  /**
+   * Returns the ids of a numeric range.
+   * @param range numeric range
+   * @return ids (sorted per key)
+   */
+  int[] ids(final NumericRange range) {
+    return ids(numIds, numOffsets, start(range), end(range));
+  }
+
+  /**
+   * Returns the number of ids in a string range.
+   * @param range string range
+   * @return number of ids
+   */
+  int count(final StringRange range) {
+    return count(offsets, start(range), end(range));
+  }
+
+  /**
+   * Returns the number of ids in a numeric range.
+   * @param range numeric range
+   * @return number of ids
+   */
+  int count(final NumericRange range) {
+    return count(numOffsets, start(range), end(range));
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the index of the first key in the string range.
+   * @param range string range
+   * @return index
+   */
+  private int start(final StringRange range) {
+    int l = 0, h = keys.length;
+    while(l < h) {
+      final int m = l + h >>> 1, d = diff(keys[m], range.min);
+      if(d < 0 || d == 0 && !range.mni) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the index after the last key in the string range.
+   * @param range string range
+   * @return index
+   */
+  private int end(final StringRange range) {
+    int l = 0, h = keys.length;
+    while(l < h) {
+      final int m = l + h >>> 1, d = diff(keys[m], range.max);
+      if(d < 0 || d == 0 && range.mxi) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the index of the first value in the numeric range.
+   * @param range numeric range
+   * @return index
+   */
+  private int start(final NumericRange range) {
+    int l = 0, h = numbers.length;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(numbers[m] < range.min) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the index after the last value in the numeric range.
+   * @param range numeric range
+   * @return index
+   */
+  private int end(final NumericRange range) {
+    int l = 0, h = numbers.length;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(numbers[m] <= range.max) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the number of ids in the specified range.
+   * @param offs offsets
+   * @param start index of first key
+   * @param end index after last key
+   * @return number of ids
+   */
+  private static int count(final int[] offs, final int start, final int end) {
+    return start < end ? offs[end] - offs[start] : 0;
+  }
+
+  /**
+   * Returns the ids in the specified range.
+   * @param column id column
+   * @param offs offsets
+   * @param start index of first key
+   * @param end index after last key
+   * @return ids
+   */
+  private static int[] ids(final int[] column, final int[] offs, final int start, final int end) {
+    final int c = count(offs, start, end);
+    final int[] result = new int[c];
+    if(c > 0) System.arraycopy(column, offs[start], result, 0, c);
+    return result;
+  }
+
+  /**
+   * Creates a contiguous id column.
+   * @param order order of the keys
+   * @param vids ids of the keys
+   * @param idsList ids of the index keys
+   * @param lenList number of ids of the index keys
+   * @param offs offsets (will be assigned)
+   * @return id column
+   */
+  private static int[] column(final int[] order, final int[] vids,
+      final ArrayList<int[]> idsList, final IntList lenList, final int[] offs) {
+
+    final int os = order.length;
+    int size = 0;
+    for(int o = 0; o < os; o++) {
+      offs[o] = size;
+      size += lenList.get(vids[order[o]]);
+    }
+    offs[os] = size;
+
+    final int[] column = new int[size];
+    for(int o = 0; o < os; o++) {
+      final int id = vids[order[o]];
+      System.arraycopy(idsList.get(id), 0, column, offs[o], lenList.get(id));
+    }
+    return column;
+  }
+}
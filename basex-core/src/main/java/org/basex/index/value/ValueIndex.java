@@ -47,4 +47,12 @@ public abstract class ValueIndex implements Index {
    * Flushes the buffered data.
    */
   public abstract void flush();
+
+  /**
+   * Indicates if numeric range queries are answered without converting all index keys.
+   * @return result of check
+   */
+  public boolean numeric() {
+    return false;
+  }
 }
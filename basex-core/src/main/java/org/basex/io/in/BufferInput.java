@@ -162,6 +162,14 @@ public class BufferInput extends InputStream {
     if(in != null && !(in instanceof FilterInputStream)) in.close();
   }
 
+  /**
+   * Returns the number of bytes that have been buffered, but not read yet.
+   * @return number of bytes
+   */
+  public final int buffered() {
+    return bsize - bpos;
+  }
+
   /**
    * Returns the number of read bytes.
    * @return read bytes
@@ -0,0 +1,122 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.io.*;
+
+/**
+ * This class provides positional read access to a file. It can be used by concurrent threads,
+ * as it does not depend on a shared file pointer.
+ *
+ * A channel that has been closed by an interrupted thread will be reopened.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class BlockReader implements Closeable {
+  /** File. */
+  private final IOFile file;
+  /** File channel (lazily opened). */
+  private volatile FileChannel channel;
+  /** Asynchronous channel, used for reading ahead (lazily opened). */
+  private volatile AsynchronousFileChannel async;
+  /** Closed flag. */
+  private volatile boolean closed;
+
+  /**
+   * Constructor.
+   * @param file file to be read
+   */
+  BlockReader(final IOFile file) {
+    this.file = file;
+  }
+
+  /**
+   * Reads bytes from the specified file position.
+   * If the end of the file is reached, the remaining bytes will be set to {@code 0}.
+   * @param data target array
+   * @param len number of bytes to read
+   * @param pos file position
+   * @throws IOException I/O exception
+   */
+  void read(final byte[] data, final int len, final long pos) throws IOException {
+    boolean interrupted = false;
+    try {
+      while(true) {
+        final FileChannel fc = channel();
+        try {
+          final ByteBuffer bb = ByteBuffer.wrap(data, 0, len);
+          while(bb.hasRemaining() && fc.read(bb, pos + bb.position()) != -1);
+          Arrays.fill(data, bb.position(), len, (byte) 0);
+          return;
+        } catch(final ClosedChannelException ex) {
+          // channel was closed by an interrupted thread: clear flag and reopen channel
+          if(closed) throw ex;
+          interrupted |= Thread.interrupted();
+        }
+      }
+    } finally {
+      if(interrupted) Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Starts reading bytes from the specified file position in the background.
+   * The returned future indicates the number of read bytes, or {@code -1} if the end of the file
+   * has been reached. In contrast to {@link FileChannel}, the channel will not be closed if
+   * the reading thread is interrupted.
+   * @param bb target buffer
+   * @param pos file position
+   * @return future
+   * @throws IOException I/O exception
+   */
+  Future<Integer> readAsync(final ByteBuffer bb, final long pos) throws IOException {
+    AsynchronousFileChannel afc = async;
+    if(afc == null) {
+      synchronized(this) {
+        if(closed) throw new ClosedChannelException();
+        afc = async;
+        if(afc == null) {
+          afc = AsynchronousFileChannel.open(file.file().toPath(), StandardOpenOption.READ);
+          async = afc;
+        }
+      }
+    }
+    return afc.read(bb, pos);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    closed = true;
+    if(channel != null) channel.close();
+    if(async != null) async.close();
+  }
+
+  /**
+   * Returns an open channel.
+   * @return channel
+   * @throws IOException I/O exception
+   */
+  private FileChannel channel() throws IOException {
+    final FileChannel fc = channel;
+    return fc != null && fc.isOpen() ? fc : open();
+  }
+
+  /**
+   * Opens a new channel.
+   * @return channel
+   * @throws IOException I/O exception
+   */
+  private synchronized FileChannel open() throws IOException {
+    if(closed) throw new ClosedChannelException();
+    if(channel == null || !channel.isOpen()) {
+      channel = FileChannel.open(file.file().toPath(), StandardOpenOption.READ);
+    }
+    return channel;
+  }
+}
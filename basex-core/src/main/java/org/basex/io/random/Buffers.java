@@ -7,10 +7,10 @@ package org.basex.io.random;
  * @author Christian Gruen
  */
 final class Buffers {
-  /** Number of buffers (must be 1 << n). */
+  /** Default number of buffers (must be 1 << n). */
   private static final int BUFFERS = 1 << 4;
   /** Buffers. */
-  private final Buffer[] buffer = new Buffer[BUFFERS];
+  private final Buffer[] buffer;
   /** Current buffer offset. */
   private int offset;
 
@@ -18,6 +18,15 @@ final class Buffers {
    * Constructor.
    */
   Buffers() {
+    this(BUFFERS);
+  }
+
+  /**
+   * Constructor.
+   * @param size number of buffers (must be 1 << n)
+   */
+  Buffers(final int size) {
+    buffer = new Buffer[size];
     init();
   }
 
@@ -25,7 +34,8 @@ final class Buffers {
    * Initializes the buffers.
    */
   void init() {
-    for(int b = 0; b < BUFFERS; ++b) {
+    final int bl = buffer.length;
+    for(int b = 0; b < bl; ++b) {
       buffer[b] = new Buffer();
     }
   }
@@ -38,6 +48,13 @@ final class Buffers {
     return buffer;
   }
 
+  /**
+   * Invalidates the contents of all buffers.
+   */
+  void reset() {
+    for(final Buffer b : buffer) b.pos = -1;
+  }
+
   /**
    * Returns the current buffer.
    * @return current buffer
@@ -52,13 +69,13 @@ final class Buffers {
    * @return true if cursor has changed
    */
   boolean cursor(final long pos) {
-    final int o = offset;
+    final int o = offset, m = buffer.length - 1;
     do {
       if(buffer[offset].pos == pos) return false;
-      offset = offset + 1 & BUFFERS - 1;
+      offset = offset + 1 & m;
     } while(offset != o);
 
-    offset = o + 1 & BUFFERS - 1;
+    offset = o + 1 & m;
     return true;
   }
 }
@@ -7,6 +7,9 @@ import org.basex.util.*;
 
 /**
  * This class allows positional read and write access to a database file.
+ * Concurrent threads can read the file without synchronization via {@link #reader()}.
+ * Readers returned by {@link #diskReader()} only consider contents that have been flushed
+ * to disk, and they can be used while the file is modified by another thread.
  *
  * @author BaseX Team 2005-20, BSD License
  * @author Christian Gruen
@@ -16,6 +19,24 @@ public final class DataAccess implements Closeable {
   private final Buffers buffers = new Buffers();
   /** Reference to the data input stream. */
   private final RandomAccessFile raf;
+  /** Positional reader. */
+  private final BlockReader br;
+  /** File. */
+  private final IOFile file;
+  /** Memory-mapped file (can be {@code null}). */
+  private volatile MappedFile mapped;
+  /** Thread-local states of readers (must not reference this instance). */
+  private final ThreadLocal<DataReader.State> readers =
+      ThreadLocal.withInitial(DataReader.State::new);
+  /** Thread-local states of disk readers (must not reference this instance). */
+  private final ThreadLocal<DataReader.State> diskReaders =
+      ThreadLocal.withInitial(DataReader.State::new);
+  /** Indicates if the buffers contain changes that have not been written to disk yet. */
+  private volatile boolean modified;
+  /** Version of the file contents (incremented with each write operation). */
+  private volatile int version;
+  /** Version of the disk contents (incremented whenever the buffers are flushed). */
+  private volatile int flushed;
   /** File size. */
   private long length;
   /** Changed flag. */
@@ -29,11 +50,24 @@ public final class DataAccess implements Closeable {
    * @throws IOException I/O Exception
    */
   public DataAccess(final IOFile file) throws IOException {
+    this(file, false);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param file the file to be read
+   * @param mmap use memory-mapped file for reading
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final boolean mmap) throws IOException {
     RandomAccessFile f = null;
     try {
       f = new RandomAccessFile(file.file(), "rw");
       length = f.length();
       raf = f;
+      br = new BlockReader(file);
+      this.file = file;
+      if(mmap) mapped = new MappedFile(file);
       cursor(0);
     } catch(final IOException ex) {
       if(f != null) f.close();
@@ -52,7 +86,11 @@ public final class DataAccess implements Closeable {
       if(changed) {
         raf.setLength(length);
         changed = false;
+        // map resized file
+        if(mapped != null) mapped = mapped.resize();
       }
+      modified = false;
+      flushed++;
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -63,9 +101,33 @@ public final class DataAccess implements Closeable {
     flush();
     try {
       raf.close();
+      br.close();
     } catch(final IOException ex) {
       Util.stack(ex);
     }
+    // release mapped segments
+    final MappedFile mf = mapped;
+    mapped = null;
+    if(mf != null) mf.close();
+  }
+
+  /**
+   * Returns a reader for the current thread. The reader uses the cursor and buffers of the
+   * current thread, and it can be used without synchronization.
+   * @return reader
+   */
+  public DataReader reader() {
+    return new DataReader(this, false, readers.get());
+  }
+
+  /**
+   * Returns a disk reader for the current thread. The reader only returns contents that have
+   * been flushed to disk. It can be used to read unchanged parts of the file while the file
+   * is appended by another thread.
+   * @return reader
+   */
+  public DataReader diskReader() {
+    return new DataReader(this, true, diskReaders.get());
   }
 
   /**
@@ -221,9 +283,14 @@ public final class DataAccess implements Closeable {
     try {
       if(buffer.dirty) writeBlock(buffer);
       buffer.pos = b;
-      raf.seek(buffer.pos);
-      if(buffer.pos < raf.length())
-        raf.readFully(buffer.data, 0, (int) Math.min(length - buffer.pos, IO.BLOCKSIZE));
+      final int len = (int) Math.min(length - b, IO.BLOCKSIZE);
+      final MappedFile mf = mapped;
+      if(mf != null && len > 0 && mf.covers(b, len)) {
+        mf.read(buffer.data, len, b);
+      } else {
+        raf.seek(b);
+        if(b < raf.length()) raf.readFully(buffer.data, 0, len);
+      }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -253,6 +320,7 @@ public final class DataAccess implements Closeable {
    * @param value value to be written
    */
   public void write5(final long pos, final long value) {
+    modify();
     cursor(pos);
     write((byte) (value >>> 32));
     write((byte) (value >>> 24));
@@ -276,6 +344,7 @@ public final class DataAccess implements Closeable {
    * @param value value to be written
    */
   public void write4(final int value) {
+    modify();
     write(value >>> 24);
     write(value >>> 16);
     write(value >>>  8);
@@ -287,6 +356,7 @@ public final class DataAccess implements Closeable {
    * @param value value to be written
    */
   public void writeNum(final int value) {
+    modify();
     if(value < 0 || value > 0x3FFFFFFF) {
       write(0xC0); write(value >>> 24); write(value >>> 16); write(value >>> 8); write(value);
     } else if(value > 0x3FFF) {
@@ -306,6 +376,7 @@ public final class DataAccess implements Closeable {
    * @param len number of bytes to be written
    */
   public void writeBytes(final byte[] data, final int offset, final int len) {
+    modify();
     final int last = offset + len;
     int o = offset;
 
@@ -342,6 +413,7 @@ public final class DataAccess implements Closeable {
    * @return new offset to store text
    */
   public long free(final long pos, final int size) {
+    modify();
     // old text size (available space)
     int os = readNum(pos) + (int) (cursor() - pos);
 
@@ -383,8 +455,76 @@ public final class DataAccess implements Closeable {
     }
   }
 
+  /**
+   * Returns the version of the file contents.
+   * @return version
+   */
+  int version() {
+    return version;
+  }
+
+  /**
+   * Returns the version of the disk contents.
+   * @return version
+   */
+  int flushed() {
+    return flushed;
+  }
+
+  /**
+   * Reads the block at the current buffer position from disk.
+   * If the end of the file is reached, the remaining bytes will be set to {@code 0}.
+   * @param buffer buffer
+   */
+  void readDisk(final Buffer buffer) {
+    try {
+      br.read(buffer.data, IO.BLOCKSIZE, buffer.pos);
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Reads the block at the current buffer position. This method can be called by concurrent
+   * threads, as long as the file is not modified at the same time.
+   * @param buffer buffer
+   */
+  void read(final Buffer buffer) {
+    final long pos = buffer.pos;
+    if(modified) {
+      // check if block is still buffered
+      synchronized(this) {
+        for(final Buffer b : buffers.all()) {
+          if(b.pos == pos) {
+            Array.copy(b.data, IO.BLOCKSIZE, buffer.data);
+            return;
+          }
+        }
+      }
+    }
+    final int len = (int) Math.max(0, Math.min(length - pos, IO.BLOCKSIZE));
+    final MappedFile mf = mapped;
+    if(mf != null && mf.covers(pos, len)) {
+      mf.read(buffer.data, len, pos);
+      return;
+    }
+    try {
+      br.read(buffer.data, len, pos);
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
   // PRIVATE METHODS ==============================================================================
 
+  /**
+   * Marks the file as modified.
+   */
+  private void modify() {
+    modified = true;
+    version++;
+  }
+
   /**
    * Reads the next byte.
    * @return next byte
@@ -0,0 +1,217 @@
+package org.basex.io.random;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides read access to a database file. Each thread gets its own instance
+ * (see {@link DataAccess#reader()}), which has its own cursor and block buffers.
+ * As a result, concurrent threads can read the same file without synchronization.
+ * The cursor and buffers are kept in a thread-local {@link State}, which is reused by all
+ * readers that are requested by the same thread.
+ * Disk readers (see {@link DataAccess#diskReader()}) ignore changes that have not been
+ * flushed yet.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class DataReader {
+  /** Number of buffers (must be 1 << n). */
+  private static final int BUFFERS = 1 << 2;
+
+  /** Data access. */
+  private final DataAccess da;
+  /** Only read contents that have been flushed to disk. */
+  private final boolean disk;
+  /** Cursor and buffers of the reading thread. */
+  private final State state;
+
+  /**
+   * Constructor.
+   * @param da data access
+   * @param disk only read contents that have been flushed to disk
+   * @param state cursor and buffers of the reading thread
+   */
+  DataReader(final DataAccess da, final boolean disk, final State state) {
+    this.da = da;
+    this.disk = disk;
+    this.state = state;
+  }
+
+  /**
+   * Returns the current file position.
+   * @return position in the file
+   */
+  public long cursor() {
+    return state.buffers.current().pos + state.off;
+  }
+
+  /**
+   * Reads a byte value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  public byte read1(final long pos) {
+    cursor(pos);
+    return (byte) read();
+  }
+
+  /**
+   * Reads an integer value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  public int read4(final long pos) {
+    cursor(pos);
+    return read4();
+  }
+
+  /**
+   * Reads an integer value.
+   * @return integer value
+   */
+  public int read4() {
+    return (read() << 24) + (read() << 16) + (read() << 8) + read();
+  }
+
+  /**
+   * Reads a 5-byte value from the specified file offset.
+   * @param pos position
+   * @return long value
+   */
+  public long read5(final long pos) {
+    cursor(pos);
+    return read5();
+  }
+
+  /**
+   * Reads a 5-byte value.
+   * @return long value
+   */
+  public long read5() {
+    return ((long) read() << 32) + ((long) read() << 24) + (read() << 16) + (read() << 8) + read();
+  }
+
+  /**
+   * Reads a {@link Num} value from disk.
+   * @param pos text position
+   * @return read num
+   */
+  public int readNum(final long pos) {
+    cursor(pos);
+    return readNum();
+  }
+
+  /**
+   * Reads the next compressed number and returns it as integer.
+   * @return next integer
+   */
+  public int readNum() {
+    final int value = read();
+    switch(value & 0xC0) {
+    case 0:
+      return value;
+    case 0x40:
+      return (value - 0x40 << 8) + read();
+    case 0x80:
+      return (value - 0x80 << 24) + (read() << 16) + (read() << 8) + read();
+    default:
+      return (read() << 24) + (read() << 16) + (read() << 8) + read();
+    }
+  }
+
+  /**
+   * Reads a token from disk.
+   * @param pos text position
+   * @return text as byte array
+   */
+  public byte[] readToken(final long pos) {
+    cursor(pos);
+    return readBytes(readNum());
+  }
+
+  /**
+   * Reads a number of bytes from the specified offset.
+   * @param pos position
+   * @param len length
+   * @return byte array
+   */
+  public byte[] readBytes(final long pos, final int len) {
+    cursor(pos);
+    return readBytes(len);
+  }
+
+  /**
+   * Reads a number of bytes.
+   * @param len length
+   * @return byte array
+   */
+  public byte[] readBytes(final int len) {
+    final State st = state;
+    final byte[] data = new byte[len];
+    int o = 0;
+    while(o < len) {
+      if(st.off == IO.BLOCKSIZE) next();
+      final int l = Math.min(len - o, IO.BLOCKSIZE - st.off);
+      Array.copy(st.buffers.current().data, st.off, l, data, o);
+      st.off += l;
+      o += l;
+    }
+    return data;
+  }
+
+  /**
+   * Sets the cursor.
+   * @param pos read position
+   */
+  public void cursor(final long pos) {
+    // invalidate buffers if file has been modified
+    final State st = state;
+    final int v = disk ? da.flushed() : da.version();
+    if(v != st.version) {
+      st.buffers.reset();
+      st.version = v;
+    }
+
+    st.off = (int) (pos & IO.BLOCKSIZE - 1);
+    final long b = pos - st.off;
+    if(!st.buffers.cursor(b)) return;
+
+    final Buffer buffer = st.buffers.current();
+    buffer.pos = b;
+    if(disk) da.readDisk(buffer);
+    else da.read(buffer);
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Reads the next byte.
+   * @return next byte
+   */
+  private int read() {
+    final State st = state;
+    if(st.off == IO.BLOCKSIZE) next();
+    return st.buffers.current().data[st.off++] & 0xFF;
+  }
+
+  /**
+   * Moves the cursor to the next block.
+   */
+  private void next() {
+    cursor(state.buffers.current().pos + IO.BLOCKSIZE);
+  }
+
+  /**
+   * Cursor and buffers of a reading thread.
+   * The state does not reference the read file (see {@link ThreadReaders}).
+   */
+  static final class State {
+    /** Buffer manager. */
+    private final Buffers buffers = new Buffers(BUFFERS);
+    /** Version of the buffered data. */
+    private int version = -1;
+    /** Offset. */
+    private int off;
+  }
+}
@@ -0,0 +1,204 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides read-only access to a memory-mapped file.
+ * Files are mapped in segments, as a single buffer is limited to 2 GB.
+ * All methods are thread-safe, as they do not change the state of the mapped buffers.
+ *
+ * Changes that are written to the file by other file handles are visible in the mapped
+ * segments. If the file grows, {@link #resize()} needs to be called: complete segments are
+ * reused, and only the last segment is mapped again. As readers may still access a replaced
+ * segment, it is only released when the file is closed.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class MappedFile {
+  /** Segment power (1 GB; must be a multiple of the block size). */
+  private static final int POWER = 30;
+  /** Segment size. */
+  private static final int SEGMENT = 1 << POWER;
+  /** Function for releasing mapped buffers ({@code null} if not available). */
+  private static final Consumer<ByteBuffer> UNMAP = unmap();
+
+  /** File. */
+  private final IOFile file;
+  /** Mapped segments. */
+  private final MappedByteBuffer[] segments;
+  /** Replaced segments (shared by all mappings of a file). */
+  private final ArrayList<MappedByteBuffer> replaced;
+  /** Size of the mapped file. */
+  private final long size;
+
+  /**
+   * Constructor.
+   * @param file file to be mapped
+   * @throws IOException I/O exception
+   */
+  MappedFile(final IOFile file) throws IOException {
+    this(file, new MappedByteBuffer[0], new ArrayList<>());
+  }
+
+  /**
+   * Constructor.
+   * @param file file to be mapped
+   * @param mapped segments of the previous mapping
+   * @param replaced replaced segments
+   * @throws IOException I/O exception
+   */
+  private MappedFile(final IOFile file, final MappedByteBuffer[] mapped,
+      final ArrayList<MappedByteBuffer> replaced) throws IOException {
+    this.file = file;
+    this.replaced = replaced;
+    try(FileChannel fc = FileChannel.open(file.file().toPath(), StandardOpenOption.READ)) {
+      size = fc.size();
+      final int sl = (int) ((size + SEGMENT - 1) >>> POWER), ml = mapped.length;
+      segments = Arrays.copyOf(mapped, sl);
+      for(int s = 0; s < sl; s++) {
+        final long pos = (long) s << POWER, len = Math.min(SEGMENT, size - pos);
+        // reuse segment if its size has not changed
+        if(s < ml && mapped[s].capacity() == len) continue;
+        if(s < ml) replaced.add(mapped[s]);
+        segments[s] = fc.map(MapMode.READ_ONLY, pos, len);
+      }
+      for(int s = sl; s < ml; s++) replaced.add(mapped[s]);
+    }
+  }
+
+  /**
+   * Maps the resized file. Segments of this mapping are reused if their size has not changed.
+   * @return new mapping
+   * @throws IOException I/O exception
+   */
+  MappedFile resize() throws IOException {
+    return new MappedFile(file, segments, replaced);
+  }
+
+  /**
+   * Releases all segments of this mapping and all replaced segments.
+   * The mapping must not be accessed anymore.
+   */
+  void close() {
+    if(UNMAP == null) return;
+    for(final MappedByteBuffer segment : segments) UNMAP.accept(segment);
+    for(final MappedByteBuffer segment : replaced) UNMAP.accept(segment);
+    replaced.clear();
+  }
+
+  /**
+   * Returns the size of the mapped file.
+   * @return size
+   */
+  long size() {
+    return size;
+  }
+
+  /**
+   * Checks if the specified range is mapped.
+   * @param pos file position
+   * @param len length
+   * @return result of check
+   */
+  boolean covers(final long pos, final int len) {
+    return pos + len <= size;
+  }
+
+  /**
+   * Reads a byte value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  int read1(final long pos) {
+    return segments[(int) (pos >>> POWER)].get((int) pos & SEGMENT - 1) & 0xFF;
+  }
+
+  /**
+   * Reads a short value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  int read2(final long pos) {
+    final int i = (int) pos & SEGMENT - 1;
+    if(i <= SEGMENT - 2) return segments[(int) (pos >>> POWER)].getShort(i) & 0xFFFF;
+    return (read1(pos) << 8) + read1(pos + 1);
+  }
+
+  /**
+   * Reads an integer value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  int read4(final long pos) {
+    final int i = (int) pos & SEGMENT - 1;
+    if(i <= SEGMENT - 4) return segments[(int) (pos >>> POWER)].getInt(i);
+    return (read2(pos) << 16) + read2(pos + 2);
+  }
+
+  /**
+   * Reads a 5-byte value from the specified position.
+   * @param pos position
+   * @return long value
+   */
+  long read5(final long pos) {
+    return ((long) read1(pos) << 32) + (read4(pos + 1) & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Copies bytes from the specified position to an array.
+   * @param data target array
+   * @param len number of bytes to copy
+   * @param pos file position
+   */
+  void read(final byte[] data, final int len, final long pos) {
+    int o = 0;
+    long p = pos;
+    while(o < len) {
+      final int i = (int) p & SEGMENT - 1, l = Math.min(len - o, SEGMENT - i);
+      final ByteBuffer bb = segments[(int) (p >>> POWER)].duplicate();
+      bb.position(i);
+      bb.get(data, o, l);
+      o += l;
+      p += l;
+    }
+  }
+
+  /**
+   * Returns a function for releasing mapped buffers. Without this function, buffers are only
+   * released by the garbage collector, and files cannot be deleted on Windows before.
+   * @return function or {@code null}
+   */
+  private static Consumer<ByteBuffer> unmap() {
+    try {
+      // Java 9 and later
+      final Class<?> clazz = Class.forName("sun.misc.Unsafe");
+      final Method clean = clazz.getMethod("invokeCleaner", ByteBuffer.class);
+      final Field field = clazz.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      final Object unsafe = field.get(null);
+      return buffer -> Reflect.invoke(clean, unsafe, buffer);
+    } catch(final Exception ex) {
+      Util.debug(ex);
+    }
+    try {
+      // Java 8
+      final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+      final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+      return buffer -> Reflect.invoke(clean, Reflect.invoke(cleaner, buffer));
+    } catch(final Exception ex) {
+      Util.debug(ex);
+    }
+    return null;
+  }
+}
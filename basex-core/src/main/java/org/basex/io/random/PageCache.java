@@ -0,0 +1,314 @@
+package org.basex.io.random;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.io.*;
+
+/**
+ * This class provides a page cache, which is shared by all table files of disk-based databases.
+ * Pages are evicted via the 2Q strategy: Pages that are requested for the first time are
+ * added to a FIFO queue. Only pages that are requested again after having been dropped from
+ * this queue are promoted to the main LRU queue. As a result, table scans will not replace
+ * frequently accessed pages.
+ *
+ * The cache only contains clean copies of disk pages. Modified pages are updated when they
+ * are written back to disk. In order to reduce lock contention, pages are distributed over
+ * several independently synchronized segments.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class PageCache {
+  /** Number of segments (must be 1 << n). */
+  private static final int SEGMENTS = 1 << 4;
+  /** Global instance. */
+  private static final PageCache INSTANCE = new PageCache();
+  /** Counter for table ids. */
+  private static final AtomicInteger IDS = new AtomicInteger();
+
+  /** Segments. */
+  private final Segment[] segments = new Segment[SEGMENTS];
+  /** Indicates if the initial memory budget has been assigned. */
+  private final AtomicBoolean initialized = new AtomicBoolean();
+
+  /**
+   * Private constructor.
+   */
+  private PageCache() {
+    for(int s = 0; s < SEGMENTS; s++) segments[s] = new Segment();
+  }
+
+  /**
+   * Returns the global page cache.
+   * @return cache
+   */
+  public static PageCache get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns a new id for a table file.
+   * @return id
+   */
+  static int id() {
+    return IDS.incrementAndGet();
+  }
+
+  /**
+   * Assigns the initial memory budget. As the cache is shared by all database contexts,
+   * only the first call will be considered.
+   * @param mb size in megabytes (caching is disabled if the value is {@code 0} or smaller)
+   */
+  public void init(final int mb) {
+    if(initialized.compareAndSet(false, true)) size(mb);
+  }
+
+  /**
+   * Assigns the memory budget. Pages that exceed the new limit will be dropped.
+   * @param mb size in megabytes (caching is disabled if the value is {@code 0} or smaller)
+   */
+  public void size(final int mb) {
+    final long pages = Math.max(0L, mb) * (1 << 20) / IO.BLOCKSIZE;
+    final int max = (int) Math.min(Integer.MAX_VALUE, (pages + SEGMENTS - 1) / SEGMENTS);
+    for(final Segment segment : segments) segment.size(max);
+  }
+
+  /**
+   * Copies a cached page to the specified array.
+   * @param id table id
+   * @param page page
+   * @param data target array
+   * @return success flag
+   */
+  boolean read(final int id, final long page, final byte[] data) {
+    return segment(id, page).read(key(id, page), data);
+  }
+
+  /**
+   * Adds a page that has been read from disk.
+   * @param id table id
+   * @param page page
+   * @param data page data
+   */
+  void add(final int id, final long page, final byte[] data) {
+    segment(id, page).add(key(id, page), data);
+  }
+
+  /**
+   * Updates a cached page after it has been written to disk.
+   * @param id table id
+   * @param page page
+   * @param data page data
+   */
+  void update(final int id, final long page, final byte[] data) {
+    segment(id, page).update(key(id, page), data);
+  }
+
+  /**
+   * Removes all pages of the specified table.
+   * @param id table id
+   */
+  void remove(final int id) {
+    for(final Segment segment : segments) segment.remove(id);
+  }
+
+  /**
+   * Returns the number of cache hits.
+   * @return hits
+   */
+  public long hits() {
+    long hits = 0;
+    for(final Segment segment : segments) {
+      synchronized(segment) {
+        hits += segment.hits;
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Returns the number of cache misses.
+   * @return misses
+   */
+  public long misses() {
+    long misses = 0;
+    for(final Segment segment : segments) {
+      synchronized(segment) {
+        misses += segment.misses;
+      }
+    }
+    return misses;
+  }
+
+  /**
+   * Returns the number of cached pages.
+   * @return number of pages
+   */
+  public int pages() {
+    int pages = 0;
+    for(final Segment segment : segments) pages += segment.pages();
+    return pages;
+  }
+
+  /**
+   * Returns the maximum number of cached pages.
+   * @return maximum number of pages
+   */
+  public int max() {
+    int max = 0;
+    for(final Segment segment : segments) {
+      synchronized(segment) {
+        max += segment.max;
+      }
+    }
+    return max;
+  }
+
+  @Override
+  public String toString() {
+    return "PageCache (pages: " + pages() + '/' + max() + ", hits: " + hits() +
+        ", misses: " + misses() + ')';
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the segment for the specified page.
+   * @param id table id
+   * @param page page
+   * @return segment
+   */
+  private Segment segment(final int id, final long page) {
+    return segments[(int) page + id * 0x9E3779B9 & SEGMENTS - 1];
+  }
+
+  /**
+   * Returns a key for the specified page.
+   * @param id table id
+   * @param page page
+   * @return key
+   */
+  private static Long key(final int id, final long page) {
+    return (long) id << 32 | page & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Cache segment.
+   */
+  private static final class Segment {
+    /** Main queue with frequently accessed pages (LRU). */
+    private final LinkedHashMap<Long, byte[]> am = new LinkedHashMap<>(16, 0.75f, true);
+    /** Queue with pages that have been accessed once (FIFO). */
+    private final LinkedHashMap<Long, byte[]> a1in = new LinkedHashMap<>();
+    /** Ids of pages that have recently been evicted from the FIFO queue. */
+    private final LinkedHashSet<Long> a1out = new LinkedHashSet<>();
+
+    /** Maximum number of cached pages. */
+    private int max;
+    /** Maximum number of pages in the FIFO queue. */
+    private int maxIn;
+    /** Maximum number of remembered page ids. */
+    private int maxOut;
+    /** Number of cache hits. */
+    private long hits;
+    /** Number of cache misses. */
+    private long misses;
+
+    /**
+     * Assigns the maximum number of pages.
+     * @param pages number of pages
+     */
+    synchronized void size(final int pages) {
+      max = pages;
+      maxIn = Math.max(1, max >>> 2);
+      maxOut = Math.max(1, max >>> 1);
+      evict();
+      while(a1out.size() > maxOut) a1out.remove(a1out.iterator().next());
+    }
+
+    /**
+     * Copies a cached page to the specified array.
+     * @param key key
+     * @param data target array
+     * @return success flag
+     */
+    synchronized boolean read(final Long key, final byte[] data) {
+      if(max == 0) return false;
+      byte[] cached = am.get(key);
+      if(cached == null) cached = a1in.get(key);
+      if(cached == null) {
+        misses++;
+        return false;
+      }
+      System.arraycopy(cached, 0, data, 0, IO.BLOCKSIZE);
+      hits++;
+      return true;
+    }
+
+    /**
+     * Adds a page.
+     * @param key key
+     * @param data page data
+     */
+    synchronized void add(final Long key, final byte[] data) {
+      if(max == 0 || am.containsKey(key) || a1in.containsKey(key)) return;
+
+      final byte[] cached = data.clone();
+      if(a1out.remove(key)) am.put(key, cached);
+      else a1in.put(key, cached);
+      evict();
+    }
+
+    /**
+     * Updates a cached page.
+     * @param key key
+     * @param data page data
+     */
+    synchronized void update(final Long key, final byte[] data) {
+      if(max == 0) return;
+      byte[] cached = am.get(key);
+      if(cached == null) cached = a1in.get(key);
+      if(cached != null) System.arraycopy(data, 0, cached, 0, IO.BLOCKSIZE);
+    }
+
+    /**
+     * Removes all pages of the specified table.
+     * @param id table id
+     */
+    synchronized void remove(final int id) {
+      am.keySet().removeIf(k -> (int) (k >>> 32) == id);
+      a1in.keySet().removeIf(k -> (int) (k >>> 32) == id);
+      a1out.removeIf(k -> (int) (k >>> 32) == id);
+    }
+
+    /**
+     * Returns the number of cached pages.
+     * @return number of pages
+     */
+    synchronized int pages() {
+      return am.size() + a1in.size();
+    }
+
+    /**
+     * Evicts pages until the segment size is within its limits.
+     */
+    private void evict() {
+      while(am.size() + a1in.size() > max) {
+        if(a1in.size() > maxIn || am.isEmpty()) {
+          // drop oldest page from FIFO queue, remember its id
+          final Iterator<Long> iter = a1in.keySet().iterator();
+          final Long key = iter.next();
+          iter.remove();
+          a1out.add(key);
+          if(a1out.size() > maxOut) a1out.remove(a1out.iterator().next());
+        } else {
+          // drop least recently used page from main queue
+          final Iterator<Long> iter = am.keySet().iterator();
+          iter.next();
+          iter.remove();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class speeds up sequential scans of a table file. If a number of successive pages has been
+ * requested, a large window of subsequent pages is read at once, and the next window is read
+ * asynchronously while the current one is consumed. As soon as a page is requested that is not
+ * part of the windows, scanning mode is left and the windows are released.
+ *
+ * Pages that are supplied by this reader are not added to the shared page cache, as they are
+ * unlikely to be requested again.
+ *
+ * This class is not thread-safe: each reading thread must use its own instance. The instance
+ * does not reference the read file, so it can be stored in a thread-local variable.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class ScanReader {
+  /** Number of successive page requests after which pages will be read ahead. */
+  private static final int SEQUENTIAL = 4;
+  /** Number of pages per window (256 KB). */
+  private static final int WINDOW = 1 << 6;
+
+  /** Last requested page. */
+  private long last = -1;
+  /** Number of successive page requests. */
+  private int run;
+
+  /** Current window (can be {@code null}). */
+  private ByteBuffer current;
+  /** First page of the current window. */
+  private long start;
+  /** Number of pages in the current window. */
+  private int size;
+
+  /** Next window, which is being read (can be {@code null}). */
+  private ByteBuffer next;
+  /** First page of the next window. */
+  private long nextStart;
+  /** Pending read operation for the next window (can be {@code null}). */
+  private Future<Integer> pending;
+
+  /**
+   * Copies the specified page to the target array if it is part of a sequential scan.
+   * @param reader positional reader of the file
+   * @param page page
+   * @param pages total number of pages in the file
+   * @param data target array
+   * @return {@code true} if the page was supplied by this reader
+   */
+  boolean read(final BlockReader reader, final long page, final long pages, final byte[] data) {
+    run = page == last + 1 ? run + 1 : 0;
+    last = page;
+
+    if(current == null || page < start || page >= start + size) {
+      try {
+        if(pending != null && page == nextStart) {
+          // next window: wait for completion of the read operation
+          size = complete(reader, next, pending, nextStart);
+          final ByteBuffer bb = current;
+          current = next;
+          next = bb;
+          start = nextStart;
+          pending = null;
+        } else if(run >= SEQUENTIAL && page < pages) {
+          // sequential access: read current window
+          reset();
+          current = ByteBuffer.allocate(WINDOW * IO.BLOCKSIZE);
+          current.limit((int) Math.min(WINDOW, pages - page) * IO.BLOCKSIZE);
+          size = complete(reader, current, reader.readAsync(current, page * IO.BLOCKSIZE), page);
+          start = page;
+        } else {
+          reset();
+          return false;
+        }
+        // read next window in the background
+        nextStart = start + size;
+        if(nextStart < pages) {
+          if(next == null) next = ByteBuffer.allocate(WINDOW * IO.BLOCKSIZE);
+          next.clear();
+          next.limit((int) Math.min(WINDOW, pages - nextStart) * IO.BLOCKSIZE);
+          pending = reader.readAsync(next, nextStart * IO.BLOCKSIZE);
+        }
+      } catch(final IOException | ExecutionException ex) {
+        Util.debug(ex);
+        reset();
+        return false;
+      } catch(final InterruptedException ex) {
+        Util.debug(ex);
+        Thread.currentThread().interrupt();
+        reset();
+        return false;
+      }
+    }
+
+    System.arraycopy(current.array(), (int) (page - start) * IO.BLOCKSIZE, data, 0, IO.BLOCKSIZE);
+    return true;
+  }
+
+  /**
+   * Leaves scanning mode and releases the windows.
+   * A pending read operation cannot be canceled without closing the channel. Instead, its
+   * target buffer will be discarded.
+   */
+  void reset() {
+    current = null;
+    next = null;
+    pending = null;
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Waits for the completion of a read operation and reads the remaining bytes.
+   * If the end of the file is reached, the remaining bytes will be set to {@code 0}.
+   * @param reader positional reader of the file
+   * @param bb target buffer
+   * @param future read operation
+   * @param page first page
+   * @return number of pages in the buffer
+   * @throws IOException I/O exception
+   * @throws ExecutionException execution exception
+   * @throws InterruptedException interrupted exception
+   */
+  private static int complete(final BlockReader reader, final ByteBuffer bb,
+      final Future<Integer> future, final long page)
+      throws IOException, ExecutionException, InterruptedException {
+
+    final long pos = page * IO.BLOCKSIZE;
+    int read = future.get();
+    while(read != -1 && bb.hasRemaining()) {
+      read = reader.readAsync(bb, pos + bb.position()).get();
+    }
+    final int limit = bb.limit();
+    Arrays.fill(bb.array(), bb.position(), limit, (byte) 0);
+    return limit / IO.BLOCKSIZE;
+  }
+}
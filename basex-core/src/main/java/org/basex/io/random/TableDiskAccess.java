@@ -12,10 +12,17 @@ import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * This class stores the table on disk and reads it page-wise.
  *
+ * Read-only snapshots of the table can be created via {@link #snapshot(MetaData)}. As long as
+ * snapshots exist, pages that may be referenced by a snapshot are never overwritten: before such
+ * a page is changed for the first time, it is moved to a new position (shadow page). Pages that
+ * are no longer referenced by the current table are reused as soon as all snapshots that may
+ * reference them have been closed.
+ *
  * @author BaseX Team 2005-20, BSD License
  * @author Christian Gruen
  * @author Tim Petrowsky
@@ -23,6 +30,17 @@ import org.basex.util.*;
 public final class TableDiskAccess extends TableAccess {
   /** Buffer manager. */
   private final Buffers buffers = new Buffers();
+  /** Shared page cache. */
+  private final PageCache cache = PageCache.get();
+  /** Id of the table in the page cache. */
+  private final int id = PageCache.id();
+  /** Thread-local readers. */
+  private final ThreadReaders<Reader> readers =
+      new ThreadReaders<>(Reader::new, reader -> reader.scan.reset());
+  /** Positional reader. */
+  private final BlockReader br;
+  /** Memory-mapped file (can be {@code null}). */
+  private volatile MappedFile mapped;
   /** File storing all pages. */
   private final RandomAccessFile file;
   /** Bitmap storing free (=0) and used (=1) pages. */
@@ -38,6 +56,15 @@ public final class TableDiskAccess extends TableAccess {
   private int pages;
   /** Number of used pages. */
   private int used;
+  /** Indicates if pages have been changed that have not been written to disk yet. */
+  private volatile boolean modified;
+  /** Version of the table (incremented whenever modified pages are written to disk). */
+  private volatile int version;
+
+  /** Snapshots in ascending order (only assigned if snapshots have been created). */
+  private ArrayList<Snapshot> snapshots;
+  /** Pages that have been assigned since the creation of the last snapshot. */
+  private BitArray assigned;
 
   /** Pointer to current page. */
   private int page = -1;
@@ -76,6 +103,8 @@ public final class TableDiskAccess extends TableAccess {
 
     // initialize data file
     file = new RandomAccessFile(meta.dbFile(DATATBL).file(), "rw");
+    br = new BlockReader(meta.dbFile(DATATBL));
+    if(meta.mmap) mapped = new MappedFile(meta.dbFile(DATATBL));
     if(!lock(write)) throw new BaseXException(Text.DB_PINNED_X, meta.name);
   }
 
@@ -102,6 +131,14 @@ public final class TableDiskAccess extends TableAccess {
     for(final Buffer buffer : buffers.all()) {
       write(buffer);
     }
+    if(modified) {
+      version++;
+      modified = false;
+      // map resized file
+      if(mapped != null && file.length() > mapped.size()) {
+        mapped = mapped.resize();
+      }
+    }
     if(!dirty || !all) return;
 
     try(DataOutput out = new DataOutput(meta.dbFile(DATATBL + 'i'))) {
@@ -135,8 +172,20 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public synchronized void close() throws IOException {
+    // release all snapshots and the pages that have been kept for them
+    if(snapshots != null) {
+      for(final Snapshot snapshot : snapshots) snapshot.close();
+      reclaim();
+    }
     flush(true);
     file.close();
+    br.close();
+    readers.close();
+    cache.remove(id);
+    // release mapped segments
+    final MappedFile mf = mapped;
+    mapped = null;
+    if(mf != null) mf.close();
   }
 
   @Override
@@ -153,86 +202,132 @@ public final class TableDiskAccess extends TableAccess {
     }
   }
 
+  /**
+   * Creates a read-only snapshot of the current state of the table. The snapshot will not be
+   * affected by subsequent updates, and it can be read by concurrent threads without
+   * synchronization. It must be closed when it is not required anymore.
+   * This method must not be called while the table is being updated.
+   * @param md meta data of the snapshot (the size must match the current table size)
+   * @return snapshot
+   * @throws IOException I/O exception
+   */
+  public synchronized TableAccess snapshot(final MetaData md) throws IOException {
+    // write modified pages to disk, reuse pages of closed snapshots
+    flush(false);
+    if(snapshots == null) snapshots = new ArrayList<>();
+    else reclaim();
+
+    final Snapshot snapshot = new Snapshot(md);
+    snapshots.add(snapshot);
+    assigned = new BitArray();
+    return snapshot;
+  }
+
   @Override
-  public synchronized int read1(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return data[o] & 0xFF;
+  public int read1(final int pre, final int offset) {
+    if(modified) {
+      synchronized(this) {
+        final int o = offset + cursor(pre);
+        return buffers.current().data[o] & 0xFF;
+      }
+    }
+    final MappedFile mf = mapped;
+    if(mf != null) return mf.read1(position(pre) + offset);
+    final Reader reader = readers.get();
+    final int o = offset + reader.cursor(this, pre);
+    return reader.data()[o] & 0xFF;
   }
 
   @Override
-  public synchronized int read2(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((data[o] & 0xFF) << 8) + (data[o + 1] & 0xFF);
+  public int read2(final int pre, final int offset) {
+    if(modified) {
+      synchronized(this) {
+        final int o = offset + cursor(pre);
+        return read2(buffers.current().data, o);
+      }
+    }
+    final MappedFile mf = mapped;
+    if(mf != null) return mf.read2(position(pre) + offset);
+    final Reader reader = readers.get();
+    final int o = offset + reader.cursor(this, pre);
+    return read2(reader.data(), o);
   }
 
   @Override
-  public synchronized int read4(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((data[o] & 0xFF) << 24) + ((data[o + 1] & 0xFF) << 16) +
-      ((data[o + 2] & 0xFF) << 8) + (data[o + 3] & 0xFF);
+  public int read4(final int pre, final int offset) {
+    if(modified) {
+      synchronized(this) {
+        final int o = offset + cursor(pre);
+        return read4(buffers.current().data, o);
+      }
+    }
+    final MappedFile mf = mapped;
+    if(mf != null) return mf.read4(position(pre) + offset);
+    final Reader reader = readers.get();
+    final int o = offset + reader.cursor(this, pre);
+    return read4(reader.data(), o);
   }
 
   @Override
-  public synchronized long read5(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((long) (data[o] & 0xFF) << 32) + ((long) (data[o + 1] & 0xFF) << 24) +
-      ((data[o + 2] & 0xFF) << 16) + ((data[o + 3] & 0xFF) << 8) + (data[o + 4] & 0xFF);
+  public long read5(final int pre, final int offset) {
+    if(modified) {
+      synchronized(this) {
+        final int o = offset + cursor(pre);
+        return read5(buffers.current().data, o);
+      }
+    }
+    final MappedFile mf = mapped;
+    if(mf != null) return mf.read5(position(pre) + offset);
+    final Reader reader = readers.get();
+    final int o = offset + reader.cursor(this, pre);
+    return read5(reader.data(), o);
   }
 
   @Override
   public void write1(final int pre, final int offset, final int value) {
     final int o = offset + cursor(pre);
-    final Buffer buffer = buffers.current();
-    buffer.data[o] = (byte) value;
-    buffer.dirty = true;
+    modify().data[o] = (byte) value;
+    modified = true;
   }
 
   @Override
   public void write2(final int pre, final int offset, final int value) {
     final int o = offset + cursor(pre);
-    final Buffer buffer = buffers.current();
-    final byte[] data = buffer.data;
+    final byte[] data = modify().data;
     data[o] = (byte) (value >>> 8);
     data[o + 1] = (byte) value;
-    buffer.dirty = true;
+    modified = true;
   }
 
   @Override
   public void write4(final int pre, final int offset, final int value) {
     final int o = offset + cursor(pre);
-    final Buffer buffer = buffers.current();
-    final byte[] data = buffer.data;
+    final byte[] data = modify().data;
     data[o]     = (byte) (value >>> 24);
     data[o + 1] = (byte) (value >>> 16);
     data[o + 2] = (byte) (value >>> 8);
     data[o + 3] = (byte) value;
-    buffer.dirty = true;
+    modified = true;
   }
 
   @Override
   public void write5(final int pre, final int offset, final long value) {
     final int o = offset + cursor(pre);
-    final Buffer buffer = buffers.current();
-    final byte[] data = buffer.data;
+    final byte[] data = modify().data;
     data[o]     = (byte) (value >>> 32);
     data[o + 1] = (byte) (value >>> 24);
     data[o + 2] = (byte) (value >>> 16);
     data[o + 3] = (byte) (value >>> 8);
     data[o + 4] = (byte) value;
-    buffer.dirty = true;
+    modified = true;
   }
 
   @Override
   protected void copy(final byte[] entries, final int pre, final int last) {
+    modified = true;
     for(int o = 0, i = pre; i < last; ++i, o += IO.NODESIZE) {
       final int off = cursor(i);
-      final Buffer buffer = buffers.current();
-      Array.copy(entries, o, IO.NODESIZE, buffer.data, off);
-      buffer.dirty = true;
+      Array.copy(entries, o, IO.NODESIZE, modify().data, off);
     }
   }
 
@@ -251,13 +346,13 @@ public final class TableDiskAccess extends TableAccess {
     // check if all entries are in current page
     if(last <= nextPre) {
       // move entries in current page and decreases pointers to pre values
-      if(last < nextPre) delete(buffers.current(), from, from + count, nextPre - last);
+      if(last < nextPre) delete(from, from + count, nextPre - last);
       decreasePre(count);
 
       // if whole page was deleted, remove it from the index
       if(firstPre == nextPre) {
         // mark the page as empty
-        usedPages.clear(pageIndex[page]);
+        free(pageIndex[page]);
         deletePages(1);
         readPage(page);
       }
@@ -271,7 +366,7 @@ public final class TableDiskAccess extends TableAccess {
           ++unused;
           // mark the pages as empty; range clear cannot be used because the
           // pages may not be consecutive
-          usedPages.clear(pageIndex[page]);
+          free(pageIndex[page]);
         }
         setPage(page + 1);
         from = 0;
@@ -279,15 +374,14 @@ public final class TableDiskAccess extends TableAccess {
 
       // if the last page is empty, clear the corresponding bit
       read(pageIndex[page]);
-      final Buffer buffer = buffers.current();
       if(last == nextPre) {
-        usedPages.clear((int) buffer.pos);
+        free((int) buffers.current().pos);
         ++unused;
         if(page + 1 < used) readPage(page + 1);
         else ++page;
       } else {
         // delete entries at beginning of current (last) page
-        delete(buffer, 0, last - firstPre, nextPre - last);
+        delete(0, last - firstPre, nextPre - last);
       }
 
       // now remove them from the index
@@ -301,7 +395,8 @@ public final class TableDiskAccess extends TableAccess {
       firstPre = pre;
       decreasePre(count);
     }
-    if(used == 0) {
+    // reset the mapping if the table is empty (pages may still be referenced by snapshots)
+    if(used == 0 && assigned == null) {
       buffers.init();
       removeMapping();
       pages = 1;
@@ -320,8 +415,9 @@ public final class TableDiskAccess extends TableAccess {
     int split = 0;
     if(used == 0) {
       // special case: insert new data into first page if database is empty
+      fPreIndex[0] = 0;
+      pageIndex[0] = allocate();
       readPage(0);
-      usedPages.set(0);
       ++used;
     } else if(pre > 0) {
       // find the offset within the page where the new records will be inserted
@@ -334,10 +430,8 @@ public final class TableDiskAccess extends TableAccess {
     final int moved = nold - split;
 
     // special case: all entries fit in the current page
-    Buffer buffer = buffers.current();
     if(nold + nnew <= IO.BLOCKSIZE) {
-      Array.insert(buffer.data, split, nnew, nold, entries);
-      buffer.dirty = true;
+      Array.insert(modify().data, split, nnew, nold, entries);
 
       // increment first pre-values of pages after the last modified page
       for(int i = page + 1; i < used; ++i) fPreIndex[i] += nr;
@@ -350,15 +444,12 @@ public final class TableDiskAccess extends TableAccess {
     // append old entries at the end of the new entries
     final byte[] all = new byte[nnew + moved];
     Array.copy(entries, nnew, all);
-    Array.copy(buffer.data, split, moved, all, nnew);
+    Array.copy(buffers.current().data, split, moved, all, nnew);
 
     // fill in the current page with new entries
     // number of bytes which fit in the first page
     int nrem = IO.BLOCKSIZE - split;
-    if(nrem > 0) {
-      Array.copyFromStart(all, nrem, buffer.data, split);
-      buffer.dirty = true;
-    }
+    if(nrem > 0) Array.copyFromStart(all, nrem, modify().data, split);
 
     // number of new required pages and remaining bytes
     final int req = all.length - nrem;
@@ -372,10 +463,9 @@ public final class TableDiskAccess extends TableAccess {
         if(remain <= IO.BLOCKSIZE - o) {
           // copy the last records
           readPage(page + 1);
-          buffer = buffers.current();
-          Array.copyFromStart(buffer.data, o, buffer.data, remain);
-          Array.copyToStart(all, all.length - remain, remain, buffer.data);
-          buffer.dirty = true;
+          final byte[] data = modify().data;
+          Array.copyFromStart(data, o, data, remain);
+          Array.copyToStart(all, all.length - remain, remain, data);
           // reduce the pre value, since it will be later incremented with nr
           fPreIndex[page] -= remain >>> IO.NODEPOWER;
           // go back to the previous page
@@ -405,9 +495,7 @@ public final class TableDiskAccess extends TableAccess {
 
     // write the all remaining entries
     while(needed-- > 0) {
-      final int p = usedPages.nextFree();
-      usedPages.set(p);
-      read(p);
+      read(allocate());
       ++used;
       ++page;
       nrem += write(all, nrem);
@@ -436,6 +524,7 @@ public final class TableDiskAccess extends TableAccess {
       usedPages = new BitArray(used, true);
     }
     dirty = true;
+    modified = true;
   }
 
   @Override
@@ -522,11 +611,16 @@ public final class TableDiskAccess extends TableAccess {
     try {
       write(buffer);
       buffer.pos = pre;
+      final long pos = buffer.pos * IO.BLOCKSIZE;
+      final MappedFile mf = mapped;
       if(pre >= pages) {
         pages = pre + 1;
-      } else {
-        file.seek(buffer.pos * IO.BLOCKSIZE);
+      } else if(mf != null && mf.covers(pos, IO.BLOCKSIZE)) {
+        mf.read(buffer.data, IO.BLOCKSIZE, pos);
+      } else if(!cache.read(id, pre, buffer.data)) {
+        file.seek(pos);
         file.readFully(buffer.data);
+        cache.add(id, pre, buffer.data);
       }
     } catch(final IOException ex) {
       Util.stack(ex);
@@ -543,6 +637,7 @@ public final class TableDiskAccess extends TableAccess {
 
     file.seek(buffer.pos * IO.BLOCKSIZE);
     file.write(buffer.data);
+    cache.update(id, buffer.pos, buffer.data);
     buffer.dirty = false;
   }
 
@@ -568,16 +663,14 @@ public final class TableDiskAccess extends TableAccess {
   }
 
   /**
-   * Convenience method for deleting buffer entries.
-   * @param buffer buffer
+   * Convenience method for deleting entries of the current buffer.
    * @param from first entry to delete
    * @param to last entry to delete
    * @param length source length
    */
-  private static void delete(final Buffer buffer, final int from, final int to, final int length) {
-    final byte[] array = buffer.data;
+  private void delete(final int from, final int to, final int length) {
+    final byte[] array = modify().data;
     Array.copy(array, to << IO.NODEPOWER, length << IO.NODEPOWER, array, from << IO.NODEPOWER);
-    buffer.dirty = true;
   }
 
   /**
@@ -587,13 +680,110 @@ public final class TableDiskAccess extends TableAccess {
    * @return number of written bytes
    */
   private int write(final byte[] array, final int offset) {
-    final Buffer buffer = buffers.current();
     final int len = Math.min(IO.BLOCKSIZE, array.length - offset);
-    Array.copyToStart(array, offset, len, buffer.data);
-    buffer.dirty = true;
+    Array.copyToStart(array, offset, len, modify().data);
     return len;
   }
 
+  /**
+   * Returns the current buffer and marks it as dirty.
+   * If the page may be referenced by a snapshot, it is moved to a new page first.
+   * @return buffer
+   */
+  private Buffer modify() {
+    final Buffer buffer = buffers.current();
+    if(assigned != null && !assigned.get((int) buffer.pos)) shadow(buffer);
+    buffer.dirty = true;
+    return buffer;
+  }
+
+  /**
+   * Assigns a new page to the specified buffer. The original page will be kept
+   * until all snapshots that may reference it have been closed.
+   * @param buffer buffer
+   */
+  private void shadow(final Buffer buffer) {
+    dirty();
+    final int old = (int) buffer.pos;
+    int pg = page;
+    if(pg < 0 || pg >= used || pageIndex[pg] != old) {
+      pg = 0;
+      while(pageIndex[pg] != old) pg++;
+    }
+    final int p = allocate();
+    // discard obsolete contents of the new page
+    for(final Buffer b : buffers.all()) {
+      if(b.pos == p) {
+        b.pos = -1;
+        b.dirty = false;
+      }
+    }
+    buffer.pos = p;
+    pageIndex[pg] = p;
+    if(p >= pages) pages = p + 1;
+    free(old);
+  }
+
+  /**
+   * Allocates a free page.
+   * @return page
+   */
+  private int allocate() {
+    final int p = usedPages.nextFree();
+    usedPages.set(p);
+    if(assigned != null) assigned.set(p);
+    // directory arrays must cover all pages (see flush)
+    if(p >= fPreIndex.length) {
+      final int ns = Math.max(fPreIndex.length << 1, p + 1);
+      fPreIndex = Arrays.copyOf(fPreIndex, ns);
+      pageIndex = Arrays.copyOf(pageIndex, ns);
+    }
+    return p;
+  }
+
+  /**
+   * Frees a page. If the page may be referenced by a snapshot, it will only be
+   * reused after the snapshot has been closed.
+   * @param p page
+   */
+  private void free(final int p) {
+    if(assigned == null || assigned.get(p)) usedPages.clear(p);
+    else snapshots.get(snapshots.size() - 1).retired.add(p);
+  }
+
+  /**
+   * Frees the pages of the oldest snapshots that have been closed.
+   */
+  private void reclaim() {
+    while(!snapshots.isEmpty() && snapshots.get(0).released) {
+      final IntList retired = snapshots.remove(0).retired;
+      final int rs = retired.size();
+      for(int r = 0; r < rs; r++) usedPages.clear(retired.get(r));
+      if(rs > 0) dirty = true;
+    }
+    if(snapshots.isEmpty()) assigned = null;
+  }
+
+  /**
+   * Reads the specified page into a buffer of a thread-local reader.
+   * @param buffer buffer
+   * @param p page
+   * @param total total number of pages
+   * @param scan reader for sequential scans
+   */
+  private void read(final Buffer buffer, final int p, final int total, final ScanReader scan) {
+    buffer.pos = p;
+    // pages of sequential scans are read ahead, and they bypass the page cache
+    if(!scan.read(br, p, total, buffer.data) && !cache.read(id, p, buffer.data)) {
+      try {
+        br.read(buffer.data, IO.BLOCKSIZE, (long) p * IO.BLOCKSIZE);
+      } catch(final IOException ex) {
+        Util.stack(ex);
+      }
+      cache.add(id, p, buffer.data);
+    }
+  }
+
   /**
    * Calculates the occupied space in a page.
    * @param index page index
@@ -611,4 +801,321 @@ public final class TableDiskAccess extends TableAccess {
     pageIndex = null;
     usedPages = null;
   }
+
+  /**
+   * Returns the index of the page that contains the specified pre value.
+   * This method can be called by concurrent threads, as long as the table is not modified.
+   * @param pre pre value
+   * @return page index
+   */
+  private int page(final int pre) {
+    if(pre < 0 || pre >= meta.size) throw Util.notExpected(
+        "Data Access out of bounds:" +
+        "\n- pre value: " + pre +
+        "\n- table size: " + meta.size);
+    if(fPreIndex == null) return pre / IO.ENTRIES;
+
+    int l = 0, h = used - 1;
+    while(l < h) {
+      final int m = l + h + 1 >>> 1;
+      if(fPreIndex[m] <= pre) l = m;
+      else h = m - 1;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the file position of the entry for the specified pre value.
+   * This method can be called by concurrent threads, as long as the table is not modified.
+   * @param pre pre value
+   * @return file position
+   */
+  private long position(final int pre) {
+    final int pg = page(pre), p = pageIndex == null ? pg : pageIndex[pg];
+    return ((long) p << IO.BLOCKPOWER) + (pre - fpre(pg) << IO.NODEPOWER);
+  }
+
+  /**
+   * Reads a short value from the specified array.
+   * @param data data
+   * @param o offset
+   * @return value
+   */
+  private static int read2(final byte[] data, final int o) {
+    return ((data[o] & 0xFF) << 8) + (data[o + 1] & 0xFF);
+  }
+
+  /**
+   * Reads an integer value from the specified array.
+   * @param data data
+   * @param o offset
+   * @return value
+   */
+  private static int read4(final byte[] data, final int o) {
+    return ((data[o] & 0xFF) << 24) + ((data[o + 1] & 0xFF) << 16) +
+      ((data[o + 2] & 0xFF) << 8) + (data[o + 3] & 0xFF);
+  }
+
+  /**
+   * Reads a 5-byte value from the specified array.
+   * @param data data
+   * @param o offset
+   * @return value
+   */
+  private static long read5(final byte[] data, final int o) {
+    return ((long) (data[o] & 0xFF) << 32) + ((long) (data[o + 1] & 0xFF) << 24) +
+      ((data[o + 2] & 0xFF) << 16) + ((data[o + 3] & 0xFF) << 8) + (data[o + 4] & 0xFF);
+  }
+
+  /**
+   * Thread-local reader with its own buffers. It is used if the table has not been modified,
+   * and it allows concurrent threads to read the table without synchronization.
+   * The reader does not reference the table (see {@link ThreadReaders}).
+   */
+  private static final class Reader {
+    /** Buffer manager. */
+    private final Buffers readBuffers = new Buffers(1 << 2);
+    /** Reader for sequential scans. */
+    private final ScanReader scan = new ScanReader();
+    /** Version of the buffered pages. */
+    private int readVersion = -1;
+    /** Pre value of the first entry in the current page. */
+    private int first = -1;
+    /** First pre value of the next page. */
+    private int next = -1;
+
+    /**
+     * Returns the data of the current page.
+     * @return data
+     */
+    byte[] data() {
+      return readBuffers.current().data;
+    }
+
+    /**
+     * Reads the page containing the entry for the specified pre value.
+     * @param table table
+     * @param pre pre of the entry to search for
+     * @return offset of the entry in the page
+     */
+    int cursor(final TableDiskAccess table, final int pre) {
+      final int v = table.version;
+      if(v != readVersion) {
+        readBuffers.reset();
+        scan.reset();
+        first = -1;
+        next = -1;
+        readVersion = v;
+      }
+
+      if(pre < first || pre >= next) {
+        final int pg = table.page(pre);
+        first = table.fpre(pg);
+        next = pg + 1 >= table.used ? table.meta.size : table.fpre(pg + 1);
+
+        final int[] pi = table.pageIndex;
+        final int p = pi == null ? pg : pi[pg];
+        if(readBuffers.cursor(p)) table.read(readBuffers.current(), p, table.pages, scan);
+      }
+      return pre - first << IO.NODEPOWER;
+    }
+  }
+
+  /**
+   * Read-only snapshot of the table. Its pages will not be overwritten before it is closed.
+   * The snapshot can be read by concurrent threads without synchronization.
+   */
+  private final class Snapshot extends TableAccess {
+    /** Pages that have been freed after the creation of this snapshot. */
+    private final IntList retired = new IntList();
+    /** Thread-local readers. */
+    private final ThreadReaders<SnapshotReader> snapshotReaders =
+        new ThreadReaders<>(SnapshotReader::new, reader -> reader.scan.reset());
+    /** First pre values (can be {@code null}). */
+    private final int[] fpres;
+    /** Page index (can be {@code null}). */
+    private final int[] index;
+    /** Number of used pages. */
+    private final int count;
+    /** Total number of pages. */
+    private final int total;
+    /** Indicates if the snapshot has been closed. */
+    private volatile boolean released;
+
+    /**
+     * Constructor.
+     * @param md meta data
+     */
+    private Snapshot(final MetaData md) {
+      super(md);
+      fpres = fPreIndex == null ? null : Arrays.copyOf(fPreIndex, used);
+      index = pageIndex == null ? null : Arrays.copyOf(pageIndex, used);
+      count = used;
+      total = pages;
+    }
+
+    @Override
+    public int read1(final int pre, final int offset) {
+      final SnapshotReader reader = snapshotReaders.get();
+      final int o = offset + reader.cursor(this, pre);
+      return reader.data()[o] & 0xFF;
+    }
+
+    @Override
+    public int read2(final int pre, final int offset) {
+      final SnapshotReader reader = snapshotReaders.get();
+      final int o = offset + reader.cursor(this, pre);
+      return TableDiskAccess.read2(reader.data(), o);
+    }
+
+    @Override
+    public int read4(final int pre, final int offset) {
+      final SnapshotReader reader = snapshotReaders.get();
+      final int o = offset + reader.cursor(this, pre);
+      return TableDiskAccess.read4(reader.data(), o);
+    }
+
+    @Override
+    public long read5(final int pre, final int offset) {
+      final SnapshotReader reader = snapshotReaders.get();
+      final int o = offset + reader.cursor(this, pre);
+      return TableDiskAccess.read5(reader.data(), o);
+    }
+
+    @Override
+    public void write1(final int pre, final int offset, final int value) {
+      throw Util.notExpected();
+    }
+
+    @Override
+    public void write2(final int pre, final int offset, final int value) {
+      throw Util.notExpected();
+    }
+
+    @Override
+    public void write4(final int pre, final int offset, final int value) {
+      throw Util.notExpected();
+    }
+
+    @Override
+    public void write5(final int pre, final int offset, final long value) {
+      throw Util.notExpected();
+    }
+
+    @Override
+    protected void dirty() {
+      throw Util.notExpected();
+    }
+
+    @Override
+    protected void copy(final byte[] entries, final int pre, final int last) {
+      throw Util.notExpected();
+    }
+
+    @Override
+    public void delete(final int pre, final int cnt) {
+      throw Util.notExpected();
+    }
+
+    @Override
+    public void insert(final int pre, final byte[] entries) {
+      throw Util.notExpected();
+    }
+
+    @Override
+    public void flush(final boolean all) { }
+
+    @Override
+    public void close() {
+      released = true;
+      snapshotReaders.close();
+    }
+
+    @Override
+    public boolean lock(final boolean write) {
+      return true;
+    }
+
+    /**
+     * Returns the index of the page that contains the specified pre value.
+     * @param pre pre value
+     * @return page index
+     */
+    private int page(final int pre) {
+      if(pre < 0 || pre >= meta.size) throw Util.notExpected(
+          "Data Access out of bounds:" +
+          "\n- pre value: " + pre +
+          "\n- table size: " + meta.size);
+      if(fpres == null) return pre / IO.ENTRIES;
+
+      int l = 0, h = count - 1;
+      while(l < h) {
+        final int m = l + h + 1 >>> 1;
+        if(fpres[m] <= pre) l = m;
+        else h = m - 1;
+      }
+      return l;
+    }
+
+    /**
+     * Returns the first pre value of the specified page.
+     * @param pg page index
+     * @return pre value
+     */
+    private int fpre(final int pg) {
+      return fpres == null ? pg * IO.ENTRIES : fpres[pg];
+    }
+
+    /**
+     * Reads the specified page into a buffer of a thread-local reader.
+     * @param buffer buffer
+     * @param p page
+     * @param scan reader for sequential scans
+     */
+    private void read(final Buffer buffer, final int p, final ScanReader scan) {
+      TableDiskAccess.this.read(buffer, p, total, scan);
+    }
+  }
+
+  /**
+   * Thread-local reader of a snapshot.
+   * The reader does not reference the snapshot (see {@link ThreadReaders}).
+   */
+  private static final class SnapshotReader {
+    /** Buffer manager. */
+    private final Buffers readBuffers = new Buffers(1 << 2);
+    /** Reader for sequential scans. */
+    private final ScanReader scan = new ScanReader();
+    /** Pre value of the first entry in the current page. */
+    private int first = -1;
+    /** First pre value of the next page. */
+    private int next = -1;
+
+    /**
+     * Returns the data of the current page.
+     * @return data
+     */
+    byte[] data() {
+      return readBuffers.current().data;
+    }
+
+    /**
+     * Reads the page containing the entry for the specified pre value.
+     * @param snapshot snapshot
+     * @param pre pre of the entry to search for
+     * @return offset of the entry in the page
+     */
+    int cursor(final Snapshot snapshot, final int pre) {
+      if(pre < first || pre >= next) {
+        final int pg = snapshot.page(pre);
+        first = snapshot.fpre(pg);
+        next = pg + 1 >= snapshot.count ? snapshot.meta.size : snapshot.fpre(pg + 1);
+
+        final int[] index = snapshot.index;
+        final int p = index == null ? pg : index[pg];
+        if(readBuffers.cursor(p)) snapshot.read(readBuffers.current(), p, scan);
+      }
+      return pre - first << IO.NODEPOWER;
+    }
+  }
 }
@@ -0,0 +1,248 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class stores texts in compressed blocks. Texts are appended to a block until its
+ * uncompressed size exceeds {@link #BLOCKSIZE} bytes. Blocks are compressed with
+ * {@link BlockCompress} and stored in the data file. The offsets of the blocks are stored
+ * in a separate directory file.
+ *
+ * A text reference consists of the block number and the offset of the text in the uncompressed
+ * block ({@link #OFFSETBITS} bits). As the size of a reference is restricted to 38 bits,
+ * up to 8 million blocks can be addressed.
+ *
+ * Texts are never changed or removed: new texts are appended to the last block, which is
+ * compressed and written to disk when it is full or when the store is flushed. The space of
+ * obsolete texts will be reclaimed when the database is optimized.
+ *
+ * Concurrent threads can read texts without synchronization. Recently decompressed blocks
+ * are cached. Read-only snapshots of the store can be created via {@link #snapshot()}.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class TextBlocks implements Closeable {
+  /** Number of bits used for the offset in a block. */
+  public static final int OFFSETBITS = 15;
+  /** Size of an uncompressed block. */
+  public static final int BLOCKSIZE = 1 << OFFSETBITS;
+  /** Maximum number of blocks. */
+  private static final int MAXBLOCKS = 1 << 38 - OFFSETBITS;
+  /** Number of cached blocks (must be 1 << n). */
+  private static final int CACHE = 1 << 5;
+  /** Header flag for compressed blocks. */
+  private static final int COMPRESSED = 1;
+
+  /** Compressed blocks. */
+  private final DataAccess blocks;
+  /** Directory file. */
+  private final IOFile directory;
+  /** Offsets of the blocks (the last entry contains the end of the last block). */
+  private final LongList offsets;
+  /** Cached blocks. */
+  private final Block[] cache;
+  /** Indicates if this is a read-only snapshot. */
+  private final boolean snapshot;
+
+  /** Uncompressed contents of the last block, which has not been written yet. */
+  private byte[] last;
+  /** Size of the last block. */
+  private int size;
+  /** Indicates if the directory has been changed. */
+  private boolean dirty;
+
+  /**
+   * Constructor.
+   * @param file data file
+   * @param directory directory file
+   * @param mmap use memory-mapped file for reading
+   * @throws IOException I/O Exception
+   */
+  public TextBlocks(final IOFile file, final IOFile directory, final boolean mmap)
+      throws IOException {
+    blocks = new DataAccess(file, mmap);
+    this.directory = directory;
+    cache = new Block[CACHE];
+    last = new byte[BLOCKSIZE];
+    snapshot = false;
+    if(directory.exists()) {
+      try(DataInput in = new DataInput(directory)) {
+        offsets = new LongList().add(in.readLongs(in.readNum()));
+      }
+    } else {
+      offsets = new LongList().add(0);
+      dirty = true;
+    }
+  }
+
+  /**
+   * Constructor for snapshots.
+   * @param store text store
+   */
+  private TextBlocks(final TextBlocks store) {
+    blocks = store.blocks;
+    directory = store.directory;
+    cache = store.cache;
+    offsets = new LongList().add(store.offsets.toArray());
+    // all texts of the store have been written to disk
+    last = Token.EMPTY;
+    snapshot = true;
+  }
+
+  /**
+   * Creates a read-only snapshot of the current texts. Texts of the snapshot are read from disk,
+   * and they will not be affected by texts that are added later on.
+   * @return snapshot
+   * @throws IOException I/O exception
+   */
+  public TextBlocks snapshot() throws IOException {
+    flush();
+    return new TextBlocks(this);
+  }
+
+  /**
+   * Appends a text and returns its reference.
+   * @param text text
+   * @return reference
+   */
+  public long add(final byte[] text) {
+    if(snapshot) throw Util.notExpected();
+    final int tl = text.length, nl = Num.length(tl);
+    if(size >= BLOCKSIZE) write();
+
+    final int block = offsets.size() - 1;
+    if(block >= MAXBLOCKS) throw Util.notExpected("Maximum number of text blocks exceeded.");
+    final long ref = (long) block << OFFSETBITS | size;
+
+    final int ns = size + nl + tl;
+    if(ns > last.length) last = Arrays.copyOf(last, ns);
+    System.arraycopy(Num.num(tl), 0, last, size, nl);
+    System.arraycopy(text, 0, last, size + nl, tl);
+    size = ns;
+    return ref;
+  }
+
+  /**
+   * Returns the text with the specified reference.
+   * @param ref reference
+   * @return text
+   */
+  public byte[] text(final long ref) {
+    final byte[] data = block(ref);
+    final int off = (int) (ref & BLOCKSIZE - 1), len = Num.get(data, off);
+    final int start = off + Num.length(data, off);
+    return Arrays.copyOfRange(data, start, start + len);
+  }
+
+  /**
+   * Returns the length of the text with the specified reference.
+   * @param ref reference
+   * @return length
+   */
+  public int length(final long ref) {
+    return Num.get(block(ref), (int) (ref & BLOCKSIZE - 1));
+  }
+
+  /**
+   * Writes the last block and the directory to disk.
+   * @throws IOException I/O exception
+   */
+  public void flush() throws IOException {
+    if(snapshot) return;
+    if(size > 0) write();
+    blocks.flush();
+    if(dirty) {
+      try(DataOutput out = new DataOutput(directory)) {
+        out.writeLongs(offsets.toArray());
+      }
+      dirty = false;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if(snapshot) return;
+    try {
+      flush();
+    } finally {
+      blocks.close();
+    }
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the uncompressed block of the specified reference.
+   * @param ref reference
+   * @return block
+   */
+  private byte[] block(final long ref) {
+    final int b = (int) (ref >>> OFFSETBITS);
+    if(b == offsets.size() - 1) return last;
+
+    final int c = b & CACHE - 1;
+    final Block cached = cache[c];
+    if(cached != null && cached.id == b) return cached.data;
+
+    // read header (flag, uncompressed size) and block data
+    final long pos = offsets.get(b);
+    final DataReader dr = snapshot ? blocks.diskReader() : blocks.reader();
+    final byte[] header = dr.readBytes(pos, 5);
+    final int len = (header[1] & 0xFF) << 24 | (header[2] & 0xFF) << 16 |
+        (header[3] & 0xFF) << 8 | header[4] & 0xFF;
+    final byte[] bytes = dr.readBytes(pos + 5, (int) (offsets.get(b + 1) - pos - 5));
+    final byte[] data = header[0] == COMPRESSED ? BlockCompress.unpack(bytes, len) : bytes;
+    cache[c] = new Block(b, data);
+    return data;
+  }
+
+  /**
+   * Compresses the last block and writes it to disk.
+   */
+  private void write() {
+    final byte[] packed = BlockCompress.pack(last, size);
+    final boolean compressed = packed.length < size;
+    final byte[] data = compressed ? packed : Arrays.copyOf(last, size);
+
+    final long pos = offsets.get(offsets.size() - 1);
+    final byte[] header = { (byte) (compressed ? COMPRESSED : 0), (byte) (size >>> 24),
+      (byte) (size >>> 16), (byte) (size >>> 8), (byte) size };
+    blocks.cursor(pos);
+    blocks.writeBytes(header, 0, header.length);
+    blocks.writeBytes(data, 0, data.length);
+
+    // cache uncompressed block, start new block
+    final int b = offsets.size() - 1;
+    cache[b & CACHE - 1] = new Block(b, Arrays.copyOf(last, size));
+    offsets.add(pos + header.length + data.length);
+    if(last.length > BLOCKSIZE) last = new byte[BLOCKSIZE];
+    size = 0;
+    dirty = true;
+  }
+
+  /** Uncompressed block. */
+  private static final class Block {
+    /** Block number. */
+    private final int id;
+    /** Data. */
+    private final byte[] data;
+
+    /**
+     * Constructor.
+     * @param id block number
+     * @param data data
+     */
+    private Block(final int id, final byte[] data) {
+      this.id = id;
+      this.data = data;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package org.basex.io.random;
+
+import java.lang.ref.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Readers of a file, one for each reading thread.
+ *
+ * The readers are stored in thread-local variables. They must not reference the object that
+ * owns this instance: otherwise, the owner and all readers would remain reachable from the
+ * threads that have read the file, even after the file has been closed.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ * @param <R> reader type
+ */
+final class ThreadReaders<R> {
+  /** Readers that have been created (weakly referenced, as threads may terminate). */
+  private final ArrayList<WeakReference<R>> all = new ArrayList<>();
+  /** Function for releasing the resources of a reader. */
+  private final Consumer<R> release;
+  /** Thread-local readers. */
+  private final ThreadLocal<R> readers;
+
+  /**
+   * Constructor.
+   * @param create function for creating a reader
+   * @param release function for releasing the resources of a reader
+   */
+  ThreadReaders(final Supplier<R> create, final Consumer<R> release) {
+    this.release = release;
+    readers = ThreadLocal.withInitial(() -> {
+      final R reader = create.get();
+      synchronized(all) {
+        all.removeIf(ref -> ref.get() == null);
+        all.add(new WeakReference<>(reader));
+      }
+      return reader;
+    });
+  }
+
+  /**
+   * Returns the reader of the current thread.
+   * @return reader
+   */
+  R get() {
+    return readers.get();
+  }
+
+  /**
+   * Releases the resources of all readers. Must only be called if the file will not be read
+   * anymore.
+   */
+  void close() {
+    synchronized(all) {
+      for(final WeakReference<R> ref : all) {
+        final R reader = ref.get();
+        if(reader != null) release.accept(reader);
+      }
+      all.clear();
+    }
+  }
+}
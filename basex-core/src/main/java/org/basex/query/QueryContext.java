@@ -73,8 +73,8 @@ public final class QueryContext extends Job implements Closeable {
   /** Global database options (will be reassigned after query execution). */
   final QueryOptions options = new QueryOptions(this);
 
-  /** Query threads. */
-  public final QueryThreads threads = new QueryThreads();
+  /** Query threads (shared with child contexts that are evaluated in parallel). */
+  public final QueryThreads threads;
   /** Current context value. */
   public QueryFocus focus = new QueryFocus();
   /** Current date/time values. */
@@ -136,7 +136,16 @@ public final class QueryContext extends Job implements Closeable {
    * @param parent parent context
    */
   public QueryContext(final QueryContext parent) {
-    this(parent.context, parent, parent.info, parent.props);
+    this(parent, new QueryThreads());
+  }
+
+  /**
+   * Constructor.
+   * @param parent parent context
+   * @param threads query threads
+   */
+  QueryContext(final QueryContext parent, final QueryThreads threads) {
+    this(parent.context, parent, parent.info, parent.props, threads);
     parent.pushJob(this);
     resources = parent.resources;
     updates = parent.updates;
@@ -147,7 +156,7 @@ public final class QueryContext extends Job implements Closeable {
    * @param context database context
    */
   public QueryContext(final Context context) {
-    this(context, null, null, new HashMap<>());
+    this(context, null, null, new HashMap<>(), new QueryThreads());
     resources = new QueryResources(this);
   }
 
@@ -157,13 +166,15 @@ public final class QueryContext extends Job implements Closeable {
    * @param parent parent context (can be {@code null})
    * @param info query info (can be {@code null})
    * @param props external properties
+   * @param threads query threads
    */
   private QueryContext(final Context context, final QueryContext parent, final QueryInfo info,
-      final HashMap<String, Object> props) {
+      final HashMap<String, Object> props, final QueryThreads threads) {
     this.context = context;
     this.parent = parent;
     this.info = info != null ? info : new QueryInfo(this);
     this.props = props;
+    this.threads = threads;
   }
 
   /**
@@ -366,6 +377,8 @@ public final class QueryContext extends Job implements Closeable {
     // choose read or write locks
     final Locks l = jc().locks;
     final LockList list = updating ? l.writes : l.reads;
+    // read-only queries may access snapshots of databases that are currently updated
+    if(!updating) l.readSnapshots = true;
 
     if(root == null || !root.databases(l, this) || ctxItem != null && !ctxItem.databases(l, this)) {
       // use global locking if referenced databases cannot statically be determined
@@ -439,6 +439,10 @@ public enum QueryError {
   SQL_PARAMETERS(SQL, "parameters", "No parameter type supplied."),
   /** Error code. */
   SQL_TYPE_X_X(SQL, "type", "Invalid type (%): %."),
+  /** Error code. */
+  SQL_POOL_X(SQL, "pool", "Connection pool '%' exists with different connection settings."),
+  /** Error code. */
+  SQL_OPTION_X_X(SQL, "option", "Invalid value for option '%': %."),
 
   // Unit Module
 
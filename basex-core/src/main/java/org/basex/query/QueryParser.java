@@ -757,7 +757,7 @@ public class QueryParser extends InputParser {
     // read module
     final String qu;
     try {
-      qu = string(io.read());
+      qu = ModuleCache.read(io);
     } catch(final IOException ex) {
       Util.debug(ex);
       throw error(WHICHMODFILE_X, io);
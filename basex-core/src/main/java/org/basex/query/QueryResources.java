@@ -68,14 +68,20 @@ public final class QueryResources {
    * @return context value
    */
   Value compile(final DBNodes nodes) {
-    // add globally opened database
-    final Data data = addData(nodes.data());
-    synchronized(qc.context.datas) { qc.context.datas.pin(data); }
+    // add globally opened database, or its snapshot (which is pinned by the job)
+    final Data snapshot = qc.jc().locks.snapshot(nodes.data().meta.name);
+    final Data data = addData(snapshot != null ? snapshot : nodes.data());
+    if(snapshot == null) {
+      synchronized(qc.context.datas) { qc.context.datas.pin(data); }
+    }
     globalData = true;
 
     // create context value
     final boolean all = nodes.all();
-    final Value value = DBNodeSeq.get(new IntList(nodes.pres()), data, all, all);
+    // snapshot: pres of all documents may differ from the current database
+    // (snapshots are not used for partial contexts, see Locking)
+    final int[] pres = all && snapshot != null ? data.resources.docs().toArray() : nodes.pres();
+    final Value value = DBNodeSeq.get(new IntList(pres), data, all, all);
 
     // add default collection. use initial node set if it contains all documents of the database.
     // otherwise, create new node set
@@ -176,7 +182,7 @@ public final class QueryResources {
     // open and register database
     if(!ctx.perm(Perm.READ, name)) throw BASEX_PERMISSION_X_X.get(ii, Perm.READ, name);
     try {
-      return addData(Open.open(name, ctx, ctx.options));
+      return addData(open(name));
     } catch(final IOException ex) {
       throw DB_OPEN2_X.get(ii, ex);
     }
@@ -402,7 +408,7 @@ public final class QueryResources {
     // try to open existing database
     if(withdb && dbName != null) {
       try {
-        return addData(Open.open(dbName, ctx, ctx.options));
+        return addData(open(dbName));
       } catch(final IOException ex) {
         Util.debug(ex);
       }
@@ -453,6 +459,17 @@ public final class QueryResources {
     return addData(data);
   }
 
+  /**
+   * Opens a database, or returns the snapshot that has been pinned by the job.
+   * @param name name of database
+   * @return data reference
+   * @throws IOException I/O exception
+   */
+  private Data open(final String name) throws IOException {
+    final Data snapshot = qc.jc().locks.snapshot(name);
+    return snapshot != null ? snapshot : Open.open(name, qc.context, qc.context.options);
+  }
+
   /**
    * Adds a data reference.
    * @param data data reference to be added
@@ -1,13 +1,18 @@
 package org.basex.query;
 
 import java.util.*;
+import java.util.concurrent.*;
 
+import org.basex.core.jobs.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.ft.*;
 import org.basex.query.expr.path.*;
+import org.basex.query.value.*;
+import org.basex.util.*;
 
 /**
- * Local thread caches.
+ * Local thread caches. The caches of a query are shared with the child contexts that are
+ * evaluated in parallel.
  *
  * @author BaseX Team 2005-20, BSD License
  * @author Christian Gruen
@@ -28,7 +33,7 @@ public final class QueryThreads {
    * @param expr expression
    * @return cache
    */
-  public ThreadLocal<PathCache> get(final AxisPath expr) {
+  public synchronized ThreadLocal<PathCache> get(final AxisPath expr) {
     return pathCache.computeIfAbsent(expr, p -> ThreadLocal.withInitial(PathCache::new));
   }
 
@@ -37,7 +42,7 @@ public final class QueryThreads {
    * @param expr expression
    * @return cache
    */
-  public ThreadLocal<CmpCache> get(final CmpHashG expr) {
+  public synchronized ThreadLocal<CmpCache> get(final CmpHashG expr) {
     return cmpCache.computeIfAbsent(expr, p -> ThreadLocal.withInitial(CmpCache::new));
   }
 
@@ -46,16 +51,110 @@ public final class QueryThreads {
    * @param expr expression
    * @return cache
    */
-  public ThreadLocal<FTTokenizer> get(final FTWords expr) {
+  public synchronized ThreadLocal<FTTokenizer> get(final FTWords expr) {
     return ftCache.computeIfAbsent(expr, p -> new ThreadLocal<>());
   }
 
   /**
-   * Closes threads.
+   * Removes the thread-local values of the current thread.
    */
-  void close() {
+  synchronized void close() {
     for(final ThreadLocal<PathCache> cache : pathCache.values()) cache.remove();
     for(final ThreadLocal<CmpCache> cache : cmpCache.values()) cache.remove();
     for(final ThreadLocal<FTTokenizer> cache : ftCache.values()) cache.remove();
   }
+
+  /**
+   * Evaluates a function for a range of positions in parallel. The positions are split into
+   * chunks, which are processed by the shared thread pool of the database context. Each chunk is
+   * evaluated with a child query context, which adopts the variables and the focus of the
+   * specified context. The results are concatenated in their original order.
+   * @param size number of positions
+   * @param func function to be evaluated (invoked with the position and the child context)
+   * @param qc query context
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  public static Value parallel(final long size,
+      final QueryBiFunction<Long, QueryContext, Value> func, final QueryContext qc)
+      throws QueryException {
+
+    final ForkJoinPool pool = qc.context.jobs.forkJoin();
+    final long chunk = Math.max(1, size / (pool.getParallelism() * 4L));
+    try {
+      return pool.invoke(new Task(0, size, chunk, func, qc));
+    } catch(final RuntimeException ex) {
+      // pass on query and job exceptions
+      final Throwable th = Util.rootException(ex);
+      if(th instanceof QueryException) throw (QueryException) th;
+      if(th instanceof JobException) throw (JobException) th;
+      throw ex;
+    }
+  }
+
+  /**
+   * Task for evaluating a range of positions.
+   */
+  private static final class Task extends RecursiveTask<Value> {
+    /** Serial version UID. */
+    private static final long serialVersionUID = 1L;
+    /** Start position (inclusive). */
+    private final long start;
+    /** End position (exclusive). */
+    private final long end;
+    /** Maximum number of positions to be evaluated by a single task. */
+    private final long chunk;
+    /** Function to be evaluated. */
+    private final QueryBiFunction<Long, QueryContext, Value> func;
+    /** Query context. */
+    private final QueryContext qc;
+
+    /**
+     * Constructor.
+     * @param start start position
+     * @param end end position
+     * @param chunk maximum number of positions to be evaluated by a single task
+     * @param func function to be evaluated
+     * @param qc query context
+     */
+    private Task(final long start, final long end, final long chunk,
+        final QueryBiFunction<Long, QueryContext, Value> func, final QueryContext qc) {
+      this.start = start;
+      this.end = end;
+      this.chunk = chunk;
+      this.func = func;
+      this.qc = qc;
+    }
+
+    @Override
+    protected Value compute() {
+      final long s = start, e = end;
+      if(e - s > chunk) {
+        // split the work and join the results in the correct order
+        final long m = s + (e - s) / 2;
+        final Task task2 = new Task(m, e, chunk, func, qc);
+        task2.fork();
+        final Value value1 = new Task(s, m, chunk, func, qc).compute();
+        return ValueBuilder.concat(value1, task2.join(), qc);
+      }
+
+      final QueryContext ctx = new QueryContext(qc, qc.threads);
+      try {
+        ctx.focus = qc.focus.copy();
+        ctx.stack.adopt(qc.stack);
+        final ValueBuilder vb = new ValueBuilder(ctx);
+        for(long p = s; p < e; p++) {
+          ctx.checkStop();
+          vb.add(func.apply(p, ctx));
+        }
+        return vb.value();
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      } finally {
+        ctx.close();
+        // pool threads outlive the query: drop the caches created by this thread
+        qc.threads.close();
+      }
+    }
+  }
 }
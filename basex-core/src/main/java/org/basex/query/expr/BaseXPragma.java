@@ -16,6 +16,8 @@ import org.basex.util.*;
 public final class BaseXPragma extends Pragma {
   /** Non-deterministic flag. */
   private final boolean ndt;
+  /** Parallel flag. */
+  private final boolean parallel;
 
   /**
    * Constructor.
@@ -25,6 +27,7 @@ public final class BaseXPragma extends Pragma {
   public BaseXPragma(final QNm name, final byte[] value) {
     super(name, value);
     ndt = Token.eq(name.local(), Token.token(QueryText.NON_DETERMNISTIC));
+    parallel = Token.eq(name.local(), Token.token(QueryText.PARALLEL));
   }
 
   @Override
@@ -41,6 +44,11 @@ public final class BaseXPragma extends Pragma {
     return Flag.NDT.in(flags) && ndt;
   }
 
+  @Override
+  boolean parallel() {
+    return parallel;
+  }
+
   @Override
   public void accept(final ASTVisitor visitor) {
     if(Token.eq(name.local(), Annotation._BASEX_LOCK.local())) {
@@ -10,6 +10,7 @@ import org.basex.query.expr.CmpV.*;
 import org.basex.query.func.*;
 import org.basex.query.func.fn.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
 import org.basex.query.util.index.*;
 import org.basex.query.value.item.*;
@@ -391,6 +392,11 @@ public class CmpG extends Cmp {
     return this == obj || obj instanceof CmpG && op == ((CmpG) obj).op && super.equals(obj);
   }
 
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return visitor.index() && super.accept(visitor);
+  }
+
   @Override
   public String description() {
     return op + " comparison";
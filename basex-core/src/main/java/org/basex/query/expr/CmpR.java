@@ -9,6 +9,7 @@ import org.basex.index.*;
 import org.basex.index.name.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.index.value.*;
 import org.basex.query.*;
 import org.basex.query.CompileContext.*;
 import org.basex.query.expr.CmpV.*;
@@ -183,8 +184,7 @@ public final class CmpR extends Single {
   public boolean indexAccessible(final IndexInfo ii) throws QueryException {
     // accept only location path, string and equality expressions
     final Data data = ii.db.data();
-    // sequential main memory scan is usually faster than range index access
-    if(data == null ? !ii.enforce() : data.inMemory()) return false;
+    if(data == null && !ii.enforce()) return false;
 
     final IndexType type = ii.type(expr, null);
     if(type == null) return false;
@@ -200,18 +200,24 @@ public final class CmpR extends Single {
       return true;
     }
 
-    // estimate costs
-    ii.costs = ii.costs(data, nr);
+    // estimate costs: prefer value statistics if index keys are not stored as numbers
+    final Index index = data != null ? data.index(type) : null;
+    final boolean numeric = index instanceof ValueIndex && ((ValueIndex) index).numeric();
+    final int count = numeric ? -1 : key.count(nr.min, nr.max);
+    ii.costs = count >= 0 ? IndexCosts.get(Math.max(1, count)) : ii.costs(data, nr);
     if(ii.costs == null) return false;
 
-    // skip if numbers are negative, doubles, or of different string length
-    final int mnl = min >= 0 && (long) min == min ? token(min).length : -1;
-    final int mxl = max >= 0 && (long) max == max ? token(max).length : -1;
-    if(mnl != mxl || mnl == -1) return false;
+    // index keys will be converted to numbers: restrict access to simple ranges
+    if(!numeric) {
+      // skip if numbers are negative, doubles, or of different string length
+      final int mnl = min >= 0 && (long) min == min ? token(min).length : -1;
+      final int mxl = max >= 0 && (long) max == max ? token(max).length : -1;
+      if(mnl != mxl || mnl == -1) return false;
 
-    // don't use index if min/max values are infinite
-    if(min == NEGATIVE_INFINITY && max == POSITIVE_INFINITY ||
-        token((int) nr.min).length != token((int) nr.max).length) return false;
+      // don't use index if min/max values are infinite
+      if(min == NEGATIVE_INFINITY && max == POSITIVE_INFINITY ||
+          token((int) nr.min).length != token((int) nr.max).length) return false;
+    }
 
     final TokenBuilder tb = new TokenBuilder();
     tb.add('[').add(min).add(',').add(max).add(']');
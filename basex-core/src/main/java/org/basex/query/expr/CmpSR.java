@@ -8,6 +8,7 @@ import java.util.*;
 import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
+import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.CompileContext.*;
 import org.basex.query.expr.CmpG.*;
@@ -167,15 +168,17 @@ public final class CmpSR extends Single {
 
     // accept only location path, string and equality expressions
     final Data data = ii.db.data();
-    // sequential main memory scan is usually faster than range index access
-    if(data == null ? !ii.enforce() : data.inMemory()) return false;
+    if(data == null && !ii.enforce()) return false;
 
     final IndexType type = ii.type(expr, null);
     if(type == null) return false;
 
     // create range access
     final StringRange sr = new StringRange(type, min, mni, max, mxi);
-    ii.costs = ii.costs(data, sr);
+    // estimate costs: prefer value statistics to the heuristics of disk-based indexes
+    final Stats stats = data != null && !data.inMemory() ? ii.stats(type) : null;
+    final int count = stats != null ? stats.count(min, max) : -1;
+    ii.costs = count >= 0 ? IndexCosts.get(Math.max(1, count)) : ii.costs(data, sr);
     if(ii.costs == null) return false;
 
     final TokenBuilder tb = new TokenBuilder();
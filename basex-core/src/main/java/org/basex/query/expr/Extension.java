@@ -2,6 +2,7 @@ package org.basex.query.expr;
 
 import org.basex.data.*;
 import org.basex.query.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.util.*;
 import org.basex.query.util.index.*;
 import org.basex.query.value.*;
@@ -56,6 +57,12 @@ public final class Extension extends Single {
   public Value value(final QueryContext qc) throws QueryException {
     final Object state = pragma.init(qc, info);
     try {
+      // parallel evaluation of side-effect-free FLWOR and simple map expressions
+      if(pragma.parallel() && !expr.has(Flag.NDT)) {
+        final Value value = expr instanceof GFLWOR ? ((GFLWOR) expr).parallel(qc) :
+          expr instanceof SimpleMap ? ((SimpleMap) expr).parallel(qc) : null;
+        if(value != null) return value;
+      }
       return expr.value(qc);
     } finally {
       pragma.finish(qc, state);
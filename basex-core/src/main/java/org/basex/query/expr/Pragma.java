@@ -66,6 +66,14 @@ public abstract class Pragma extends ExprInfo {
    */
   public abstract Pragma copy();
 
+  /**
+   * Indicates if the enclosed expression will be evaluated in parallel.
+   * @return result of check
+   */
+  boolean parallel() {
+    return false;
+  }
+
   /**
    * {@inheritDoc}
    * Must be overwritten by implementing class.
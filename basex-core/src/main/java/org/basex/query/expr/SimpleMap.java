@@ -15,6 +15,7 @@ import org.basex.query.func.fn.*;
 import org.basex.query.func.util.*;
 import org.basex.query.util.*;
 import org.basex.query.util.list.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
@@ -50,6 +51,42 @@ public abstract class SimpleMap extends Arr {
     return exprs.length == 1 ? exprs[0] : new CachedMap(ii, exprs).optimize(cc);
   }
 
+  /**
+   * Evaluates the remaining operands for the items of the first operand in parallel.
+   * @param qc query context
+   * @return resulting value, or {@code null} if the expression cannot be evaluated in parallel
+   * @throws QueryException query exception
+   */
+  public final Value parallel(final QueryContext qc) throws QueryException {
+    // positional access in subsequent operands refers to the complete intermediate results
+    final int el = exprs.length;
+    for(int e = 2; e < el; e++) {
+      if(exprs[e].has(Flag.POS)) return null;
+    }
+
+    final Value value = exprs[0].value(qc);
+    final long size = value.size();
+    return QueryThreads.parallel(size, (p, ctx) -> {
+      final QueryFocus focus = ctx.focus;
+      focus.value = value.itemAt(p);
+      focus.pos = p + 1;
+      focus.size = size;
+      Value result = exprs[1].value(ctx);
+      for(int e = 2; e < el && !result.isEmpty(); e++) {
+        final ValueBuilder vb = new ValueBuilder(ctx);
+        final long rs = result.size();
+        for(long r = 0; r < rs; r++) {
+          focus.value = result.itemAt(r);
+          focus.pos = r + 1;
+          focus.size = rs;
+          vb.add(exprs[e].value(ctx));
+        }
+        result = vb.value();
+      }
+      return result;
+    }, qc);
+  }
+
   @Override
   public final void checkUp() throws QueryException {
     final int el = exprs.length;
@@ -61,15 +61,16 @@ public final class CMap extends Arr {
 
   @Override
   public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
-    XQMap map = XQMap.EMPTY;
+    final MapBuilder mb = new MapBuilder();
     final int el = exprs.length;
     for(int e = 0; e < el; e += 2) {
       final Item key = toAtomItem(exprs[e], qc);
       final Value value = exprs[e + 1].value(qc);
-      if(map.contains(key, info)) throw MAPDUPLKEY_X_X_X.get(info, key, map.get(key, info), value);
-      map = map.put(key, value, info);
+      final Value old = mb.get(key, info);
+      if(old != null) throw MAPDUPLKEY_X_X_X.get(info, key, old, value);
+      mb.put(key, value);
     }
-    return map;
+    return mb.finish();
   }
 
   @Override
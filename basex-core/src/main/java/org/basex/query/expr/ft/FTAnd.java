@@ -71,10 +71,11 @@ public final class FTAnd extends FTExpr {
         for(int i = 0; i < il; ++i) {
           if(nodes[i] == null) return null;
 
-          final int d = nodes[0].pre() - nodes[i].pre();
-          if(d != 0) {
-            if(d < 0) i = 0;
-            nodes[i] = iters[i].next();
+          // skip nodes with smaller pre values
+          final int pre0 = nodes[0].pre(), pre = nodes[i].pre();
+          if(pre0 != pre) {
+            if(pre0 < pre) nodes[0] = iters[0].next(pre);
+            else nodes[i] = iters[i].next(pre0);
             i = -1;
           }
         }
@@ -112,7 +112,7 @@ public final class FTContains extends Single {
 
   @Override
   public boolean accept(final ASTVisitor visitor) {
-    return super.accept(visitor) && ftexpr.accept(visitor);
+    return visitor.index() && super.accept(visitor) && ftexpr.accept(visitor);
   }
 
   @Override
@@ -154,10 +154,34 @@ public final class FTWords extends FTExpr {
     return new FTIter() {
       FTIndexIterator ftiter;
       int length;
+      boolean init;
 
       @Override
       public FTNode next() throws QueryException {
-        if(ftiter == null) {
+        return init() && ftiter.more() ? node() : null;
+      }
+
+      @Override
+      public FTNode next(final int pre) throws QueryException {
+        return init() && ftiter.skip(pre) ? node() : null;
+      }
+
+      /**
+       * Returns the current node.
+       * @return node
+       */
+      private FTNode node() {
+        return new FTNode(ftiter.matches(), data, ftiter.pre(), length, ftiter.size());
+      }
+
+      /**
+       * Initializes the index iterator.
+       * @return {@code true} if results may be returned
+       * @throws QueryException query exception
+       */
+      private boolean init() throws QueryException {
+        if(!init) {
+          init = true;
           final FTTokenizer ftt = FTWords.this.get(qc);
           final FTLexer lexer = new FTLexer(ftOpt).
               lserror(qc.context.options.get(MainOptions.LSERROR));
@@ -167,7 +191,10 @@ public final class FTWords extends FTExpr {
           // loop through unique tokens
           for(final byte[] input : unique(inputs != null ? inputs : inputs(qc))) {
             lexer.init(input);
-            if(!lexer.hasNext()) return null;
+            if(!lexer.hasNext()) {
+              ftiter = null;
+              return false;
+            }
 
             int d = 0;
             FTIndexIterator ii = null;
@@ -196,7 +223,10 @@ public final class FTWords extends FTExpr {
                 length = len;
                 ftiter = ii;
               } else if(mode == FTMode.ALL || mode == FTMode.ALL_WORDS) {
-                if(ii.size() == 0) return null;
+                if(ii.size() == 0) {
+                  ftiter = null;
+                  return false;
+                }
                 length += len;
                 ftiter = FTIndexIterator.intersect(ftiter, ii, 0);
               } else {
@@ -207,8 +237,7 @@ public final class FTWords extends FTExpr {
             }
           }
         }
-        return ftiter == null || !ftiter.more() ? null :
-          new FTNode(ftiter.matches(), data, ftiter.pre(), length, ftiter.size());
+        return ftiter != null;
       }
     };
   }
@@ -249,6 +278,11 @@ public final class FTWords extends FTExpr {
         return false;
       }
       @Override
+      public boolean skip(final int p) {
+        pre = Math.max(pre, p - 1);
+        return more();
+      }
+      @Override
       public FTMatches matches() {
         return ftt.matches;
       }
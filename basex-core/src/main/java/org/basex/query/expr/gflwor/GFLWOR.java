@@ -30,6 +30,8 @@ public final class GFLWOR extends ParseExpr {
   public final LinkedList<Clause> clauses;
   /** Return expression. */
   public Expr rtrn;
+  /** Maximum number of returned results. */
+  private final long limit;
 
   /**
    * Constructor.
@@ -38,9 +40,22 @@ public final class GFLWOR extends ParseExpr {
    * @param rtrn return expression
    */
   public GFLWOR(final InputInfo info, final LinkedList<Clause> clauses, final Expr rtrn) {
+    this(info, clauses, rtrn, Long.MAX_VALUE);
+  }
+
+  /**
+   * Constructor.
+   * @param info input info
+   * @param clauses FLWOR clauses
+   * @param rtrn return expression
+   * @param limit maximum number of returned results
+   */
+  private GFLWOR(final InputInfo info, final LinkedList<Clause> clauses, final Expr rtrn,
+      final long limit) {
     super(info, SeqType.ITEM_ZM);
     this.clauses = clauses;
     this.rtrn = rtrn;
+    this.limit = limit;
   }
 
   /**
@@ -48,22 +63,46 @@ public final class GFLWOR extends ParseExpr {
    * @return the evaluator
    */
   private Eval newEval() {
+    // a final 'order by' clause only needs to return the first tuples if each tuple
+    // yields at least one result
+    final Clause last = clauses.peekLast();
+    final boolean top = limit != Long.MAX_VALUE && last instanceof OrderBy &&
+        rtrn.seqType().oneOrMore();
+
     Eval eval = new StartEval();
-    for(final Clause clause : clauses) eval = clause.eval(eval);
+    for(final Clause clause : clauses) {
+      eval = top && clause == last ? ((OrderBy) clause).eval(eval, limit) : clause.eval(eval);
+    }
     return eval;
   }
 
+  /**
+   * Returns a FLWOR expression that returns no more than the specified number of results.
+   * Called by parent expressions that only request the first results.
+   * @param count maximum number of results
+   * @return new expression, or this expression if the limit is not smaller
+   */
+  public GFLWOR limit(final long count) {
+    return count < limit ? copyType(new GFLWOR(info, new LinkedList<>(clauses), rtrn, count)) :
+      this;
+  }
+
   @Override
   public Iter iter(final QueryContext qc) {
     return new Iter() {
       private final Eval eval = newEval();
       private Iter iter = Empty.ITER;
+      private long count;
 
       @Override
       public Item next() throws QueryException {
         while(true) {
+          if(count == limit) return null;
           final Item item = qc.next(iter);
-          if(item != null) return item;
+          if(item != null) {
+            count++;
+            return item;
+          }
           if(!eval.next(qc)) {
             iter = null;
             return null;
@@ -76,12 +115,38 @@ public final class GFLWOR extends ParseExpr {
 
   @Override
   public Value value(final QueryContext qc) throws QueryException {
+    // stop evaluation when the maximum number of results has been reached
+    if(limit != Long.MAX_VALUE) return iter(qc).value(qc, this);
     final Eval eval = newEval();
     final ValueBuilder vb = new ValueBuilder(qc);
     while(eval.next(qc)) vb.add(rtrn.value(qc));
     return vb.value(this);
   }
 
+  /**
+   * Evaluates the iterations of the first 'for' clause in parallel.
+   * @param qc query context
+   * @return resulting value, or {@code null} if the expression cannot be evaluated in parallel
+   * @throws QueryException query exception
+   */
+  public Value parallel(final QueryContext qc) throws QueryException {
+    // only 'for', 'let' and 'where' clauses can be evaluated independently
+    final Clause first = clauses.getFirst();
+    if(!(first instanceof For) || !isFLW()) return null;
+    final For fr = (For) first;
+    if(fr.score != null || fr.empty || limit != Long.MAX_VALUE) return null;
+
+    final LinkedList<Clause> cls = new LinkedList<>(clauses);
+    cls.removeFirst();
+    final Expr expr = cls.isEmpty() ? rtrn : new GFLWOR(info, cls, rtrn);
+    final Value value = fr.expr.value(qc);
+    return QueryThreads.parallel(value.size(), (p, ctx) -> {
+      ctx.set(fr.var, value.itemAt(p));
+      if(fr.pos != null) ctx.set(fr.pos, Int.get(p + 1));
+      return expr.value(ctx);
+    }, qc);
+  }
+
   @Override
   public Expr compile(final CompileContext cc) throws QueryException {
     final ListIterator<Clause> iter = clauses.listIterator();
@@ -116,6 +181,15 @@ public final class GFLWOR extends ParseExpr {
       return expr;
     }
 
+    // aggregate values of non-grouping variables while groups are built
+    final int cl = clauses.size();
+    for(int c = 0; c < cl; c++) {
+      final Clause clause = clauses.get(c);
+      if(clause instanceof GroupBy) {
+        ((GroupBy) clause).aggregate(clauses.subList(c + 1, cl), rtrn, cc);
+      }
+    }
+
     exprType.assign(rtrn.seqType(), calcSize(true));
     return this;
   }
@@ -944,7 +1018,7 @@ public final class GFLWOR extends ParseExpr {
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
     final LinkedList<Clause> cls = new LinkedList<>();
     for(final Clause clause : clauses) cls.add(clause.copy(cc, vm));
-    return copyType(new GFLWOR(info, cls, rtrn.copy(cc, vm)));
+    return copyType(new GFLWOR(info, cls, rtrn.copy(cc, vm), limit));
   }
 
   /**
@@ -1002,7 +1076,7 @@ public final class GFLWOR extends ParseExpr {
     if(this == obj) return true;
     if(!(obj instanceof GFLWOR)) return false;
     final GFLWOR g = (GFLWOR) obj;
-    return clauses.equals(g.clauses) && rtrn.equals(g.rtrn);
+    return clauses.equals(g.clauses) && rtrn.equals(g.rtrn) && limit == g.limit;
   }
 
   @Override
@@ -12,18 +12,32 @@ import org.basex.query.value.item.*;
 final class Group {
   /** Grouping key, may contain {@code null} values. */
   final Item[] key;
-  /** Non-grouping variables. */
+  /** Hash value of the grouping key. */
+  final int hash;
+  /** Non-grouping variables (entries are {@code null} if values are aggregated). */
   final ValueBuilder[] ngv;
+  /** Aggregated values of non-grouping variables (can be {@code null}). */
+  final Item[] aggr;
+  /** Number of aggregated items (can be {@code null}). */
+  final long[] counts;
+  /** Flags for aggregated decimals that are exact sums of integers (can be {@code null}). */
+  final boolean[] exact;
   /** Overflow list. */
   Group next;
 
   /**
    * Constructor.
    * @param k grouping key
+   * @param h hash value of the grouping key
    * @param ng non-grouping variables
+   * @param agg indicates if values are aggregated
    */
-  Group(final Item[] k, final ValueBuilder[] ng) {
+  Group(final Item[] k, final int h, final ValueBuilder[] ng, final boolean agg) {
     key = k;
+    hash = h;
     ngv = ng;
+    aggr = agg ? new Item[ng.length] : null;
+    counts = agg ? new long[ng.length] : null;
+    exact = agg ? new boolean[ng.length] : null;
   }
 }
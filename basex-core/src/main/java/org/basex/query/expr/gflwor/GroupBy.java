@@ -1,13 +1,17 @@
 package org.basex.query.expr.gflwor;
 
+import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 
+import java.math.*;
 import java.util.*;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.func.Function;
 import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
+import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
@@ -23,6 +27,13 @@ import org.basex.util.hash.*;
  * @author Leo Woerteler
  */
 public final class GroupBy extends Clause {
+  /** Number of hash bits that are used to assign spilled groups to partitions. */
+  private static final int PBITS = 4;
+  /** Aggregate functions that can be computed incrementally. */
+  private static final Function[] AGGREGATES = {
+    Function.COUNT, Function.SUM, Function.AVG, Function.MIN, Function.MAX
+  };
+
   /** Grouping specs. */
   private final GroupSpec[] specs;
   /** Non-grouping variable expressions. */
@@ -31,6 +42,10 @@ public final class GroupBy extends Clause {
   private Var[] post;
   /** Number of non-occluded grouping variables. */
   private final int nonOcc;
+  /** Aggregate functions of non-grouping variables (can be {@code null}, entries as well). */
+  private Function[] aggr;
+  /** Function calls for aggregating values (can be {@code null}, entries as well). */
+  private Expr[] folds;
 
   /**
    * Constructor.
@@ -91,11 +106,18 @@ public final class GroupBy extends Clause {
       private Group[] groups;
       /** Current position. */
       private int pos;
+      /** Partitions with groups that have been spilled to disk. */
+      private final ArrayList<Partition> parts = new ArrayList<>();
 
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
         if(groups == null) groups = init(qc);
-        if(pos == groups.length) return false;
+        while(pos == groups.length) {
+          // proceed with the groups of the next partition
+          if(parts.isEmpty()) return false;
+          groups = merge(parts.remove(parts.size() - 1), qc);
+          pos = 0;
+        }
 
         final Group curr = groups[pos];
         // be nice to the garbage collector
@@ -109,81 +131,374 @@ public final class GroupBy extends Clause {
           }
         }
         final int pl = post.length;
-        for(int i = 0; i < pl; i++) qc.set(post[i], curr.ngv[i].value());
+        for(int i = 0; i < pl; i++) {
+          final ValueBuilder vb = curr.ngv[i];
+          qc.set(post[i], vb != null ? vb.value() : aggregated(curr, i));
+        }
         return true;
       }
 
       /**
        * Builds up the groups.
        * @param qc query context
+       * @return groups that have not been spilled to disk
        * @throws QueryException query exception
        */
       private Group[] init(final QueryContext qc) throws QueryException {
-        final ArrayList<Group> grps = new ArrayList<>();
-        final IntObjMap<Group> map = new IntObjMap<>();
-        final Collation[] colls = new Collation[nonOcc];
-        int c = 0;
-        for(final GroupSpec spec : specs) {
-          if(!spec.occluded) colls[c++] = spec.coll;
-        }
-
+        final Table table = new Table(0, qc);
         while(sub.next(qc)) {
           final Item[] key = new Item[nonOcc];
-          int p = 0, hash = 1;
+          int p = 0;
           for(final GroupSpec spec : specs) {
             final Item atom = spec.atomItem(qc, info);
-            if(!spec.occluded) {
-              key[p++] = atom;
-              // If the values are compared using a special collation, we let them collide
-              // here and let the comparison do all the work later.
-              // This enables other non-collation specs to avoid the collision.
-              hash = 31 * hash + (atom == Empty.VALUE || spec.coll != null ? 0 : atom.hash(info));
-            }
+            if(!spec.occluded) key[p++] = atom;
             qc.set(spec.var, atom);
           }
 
-          // find the group for this key
-          final Group fst;
-          Group grp = null;
-          // no collations, so we can use hashing
-          for(Group g = fst = map.get(hash); g != null; g = g.next) {
-            if(eq(key, g.key, colls)) {
-              grp = g;
-              break;
-            }
-          }
-
-          final int pl = preExpr.length;
-          if(grp == null) {
-            // new group, add it to the list
-            final ValueBuilder[] ngs = new ValueBuilder[pl];
-            final int nl = ngs.length;
-            for(int n = 0; n < nl; n++) ngs[n] = new ValueBuilder(qc);
-            grp = new Group(key, ngs);
-            grps.add(grp);
-
-            // insert the group into the hash table
-            if(fst == null) {
-              map.put(hash, grp);
-            } else {
-              final Group nxt = fst.next;
-              fst.next = grp;
-              grp.next = nxt;
-            }
-          }
-
           // add values of non-grouping variables to the group
+          final Group grp = table.group(key, qc);
+          final int pl = preExpr.length;
           for(int g = 0; g < pl; g++) {
-            grp.ngv[g].add(preExpr[g].value(qc));
+            final Value value = preExpr[g].value(qc);
+            final ValueBuilder vb = grp.ngv[g];
+            if(vb != null) vb.add(value);
+            else aggregate(grp, g, value, qc);
           }
+          table.check(qc);
         }
+        return table.finish(parts, qc);
+      }
 
-        // we're finished, copy the array so the list can be garbage-collected
-        return grps.toArray(new Group[0]);
+      /**
+       * Merges the groups of a spilled partition.
+       * @param part partition
+       * @param qc query context
+       * @return groups that have not been spilled to disk again
+       * @throws QueryException query exception
+       */
+      private Group[] merge(final Partition part, final QueryContext qc) throws QueryException {
+        final Table table = new Table(part.level + 1, qc);
+        final SpillFile file = part.file;
+        if(file != null) {
+          file.finish();
+          for(long s = 0; s < part.size; s++) {
+            table.add(read(file, qc), qc);
+            table.check(qc);
+          }
+          file.delete();
+        }
+        // groups that have been kept in memory succeed the spilled groups with the same key
+        for(final Group grp : part.retained) table.add(grp, qc);
+        return table.finish(parts, qc);
       }
     };
   }
 
+  /**
+   * Adds values to an aggregated non-grouping variable.
+   * @param group group
+   * @param g index of the variable
+   * @param value value to be added
+   * @param qc query context
+   * @throws QueryException query exception
+   */
+  private void aggregate(final Group group, final int g, final Value value,
+      final QueryContext qc) throws QueryException {
+
+    if(value.isEmpty()) return;
+    group.counts[g] += value.size();
+    if(aggr[g] == Function.COUNT) {
+      // remember first item
+      if(group.aggr[g] == null) group.aggr[g] = value.itemAt(0);
+      return;
+    }
+    boolean ints = true;
+    for(final Item item : value) ints = ints && item.type.instanceOf(AtomType.ITR);
+    fold(group, g, value, ints, qc);
+  }
+
+  /**
+   * Combines the values of two groups with the same key.
+   * @param group target group
+   * @param add group to be added
+   * @param qc query context
+   * @throws QueryException query exception
+   */
+  private void combine(final Group group, final Group add, final QueryContext qc)
+      throws QueryException {
+
+    final int pl = preExpr.length;
+    for(int g = 0; g < pl; g++) {
+      final ValueBuilder vb = group.ngv[g];
+      if(vb != null) {
+        vb.add(add.ngv[g].value());
+      } else {
+        final Item item = add.aggr[g];
+        if(item == null) continue;
+        group.counts[g] += add.counts[g];
+        if(group.aggr[g] == null) {
+          group.aggr[g] = item;
+          group.exact[g] = add.exact[g];
+        } else if(aggr[g] != Function.COUNT) {
+          fold(group, g, item, item.type.instanceOf(AtomType.ITR) || add.exact[g], qc);
+        }
+      }
+    }
+  }
+
+  /**
+   * Folds values into the aggregated value of a non-grouping variable:
+   * {@code sum((1, 2, 3)) = sum((sum((1, 2)), 3))}. As the original values are not kept,
+   * sums of integers that exceed the integer range are computed as decimals.
+   * An overflow error will only be raised if the aggregated value is requested.
+   * @param group group
+   * @param g index of the variable
+   * @param value value to be added
+   * @param ints indicates if the value consists of integers
+   * @param qc query context
+   * @throws QueryException query exception
+   */
+  private void fold(final Group group, final int g, final Value value, final boolean ints,
+      final QueryContext qc) throws QueryException {
+
+    final Item item = group.aggr[g];
+    final Value input = item == null ? value : ValueBuilder.concat(item, value, qc);
+    Item result;
+    try {
+      result = fold(g, input, qc);
+    } catch(final QueryException ex) {
+      final Function func = aggr[g];
+      if(ex.error() != RANGE_X || func != Function.SUM && func != Function.AVG) throw ex;
+      // integer overflow: compute exact sum
+      final ValueBuilder vb = new ValueBuilder(qc);
+      for(final Item it : input) {
+        vb.add(it.type.instanceOf(AtomType.ITR) ? Dec.get(it.dec(info)) : it);
+      }
+      result = fold(g, vb.value(), qc);
+    }
+    group.aggr[g] = result;
+    group.exact[g] = result.type == AtomType.DEC && ints &&
+      (item == null || item.type.instanceOf(AtomType.ITR) || group.exact[g]);
+  }
+
+  /**
+   * Applies the fold function of a non-grouping variable to the specified input.
+   * @param g index of the variable
+   * @param input input
+   * @param qc query context
+   * @return result
+   * @throws QueryException query exception
+   */
+  private Item fold(final int g, final Value input, final QueryContext qc)
+      throws QueryException {
+    qc.set(post[g], input);
+    return folds[g].item(qc, info);
+  }
+
+  /**
+   * Returns the value of an aggregated non-grouping variable. The value may differ from the
+   * original one, but it will yield the same result when being passed on to the aggregate
+   * function.
+   * @param group group
+   * @param g index of the variable
+   * @return value
+   * @throws QueryException query exception
+   */
+  private Value aggregated(final Group group, final int g) throws QueryException {
+    Item item = group.aggr[g];
+    if(item == null) return Empty.VALUE;
+
+    if(group.exact[g]) {
+      // sum of integers: if the result is out of range, return integers whose sum overflows
+      final BigDecimal dec = item.dec(info);
+      final int sign = dec.signum();
+      if(dec.compareTo(BigDecimal.valueOf(sign > 0 ? Long.MAX_VALUE : Long.MIN_VALUE)) * sign > 0) {
+        return IntSeq.get(new long[] { sign > 0 ? Long.MAX_VALUE : Long.MIN_VALUE, sign });
+      }
+      item = Int.get(dec.longValue());
+    }
+    final long count = group.counts[g];
+    final Function func = aggr[g];
+    return func == Function.COUNT ? SingletonSeq.get(item, count) :
+           func == Function.AVG ? Calc.DIV.eval(item, Int.get(count), info) : item;
+  }
+
+  /**
+   * Computes the hash value of a grouping key.
+   * @param key grouping key
+   * @return hash value
+   * @throws QueryException query exception
+   */
+  private int hash(final Item[] key) throws QueryException {
+    int hash = 1, p = 0;
+    for(final GroupSpec spec : specs) {
+      if(spec.occluded) continue;
+      // If the values are compared using a special collation, we let them collide
+      // here and let the comparison do all the work later.
+      // This enables other non-collation specs to avoid the collision.
+      final Item atom = key[p++];
+      hash = 31 * hash + (atom == Empty.VALUE || spec.coll != null ? 0 : atom.hash(info));
+    }
+    return hash;
+  }
+
+  /**
+   * Writes a group to a spill file.
+   * @param file spill file
+   * @param group group
+   * @param values values of non-grouping variables (entries are {@code null} if aggregated)
+   * @throws QueryException query exception
+   */
+  private void write(final SpillFile file, final Group group, final Value[] values)
+      throws QueryException {
+    for(final Item key : group.key) file.write(key);
+    final int pl = values.length;
+    for(int g = 0; g < pl; g++) {
+      if(values[g] != null) {
+        file.write(values[g]);
+      } else {
+        // the item of a count aggregation is only required to build a sequence of this size
+        final Item item = group.aggr[g];
+        file.write(item == null ? Empty.VALUE : SpillFile.atomic(item) ? item : Bln.TRUE);
+        file.write(group.counts[g]);
+        file.write(group.exact[g]);
+      }
+    }
+  }
+
+  /**
+   * Reads a group from a spill file.
+   * @param file spill file
+   * @param qc query context
+   * @return group
+   * @throws QueryException query exception
+   */
+  private Group read(final SpillFile file, final QueryContext qc) throws QueryException {
+    final Item[] key = new Item[nonOcc];
+    for(int k = 0; k < nonOcc; k++) key[k] = (Item) file.readValue(qc);
+    final int pl = preExpr.length;
+    final ValueBuilder[] ngv = new ValueBuilder[pl];
+    final Group group = new Group(key, hash(key), ngv, aggr != null);
+    for(int g = 0; g < pl; g++) {
+      final Value value = file.readValue(qc);
+      if(aggr == null || aggr[g] == null) {
+        ngv[g] = new ValueBuilder(qc).add(value);
+      } else {
+        group.aggr[g] = value.isEmpty() ? null : (Item) value;
+        group.counts[g] = file.readLong();
+        group.exact[g] = file.readBool();
+      }
+    }
+    return group;
+  }
+
+  /**
+   * Checks if values of non-grouping variables can be aggregated while the groups are built.
+   * This is the case if all references to a variable are arguments of the same aggregate
+   * function ({@code count}, {@code sum}, {@code avg}, {@code min}, {@code max}), and if the
+   * static type of the values guarantees that they can be aggregated.
+   * @param clauses subsequent clauses
+   * @param rtrn return expression
+   * @param cc compilation context
+   * @throws QueryException query exception
+   */
+  void aggregate(final Iterable<Clause> clauses, final Expr rtrn, final CompileContext cc)
+      throws QueryException {
+
+    final int pl = post.length;
+    final Function[] funcs = new Function[pl];
+    final Expr[] fls = new Expr[pl];
+    boolean found = false;
+    for(int p = 0; p < pl; p++) {
+      // arrays would be flattened by the aggregate functions
+      final Var var = post[p];
+      if(preExpr[p].seqType().mayBeArray()) continue;
+
+      // collect function calls and variable references
+      final ExprList calls = new ExprList();
+      final int[] refs = { 0 };
+      final ASTVisitor visitor = new ASTVisitor() {
+        @Override
+        public boolean used(final VarRef ref) {
+          if(ref.var.is(var)) refs[0]++;
+          return true;
+        }
+      };
+      for(final Clause clause : clauses) {
+        clause.accept(visitor);
+        if(clause instanceof ForLet) calls(((ForLet) clause).expr, var, calls);
+        else if(clause instanceof Where) calls(((Where) clause).expr, var, calls);
+      }
+      rtrn.accept(visitor);
+      calls(rtrn, var, calls);
+
+      // all references must be arguments of the same function
+      final int cs = calls.size();
+      if(cs == 0 || cs != refs[0]) continue;
+      final Expr call = calls.get(0);
+      final Function func = aggregate(call, var);
+      boolean same = true;
+      for(int c = 1; c < cs && same; c++) same = aggregate(calls.get(c), var) == func;
+      // skip values that may be incompatible: errors must only be raised if evaluated
+      if(!same || func != Function.COUNT && !foldable(preExpr[p].seqType().type, func)) continue;
+
+      funcs[p] = func;
+      fls[p] = func == Function.COUNT ? null : func == Function.AVG ?
+        cc.function(Function.SUM, info, new VarRef(info, var).optimize(cc)) :
+        call.copy(cc, new IntObjMap<>());
+      found = true;
+    }
+    aggr = found ? funcs : null;
+    folds = found ? fls : null;
+  }
+
+  /**
+   * Checks if values of the specified type can always be aggregated by the specified function.
+   * Sums of numbers cannot fail (see {@link #fold(Group, int, Value, boolean, QueryContext)}),
+   * whereas sums of durations may exceed the supported range.
+   * @param type type of the values
+   * @param func aggregate function
+   * @return result of check
+   */
+  private static boolean foldable(final Type type, final Function func) {
+    return type.isNumber() || (func == Function.MIN || func == Function.MAX) && (
+      type.instanceOf(AtomType.YMD) || type.instanceOf(AtomType.DTD) ||
+      type.instanceOf(AtomType.STR));
+  }
+
+  /**
+   * Collects calls of aggregate functions with the specified variable as argument.
+   * @param expr expression
+   * @param var variable
+   * @param calls list of function calls
+   */
+  private static void calls(final Expr expr, final Var var, final ExprList calls) {
+    if(aggregate(expr, var) != null) {
+      calls.add(expr);
+    } else if(expr instanceof Arr) {
+      for(final Expr arg : expr.args()) calls(arg, var, calls);
+    } else if(expr instanceof Single) {
+      calls(((Single) expr).expr, var, calls);
+    }
+  }
+
+  /**
+   * Returns the aggregate function that is called with the specified variable as argument.
+   * @param expr expression
+   * @param var variable
+   * @return function or {@code null}
+   */
+  private static Function aggregate(final Expr expr, final Var var) {
+    for(final Function func : AGGREGATES) {
+      if(func.is(expr)) {
+        final Expr[] args = expr.args();
+        return args.length == 1 && args[0] instanceof VarRef && ((VarRef) args[0]).var.is(var) ?
+          func : null;
+      }
+    }
+    return null;
+  }
+
   /**
    * Checks two keys for equality.
    * @param items1 first keys
@@ -263,8 +578,16 @@ public final class GroupBy extends Clause {
     final int pl = ps.length;
     for(int p = 0; p < pl; p++) ps[p] = cc.copy(post[p], vm);
 
+    final GroupBy gb = new GroupBy(Arr.copyAll(cc, vm, specs), pEx, ps, nonOcc, info);
+    if(aggr != null) {
+      gb.aggr = aggr.clone();
+      gb.folds = new Expr[pl];
+      for(int p = 0; p < pl; p++) {
+        if(folds[p] != null) gb.folds[p] = folds[p].copy(cc, vm);
+      }
+    }
     // done
-    return copyType(new GroupBy(Arr.copyAll(cc, vm, specs), pEx, ps, nonOcc, info));
+    return copyType(gb);
   }
 
   @Override
@@ -286,6 +609,10 @@ public final class GroupBy extends Clause {
     for(int p = 0; p < post.length; p++) {
       if(!used.get(post[p].id)) {
         preExpr = Array.remove(preExpr, p);
+        if(aggr != null) {
+          aggr = Array.remove(aggr, p);
+          folds = Array.remove(folds, p);
+        }
         post = Array.remove(post, p--);
       }
     }
@@ -350,4 +677,232 @@ public final class GroupBy extends Clause {
     }
     qs.token(GROUP).token(BY).tokens(specs, SEP);
   }
+
+  /**
+   * Hash table of groups. If memory runs short, groups whose keys and values are atomic are
+   * spilled to partitions on disk. Groups with other values (nodes, function items) are kept
+   * in memory.
+   */
+  private final class Table {
+    /** Groups, in the order of their creation. */
+    private ArrayList<Group> groups = new ArrayList<>();
+    /** Groups, indexed by the hash values of their keys. */
+    private IntObjMap<Group> map = new IntObjMap<>();
+    /** Collations of the grouping keys. */
+    private final Collation[] colls = new Collation[nonOcc];
+    /** Partition level (defines the hash bits that are used to assign partitions). */
+    private final int level;
+    /** Maximum number of cached tuples ({@code 0}: depends on available memory). */
+    private final long max;
+    /** Partitions of spilled groups (created with the first spill, can be {@code null}). */
+    private Partition[] parts;
+    /** Number of tuples that have been added since the last spill. */
+    private long tuples;
+    /** Indicates if groups can be spilled. */
+    private boolean spill;
+
+    /**
+     * Constructor.
+     * @param level partition level
+     * @param qc query context
+     */
+    Table(final int level, final QueryContext qc) {
+      this.level = level;
+      max = SpillFile.max(qc);
+      int c = 0;
+      for(final GroupSpec spec : specs) {
+        if(!spec.occluded) colls[c++] = spec.coll;
+      }
+      // no more partitions can be created if all hash bits have been used,
+      // or if the values of non-grouping variables are nodes or function items
+      spill = level < 32 / PBITS;
+      final int pl = preExpr.length;
+      for(int p = 0; p < pl && spill; p++) {
+        final Type type = preExpr[p].seqType().type;
+        spill = aggr != null && aggr[p] != null ||
+          !(type instanceof NodeType || type instanceof FuncType);
+      }
+    }
+
+    /**
+     * Returns the group for the specified key. A new group will be created if none exists.
+     * @param key grouping key
+     * @param qc query context
+     * @return group
+     * @throws QueryException query exception
+     */
+    Group group(final Item[] key, final QueryContext qc) throws QueryException {
+      final int hash = hash(key);
+      final Group grp = find(key, hash);
+      if(grp != null) return grp;
+
+      final int pl = preExpr.length;
+      final ValueBuilder[] ngs = new ValueBuilder[pl];
+      for(int p = 0; p < pl; p++) {
+        if(aggr == null || aggr[p] == null) ngs[p] = new ValueBuilder(qc);
+      }
+      final Group group = new Group(key, hash, ngs, aggr != null);
+      insert(group);
+      return group;
+    }
+
+    /**
+     * Adds a group. If a group with the same key exists, the values are combined.
+     * @param group group
+     * @param qc query context
+     * @throws QueryException query exception
+     */
+    void add(final Group group, final QueryContext qc) throws QueryException {
+      final Group grp = find(group.key, group.hash);
+      if(grp != null) {
+        combine(grp, group, qc);
+      } else {
+        group.next = null;
+        insert(group);
+      }
+    }
+
+    /**
+     * Checks if memory runs short after a tuple has been added, and spills groups to disk.
+     * @param qc query context
+     * @throws QueryException query exception
+     */
+    void check(final QueryContext qc) throws QueryException {
+      if(spill && SpillFile.spill(++tuples, max)) {
+        // stop spilling if no group could be written
+        spill = spill(qc);
+        tuples = 0;
+      }
+    }
+
+    /**
+     * Finishes the table. If groups have been spilled before, the remaining groups are
+     * spilled as well, and the partitions are added to the specified list.
+     * @param partitions list of partitions to be merged
+     * @param qc query context
+     * @return groups that have not been spilled
+     * @throws QueryException query exception
+     */
+    Group[] finish(final ArrayList<Partition> partitions, final QueryContext qc)
+        throws QueryException {
+
+      if(parts != null) {
+        spill(qc);
+        for(final Group grp : groups) {
+          parts[partition(grp.hash)].retained.add(grp);
+        }
+        for(final Partition part : parts) {
+          if(part.file != null || !part.retained.isEmpty()) partitions.add(part);
+        }
+        return new Group[0];
+      }
+      // we're finished, copy the array so the list can be garbage-collected
+      return groups.toArray(new Group[0]);
+    }
+
+    /**
+     * Spills all groups to disk that consist of atomic items.
+     * @param qc query context
+     * @return {@code true} if at least one group was spilled
+     * @throws QueryException query exception
+     */
+    private boolean spill(final QueryContext qc) throws QueryException {
+      if(parts == null) {
+        parts = new Partition[1 << PBITS];
+        for(int p = 0; p < parts.length; p++) parts[p] = new Partition(level);
+      }
+      final ArrayList<Group> grps = groups;
+      groups = new ArrayList<>();
+      map = new IntObjMap<>();
+
+      final int pl = preExpr.length;
+      for(final Group grp : grps) {
+        boolean atomic = true;
+        for(final Item key : grp.key) atomic = atomic && SpillFile.atomic(key);
+        final Value[] values = new Value[pl];
+        for(int p = 0; p < pl; p++) {
+          final ValueBuilder vb = grp.ngv[p];
+          if(vb != null) {
+            values[p] = vb.value();
+            atomic = atomic && SpillFile.atomic(values[p]);
+          } else if(aggr[p] != Function.COUNT && grp.aggr[p] != null) {
+            atomic = atomic && SpillFile.atomic(grp.aggr[p]);
+          }
+        }
+        if(atomic) {
+          final Partition part = parts[partition(grp.hash)];
+          if(part.file == null) part.file = SpillFile.create(qc, info);
+          write(part.file, grp, values);
+          part.size++;
+        } else {
+          // keep group in memory
+          for(int p = 0; p < pl; p++) {
+            if(values[p] != null) grp.ngv[p] = new ValueBuilder(qc).add(values[p]);
+          }
+          grp.next = null;
+          insert(grp);
+        }
+      }
+      return groups.size() < grps.size();
+    }
+
+    /**
+     * Returns the partition of a group.
+     * @param hash hash value of the grouping key
+     * @return partition
+     */
+    private int partition(final int hash) {
+      return hash >>> level * PBITS & (1 << PBITS) - 1;
+    }
+
+    /**
+     * Returns the group with the specified key.
+     * @param key grouping key
+     * @param hash hash value of the key
+     * @return group or {@code null}
+     * @throws QueryException query exception
+     */
+    private Group find(final Item[] key, final int hash) throws QueryException {
+      for(Group g = map.get(hash); g != null; g = g.next) {
+        if(eq(key, g.key, colls)) return g;
+      }
+      return null;
+    }
+
+    /**
+     * Inserts a new group.
+     * @param group group
+     */
+    private void insert(final Group group) {
+      groups.add(group);
+      final int hash = group.hash;
+      final Group fst = map.get(hash);
+      if(fst == null) {
+        map.put(hash, group);
+      } else {
+        group.next = fst.next;
+        fst.next = group;
+      }
+    }
+  }
+
+  /** Partition of groups that have been spilled to disk. */
+  private static final class Partition {
+    /** Groups that have been kept in memory, and that succeed the spilled groups. */
+    private final ArrayList<Group> retained = new ArrayList<>();
+    /** Partition level. */
+    private final int level;
+    /** Spilled groups (can be {@code null}). */
+    private SpillFile file;
+    /** Number of spilled groups. */
+    private long size;
+
+    /**
+     * Constructor.
+     * @param level partition level
+     */
+    private Partition(final int level) {
+      this.level = level;
+    }
+  }
 }
@@ -4,7 +4,6 @@ import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 
 import java.util.*;
-import java.util.List;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
@@ -24,6 +23,9 @@ import org.basex.util.hash.*;
  * @author Leo Woerteler
  */
 public final class OrderBy extends Clause {
+  /** Maximum number of runs on disk that are merged at the same time. */
+  private static final int MAXRUNS = 64;
+
   /** References to the variables to be sorted. */
   private VarRef[] refs;
   /** Sort keys. */
@@ -43,85 +45,291 @@ public final class OrderBy extends Clause {
 
   @Override
   Eval eval(final Eval sub) {
+    return eval(sub, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns an evaluator for this clause.
+   * @param sub wrapped evaluator
+   * @param limit maximum number of tuples that will be requested
+   * @return evaluator
+   */
+  Eval eval(final Eval sub, final long limit) {
     return new Eval() {
-      private Value[][] tpls;
-      private Integer[] perm;
-      int pos;
+      /** Sorted tuples (keys, followed by the values of the variables and the input position). */
+      private Value[][] tuples;
+      /** Current position. */
+      private int pos;
+      /** Sorted runs to be merged, indexed by their current tuples (can be {@code null}). */
+      private MinHeap<Value[], Run> runs;
 
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
-        if(tpls == null) sort(qc);
-        if(pos == tpls.length) return false;
-        final int p = perm[pos++];
-        final Value[] tuple = tpls[p];
-        // free the space occupied by the tuple
-        tpls[p] = null;
-        final int rl = refs.length;
-        for(int r = 0; r < rl; r++) qc.set(refs[r].var, tuple[r]);
+        if(tuples == null) tuples = limit < Integer.MAX_VALUE ? top(qc) : sort(qc);
+        final Value[] tuple;
+        if(runs != null) {
+          if(runs.isEmpty()) return false;
+          tuple = pop(runs, qc);
+        } else {
+          if(pos == tuples.length) return false;
+          tuple = tuples[pos];
+          // free the space occupied by the tuple
+          tuples[pos++] = null;
+        }
+        final int kl = keys.length, rl = refs.length;
+        for(int r = 0; r < rl; r++) qc.set(refs[r].var, tuple[kl + r]);
         return true;
       }
 
       /**
-       * Caches and sorts all incoming tuples.
+       * Caches and sorts all incoming tuples. If memory runs short, sorted runs of tuples
+       * with atomic items are written to disk, and the runs will be merged while the
+       * results are returned.
        * @param qc query context
+       * @return sorted tuples (empty if runs are merged)
        * @throws QueryException evaluation exception
        */
-      private void sort(final QueryContext qc) throws QueryException {
-        // keys are stored at odd positions, values at even ones
-        List<Value[]> tuples = new ArrayList<>();
-        while(sub.next(qc)) {
-          final int kl = keys.length;
-          final Item[] key = new Item[kl];
-          for(int k = 0; k < kl; k++) key[k] = keys[k].expr.atomItem(qc, keys[k].info);
-          tuples.add(key);
-
-          final int rl = refs.length;
-          final Value[] vals = new Value[rl];
-          for(int r = 0; r < rl; r++) vals[r] = refs[r].value(qc);
-          tuples.add(vals);
+      private Value[][] sort(final QueryContext qc) throws QueryException {
+        final ArrayList<Value[]> list = new ArrayList<>();
+        final ArrayList<Run> rns = new ArrayList<>();
+        final long max = SpillFile.max(qc);
+        boolean spill = spillable();
+        for(long p = 0, cached = 0; sub.next(qc); p++) {
+          list.add(tuple(p, qc));
+          if(spill && SpillFile.spill(++cached, max)) {
+            // stop spilling if no tuple could be written
+            spill = spill(list, rns, qc);
+            cached = 0;
+            if(rns.size() == MAXRUNS) {
+              final Run run = merge(rns, qc);
+              rns.clear();
+              rns.add(run);
+            }
+          }
         }
+        final Value[][] tpls = sorted(list);
+        if(rns.isEmpty()) return tpls;
 
-        final int len = tuples.size() >>> 1;
-        final Item[][] ks = new Item[len][];
-        perm = new Integer[len];
-        tpls = new Value[len][];
-        for(int i = 0; i < len; i++) {
-          perm[i] = i;
-          tpls[i] = tuples.get(i << 1 | 1);
-          ks[i] = (Item[]) tuples.get(i << 1);
-        }
-        // be nice to the garbage collector
-        tuples = null;
+        rns.add(new Run(tpls));
+        runs = heap(rns, qc);
+        return new Value[0][];
+      }
+
+      /**
+       * Returns the smallest tuples. Only the requested number of tuples is kept in memory.
+       * Tuples whose keys cannot beat the largest retained tuple are dropped before their
+       * variables are evaluated. This is the only pruning of ranked results: all matches of
+       * a full-text query are still scored, as no score bounds are stored in the index.
+       * @param qc query context
+       * @return sorted tuples
+       * @throws QueryException evaluation exception
+       */
+      private Value[][] top(final QueryContext qc) throws QueryException {
+        // the largest tuple is placed on top of the heap; the input position is appended to
+        // each tuple, as tuples with equal keys must be returned in their original order
+        final MinHeap<Value[], Value[]> heap = new MinHeap<>((tuple1, tuple2) ->
+          order(tuple2, tuple1));
+        final int kl = keys.length, rl = refs.length;
         try {
-          Arrays.sort(perm, (x, y) -> {
-            try {
-              final Item[] a = ks[x], b = ks[y];
-              final int kl = keys.length;
-              for(int k = 0; k < kl; k++) {
-                final OrderKey key = keys[k];
-                Item m = a[k], n = b[k];
-                if(m == Dbl.NAN || m == Flt.NAN) m = Empty.VALUE;
-                if(n == Dbl.NAN || n == Flt.NAN) n = Empty.VALUE;
-                if(m != Empty.VALUE && n != Empty.VALUE && !m.comparable(n))
-                  throw typeError(n, m.type, key.info);
-
-                final int c = m == Empty.VALUE
-                    ? n == Empty.VALUE ? 0                 : key.least ? -1 : 1
-                    : n == Empty.VALUE ? key.least ? 1 : -1 : m.diff(n, key.coll, key.info);
-                if(c != 0) return key.desc ? -c : c;
-              }
-              return 0;
-            } catch(final QueryException ex) {
-              throw new QueryRTException(ex);
-            }
-          });
+          for(long p = 0; sub.next(qc); p++) {
+            final Value[] tuple = new Value[kl + rl + 1];
+            for(int k = 0; k < kl; k++) tuple[k] = keys[k].expr.atomItem(qc, keys[k].info);
+            // skip tuples that cannot beat the largest retained tuple (tuples with equal keys
+            // are ordered by their input position): the variables need not be evaluated
+            if(heap.size() >= limit && !heap.isEmpty() &&
+                compare(tuple, heap.minValue()) >= 0) continue;
+
+            for(int r = 0; r < rl; r++) tuple[kl + r] = refs[r].value(qc);
+            tuple[kl + rl] = Int.get(p);
+            heap.insert(tuple, tuple);
+            if(heap.size() > limit) heap.removeMin();
+          }
         } catch(final QueryRTException ex) {
           throw ex.getCause();
         }
+        final int hs = heap.size();
+        final Value[][] tpls = new Value[hs][];
+        for(int h = hs; --h >= 0;) tpls[h] = heap.removeMin();
+        return tpls;
+      }
+
+      /**
+       * Creates a tuple with the sort keys, the values of the variables and the input position.
+       * @param p input position
+       * @param qc query context
+       * @return tuple
+       * @throws QueryException evaluation exception
+       */
+      private Value[] tuple(final long p, final QueryContext qc) throws QueryException {
+        final int kl = keys.length, rl = refs.length;
+        final Value[] tuple = new Value[kl + rl + 1];
+        for(int k = 0; k < kl; k++) tuple[k] = keys[k].expr.atomItem(qc, keys[k].info);
+        for(int r = 0; r < rl; r++) tuple[kl + r] = refs[r].value(qc);
+        tuple[kl + rl] = Int.get(p);
+        return tuple;
       }
     };
   }
 
+  /**
+   * Checks if the values of the variables may be spilled to disk.
+   * @return result of check
+   */
+  private boolean spillable() {
+    for(final VarRef ref : refs) {
+      final Type type = ref.seqType().type;
+      if(type instanceof NodeType || type instanceof FuncType) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Sorts tuples in main memory.
+   * @param list tuples
+   * @return sorted tuples
+   * @throws QueryException evaluation exception
+   */
+  private Value[][] sorted(final ArrayList<Value[]> list) throws QueryException {
+    final Value[][] tpls = list.toArray(new Value[0][]);
+    try {
+      Arrays.sort(tpls, this::order);
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+    return tpls;
+  }
+
+  /**
+   * Sorts the cached tuples and writes all tuples with atomic items to a new run on disk.
+   * The remaining tuples are kept in the list.
+   * @param list cached tuples
+   * @param runs runs
+   * @param qc query context
+   * @return {@code true} if at least one tuple was written
+   * @throws QueryException evaluation exception
+   */
+  private boolean spill(final ArrayList<Value[]> list, final ArrayList<Run> runs,
+      final QueryContext qc) throws QueryException {
+
+    final Value[][] tpls = sorted(list);
+    list.clear();
+    SpillFile file = null;
+    long size = 0;
+    for(final Value[] tuple : tpls) {
+      boolean atomic = true;
+      for(final Value value : tuple) atomic = atomic && SpillFile.atomic(value);
+      if(atomic) {
+        if(file == null) file = SpillFile.create(qc, info);
+        for(final Value value : tuple) file.write(value);
+        size++;
+      } else {
+        list.add(tuple);
+      }
+    }
+    if(file == null) return false;
+    runs.add(new Run(file, size));
+    return true;
+  }
+
+  /**
+   * Merges runs on disk into a single run.
+   * @param runs runs
+   * @param qc query context
+   * @return new run
+   * @throws QueryException evaluation exception
+   */
+  private Run merge(final ArrayList<Run> runs, final QueryContext qc) throws QueryException {
+    final MinHeap<Value[], Run> heap = heap(runs, qc);
+    final SpillFile file = SpillFile.create(qc, info);
+    long size = 0;
+    while(!heap.isEmpty()) {
+      for(final Value value : pop(heap, qc)) file.write(value);
+      size++;
+    }
+    return new Run(file, size);
+  }
+
+  /**
+   * Creates a heap for merging runs.
+   * @param runs runs
+   * @param qc query context
+   * @return heap
+   * @throws QueryException evaluation exception
+   */
+  private MinHeap<Value[], Run> heap(final ArrayList<Run> runs, final QueryContext qc)
+      throws QueryException {
+    final MinHeap<Value[], Run> heap = new MinHeap<>(this::order);
+    try {
+      for(final Run run : runs) {
+        if(run.next(qc)) heap.insert(run.tuple, run);
+      }
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+    return heap;
+  }
+
+  /**
+   * Returns the next tuple of the merged runs.
+   * @param heap heap with runs
+   * @param qc query context
+   * @return tuple
+   * @throws QueryException evaluation exception
+   */
+  private static Value[] pop(final MinHeap<Value[], Run> heap, final QueryContext qc)
+      throws QueryException {
+    final Run run = heap.removeMin();
+    final Value[] tuple = run.tuple;
+    try {
+      if(run.next(qc)) heap.insert(run.tuple, run);
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+    return tuple;
+  }
+
+  /**
+   * Compares the sort keys and, if they are equal, the input positions of two tuples.
+   * @param tuple1 first tuple
+   * @param tuple2 second tuple
+   * @return result of comparison
+   * @throws QueryRTException query exception
+   */
+  private int order(final Value[] tuple1, final Value[] tuple2) {
+    final int c = compare(tuple1, tuple2);
+    return c != 0 ? c : Long.compare(((Int) tuple1[tuple1.length - 1]).itr(),
+        ((Int) tuple2[tuple2.length - 1]).itr());
+  }
+
+  /**
+   * Compares the sort keys of two tuples.
+   * @param tuple1 first tuple
+   * @param tuple2 second tuple
+   * @return result of comparison
+   * @throws QueryRTException query exception
+   */
+  private int compare(final Value[] tuple1, final Value[] tuple2) {
+    try {
+      final int kl = keys.length;
+      for(int k = 0; k < kl; k++) {
+        final OrderKey key = keys[k];
+        Item m = (Item) tuple1[k], n = (Item) tuple2[k];
+        if(m == Dbl.NAN || m == Flt.NAN) m = Empty.VALUE;
+        if(n == Dbl.NAN || n == Flt.NAN) n = Empty.VALUE;
+        if(m != Empty.VALUE && n != Empty.VALUE && !m.comparable(n))
+          throw typeError(n, m.type, key.info);
+
+        final int c = m == Empty.VALUE
+            ? n == Empty.VALUE ? 0                 : key.least ? -1 : 1
+            : n == Empty.VALUE ? key.least ? 1 : -1 : m.diff(n, key.coll, key.info);
+        if(c != 0) return key.desc ? -c : c;
+      }
+      return 0;
+    } catch(final QueryException ex) {
+      throw new QueryRTException(ex);
+    }
+  }
+
   @Override
   public boolean has(final Flag... flags) {
     for(final OrderKey key : keys) {
@@ -228,4 +436,66 @@ public final class OrderBy extends Clause {
   public void plan(final QueryString qs) {
     qs.token(ORDER).token(BY).tokens(keys, SEP);
   }
+
+  /** Sorted run of tuples, which are stored in main memory or on disk. */
+  private final class Run {
+    /** Tuples in main memory (can be {@code null}). */
+    private final Value[][] tuples;
+    /** Tuples on disk (can be {@code null}). */
+    private final SpillFile file;
+    /** Number of tuples. */
+    private final long size;
+    /** Number of tuples that have been returned. */
+    private long pos;
+    /** Current tuple. */
+    private Value[] tuple;
+
+    /**
+     * Constructor for tuples in main memory.
+     * @param tuples sorted tuples
+     */
+    private Run(final Value[][] tuples) {
+      this.tuples = tuples;
+      file = null;
+      size = tuples.length;
+    }
+
+    /**
+     * Constructor for tuples on disk.
+     * @param file file with sorted tuples
+     * @param size number of tuples
+     * @throws QueryException query exception
+     */
+    private Run(final SpillFile file, final long size) throws QueryException {
+      this.file = file;
+      this.size = size;
+      tuples = null;
+      file.finish();
+    }
+
+    /**
+     * Proceeds with the next tuple.
+     * @param qc query context
+     * @return {@code false} if all tuples have been returned
+     * @throws QueryException query exception
+     */
+    private boolean next(final QueryContext qc) throws QueryException {
+      if(pos == size) {
+        if(file != null) file.delete();
+        tuple = null;
+        return false;
+      }
+      if(file != null) {
+        final Value[] tpl = new Value[keys.length + refs.length + 1];
+        for(int t = 0; t < tpl.length; t++) tpl[t] = file.readValue(qc);
+        tuple = tpl;
+      } else {
+        final int p = (int) pos;
+        tuple = tuples[p];
+        tuples[p] = null;
+      }
+      pos++;
+      return true;
+    }
+  }
 }
@@ -0,0 +1,239 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryError.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Temporary file for tuples of FLWOR clauses that are spilled to disk.
+ * Only atomic items can be written: their type and string representation are stored,
+ * and they are restored by casting them back to their original type.
+ * Entries are written sequentially and read back in the same order.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class SpillFile {
+  /** Maximum memory to consume before cached tuples are spilled. */
+  private static final long MAXMEM = (long) (Runtime.getRuntime().maxMemory() * 0.8);
+
+  /** Temporary files. */
+  private final SpillFiles files;
+  /** File reference. */
+  private final IOFile file;
+  /** Input info. */
+  private final InputInfo info;
+  /** Output stream ({@code null} if the file is read). */
+  private DataOutput out;
+  /** Input stream ({@code null} if the file is written). */
+  private DataInput in;
+
+  /**
+   * Constructor.
+   * @param files temporary files
+   * @param file file reference
+   * @param info input info
+   * @throws IOException I/O exception
+   */
+  SpillFile(final SpillFiles files, final IOFile file, final InputInfo info) throws IOException {
+    this.files = files;
+    this.file = file;
+    this.info = info;
+    out = new DataOutput(file);
+  }
+
+  /**
+   * Creates a new temporary file, which will be deleted when the query is closed.
+   * @param qc query context
+   * @param info input info
+   * @return file
+   * @throws QueryException query exception
+   */
+  static SpillFile create(final QueryContext qc, final InputInfo info) throws QueryException {
+    return qc.resources.index(SpillFiles.class).create(info);
+  }
+
+  /**
+   * Returns the maximum number of tuples that can be cached before they are spilled to disk.
+   * @param qc query context
+   * @return number of tuples ({@code 0}: depends on available memory)
+   */
+  static long max(final QueryContext qc) {
+    return qc.context.options.get(MainOptions.SPILLSIZE);
+  }
+
+  /**
+   * Checks if cached tuples should be spilled to disk.
+   * @param tuples number of tuples that have been cached since the last spill
+   * @param max maximum number of tuples ({@code 0}: depends on available memory)
+   * @return result of check
+   */
+  static boolean spill(final long tuples, final long max) {
+    return max > 0 ? tuples >= max : (tuples & 0xFFF) == 0 && Performance.memory() >= MAXMEM;
+  }
+
+  /**
+   * Checks if all items of a value can be written to disk.
+   * @param value value
+   * @return result of check
+   */
+  static boolean atomic(final Value value) {
+    for(final Item item : value) {
+      final Type type = item.type;
+      if(!type.instanceOf(AtomType.AAT) || type == AtomType.QNM || type == AtomType.NOT) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes a value. All items must be atomic (see {@link #atomic(Value)}).
+   * @param value value to be written
+   * @throws QueryException query exception
+   */
+  void write(final Value value) throws QueryException {
+    try {
+      out.writeNum((int) value.size());
+      for(final Item item : value) {
+        final Type type = item.type;
+        // floating-point numbers: write exact representation
+        out.write1(type.id().asByte());
+        out.writeToken(type == AtomType.DBL ? token(Double.toString(item.dbl(info))) :
+          type == AtomType.FLT ? token(Float.toString(item.flt(info))) : item.string(info));
+      }
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Writes an integer.
+   * @param value value to be written
+   * @throws QueryException query exception
+   */
+  void write(final long value) throws QueryException {
+    try {
+      out.writeToken(token(value));
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Writes a boolean.
+   * @param value value to be written
+   * @throws QueryException query exception
+   */
+  void write(final boolean value) throws QueryException {
+    try {
+      out.writeBool(value);
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Finishes writing. Afterwards, the written entries can be read.
+   * @throws QueryException query exception
+   */
+  void finish() throws QueryException {
+    try {
+      out.close();
+      out = null;
+      in = new DataInput(file);
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Reads a value.
+   * @param qc query context
+   * @return value
+   * @throws QueryException query exception
+   */
+  Value readValue(final QueryContext qc) throws QueryException {
+    try {
+      final int size = in.readNum();
+      if(size == 0) return Empty.VALUE;
+      if(size == 1) return item(in.read(), in.readToken(), qc);
+      final ValueBuilder vb = new ValueBuilder(qc);
+      for(int s = 0; s < size; s++) vb.add(item(in.read(), in.readToken(), qc));
+      return vb.value();
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Reads an integer.
+   * @return value
+   * @throws QueryException query exception
+   */
+  long readLong() throws QueryException {
+    try {
+      return toLong(in.readToken());
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Reads a boolean.
+   * @return value
+   * @throws QueryException query exception
+   */
+  boolean readBool() throws QueryException {
+    try {
+      return in.readBool();
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Closes and deletes the file.
+   */
+  void delete() {
+    files.remove(this);
+    try {
+      if(out != null) out.close();
+      if(in != null) in.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    out = null;
+    in = null;
+    file.delete();
+  }
+
+  /**
+   * Restores an item.
+   * @param id type id
+   * @param string string representation
+   * @param qc query context
+   * @return item
+   * @throws QueryException query exception
+   */
+  private Item item(final int id, final byte[] string, final QueryContext qc)
+      throws QueryException {
+    final Type type = Type.ID.getType(id);
+    return type == AtomType.STR ? Str.get(string) :
+      type == AtomType.DBL ? Dbl.get(Double.parseDouble(string(string))) :
+      type == AtomType.FLT ? Flt.get(Float.parseFloat(string(string))) :
+      ((AtomType) type).cast(Str.get(string), qc, null, info);
+  }
+}
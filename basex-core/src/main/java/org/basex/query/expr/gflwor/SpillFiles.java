@@ -0,0 +1,56 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryError.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.query.*;
+import org.basex.util.*;
+
+/**
+ * Temporary files of FLWOR clauses that spill tuples to disk.
+ * Files that have not been deleted yet are deleted when the query is closed.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class SpillFiles implements QueryResource {
+  /** Files that have not been deleted yet. */
+  private final ArrayList<SpillFile> files = new ArrayList<>();
+
+  /**
+   * Creates a new temporary file.
+   * @param info input info
+   * @return file
+   * @throws QueryException query exception
+   */
+  synchronized SpillFile create(final InputInfo info) throws QueryException {
+    try {
+      final IOFile io = new IOFile(File.createTempFile(Prop.NAME + "-spill-", IO.TMPSUFFIX));
+      final SpillFile file = new SpillFile(this, io, info);
+      files.add(file);
+      return file;
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Removes a deleted file.
+   * @param file file
+   */
+  synchronized void remove(final SpillFile file) {
+    files.remove(file);
+  }
+
+  @Override
+  public void close() {
+    final SpillFile[] sfs;
+    synchronized(this) {
+      sfs = files.toArray(new SpillFile[0]);
+    }
+    for(final SpillFile sf : sfs) sf.delete();
+  }
+}
@@ -1051,6 +1051,9 @@ public enum Function implements AFunction {
   /** XQuery function. */
   _HTTP_SEND_REQUEST(HttpSendRequest::new, "send-request(request[,href[,bodies]])",
       arg(NOD_O, STR_ZO, ITEM_ZM), ITEM_ZM, flag(NDT), HTTP_URI),
+  /** XQuery function. */
+  _HTTP_SEND_REQUESTS(HttpSendRequests::new, "send-requests(requests[,options])",
+      arg(NOD_ZM, MAP_ZO), ARRAY_ZM, flag(NDT), HTTP_URI),
 
   // Index Module
 
@@ -31,6 +31,12 @@ public final class ArraySort extends StandardFunc {
       if(token != null) coll = Collation.get(token, qc, sc, info, WHICHCOLL_X);
     }
 
+    // members with native values: sort values without creating items
+    if(exprs.length < 3 && array instanceof NativeArray) {
+      final XQArray sorted = ((NativeArray) array).sort(coll, qc);
+      if(sorted != null) return sorted;
+    }
+
     final long size = array.arraySize();
     final ValueList values = new ValueList(Seq.initialCapacity(size));
     final FItem key = exprs.length > 2 ? checkArity(exprs[2], 1, qc) : null;
@@ -6,6 +6,7 @@ import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.index.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.util.hash.*;
@@ -55,4 +56,9 @@ public class DbText extends DbAccess {
     for(Item item; (item = qc.next(iter)) != null;) set.put(toToken(item));
     return new ValueAccess(info, set, type(), null, new IndexStaticDb(data, info));
   }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return visitor.index() && super.accept(visitor);
+  }
 }
@@ -7,6 +7,7 @@ import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.index.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 
 /**
@@ -51,4 +52,9 @@ public class DbTextRange extends DbAccess {
     final StringRange sr = new StringRange(type(), min, true, max, true);
     return new StringRangeAccess(info, sr, new IndexStaticDb(data, info));
   }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return visitor.index() && super.accept(visitor);
+  }
 }
@@ -6,6 +6,7 @@ import org.basex.index.*;
 import org.basex.query.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
 import org.basex.query.util.index.*;
 import org.basex.query.value.item.*;
@@ -39,4 +40,9 @@ public final class FnContainsToken extends StandardFunc {
     return exprs.length == 2 && exprs[1].seqType().zeroOrOne() &&
       ii.create(exprs[1], ii.type(exprs[0], IndexType.TOKEN), true, info);
   }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return visitor.index() && super.accept(visitor);
+  }
 }
@@ -6,6 +6,7 @@ import java.util.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.List;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.file.*;
 import org.basex.query.value.item.*;
@@ -66,6 +67,9 @@ public final class FnHead extends StandardFunc {
       }
     }
 
+    // only the first result of a FLWOR expression will be requested
+    if(expr instanceof GFLWOR) exprs[0] = ((GFLWOR) expr).limit(1);
+
     exprType.assign(st.with(st.oneOrMore() ? Occ.ONE : Occ.ZERO_ONE));
     data(expr.data());
     return this;
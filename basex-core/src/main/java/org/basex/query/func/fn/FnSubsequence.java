@@ -7,6 +7,7 @@ import java.util.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.List;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.file.*;
 import org.basex.query.iter.*;
@@ -224,6 +225,9 @@ public class FnSubsequence extends StandardFunc {
           return List.get(cc, info, Arrays.copyOfRange(args, (int) sr.start, (int) (sr.end)));
         }
       }
+      if(expr instanceof GFLWOR && sr.end != Long.MAX_VALUE) {
+        exprs[0] = ((GFLWOR) expr).limit(sr.end);
+      }
     } else {
       // subsequence(expr, 1, count(expr) - 1)  ->  util:init(expr)
       if(exprs[1] == Int.ONE && exprs[2] instanceof Arith && !exprs[0].has(Flag.NDT)) {
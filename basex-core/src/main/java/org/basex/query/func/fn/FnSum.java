@@ -34,7 +34,16 @@ public class FnSum extends StandardFunc {
         final Item item = singleton((SingletonSeq) expr);
         if(item != null) return item;
       }
-      final Iter iter = exprs[0].atomIter(qc, info);
+      final Iter iter;
+      if(expr.seqType().zeroOrOne()) {
+        // single item: sum up native members of arrays without creating items
+        final Value value = expr.item(qc, info).atomValue(qc, info);
+        final Item item = sum(value);
+        if(item != null) return item;
+        iter = value.iter();
+      } else {
+        iter = expr.atomIter(qc, info);
+      }
       final Item item = iter.next();
       if(item != null) return sum(iter, item, false, qc);
     }
@@ -120,6 +129,32 @@ public class FnSum extends StandardFunc {
     return item.type.isNumber() ? Calc.MULT.eval(item, Int.get(seq.size()), info) : null;
   }
 
+  /**
+   * Sums up a sequence with native values.
+   * @param value value
+   * @return result, or {@code null} if the value is no sequence of native numbers
+   * @throws QueryException query exception
+   */
+  private Item sum(final Value value) throws QueryException {
+    if(value instanceof IntSeq) {
+      long result = 0;
+      for(final long itr : ((IntSeq) value).values()) {
+        if(itr > 0 ? result > Long.MAX_VALUE - itr : result < Long.MIN_VALUE - itr)
+          throw RANGE_X.get(info, result + " + " + itr);
+        result += itr;
+      }
+      return Int.get(result);
+    }
+    if(value instanceof DblSeq) {
+      final double[] values = ((DblSeq) value).values();
+      double result = values[0];
+      final int vl = values.length;
+      for(int v = 1; v < vl; v++) result += values[v];
+      return Dbl.get(result);
+    }
+    return null;
+  }
+
   /**
    * Sums up the specified item(s).
    * @param iter iterator
@@ -45,7 +45,7 @@ public final class FtSearch extends FtAccess {
 
   @Override
   public boolean accept(final ASTVisitor visitor) {
-    return dataLock(visitor, 0) && super.accept(visitor);
+    return visitor.index() && dataLock(visitor, 0) && super.accept(visitor);
   }
 
   @Override
@@ -0,0 +1,85 @@
+package org.basex.query.func.http;
+
+import static org.basex.query.QueryError.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.core.jobs.*;
+import org.basex.query.*;
+import org.basex.query.func.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.list.*;
+import org.basex.query.value.*;
+import org.basex.query.value.array.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.util.*;
+import org.basex.util.http.*;
+import org.basex.util.options.*;
+
+/**
+ * Function implementation.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class HttpSendRequests extends StandardFunc {
+  /** Request options. */
+  public static final class RequestOptions extends Options {
+    /** Maximum number of requests that are sent in parallel. */
+    public static final NumberOption PARALLEL = new NumberOption("parallel", 8);
+  }
+
+  @Override
+  public Value value(final QueryContext qc) throws QueryException {
+    checkCreate(qc);
+
+    // get request nodes
+    final ANodeList requests = new ANodeList();
+    final Iter iter = exprs[0].iter(qc);
+    for(Item item; (item = qc.next(iter)) != null;) requests.add(toNode(item));
+    final RequestOptions options = toOptions(1, new RequestOptions(), qc);
+    if(requests.isEmpty()) return Empty.VALUE;
+
+    // send requests in parallel, return each response as array
+    final int size = requests.size();
+    final Value[] responses = new Value[size];
+    final HttpClient client = new HttpClient(info, qc.context.options);
+    final AtomicInteger next = new AtomicInteger();
+    final AtomicReference<QueryException> error = new AtomicReference<>();
+    final Runnable sender = () -> {
+      for(int r; error.get() == null && !qc.stopped() && (r = next.getAndIncrement()) < size;) {
+        try {
+          responses[r] = client.sendRequest(null, requests.get(r), Empty.VALUE);
+        } catch(final QueryException ex) {
+          error.compareAndSet(null, ex);
+        }
+      }
+    };
+
+    // the current thread sends requests as well
+    final JobPool jobs = qc.context.jobs;
+    final int parallel = Math.min(size, Math.max(1, options.get(RequestOptions.PARALLEL)));
+    final ArrayList<Future<?>> futures = new ArrayList<>(parallel - 1);
+    try {
+      for(int p = 1; p < parallel; p++) futures.add(jobs.io().submit(sender));
+    } catch(final RejectedExecutionException ex) {
+      // no more threads available: send remaining requests with the current threads
+      Util.debug(ex);
+    }
+    sender.run();
+    try {
+      for(final Future<?> future : futures) future.get();
+    } catch(final InterruptedException | ExecutionException ex) {
+      throw HC_ERROR_X.get(info, Util.rootException(ex));
+    }
+
+    qc.checkStop();
+    if(error.get() != null) throw error.get();
+    final ValueBuilder vb = new ValueBuilder(qc);
+    for(final Value response : responses) vb.add(XQArray.singleton(response));
+    return vb.value();
+  }
+}
@@ -30,9 +30,9 @@ public final class MapMerge extends StandardFunc {
   public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
     final Iter maps = exprs[0].iter(qc);
     final MergeDuplicates merge = options(qc).get(MergeOptions.DUPLICATES);
-    XQMap map = XQMap.EMPTY;
-    for(Item item; (item = qc.next(maps)) != null;) map = map.addAll(toMap(item), merge, qc, info);
-    return map;
+    final MapBuilder mb = new MapBuilder();
+    for(Item item; (item = qc.next(maps)) != null;) mb.merge(toMap(item), merge, qc, info);
+    return mb.finish();
   }
 
   @Override
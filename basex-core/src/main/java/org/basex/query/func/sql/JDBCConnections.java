@@ -3,6 +3,7 @@ package org.basex.query.func.sql;
 import static org.basex.util.Token.*;
 
 import java.sql.*;
+import java.util.*;
 
 import org.basex.query.*;
 import org.basex.query.value.item.*;
@@ -20,16 +21,20 @@ public final class JDBCConnections implements QueryResource {
   private int lastId = -1;
   /** Map with all open connections and prepared statements with unique ids. */
   private final TokenObjMap<AutoCloseable> conns = new TokenObjMap<>();
+  /** Pools of connections that have been taken from a connection pool. */
+  private final IdentityHashMap<Connection, JDBCPool> pools = new IdentityHashMap<>();
 
   /**
    * Adds a connection.
    * @param conn connection
    * @param url url
+   * @param pool pool of the connection (can be {@code null})
    * @return generated id
    */
-  synchronized Uri add(final Connection conn, final String url) {
+  synchronized Uri add(final Connection conn, final String url, final JDBCPool pool) {
     final byte[] uri = token(url + "/connection-" + ++lastId);
     conns.put(uri, conn);
+    if(pool != null) pools.put(conn, pool);
     return Uri.uri(uri);
   }
 
@@ -75,13 +80,31 @@ public final class JDBCConnections implements QueryResource {
     return null;
   }
 
+  /**
+   * Closes a connection or prepared statement. Pooled connections are returned to their pool.
+   * @param ac connection or prepared statement
+   * @throws Exception exception
+   */
+  void close(final AutoCloseable ac) throws Exception {
+    final JDBCPool pool;
+    synchronized(this) {
+      pool = pools.remove(ac);
+    }
+    if(pool != null) pool.release((Connection) ac);
+    else ac.close();
+  }
+
   @Override
   public void close() {
-    for(final AutoCloseable ac : conns.values()) {
-      try {
-        if(ac != null) ac.close();
-      } catch(final Exception ex) {
-        Util.debug(ex);
+    // close prepared statements before connections are returned to their pools
+    for(final boolean stmts : new boolean[] { true, false }) {
+      for(final AutoCloseable ac : conns.values()) {
+        if(ac == null || ac instanceof Connection == stmts) continue;
+        try {
+          close(ac);
+        } catch(final Exception ex) {
+          Util.debug(ex);
+        }
       }
     }
   }
@@ -0,0 +1,245 @@
+package org.basex.query.func.sql;
+
+import java.sql.*;
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.util.*;
+
+/**
+ * Named pool of JDBC connections, which is shared by all queries (see {@link JDBCPools}).
+ *
+ * Connections are created on demand, up to the maximum size of the pool. Connections that are
+ * released by a query are kept for reuse, and they will be closed if they have been idle for
+ * longer than the idle timeout. Before an idle connection is reused, it is validated with the
+ * validation query (if specified).
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class JDBCPool {
+  /** URL. */
+  private final String url;
+  /** Connection properties. */
+  private final Properties props;
+  /** Auto-commit mode ({@code null}: default of the driver). */
+  private final Boolean autocommit;
+  /** Maximum number of connections. */
+  private final int size;
+  /** Idle timeout (ms). */
+  private final long timeout;
+  /** Validation query (can be {@code null}). */
+  private final String validation;
+
+  /** Idle connections (least recently released first). */
+  private final ArrayDeque<Idle> idle = new ArrayDeque<>();
+  /** Number of open connections (in use or idle). */
+  private int open;
+  /** Indicates if the pool has been closed. */
+  private boolean closed;
+
+  /**
+   * Constructor.
+   * @param url URL
+   * @param props connection properties
+   * @param autocommit auto-commit mode ({@code null}: default of the driver)
+   * @param size maximum number of connections
+   * @param timeout idle timeout (ms)
+   * @param validation validation query (can be {@code null})
+   */
+  JDBCPool(final String url, final Properties props, final Boolean autocommit,
+      final int size, final long timeout, final String validation) {
+    this.url = url;
+    this.props = props;
+    this.autocommit = autocommit;
+    this.size = size;
+    this.timeout = timeout;
+    this.validation = validation;
+  }
+
+  /**
+   * Checks if the pool connects to the specified database.
+   * @param u URL
+   * @param p connection properties
+   * @param ac auto-commit mode
+   * @return result of check
+   */
+  boolean matches(final String u, final Properties p, final Boolean ac) {
+    return url.equals(u) && props.equals(p) && Objects.equals(autocommit, ac);
+  }
+
+  /**
+   * Establishes the first connection of a new pool and keeps it for reuse.
+   * @throws SQLException SQL exception
+   */
+  void init() throws SQLException {
+    final Connection conn = create();
+    synchronized(this) {
+      open++;
+      idle.add(new Idle(conn, System.currentTimeMillis()));
+    }
+  }
+
+  /**
+   * Returns a connection. Waits until a connection is available if the maximum number of
+   * connections is in use.
+   * @param qc query context
+   * @return connection
+   * @throws SQLException SQL exception
+   */
+  Connection connection(final QueryContext qc) throws SQLException {
+    while(true) {
+      final Connection conn;
+      synchronized(this) {
+        if(closed) throw new SQLException("Connection pool has been closed.");
+        evict();
+        final Idle last = idle.pollLast();
+        if(last != null) {
+          conn = last.conn;
+        } else if(open < size) {
+          conn = null;
+          open++;
+        } else {
+          try {
+            wait(100);
+          } catch(final InterruptedException ex) {
+            Util.debug(ex);
+          }
+          qc.checkStop();
+          continue;
+        }
+      }
+
+      // reuse most recently released connection or create new connection
+      if(conn == null) {
+        try {
+          return create();
+        } catch(final SQLException ex) {
+          discard(null);
+          throw ex;
+        }
+      }
+      if(valid(conn)) return conn;
+      discard(conn);
+    }
+  }
+
+  /**
+   * Releases a connection and keeps it for reuse. Pending transactions are rolled back.
+   * @param conn connection
+   */
+  void release(final Connection conn) {
+    try {
+      if(!conn.isClosed()) {
+        if(!conn.getAutoCommit()) conn.rollback();
+        if(autocommit != null) conn.setAutoCommit(autocommit);
+        synchronized(this) {
+          if(!closed) {
+            idle.add(new Idle(conn, System.currentTimeMillis()));
+            notifyAll();
+            return;
+          }
+        }
+      }
+    } catch(final SQLException ex) {
+      Util.debug(ex);
+    }
+    discard(conn);
+  }
+
+  /**
+   * Closes connections that have been idle for longer than the timeout.
+   */
+  synchronized void evict() {
+    final long time = System.currentTimeMillis() - timeout;
+    while(!idle.isEmpty() && idle.peekFirst().time < time) {
+      close(idle.pollFirst().conn);
+      open--;
+    }
+  }
+
+  /**
+   * Closes all idle connections. Connections that are still in use will be closed when they
+   * are released.
+   */
+  synchronized void close() {
+    closed = true;
+    for(final Idle entry : idle) close(entry.conn);
+    open -= idle.size();
+    idle.clear();
+    notifyAll();
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Creates a new connection.
+   * @return connection
+   * @throws SQLException SQL exception
+   */
+  private Connection create() throws SQLException {
+    final Connection conn = DriverManager.getConnection(url, props);
+    if(autocommit != null) conn.setAutoCommit(autocommit);
+    return conn;
+  }
+
+  /**
+   * Checks if an idle connection can be reused.
+   * @param conn connection
+   * @return result of check
+   */
+  private boolean valid(final Connection conn) {
+    try {
+      if(conn.isClosed()) return false;
+      if(validation != null) {
+        try(Statement stmt = conn.createStatement()) {
+          stmt.execute(validation);
+        }
+      }
+      return true;
+    } catch(final SQLException ex) {
+      Util.debug(ex);
+      return false;
+    }
+  }
+
+  /**
+   * Discards a connection that will not be returned to the pool.
+   * @param conn connection (can be {@code null})
+   */
+  private synchronized void discard(final Connection conn) {
+    if(conn != null) close(conn);
+    open--;
+    notifyAll();
+  }
+
+  /**
+   * Closes a connection.
+   * @param conn connection
+   */
+  private static void close(final Connection conn) {
+    try {
+      conn.close();
+    } catch(final SQLException ex) {
+      Util.debug(ex);
+    }
+  }
+
+  /** Idle connection. */
+  private static final class Idle {
+    /** Connection. */
+    private final Connection conn;
+    /** Time when the connection was released. */
+    private final long time;
+
+    /**
+     * Constructor.
+     * @param conn connection
+     * @param time time when the connection was released
+     */
+    private Idle(final Connection conn, final long time) {
+      this.conn = conn;
+      this.time = time;
+    }
+  }
+}
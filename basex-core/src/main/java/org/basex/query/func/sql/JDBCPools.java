@@ -0,0 +1,65 @@
+package org.basex.query.func.sql;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.jobs.*;
+import org.basex.query.*;
+import org.basex.util.*;
+
+/**
+ * Named JDBC connection pools, which are shared by all queries of a database context.
+ * A pool is only registered after its first connection has been established. Idle connections
+ * are closed periodically, and all pools are closed when the job pool is closed.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class JDBCPools implements QueryResource {
+  /** Pools, indexed by their names. */
+  private final ConcurrentHashMap<String, JDBCPool> pools = new ConcurrentHashMap<>();
+  /** Timer tasks for closing idle connections. */
+  private final ArrayList<TimerWheel.Task> sweeps = new ArrayList<>();
+
+  /**
+   * Returns the pool with the specified name. A new pool will be created and registered if
+   * its first connection can be established.
+   * @param name name of the pool
+   * @param url URL
+   * @param props connection properties
+   * @param autocommit auto-commit mode ({@code null}: default of the driver)
+   * @param size maximum number of connections
+   * @param timeout idle timeout (ms)
+   * @param validation validation query (can be {@code null})
+   * @param jobs job pool
+   * @return pool, or {@code null} if a pool with the same name connects to another database
+   * @throws SQLException SQL exception
+   */
+  JDBCPool get(final String name, final String url, final Properties props,
+      final Boolean autocommit, final int size, final long timeout, final String validation,
+      final JobPool jobs) throws SQLException {
+
+    JDBCPool pool = pools.get(name);
+    if(pool == null) {
+      synchronized(this) {
+        pool = pools.get(name);
+        if(pool == null) {
+          pool = new JDBCPool(url, props, autocommit, size, timeout, validation);
+          pool.init();
+          pools.put(name, pool);
+          sweeps.add(jobs.schedule(pool::evict, timeout, timeout));
+        }
+      }
+    }
+    return pool.matches(url, props, autocommit) ? pool : null;
+  }
+
+  @Override
+  public synchronized void close() {
+    for(final TimerWheel.Task sweep : sweeps) sweep.cancel();
+    sweeps.clear();
+    for(final JDBCPool pool : pools.values()) pool.close();
+    pools.clear();
+  }
+}
@@ -21,7 +21,7 @@ public final class SqlClose extends SqlFn {
     @SuppressWarnings("resource")
     final AutoCloseable ac = get(qc, true);
     try {
-      ac.close();
+      jdbc(qc).close(ac);
     } catch(final Exception ex) {
       throw SQL_ERROR_X.get(info, ex);
     }
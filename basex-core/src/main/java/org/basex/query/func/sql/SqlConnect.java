@@ -24,6 +24,14 @@ public final class SqlConnect extends SqlFn {
   private static final String USER = "user";
   /** Password. */
   private static final String PASS = "password";
+  /** Name of connection pool. */
+  private static final String POOL = "pool";
+  /** Maximum number of pooled connections. */
+  private static final String POOL_SIZE = "pool-size";
+  /** Idle timeout of pooled connections (seconds). */
+  private static final String POOL_TIMEOUT = "pool-timeout";
+  /** Validation query for pooled connections. */
+  private static final String VALIDATION = "validation";
 
   @SuppressWarnings("resource")
   @Override
@@ -34,6 +42,7 @@ public final class SqlConnect extends SqlFn {
     final JDBCConnections jdbc = jdbc(qc);
     try {
       final Connection conn;
+      JDBCPool pool = null;
       if(exprs.length > 2) {
         // credentials
         final String user = string(toToken(exprs[1], qc));
@@ -43,17 +52,29 @@ public final class SqlConnect extends SqlFn {
           final HashMap<String, String> options = toOptions(3, new Options(), qc).free();
 
           // prepares connection properties
+          final String name = options.remove(POOL);
+          final int size = number(options.remove(POOL_SIZE), POOL_SIZE, 8);
+          final int timeout = number(options.remove(POOL_TIMEOUT), POOL_TIMEOUT, 60);
+          final String validation = options.remove(VALIDATION);
+          final String ac = options.remove(AUTOCOMMIT);
+          final Boolean autocommit = ac != null ? Strings.toBoolean(ac) : null;
+
           final Properties props = new Properties();
-          options.forEach((key, value) -> {
-            if(!key.equals(AUTOCOMMIT)) props.setProperty(key, value);
-          });
+          props.putAll(options);
           props.setProperty(USER, user);
           props.setProperty(PASS, pass);
 
-          // open connection and set auto-commit mode
-          conn = DriverManager.getConnection(url, props);
-          if(options.containsKey(AUTOCOMMIT)) {
-            conn.setAutoCommit(Strings.toBoolean(options.get(AUTOCOMMIT)));
+          if(name != null) {
+            // take connection from pool
+            final JDBCPools pools = qc.context.jobs.resource(JDBCPools.class);
+            pool = pools.get(name, url, props, autocommit, size, timeout * 1000L, validation,
+                qc.context.jobs);
+            if(pool == null) throw SQL_POOL_X.get(info, name);
+            conn = pool.connection(qc);
+          } else {
+            // open connection and set auto-commit mode
+            conn = DriverManager.getConnection(url, props);
+            if(autocommit != null) conn.setAutoCommit(autocommit);
           }
         } else {
           conn = DriverManager.getConnection(url, user, pass);
@@ -61,9 +82,25 @@ public final class SqlConnect extends SqlFn {
       } else {
         conn = DriverManager.getConnection(url);
       }
-      return jdbc.add(conn, url);
+      return jdbc.add(conn, url, pool);
     } catch(final SQLException ex) {
       throw SQL_ERROR_X.get(info, ex);
     }
   }
+
+  /**
+   * Parses a positive integer option.
+   * @param value value (can be {@code null})
+   * @param name name of the option
+   * @param dflt default value
+   * @return integer
+   * @throws QueryException query exception
+   */
+  private int number(final String value, final String name, final int dflt)
+      throws QueryException {
+    if(value == null) return dflt;
+    final int n = Strings.toInt(value);
+    if(n <= 0) throw SQL_OPTION_X_X.get(info, name, value);
+    return n;
+  }
 }
@@ -34,6 +34,8 @@ public class SqlExecute extends SqlFn {
   public static class StatementOptions extends Options {
     /** Query timeout. */
     public static final NumberOption TIMEOUT = new NumberOption("timeout", 0);
+    /** Number of rows to be fetched from the database at once (driver default: 0). */
+    public static final NumberOption FETCH_SIZE = new NumberOption("fetch-size", 0);
   }
 
   @Override
@@ -45,7 +47,7 @@ public class SqlExecute extends SqlFn {
 
     try {
       final Statement stmt = conn.createStatement();
-      stmt.setQueryTimeout(options.get(StatementOptions.TIMEOUT));
+      options(stmt, options);
       return iter(stmt, true, stmt.execute(query));
     } catch(final SQLTimeoutException ex) {
       throw SQL_TIMEOUT_X.get(info, ex);
@@ -59,8 +61,22 @@ public class SqlExecute extends SqlFn {
     return iter(qc).value(qc, this);
   }
 
+  /**
+   * Assigns statement options.
+   * @param stmt SQL statement
+   * @param options options
+   * @throws SQLException SQL exception
+   */
+  static void options(final Statement stmt, final StatementOptions options)
+      throws SQLException {
+    stmt.setQueryTimeout(options.get(StatementOptions.TIMEOUT));
+    final int fetch = options.get(StatementOptions.FETCH_SIZE);
+    if(fetch > 0) stmt.setFetchSize(fetch);
+  }
+
   /**
    * Returns a result iterator, or the number of updated rows.
+   * Rows are only fetched and converted to elements when they are requested.
    * @param stmt SQL statement
    * @param close close statement after last result
    * @param result result set flag ({@code false}: statement was updating)
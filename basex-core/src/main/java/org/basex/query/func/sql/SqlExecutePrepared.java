@@ -64,7 +64,7 @@ public final class SqlExecutePrepared extends SqlExecute {
     final StatementOptions options = toOptions(2, new StatementOptions(), qc);
 
     try {
-      stmt.setQueryTimeout(options.get(StatementOptions.TIMEOUT));
+      options(stmt, options);
       if(params != null) setParameters(params.childIter(), stmt);
       // If execute returns false, statement was updating: return number of updated rows
       return iter(stmt, false, stmt.execute());
@@ -7,6 +7,7 @@ import java.util.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.List;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.file.*;
 import org.basex.query.iter.*;
@@ -82,6 +83,7 @@ public final class UtilItem extends StandardFunc {
       }
       if(_FILE_READ_TEXT_LINES.is(expr))
         return FileReadTextLines.opt(this, pos, 1, cc);
+      if(expr instanceof GFLWOR) exprs[0] = ((GFLWOR) expr).limit(pos + 1);
 
       // rewrite to head function
       if(expr instanceof List) {
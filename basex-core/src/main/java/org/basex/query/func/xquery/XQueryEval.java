@@ -66,7 +66,7 @@ public class XQueryEval extends StandardFunc {
 
     final User user = qc.context.user();
     final Perm tmp = user.perm("");
-    Timer to = null;
+    final ArrayList<TimerWheel.Task> tasks = new ArrayList<>(2);
 
     final Perm perm = Perm.get(opts.get(XQueryOptions.PERMISSION).toString());
     if(!user.has(perm)) throw XQUERY_PERMISSION2_X.get(info, perm);
@@ -78,27 +78,20 @@ public class XQueryEval extends StandardFunc {
       if(mb != 0) {
         Performance.gc(2);
         final long limit = Performance.memory() + (mb << 20);
-        to = new Timer(true);
-        to.schedule(new TimerTask() {
-          @Override
+        // garbage collection is triggered by the timer, but run by another thread
+        tasks.add(qc.context.jobs.schedule(() -> {
           // limit reached: stop query if garbage collection does not help
-          public void run() {
-            if(!qctx.stopped() && Performance.memory() > limit) {
-              Performance.gc(1);
-              if(Performance.memory() > limit) qctx.memory();
-            }
+          if(!qctx.stopped() && Performance.memory() > limit) {
+            Performance.gc(1);
+            if(Performance.memory() > limit) qctx.memory();
           }
-        }, 250, 250);
+        }, 250, 250));
       }
 
       // timeout
       final long ms = opts.get(XQueryOptions.TIMEOUT) * 1000L;
       if(ms != 0) {
-        if(to == null) to = new Timer(true);
-        to.schedule(new TimerTask() {
-          @Override
-          public void run() { qctx.timeout(); }
-        }, ms);
+        tasks.add(qc.context.jobs.timer.schedule(qctx::timeout, ms));
       }
 
       // evaluate query
@@ -141,7 +134,7 @@ public class XQueryEval extends StandardFunc {
         throw ex;
       }
     } finally {
-      if(to != null) to.cancel();
+      for(final TimerWheel.Task task : tasks) task.cancel();
       user.perm(tmp, "");
     }
   }
@@ -201,6 +201,12 @@ public final class MainModule extends AModule {
       return true;
     }
 
+    @Override
+    public boolean index() {
+      locks.indexes = true;
+      return true;
+    }
+
     @Override
     public void enterFocus() {
       level++;
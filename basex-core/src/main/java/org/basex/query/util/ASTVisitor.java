@@ -96,6 +96,15 @@ public abstract class ASTVisitor {
     return true;
   }
 
+  /**
+   * Notifies the visitor of an expression that may access index structures.
+   * Overwritten by {@link MainModule}.
+   * @return if more expressions should be visited ({@code true} by default)
+   */
+  public boolean index() {
+    return true;
+  }
+
   /**
    * Notifies the visitor of an expression entering a focus. Overwritten by {@link MainModule}.
    */
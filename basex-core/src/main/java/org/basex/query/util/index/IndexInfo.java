@@ -5,6 +5,7 @@ import static org.basex.query.QueryText.*;
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.name.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
 import org.basex.query.*;
@@ -181,9 +182,15 @@ public final class IndexInfo {
       if(!search.seqType().type.isStringOrUntyped() || search.has(Flag.CTX, Flag.NDT))
         return false;
 
-      // estimate costs for dynamic query terms
-      costs = enforce() ? IndexCosts.ENFORCE_DYNAMIC :
-        IndexCosts.get(Math.max(1, data.meta.size / 10));
+      // estimate costs for dynamic query terms: average number of occurrences of a value
+      if(enforce()) {
+        costs = IndexCosts.ENFORCE_DYNAMIC;
+      } else {
+        final Stats stats = stats(type);
+        final int distinct = stats != null ? stats.distinct() : -1;
+        costs = IndexCosts.get(Math.max(1, distinct > 0 ? stats.count / distinct :
+          data.meta.size / 10));
+      }
       root = new ValueAccess(ii, search, type, test, db);
     }
 
@@ -223,6 +230,25 @@ public final class IndexInfo {
     return data != null ? data.costs(search) : IndexCosts.ENFORCE_STATIC;
   }
 
+  /**
+   * Returns the statistics of the element or attribute name that is targeted by the index request.
+   * @param type index type
+   * @return statistics, or {@code null} if they are not available or out-dated
+   */
+  public Stats stats(final IndexType type) {
+    final Data data = db.data();
+    if(data == null || !data.meta.uptodate || !data.nspaces.isEmpty() || pred == null ||
+        type != IndexType.TEXT && type != IndexType.ATTRIBUTE) return null;
+
+    final Step st = pred.qname();
+    if(!(st.test instanceof NameTest)) return null;
+    final NameTest nt = (NameTest) st.test;
+    if(nt.part() != NamePart.LOCAL) return null;
+
+    final Names names = type == IndexType.TEXT ? data.elemNames : data.attrNames;
+    return names.stats(names.id(nt.qname.local()));
+  }
+
   /**
    * Indicates if the index rewriting should be enforced.
    * @return result of check
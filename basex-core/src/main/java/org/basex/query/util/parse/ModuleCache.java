@@ -0,0 +1,99 @@
+package org.basex.query.util.parse;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+
+/**
+ * This class caches the contents of local module files. Entries are invalidated if the
+ * time stamp or the size of a file has changed. As a result, modules that are imported by
+ * many queries (e.g., by RESTXQ functions) need not be read and decoded again.
+ * Only the source strings are cached: modules are still parsed by each query, as parsed
+ * functions and variables are bound to their query context and rewritten when it is compiled.
+ *
+ * The time stamp of a file may have a coarse granularity. If a file was modified shortly
+ * before it is read, it may be changed again without any visible change of its time stamp
+ * and size. Such files will only be cached when their time stamp is old enough.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class ModuleCache {
+  /** Maximum number of cached modules. */
+  private static final int MAX = 1 << 10;
+  /** Maximum granularity of file time stamps (ms). */
+  private static final long GRANULARITY = 2000;
+  /** Cached modules, indexed by their paths. */
+  private static final LinkedHashMap<String, Module> MODULES =
+      new LinkedHashMap<String, Module>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, Module> eldest) {
+      return size() > MAX;
+    }
+  };
+
+  /** Private constructor. */
+  private ModuleCache() { }
+
+  /**
+   * Returns the string representation of a module.
+   * @param io input reference
+   * @return module string
+   * @throws IOException I/O exception
+   */
+  public static String read(final IO io) throws IOException {
+    // only cache local files: their modification can be detected
+    if(!(io instanceof IOFile)) return string(io.read());
+
+    final String path = io.path();
+    final long time = io.timeStamp(), length = io.length();
+    final Module module;
+    synchronized(MODULES) {
+      module = MODULES.get(path);
+    }
+    if(module != null && module.time == time && module.length == length) return module.string;
+
+    // read file, cache contents if the time stamp will reveal subsequent changes
+    final long read = System.currentTimeMillis();
+    final String string = string(io.read());
+    synchronized(MODULES) {
+      if(time < read - GRANULARITY) MODULES.put(path, new Module(time, length, string));
+      else MODULES.remove(path);
+    }
+    return string;
+  }
+
+  /**
+   * Removes all cached modules.
+   */
+  public static void clear() {
+    synchronized(MODULES) {
+      MODULES.clear();
+    }
+  }
+
+  /** Cached module. */
+  private static final class Module {
+    /** Time stamp. */
+    private final long time;
+    /** File size. */
+    private final long length;
+    /** Module string. */
+    private final String string;
+
+    /**
+     * Constructor.
+     * @param time time stamp
+     * @param length file size
+     * @param string module string
+     */
+    private Module(final long time, final long length, final String string) {
+      this.time = time;
+      this.length = length;
+      this.string = string;
+    }
+  }
+}
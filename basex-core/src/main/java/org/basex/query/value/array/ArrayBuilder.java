@@ -28,12 +28,34 @@ public final class ArrayBuilder {
   /** Builder for the middle tree. */
   private final FingerTreeBuilder<Value> tree = new FingerTreeBuilder<>();
 
+  /** Builder for members that are stored natively (as long as all members have the same type). */
+  private NativeArray.Builder natives;
+  /** Indicates if members are added to the generic structure. */
+  private boolean generic;
+
+  /**
+   * Constructor. If all members are single items of the same type, and if they can be stored in
+   * their primitive representation, a {@link NativeArray} will be created.
+   */
+  public ArrayBuilder() {
+    this(true);
+  }
+
+  /**
+   * Constructor.
+   * @param natives try to create native arrays
+   */
+  ArrayBuilder(final boolean natives) {
+    generic = !natives;
+  }
+
   /**
    * Adds an element to the start of the array.
    * @param elem element to add
    * @return self reference for convenience
    */
   public ArrayBuilder prepend(final Value elem) {
+    if(!generic) toGeneric();
     if(inLeft < XQArray.MAX_DIGIT) {
       // just insert the element
       vals[(mid - inLeft + CAP - 1) % CAP] = elem;
@@ -71,6 +93,11 @@ public final class ArrayBuilder {
    * @return self reference for convenience
    */
   public ArrayBuilder append(final Value elem) {
+    if(!generic) {
+      if(natives == null && inLeft + inRight == 0) natives = NativeArray.builder(elem);
+      if(natives != null && natives.add(elem)) return this;
+      toGeneric();
+    }
     if(inRight < XQArray.MAX_DIGIT) {
       // just insert the element
       vals[(mid + inRight) % CAP] = elem;
@@ -112,6 +139,7 @@ public final class ArrayBuilder {
       return this;
     }
 
+    if(!generic) toGeneric();
     final BigArray big = (BigArray) arr;
     final Value[] ls = big.left, rs = big.right;
     final FingerTree<Value, Value> midTree = big.middle;
@@ -165,6 +193,15 @@ public final class ArrayBuilder {
    * @return resulting array
    */
   public XQArray freeze() {
+    if(!generic) {
+      final int n = natives != null ? natives.size() : 0;
+      if(n > XQArray.MAX_SMALL) return natives.freeze();
+      // small arrays: store members as values
+      final ArrayBuilder builder = new ArrayBuilder(false);
+      for(int i = 0; i < n; i++) builder.append(natives.get(i));
+      return builder.freeze();
+    }
+
     final int n = inLeft + inRight;
     if(n == 0) return XQArray.empty();
 
@@ -184,9 +221,27 @@ public final class ArrayBuilder {
     return new BigArray(ls, tree.freeze(), rs);
   }
 
+  /**
+   * Adds natively stored members to the generic structure.
+   */
+  private void toGeneric() {
+    generic = true;
+    final NativeArray.Builder nat = natives;
+    if(nat != null) {
+      natives = null;
+      final int n = nat.size();
+      for(int i = 0; i < n; i++) append(nat.get(i));
+    }
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder(Util.className(this)).append('[');
+    if(!generic) {
+      final int n = natives != null ? natives.size() : 0;
+      for(int i = 0; i < n; i++) sb.append(i == 0 ? "" : ", ").append(natives.get(i));
+      return sb.append(']').toString();
+    }
     if(tree.isEmpty()) {
       final int n = inLeft + inRight, first = (mid - inLeft + CAP) % CAP;
       if(n > 0) {
@@ -0,0 +1,120 @@
+package org.basex.query.value.array;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.util.collation.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.list.*;
+
+/**
+ * Array with members of type {@link Dbl xs:double}.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class DblArray extends NativeArray {
+  /** Values. */
+  private final double[] values;
+
+  /**
+   * Constructor.
+   * @param values values
+   * @param start offset of the first member in the values
+   * @param size number of members
+   */
+  DblArray(final double[] values, final int start, final int size) {
+    super(start, size);
+    this.values = values;
+  }
+
+  @Override
+  public Value get(final long index) {
+    return Dbl.get(values[start + (int) index]);
+  }
+
+  @Override
+  public XQArray reverseArray(final QueryContext qc) {
+    qc.checkStop();
+    final double[] tmp = new double[size];
+    for(int i = 0; i < size; i++) tmp[size - 1 - i] = values[start + i];
+    return new DblArray(tmp, 0, size);
+  }
+
+  @Override
+  public XQArray sort(final Collation coll, final QueryContext qc) {
+    qc.checkStop();
+    // NaN values are placed first
+    final double[] tmp = new double[size];
+    int nans = 0;
+    for(int i = 0; i < size; i++) {
+      if(Double.isNaN(values[start + i])) nans++;
+    }
+    for(int i = 0, n = 0, o = nans; i < size; i++) {
+      final double value = values[start + i];
+      if(Double.isNaN(value)) tmp[n++] = value;
+      else tmp[o++] = value;
+    }
+    Arrays.sort(tmp, nans, size);
+
+    // positive and negative zeros are equal: restore their original order
+    int z = nans;
+    while(z < size && tmp[z] != 0) z++;
+    if(z < size) {
+      for(int i = 0; i < size; i++) {
+        final double value = values[start + i];
+        if(value == 0) tmp[z++] = value;
+      }
+    }
+    return new DblArray(tmp, 0, size);
+  }
+
+  @Override
+  NativeArray slice(final int st, final int sz) {
+    return new DblArray(values, st, sz);
+  }
+
+  @Override
+  Value atoms() {
+    return DblSeq.get(start == 0 && size == values.length ? values :
+      Arrays.copyOfRange(values, start, start + size));
+  }
+
+  @Override
+  int capacity() {
+    return values.length;
+  }
+
+  /**
+   * Builder for arrays with double members.
+   */
+  static final class Builder extends NativeArray.Builder {
+    /** Values. */
+    private final DoubleList list = new DoubleList();
+
+    @Override
+    boolean add(final Value member) {
+      if(member.type != AtomType.DBL || !(member instanceof Dbl)) return false;
+      list.add(((Dbl) member).dbl());
+      return true;
+    }
+
+    @Override
+    int size() {
+      return list.size();
+    }
+
+    @Override
+    Value get(final int index) {
+      return Dbl.get(list.get(index));
+    }
+
+    @Override
+    NativeArray freeze() {
+      return new DblArray(list.toArray(), 0, list.size());
+    }
+  }
+}
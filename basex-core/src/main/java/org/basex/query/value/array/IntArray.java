@@ -0,0 +1,100 @@
+package org.basex.query.value.array;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.util.collation.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.list.*;
+
+/**
+ * Array with members of type {@link Int xs:integer}.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class IntArray extends NativeArray {
+  /** Values. */
+  private final long[] values;
+
+  /**
+   * Constructor.
+   * @param values values
+   * @param start offset of the first member in the values
+   * @param size number of members
+   */
+  IntArray(final long[] values, final int start, final int size) {
+    super(start, size);
+    this.values = values;
+  }
+
+  @Override
+  public Value get(final long index) {
+    return Int.get(values[start + (int) index]);
+  }
+
+  @Override
+  public XQArray reverseArray(final QueryContext qc) {
+    qc.checkStop();
+    final long[] tmp = new long[size];
+    for(int i = 0; i < size; i++) tmp[size - 1 - i] = values[start + i];
+    return new IntArray(tmp, 0, size);
+  }
+
+  @Override
+  public XQArray sort(final Collation coll, final QueryContext qc) {
+    qc.checkStop();
+    final long[] tmp = Arrays.copyOfRange(values, start, start + size);
+    Arrays.sort(tmp);
+    return new IntArray(tmp, 0, size);
+  }
+
+  @Override
+  NativeArray slice(final int st, final int sz) {
+    return new IntArray(values, st, sz);
+  }
+
+  @Override
+  Value atoms() {
+    return IntSeq.get(start == 0 && size == values.length ? values :
+      Arrays.copyOfRange(values, start, start + size));
+  }
+
+  @Override
+  int capacity() {
+    return values.length;
+  }
+
+  /**
+   * Builder for arrays with integer members.
+   */
+  static final class Builder extends NativeArray.Builder {
+    /** Values. */
+    private final LongList list = new LongList();
+
+    @Override
+    boolean add(final Value member) {
+      if(member.type != AtomType.ITR || !(member instanceof Int)) return false;
+      list.add(((Int) member).itr());
+      return true;
+    }
+
+    @Override
+    int size() {
+      return list.size();
+    }
+
+    @Override
+    Value get(final int index) {
+      return Int.get(list.get(index));
+    }
+
+    @Override
+    NativeArray freeze() {
+      return new IntArray(list.toArray(), 0, list.size());
+    }
+  }
+}
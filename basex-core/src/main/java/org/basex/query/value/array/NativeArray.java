@@ -0,0 +1,277 @@
+package org.basex.query.value.array;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.util.collation.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Array with members that are stored in their primitive/native representation.
+ * All members are single items of the same type.
+ *
+ * Slices of an array (head, tail, sub-arrays) share the values of the original array.
+ * All other modifications are performed on a generic copy of the array.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public abstract class NativeArray extends XQArray {
+  /** Offset of the first member in the values. */
+  final int start;
+  /** Number of members. */
+  final int size;
+  /** Generic representation of this array (lazy instantiation). */
+  private XQArray generic;
+
+  /**
+   * Constructor.
+   * @param start offset of the first member in the values
+   * @param size number of members
+   */
+  NativeArray(final int start, final int size) {
+    this.start = start;
+    this.size = size;
+  }
+
+  @Override
+  public final XQArray cons(final Value elem) {
+    return generic().cons(elem);
+  }
+
+  @Override
+  public final XQArray snoc(final Value elem) {
+    return generic().snoc(elem);
+  }
+
+  @Override
+  public final XQArray put(final long pos, final Value value) {
+    return generic().put(pos, value);
+  }
+
+  @Override
+  public final long arraySize() {
+    return size;
+  }
+
+  @Override
+  public final XQArray concat(final XQArray other) {
+    return other.isEmptyArray() ? this : generic().concat(other);
+  }
+
+  @Override
+  public final Value head() {
+    return get(0);
+  }
+
+  @Override
+  public final Value last() {
+    return get(size - 1);
+  }
+
+  @Override
+  public final XQArray init() {
+    return size == 1 ? empty() : slice(start, size - 1);
+  }
+
+  @Override
+  public final XQArray tail() {
+    return size == 1 ? empty() : slice(start + 1, size - 1);
+  }
+
+  @Override
+  public final XQArray subArray(final long pos, final long len, final QueryContext qc) {
+    qc.checkStop();
+    return len == 0 ? empty() : len == size ? this : slice(start + (int) pos, (int) len);
+  }
+
+  @Override
+  public final boolean isEmptyArray() {
+    return false;
+  }
+
+  @Override
+  public final XQArray insertBefore(final long pos, final Value value, final QueryContext qc) {
+    return generic().insertBefore(pos, value, qc);
+  }
+
+  @Override
+  public final XQArray remove(final long pos, final QueryContext qc) {
+    return generic().remove(pos, qc);
+  }
+
+  @Override
+  public final Value atomValue(final QueryContext qc, final InputInfo ii) {
+    return atoms();
+  }
+
+  @Override
+  public final long atomSize() {
+    return size;
+  }
+
+  @Override
+  public final Item materialize(final QueryContext qc, final boolean copy) {
+    return this;
+  }
+
+  /**
+   * Returns an array with the sorted members, using the default order of {@code fn:sort}.
+   * @param coll collation (can be {@code null})
+   * @param qc query context
+   * @return sorted array, or {@code null} if the members cannot be sorted natively
+   */
+  public abstract XQArray sort(Collation coll, QueryContext qc);
+
+  @Override
+  public final ListIterator<Value> iterator(final long st) {
+    return new ListIterator<Value>() {
+      private int index = (int) Math.max(0, Math.min(st, size));
+
+      @Override
+      public int nextIndex() {
+        return index;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return index < size;
+      }
+
+      @Override
+      public Value next() {
+        return get(index++);
+      }
+
+      @Override
+      public int previousIndex() {
+        return index - 1;
+      }
+
+      @Override
+      public boolean hasPrevious() {
+        return index > 0;
+      }
+
+      @Override
+      public Value previous() {
+        return get(--index);
+      }
+
+      @Override
+      public void set(final Value e) {
+        throw Util.notExpected();
+      }
+
+      @Override
+      public void add(final Value e) {
+        throw Util.notExpected();
+      }
+
+      @Override
+      public void remove() {
+        throw Util.notExpected();
+      }
+    };
+  }
+
+  @Override
+  final XQArray prepend(final SmallArray array) {
+    return generic().prepend(array);
+  }
+
+  @Override
+  final boolean instance(final SeqType dt) {
+    // all members have the same type
+    return dt.instance(get(0));
+  }
+
+  @Override
+  final void checkInvariants() {
+    if(size == 0) throw new AssertionError("Empty array in " + Util.className(this));
+    if(start < 0 || start + size > capacity()) throw new AssertionError(
+        "Invalid range: " + start + '-' + (start + size) + " of " + capacity());
+  }
+
+  /**
+   * Returns a slice of this array, which shares the values of this array.
+   * @param st offset of the first member in the values
+   * @param sz number of members
+   * @return slice
+   */
+  abstract NativeArray slice(int st, int sz);
+
+  /**
+   * Returns a sequence with all members.
+   * @return sequence
+   */
+  abstract Value atoms();
+
+  /**
+   * Returns the number of stored values.
+   * @return number of values
+   */
+  abstract int capacity();
+
+  /**
+   * Returns a generic representation of this array.
+   * @return array
+   */
+  private XQArray generic() {
+    XQArray array = generic;
+    if(array == null) {
+      final ArrayBuilder builder = new ArrayBuilder(false);
+      for(int i = 0; i < size; i++) builder.append(get(i));
+      array = builder.freeze();
+      generic = array;
+    }
+    return array;
+  }
+
+  /**
+   * Returns a builder for an array with members of the same type as the specified member.
+   * @param member member
+   * @return builder, or {@code null} if the member cannot be stored natively
+   */
+  static Builder builder(final Value member) {
+    final Type type = member.type;
+    if(type == AtomType.ITR && member instanceof Int) return new IntArray.Builder();
+    if(type == AtomType.DBL && member instanceof Dbl) return new DblArray.Builder();
+    if(type == AtomType.STR && member instanceof Str) return new StrArray.Builder();
+    return null;
+  }
+
+  /**
+   * Builder for native arrays.
+   */
+  abstract static class Builder {
+    /**
+     * Adds a member.
+     * @param member member
+     * @return {@code false} if the member cannot be stored natively by this builder
+     */
+    abstract boolean add(Value member);
+
+    /**
+     * Returns the number of members.
+     * @return number of members
+     */
+    abstract int size();
+
+    /**
+     * Returns the member at the specified position.
+     * @param index index of the member
+     * @return member
+     */
+    abstract Value get(int index);
+
+    /**
+     * Creates an array with the members that have been added so far.
+     * @return array
+     */
+    abstract NativeArray freeze();
+  }
+}
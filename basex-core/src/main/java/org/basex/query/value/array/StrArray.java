@@ -0,0 +1,103 @@
+package org.basex.query.value.array;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.util.collation.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Array with members of type {@link Str xs:string}.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class StrArray extends NativeArray {
+  /** Values. */
+  private final byte[][] values;
+
+  /**
+   * Constructor.
+   * @param values values
+   * @param start offset of the first member in the values
+   * @param size number of members
+   */
+  StrArray(final byte[][] values, final int start, final int size) {
+    super(start, size);
+    this.values = values;
+  }
+
+  @Override
+  public Value get(final long index) {
+    return Str.get(values[start + (int) index]);
+  }
+
+  @Override
+  public XQArray reverseArray(final QueryContext qc) {
+    qc.checkStop();
+    final byte[][] tmp = new byte[size][];
+    for(int i = 0; i < size; i++) tmp[size - 1 - i] = values[start + i];
+    return new StrArray(tmp, 0, size);
+  }
+
+  @Override
+  public XQArray sort(final Collation coll, final QueryContext qc) {
+    // strings are sorted by their codepoints
+    if(coll != null) return null;
+    qc.checkStop();
+    final byte[][] tmp = Arrays.copyOfRange(values, start, start + size);
+    Arrays.sort(tmp, Token::diff);
+    return new StrArray(tmp, 0, size);
+  }
+
+  @Override
+  NativeArray slice(final int st, final int sz) {
+    return new StrArray(values, st, sz);
+  }
+
+  @Override
+  Value atoms() {
+    return StrSeq.get(start == 0 && size == values.length ? values :
+      Arrays.copyOfRange(values, start, start + size));
+  }
+
+  @Override
+  int capacity() {
+    return values.length;
+  }
+
+  /**
+   * Builder for arrays with string members.
+   */
+  static final class Builder extends NativeArray.Builder {
+    /** Values. */
+    private final TokenList list = new TokenList();
+
+    @Override
+    boolean add(final Value member) {
+      if(member.type != AtomType.STR || !(member instanceof Str)) return false;
+      list.add(((Str) member).string());
+      return true;
+    }
+
+    @Override
+    int size() {
+      return list.size();
+    }
+
+    @Override
+    Value get(final int index) {
+      return Str.get(list.get(index));
+    }
+
+    @Override
+    NativeArray freeze() {
+      return new StrArray(list.toArray(), 0, list.size());
+    }
+  }
+}
@@ -278,7 +278,7 @@ public abstract class XQArray extends XQData {
   }
 
   @Override
-  public final Value atomValue(final QueryContext qc, final InputInfo ii) throws QueryException {
+  public Value atomValue(final QueryContext qc, final InputInfo ii) throws QueryException {
     if(arraySize() == 1) return get(0).atomValue(qc, ii);
     final ValueBuilder vb = new ValueBuilder(qc);
     for(final Value value : members()) vb.add(value.atomValue(qc, ii));
@@ -291,7 +291,7 @@ public abstract class XQArray extends XQData {
   }
 
   @Override
-  public final long atomSize() {
+  public long atomSize() {
     long size = 0;
     for(final Value value : members()) {
       for(final Item item : value) size += item.atomSize();
@@ -349,7 +349,15 @@ public abstract class XQArray extends XQData {
     final SeqType dt = ft.declType;
     if(dt.eq(SeqType.ITEM_ZM)) return true;
 
-    // check types of members
+    return instance(dt);
+  }
+
+  /**
+   * Checks if all members are instances of the specified type.
+   * @param dt declared type
+   * @return result of check
+   */
+  boolean instance(final SeqType dt) {
     for(final Value value : members()) if(!dt.instance(value)) return false;
     return true;
   }
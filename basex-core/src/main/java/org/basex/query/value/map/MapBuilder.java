@@ -4,26 +4,47 @@ import org.basex.query.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
+import org.basex.util.*;
 
 /**
  * A convenience class for building new maps.
  *
+ * The trie nodes created by the builder are modified in place until the map is finished.
+ * Entries are thus added in constant time, and without copying the paths to the root.
+ *
  * @author BaseX Team 2005-20, BSD License
  * @author Christian Gruen
  */
 public final class MapBuilder {
-  /** Map. */
-  private XQMap map = XQMap.EMPTY;
+  /** Update context, which owns the nodes created by this builder. */
+  private final TrieUpdate update = new TrieUpdate(new Object());
+  /** Root node. */
+  private TrieNode root;
+
+  /**
+   * Constructor.
+   */
+  public MapBuilder() {
+    this(XQMap.EMPTY);
+  }
 
   /**
-   * Adds a key/value pair to the map.
+   * Constructor.
+   * @param map initial map (will not be modified)
+   */
+  public MapBuilder(final XQMap map) {
+    root = map.root;
+  }
+
+  /**
+   * Adds a key/value pair to the map. An existing entry will be replaced.
    * @param key key
    * @param value value
    * @return self reference
    * @throws QueryException query exception
    */
   public MapBuilder put(final Item key, final Value value) throws QueryException {
-    map = map.put(key, value, null);
+    root = update.put(root, key.hash(null), key, value, null);
     return this;
   }
 
@@ -49,13 +70,52 @@ public final class MapBuilder {
     return put(Str.get(key), value != null ? Str.get(value) : Empty.VALUE);
   }
 
+  /**
+   * Adds all entries of a map.
+   * @param map map to add
+   * @param merge handling of duplicate keys
+   * @param qc query context
+   * @param ii input info
+   * @return self reference
+   * @throws QueryException query exception
+   */
+  public MapBuilder merge(final XQMap map, final MergeDuplicates merge, final QueryContext qc,
+      final InputInfo ii) throws QueryException {
+
+    if(root.size == 0) {
+      // adopt immutable nodes; they will be copied when being modified
+      root = map.root;
+    } else if(map.root.size != 0) {
+      update.merge = merge;
+      update.qc = qc;
+      try {
+        root = map.root.addAll(root, update, ii);
+      } finally {
+        update.merge = null;
+        update.qc = null;
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Returns the value bound to the specified key.
+   * @param key key to look up
+   * @param ii input info
+   * @return value or {@code null}
+   * @throws QueryException query exception
+   */
+  public Value get(final Item key, final InputInfo ii) throws QueryException {
+    return root.get(key.hash(ii), key, 0, ii);
+  }
+
   /**
    * Returns the resulting map and invalidates the internal reference.
    * @return map
    */
   public XQMap finish() {
-    final XQMap m = map;
-    map = null;
-    return m;
+    final TrieNode node = root;
+    root = null;
+    return node.size == 0 ? XQMap.EMPTY : new XQMap(node);
   }
 }
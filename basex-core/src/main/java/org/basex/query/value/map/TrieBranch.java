@@ -1,5 +1,7 @@
 package org.basex.query.value.map;
 
+import static org.basex.query.QueryText.*;
+
 import org.basex.query.*;
 import org.basex.query.util.collation.*;
 import org.basex.query.util.list.*;
@@ -9,216 +11,274 @@ import org.basex.query.value.type.*;
 import org.basex.util.*;
 
 /**
- * Inner node of a {@link XQMap}.
+ * Inner node of a {@link XQMap}, using a compressed layout (CHAMP).
+ *
+ * A slot of a node either contains an inlined entry or a sub node. Two bit arrays indicate which
+ * slots are used by entries and sub nodes. The keys and values of the entries are stored in a
+ * single array, followed by the sub nodes, both in the order of their slots.
+ * The trie is kept in canonical form: Sub nodes contain at least two entries, and collision lists
+ * are only wrapped in a branch if they share the slot with other entries.
  *
  * @author BaseX Team 2005-20, BSD License
  * @author Leo Woerteler
  */
 final class TrieBranch extends TrieNode {
-  /** Child array. */
-  private final TrieNode[] kids;
-  /** Bit array with a bit set for every used slot. */
-  final int used;
+  /** The empty node. */
+  static final TrieBranch EMPTY = new TrieBranch(0, 0, new Object[0], 0, null);
+  /** End strings. */
+  private static final String[] ENDS = { "|-- ", "|   ", "`-- ", "    " };
+
+  /** Bit array with a bit set for every slot with an entry. */
+  private int dataMap;
+  /** Bit array with a bit set for every slot with a sub node. */
+  private int nodeMap;
+  /** Keys and values of the entries, followed by the sub nodes. */
+  private Object[] array;
+  /** Owner of the node ({@code null}: node is immutable). */
+  private final Object owner;
 
   /**
-   * Constructor taking children array and the size of this map.
-   * @param kids children
-   * @param used bit array
+   * Constructor.
+   * @param dataMap bit array for the slots with entries
+   * @param nodeMap bit array for the slots with sub nodes
+   * @param array keys and values of the entries, followed by the sub nodes
    * @param size size of this node
+   * @param owner owner of the node ({@code null}: node is immutable)
    */
-  TrieBranch(final TrieNode[] kids, final int used, final int size) {
+  private TrieBranch(final int dataMap, final int nodeMap, final Object[] array, final int size,
+      final Object owner) {
     super(size);
-    this.kids = kids;
-    this.used = used;
+    this.dataMap = dataMap;
+    this.nodeMap = nodeMap;
+    this.array = array;
+    this.owner = owner;
     assert verify();
   }
 
   /**
-   * Copies the children array.
-   * This is faster than {@code kids.clone()} according to
-   * <a href="http://www.javaspecialists.eu/archive/Issue124.html">Heinz M. Kabutz</a>.
-   * @return copy of the child array
+   * Creates a node with two entries that have different hash codes.
+   * @param hash1 hash code of the first key
+   * @param key1 first key
+   * @param value1 first value
+   * @param hash2 hash code of the second key
+   * @param key2 second key
+   * @param value2 second value
+   * @param level level
+   * @param owner owner of the new nodes (can be {@code null})
+   * @return node
+   */
+  static TrieBranch create(final int hash1, final Item key1, final Value value1, final int hash2,
+      final Item key2, final Value value2, final int level, final Object owner) {
+    final int k1 = key(hash1, level), k2 = key(hash2, level);
+    if(k1 == k2) {
+      final TrieNode sub = create(hash1, key1, value1, hash2, key2, value2, level + 1, owner);
+      return new TrieBranch(0, 1 << k1, new Object[] { sub }, 2, owner);
+    }
+    final Object[] arr = k1 < k2 ? new Object[] { key1, value1, key2, value2 } :
+      new Object[] { key2, value2, key1, value1 };
+    return new TrieBranch(1 << k1 | 1 << k2, 0, arr, 2, owner);
+  }
+
+  /**
+   * Creates a node with a collision list and an entry with a different hash code.
+   * @param list collision list
+   * @param hash hash code of the key
+   * @param key key
+   * @param value value
+   * @param level level
+   * @param owner owner of the new nodes (can be {@code null})
+   * @return node
    */
-  TrieNode[] copyKids() {
-    final TrieNode[] copy = new TrieNode[KIDS];
-    Array.copy(kids, KIDS, copy);
-    return copy;
+  static TrieBranch create(final TrieList list, final int hash, final Item key,
+      final Value value, final int level, final Object owner) {
+    final int k1 = key(list.hash, level), k2 = key(hash, level);
+    final int size = list.size + 1;
+    if(k1 == k2) {
+      final TrieNode sub = create(list, hash, key, value, level + 1, owner);
+      return new TrieBranch(0, 1 << k1, new Object[] { sub }, size, owner);
+    }
+    return new TrieBranch(1 << k2, 1 << k1, new Object[] { key, value, list }, size, owner);
   }
 
   @Override
   TrieNode put(final int hs, final Item key, final Value value, final int level,
-      final InputInfo ii) throws QueryException {
-    final int k = key(hs, level);
-    final TrieNode sub = kids[k], nsub;
-    final int bs, rem;
-    if(sub != null) {
-      nsub = sub.put(hs, key, value, level + 1, ii);
-      if(nsub == sub) return this;
-      bs = used;
-      rem = sub.size;
-    } else {
-      nsub = new TrieLeaf(hs, key, value);
-      bs = used | 1 << k;
-      rem = 0;
+      final TrieUpdate update, final InputInfo ii) throws QueryException {
+
+    final int bit = 1 << key(hs, level);
+    if((dataMap & bit) != 0) {
+      final int d = data(bit);
+      final Item k = (Item) array[d];
+      final Value v = (Value) array[d + 1];
+      if(key.sameKey(k, ii)) {
+        // existing key: resolve entry
+        if(!update.duplicate(k, v, key, value, ii)) return this;
+        final TrieBranch tb = update.owns(owner) ? this :
+          new TrieBranch(dataMap, nodeMap, array.clone(), size, update.owner);
+        tb.array[d] = update.key;
+        tb.array[d + 1] = update.value;
+        return tb;
+      }
+      // different keys: move both entries to a new sub node
+      final int h = k.hash(ii);
+      final TrieNode sub = h == hs ? new TrieList(hs, k, v, key, value, update.owner) :
+        create(h, k, v, hs, key, value, level + 1, update.owner);
+      update.added = true;
+      return dataToNode(bit, sub, update);
+    }
+    if((nodeMap & bit) != 0) {
+      final int n = node(bit);
+      final TrieNode sub = (TrieNode) array[n], nsub = sub.put(hs, key, value, level + 1, update,
+          ii);
+      // no change, or entry of an owned sub node was replaced in place
+      if(nsub == sub && !update.added) return this;
+      final TrieBranch tb = update.owns(owner) ? this :
+        new TrieBranch(dataMap, nodeMap, array.clone(), size, update.owner);
+      tb.array[n] = nsub;
+      if(update.added) tb.size++;
+      return tb;
     }
-    final TrieNode[] ks = copyKids();
-    ks[k] = nsub;
-    return new TrieBranch(ks, bs, size - rem + nsub.size);
+    // empty slot: add entry
+    update.added = true;
+    final int d = data(bit), al = array.length;
+    final Object[] arr = new Object[al + 2];
+    Array.copy(array, d, arr);
+    arr[d] = key;
+    arr[d + 1] = value;
+    Array.copy(array, d, al - d, arr, d + 2);
+    return update(dataMap | bit, nodeMap, arr, size + 1, update);
   }
 
   @Override
   TrieNode delete(final int hash, final Item key, final int level, final InputInfo ii)
       throws QueryException {
-    final int k = key(hash, level);
-    final TrieNode sub = kids[k];
-    if(sub == null) return this;
-    final TrieNode nsub = sub.delete(hash, key, level + 1, ii);
-    if(nsub == sub) return this;
-
-    final int nu;
-    if(nsub == null) {
-      nu = used ^ 1 << k;
-      if(Integer.bitCount(nu) == 1) {
-        final TrieNode single = kids[Integer.numberOfTrailingZeros(nu)];
-        // check whether the child depends on the right offset
-        if(!(single instanceof TrieBranch)) return single;
-      }
-    } else {
-      nu = used;
+
+    final int bit = 1 << key(hash, level);
+    if((dataMap & bit) != 0) {
+      final int d = data(bit);
+      if(!key.sameKey((Item) array[d], ii)) return this;
+      if(size == 1) return null;
+
+      final int al = array.length;
+      final Object[] arr = new Object[al - 2];
+      Array.copy(array, d, arr);
+      Array.copy(array, d + 2, al - d - 2, arr, d);
+      return branch(dataMap ^ bit, nodeMap, arr, size - 1, level);
     }
+    if((nodeMap & bit) != 0) {
+      final int n = node(bit);
+      final TrieNode sub = (TrieNode) array[n], nsub = sub.delete(hash, key, level + 1, ii);
+      if(nsub == sub) return this;
 
-    final TrieNode[] ks = copyKids();
-    ks[k] = nsub;
-    return new TrieBranch(ks, nu, size - 1);
+      if(nsub.size == 1) {
+        // inline single remaining entry
+        final Item k;
+        final Value v;
+        if(nsub instanceof TrieList) {
+          k = ((TrieList) nsub).keys[0];
+          v = ((TrieList) nsub).values[0];
+        } else {
+          k = (Item) ((TrieBranch) nsub).array[0];
+          v = (Value) ((TrieBranch) nsub).array[1];
+        }
+        final int d = data(bit), al = array.length;
+        final Object[] arr = new Object[al + 1];
+        Array.copy(array, d, arr);
+        arr[d] = k;
+        arr[d + 1] = v;
+        Array.copy(array, d, n - d, arr, d + 2);
+        Array.copy(array, n + 1, al - n - 1, arr, n + 2);
+        return branch(dataMap | bit, nodeMap ^ bit, arr, size - 1, level);
+      }
+      final Object[] arr = array.clone();
+      arr[n] = nsub;
+      return branch(dataMap, nodeMap, arr, size - 1, level);
+    }
+    return this;
   }
 
   @Override
   Value get(final int hash, final Item key, final int level, final InputInfo ii)
       throws QueryException {
-    final int k = key(hash, level);
-    final TrieNode sub = kids[k];
-    return sub == null ? null : sub.get(hash, key, level + 1, ii);
+    final int bit = 1 << key(hash, level);
+    if((dataMap & bit) != 0) {
+      final int d = data(bit);
+      return key.sameKey((Item) array[d], ii) ? (Value) array[d + 1] : null;
+    }
+    return (nodeMap & bit) != 0 ? ((TrieNode) array[node(bit)]).get(hash, key, level + 1, ii) :
+      null;
   }
 
   @Override
   boolean contains(final int hash, final Item key, final int level, final InputInfo ii)
       throws QueryException {
-    final int k = key(hash, level);
-    final TrieNode sub = kids[k];
-    return sub != null && sub.contains(hash, key, level + 1, ii);
-  }
-
-  /** End strings. */
-  private static final String[] ENDS = { "|-- ", "|   ", "`-- ", "    " };
-
-  @Override
-  TrieNode addAll(final TrieNode node, final int level, final MergeDuplicates merge,
-      final QueryContext qc, final InputInfo ii) throws QueryException {
-    return node.add(this, level, merge, qc, ii);
+    final int bit = 1 << key(hash, level);
+    if((dataMap & bit) != 0) return key.sameKey((Item) array[data(bit)], ii);
+    return (nodeMap & bit) != 0 &&
+        ((TrieNode) array[node(bit)]).contains(hash, key, level + 1, ii);
   }
 
   @Override
-  TrieNode add(final TrieLeaf leaf, final int level, final MergeDuplicates merge,
-      final QueryContext qc, final InputInfo ii) throws QueryException {
-
-    qc.checkStop();
-    final int k = key(leaf.hash, level);
-    final TrieNode ch = kids[k], kid;
-    int n = 1;
-    if(ch != null) {
-      final TrieNode ins = ch.add(leaf, level + 1, merge, qc, ii);
-      if(ins == ch) return this;
-      n = ins.size - ch.size;
-      kid = ins;
-    } else {
-      kid = leaf;
-    }
-
-    final TrieNode[] ks = copyKids();
-    ks[k] = kid;
-    return new TrieBranch(ks, used | 1 << k, size + n);
-  }
-
-  @Override
-  TrieNode add(final TrieList list, final int level, final MergeDuplicates merge,
-      final QueryContext qc, final InputInfo ii) throws QueryException {
-
-    qc.checkStop();
-    final int k = key(list.hash, level);
-    final TrieNode ch = kids[k], kid;
-    int n = list.size;
-    if(ch != null) {
-      final TrieNode ins = ch.add(list, level + 1, merge, qc, ii);
-      if(ins == ch) return this;
-      n = ins.size - ch.size;
-      kid = ins;
-    } else {
-      kid = list;
-    }
-
-    final TrieNode[] ks = copyKids();
-    ks[k] = kid;
-    return new TrieBranch(ks, used | 1 << k, size + n);
-  }
+  TrieNode addAll(final TrieNode node, final TrieUpdate update, final InputInfo ii)
+      throws QueryException {
 
-  @Override
-  TrieNode add(final TrieBranch branch, final int level, final MergeDuplicates merge,
-      final QueryContext qc, final InputInfo ii) throws QueryException {
-
-    TrieNode[] ch = null;
-    int nu = used, ns = size;
-    final int kl = kids.length;
-    for(int k = 0; k < kl; k++) {
-      final TrieNode n = kids[k], ok = branch.kids[k];
-      if(ok != null) {
-        final TrieNode kid = n == null ? ok : ok.addAll(n, level + 1, merge, qc, ii);
-        if(kid != n) {
-          if(ch == null) ch = copyKids();
-          ch[k] = kid;
-          nu |= 1 << k;
-          ns += kid.size - (n == null ? 0 : n.size);
-        }
-      }
+    update.checkStop();
+    TrieNode nd = node;
+    final int dl = Integer.bitCount(dataMap) << 1, al = array.length;
+    for(int d = 0; d < dl; d += 2) {
+      final Item key = (Item) array[d];
+      nd = update.put(nd, key.hash(ii), key, (Value) array[d + 1], ii);
     }
-    return ch == null ? this : new TrieBranch(ch, nu, ns);
+    for(int n = dl; n < al; n++) nd = ((TrieNode) array[n]).addAll(nd, update, ii);
+    return nd;
   }
 
   @Override
   boolean verify() {
-    int c = 0;
-    for(int i = 0; i < KIDS; i++) {
-      final boolean bit = (used & 1 << i) != 0, act = kids[i] != null;
-      if(bit ^ act) return false;
-      if(act) c += kids[i].size;
+    if((dataMap & nodeMap) != 0) return false;
+    final int dl = Integer.bitCount(dataMap) << 1, al = array.length;
+    if(al != dl + Integer.bitCount(nodeMap)) return false;
+    int s = dl >>> 1;
+    for(int n = dl; n < al; n++) {
+      final TrieNode nd = (TrieNode) array[n];
+      if(nd.size < 2) return false;
+      s += nd.size;
     }
-    return c == size;
+    return s == size;
   }
 
   @Override
   void keys(final ItemList ks) {
-    for(final TrieNode nd : kids) {
-      if(nd != null) nd.keys(ks);
+    for(int m = dataMap | nodeMap; m != 0; m &= m - 1) {
+      final int bit = m & -m;
+      if((dataMap & bit) != 0) ks.add((Item) array[data(bit)]);
+      else ((TrieNode) array[node(bit)]).keys(ks);
     }
   }
 
   @Override
   void values(final ValueBuilder vs) {
-    for(final TrieNode nd : kids) {
-      if(nd != null) nd.values(vs);
+    for(int m = dataMap | nodeMap; m != 0; m &= m - 1) {
+      final int bit = m & -m;
+      if((dataMap & bit) != 0) vs.add((Value) array[data(bit) + 1]);
+      else ((TrieNode) array[node(bit)]).values(vs);
     }
   }
 
   @Override
   void cache(final boolean lazy, final InputInfo ii) throws QueryException {
-    for(final TrieNode nd : kids) {
-      if(nd != null) nd.cache(lazy, ii);
-    }
+    final int dl = Integer.bitCount(dataMap) << 1, al = array.length;
+    for(int d = 0; d < dl; d++) ((Value) array[d]).cache(lazy, ii);
+    for(int n = dl; n < al; n++) ((TrieNode) array[n]).cache(lazy, ii);
   }
 
   @Override
   boolean materialized() {
-    for(final TrieNode nd : kids) {
-      if(nd != null && !nd.materialized()) return false;
+    final int dl = Integer.bitCount(dataMap) << 1, al = array.length;
+    for(int d = 1; d < dl; d += 2) {
+      if(!materialized((Value) array[d])) return false;
+    }
+    for(int n = dl; n < al; n++) {
+      if(!((TrieNode) array[n]).materialized()) return false;
     }
     return true;
   }
@@ -226,15 +286,25 @@ final class TrieBranch extends TrieNode {
   @Override
   void forEach(final ValueBuilder vb, final FItem func, final QueryContext qc, final InputInfo ii)
       throws QueryException {
-    for(final TrieNode nd : kids) {
-      if(nd != null) nd.forEach(vb, func, qc, ii);
+    for(int m = dataMap | nodeMap; m != 0; m &= m - 1) {
+      final int bit = m & -m;
+      if((dataMap & bit) != 0) {
+        final int d = data(bit);
+        vb.add(func.invokeValue(qc, ii, (Item) array[d], (Value) array[d + 1]));
+      } else {
+        ((TrieNode) array[node(bit)]).forEach(vb, func, qc, ii);
+      }
     }
   }
 
   @Override
   boolean instanceOf(final AtomType kt, final SeqType dt) {
-    for(final TrieNode nd : kids) {
-      if(nd != null && !nd.instanceOf(kt, dt)) return false;
+    final int dl = Integer.bitCount(dataMap) << 1, al = array.length;
+    for(int d = 0; d < dl; d += 2) {
+      if(!instanceOf((Item) array[d], (Value) array[d + 1], kt, dt)) return false;
+    }
+    for(int n = dl; n < al; n++) {
+      if(!((TrieNode) array[n]).instanceOf(kt, dt)) return false;
     }
     return true;
   }
@@ -242,8 +312,15 @@ final class TrieBranch extends TrieNode {
   @Override
   int hash(final InputInfo ii) throws QueryException {
     int hash = 0;
-    for(final TrieNode nd : kids) {
-      if(nd != null) hash = (hash << 5) - hash + nd.hash(ii);
+    for(int m = dataMap | nodeMap; m != 0; m &= m - 1) {
+      final int bit = m & -m, h;
+      if((dataMap & bit) != 0) {
+        final int d = data(bit);
+        h = 31 * ((Item) array[d]).hash(ii) + ((Value) array[d + 1]).hash(ii);
+      } else {
+        h = ((TrieNode) array[node(bit)]).hash(ii);
+      }
+      hash = (hash << 5) - hash + h;
     }
     return hash;
   }
@@ -254,34 +331,123 @@ final class TrieBranch extends TrieNode {
     if(!(node instanceof TrieBranch)) return false;
     final TrieBranch ob = (TrieBranch) node;
 
-    // check bin usage first
-    if(used != ob.used) return false;
+    // check slot usage first
+    if(dataMap != ob.dataMap || nodeMap != ob.nodeMap) return false;
 
-    // recursively compare children
-    for(int i = 0; i < KIDS; i++)
-      if(kids[i] != null && !kids[i].deep(ob.kids[i], coll, ii)) return false;
-
-    // everything OK
+    // compare entries and sub nodes
+    final int dl = Integer.bitCount(dataMap) << 1, al = array.length;
+    for(int d = 0; d < dl; d += 2) {
+      if(!((Item) array[d]).sameKey((Item) ob.array[d], ii) ||
+         !deep((Value) array[d + 1], (Value) ob.array[d + 1], coll, ii)) return false;
+    }
+    for(int n = dl; n < al; n++) {
+      if(!((TrieNode) array[n]).deep((TrieNode) ob.array[n], coll, ii)) return false;
+    }
     return true;
   }
 
   @Override
   StringBuilder append(final StringBuilder sb, final String indent) {
-    final int s = Integer.bitCount(used);
-    for(int i = 0, j = 0; i < s; i++, j++) {
-      while((used & 1 << j) == 0) j++;
-      final int e = i == s - 1 ? 2 : 0;
-      sb.append(indent).append(ENDS[e]).append(String.format("%x", j)).append('\n');
-      kids[j].append(sb, indent + ENDS[e + 1]);
+    for(int m = dataMap | nodeMap; m != 0; m &= m - 1) {
+      final int bit = m & -m, e = (m & m - 1) == 0 ? 2 : 0;
+      sb.append(indent).append(ENDS[e]).append(String.format("%x",
+          Integer.numberOfTrailingZeros(bit))).append('\n');
+      final String ind = indent + ENDS[e + 1];
+      if((dataMap & bit) != 0) {
+        final int d = data(bit);
+        sb.append(ind).append("`-- ").append(array[d]).append(" => ").append(array[d + 1]);
+        sb.append('\n');
+      } else {
+        ((TrieNode) array[node(bit)]).append(sb, ind);
+      }
     }
     return sb;
   }
 
   @Override
   StringBuilder append(final StringBuilder sb) {
-    for(int i = 0; i < KIDS && more(sb); i++) {
-      if(kids[i] != null) kids[i].append(sb);
+    for(int m = dataMap | nodeMap; m != 0 && more(sb); m &= m - 1) {
+      final int bit = m & -m;
+      if((dataMap & bit) != 0) {
+        final int d = data(bit);
+        sb.append(array[d]).append(MAPASG).append(array[d + 1]).append(SEP);
+      } else {
+        ((TrieNode) array[node(bit)]).append(sb);
+      }
     }
     return sb;
   }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the array offset of the key of an entry.
+   * @param bit bit of the slot
+   * @return offset
+   */
+  private int data(final int bit) {
+    return Integer.bitCount(dataMap & bit - 1) << 1;
+  }
+
+  /**
+   * Returns the array offset of a sub node.
+   * @param bit bit of the slot
+   * @return offset
+   */
+  private int node(final int bit) {
+    return (Integer.bitCount(dataMap) << 1) + Integer.bitCount(nodeMap & bit - 1);
+  }
+
+  /**
+   * Replaces an entry with a sub node that contains this entry and a new entry.
+   * @param bit bit of the slot
+   * @param sub sub node
+   * @param update update context
+   * @return updated node
+   */
+  private TrieBranch dataToNode(final int bit, final TrieNode sub, final TrieUpdate update) {
+    final int dm = dataMap ^ bit, nm = nodeMap | bit, d = data(bit), al = array.length;
+    final int n = (Integer.bitCount(dm) << 1) + Integer.bitCount(nm & bit - 1);
+    final Object[] arr = new Object[al - 1];
+    Array.copy(array, d, arr);
+    Array.copy(array, d + 2, n - d, arr, d);
+    arr[n] = sub;
+    Array.copy(array, n + 2, al - n - 2, arr, n + 1);
+    return update(dm, nm, arr, size + 1, update);
+  }
+
+  /**
+   * Returns a node with the specified contents. A node owned by the update is modified in place.
+   * @param dm bit array for the slots with entries
+   * @param nm bit array for the slots with sub nodes
+   * @param arr keys and values of the entries, followed by the sub nodes
+   * @param sz size of the node
+   * @param update update context
+   * @return node
+   */
+  private TrieBranch update(final int dm, final int nm, final Object[] arr, final int sz,
+      final TrieUpdate update) {
+    if(!update.owns(owner)) return new TrieBranch(dm, nm, arr, sz, update.owner);
+    dataMap = dm;
+    nodeMap = nm;
+    array = arr;
+    size = sz;
+    return this;
+  }
+
+  /**
+   * Returns an immutable node with the specified contents. A node that only contains a single
+   * collision list will be replaced by the list.
+   * @param dm bit array for the slots with entries
+   * @param nm bit array for the slots with sub nodes
+   * @param arr keys and values of the entries, followed by the sub nodes
+   * @param sz size of the node
+   * @param level level
+   * @return node
+   */
+  private static TrieNode branch(final int dm, final int nm, final Object[] arr, final int sz,
+      final int level) {
+    return level > 0 && dm == 0 && arr.length == 1 && arr[0] instanceof TrieList ?
+      (TrieNode) arr[0] : new TrieBranch(dm, nm, arr, sz, null);
+  }
 }
@@ -1,10 +1,7 @@
 package org.basex.query.value.map;
 
-import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 
-import java.util.*;
-
 import org.basex.query.*;
 import org.basex.query.util.collation.*;
 import org.basex.query.util.list.*;
@@ -14,7 +11,7 @@ import org.basex.query.value.type.*;
 import org.basex.util.*;
 
 /**
- * Leaf that contains a collision list of keys with the same hash code.
+ * Node that contains a collision list of keys with the same hash code.
  *
  * @author BaseX Team 2005-20, BSD License
  * @author Leo Woerteler
@@ -24,21 +21,25 @@ final class TrieList extends TrieNode {
   final int hash;
 
   /** List of keys of this collision list. */
-  final Item[] keys;
+  Item[] keys;
   /** List of values of this collision list. */
-  final Value[] values;
+  Value[] values;
+  /** Owner of the node ({@code null}: node is immutable). */
+  private final Object owner;
 
   /**
    * Constructor.
    * @param hash hash value
    * @param keys key array
    * @param values value array
+   * @param owner owner of the node ({@code null}: node is immutable)
    */
-  TrieList(final int hash, final Item[] keys, final Value[] values) {
+  private TrieList(final int hash, final Item[] keys, final Value[] values, final Object owner) {
     super(keys.length);
     this.keys = keys;
     this.values = values;
     this.hash = hash;
+    this.owner = owner;
     assert verify();
   }
 
@@ -49,10 +50,11 @@ final class TrieList extends TrieNode {
    * @param value1 first value
    * @param key2 second key
    * @param value2 second value
+   * @param owner owner of the node ({@code null}: node is immutable)
    */
   TrieList(final int hash, final Item key1, final Value value1, final Item key2,
-      final Value value2) {
-    this(hash, new Item[]{ key1, key2 }, new Value[]{ value1, value2 });
+      final Value value2, final Object owner) {
+    this(hash, new Item[] { key1, key2 }, new Value[] { value1, value2 }, owner);
   }
 
   @Override
@@ -63,12 +65,7 @@ final class TrieList extends TrieNode {
       for(int i = size; i-- > 0;) {
         // still collisions?
         if(key.sameKey(keys[i], ii)) {
-          // found entry
-          if(size == 2) {
-            // single leaf remains
-            final int o = i ^ 1;
-            return new TrieLeaf(hs, keys[o], values[o]);
-          }
+          // found entry: a single remaining entry will be inlined by the parent node
           // create new arrays (modified due to #1297; performance improved)
           final int s = size - 1;
           final Item[] ks = new Item[s];
@@ -77,7 +74,7 @@ final class TrieList extends TrieNode {
           final Value[] vs = new Value[s];
           Array.copy(values, i, vs);
           Array.copy(values, i + 1, s - i, vs, i);
-          return new TrieList(hs, ks, vs);
+          return new TrieList(hs, ks, vs, null);
         }
       }
     }
@@ -86,35 +83,34 @@ final class TrieList extends TrieNode {
 
   @Override
   TrieNode put(final int hs, final Item key, final Value value, final int level,
-      final InputInfo ii) throws QueryException {
+      final TrieUpdate update, final InputInfo ii) throws QueryException {
 
-    // same hash, replace or merge
-    if(hs == hash) {
-      for(int i = keys.length; i-- > 0;) {
-        if(key.sameKey(keys[i], ii)) {
-          // replace value
-          final Value[] vs = values.clone();
-          vs[i] = value;
-          return new TrieList(hs, keys, vs);
-        }
-      }
-      return new TrieList(hash, Array.add(keys, key), Array.add(values, value));
+    // different hash, branch
+    if(hs != hash) {
+      update.added = true;
+      return TrieBranch.create(this, hs, key, value, level, update.owner);
     }
 
-    // different hash, branch
-    final TrieNode[] ch = new TrieNode[KIDS];
-    final int a = key(hs, level), b = key(hash, level);
-    final int used;
-    if(a == b) {
-      ch[a] = put(hs, key, value, level + 1, ii);
-      used = 1 << a;
-    } else {
-      ch[a] = new TrieLeaf(hs, key, value);
-      ch[b] = this;
-      used = 1 << a | 1 << b;
+    // same hash, replace or merge
+    final boolean owned = update.owns(owner);
+    for(int i = 0; i < size; i++) {
+      if(key.sameKey(keys[i], ii)) {
+        if(!update.duplicate(keys[i], values[i], key, value, ii)) return this;
+        final TrieList tl = owned ? this : new TrieList(hash, keys.clone(), values.clone(),
+            update.owner);
+        tl.keys[i] = update.key;
+        tl.values[i] = update.value;
+        return tl;
+      }
     }
-    // we definitely inserted one value
-    return new TrieBranch(ch, used, size + 1);
+    update.added = true;
+    final Item[] ks = Array.add(keys, key);
+    final Value[] vs = Array.add(values, value);
+    if(!owned) return new TrieList(hash, ks, vs, update.owner);
+    keys = ks;
+    values = vs;
+    size++;
+    return this;
   }
 
   @Override
@@ -138,128 +134,12 @@ final class TrieList extends TrieNode {
   }
 
   @Override
-  TrieNode addAll(final TrieNode node, final int level, final MergeDuplicates merge,
-      final QueryContext qc, final InputInfo ii) throws QueryException {
-    return node.add(this, level, merge, qc, ii);
-  }
-
-  @Override
-  TrieNode add(final TrieLeaf leaf, final int level, final MergeDuplicates merge,
-      final QueryContext qc, final InputInfo ii) throws QueryException {
-
-    qc.checkStop();
-    if(hash == leaf.hash) {
-      for(int k = keys.length; k-- > 0;) {
-        if(leaf.key.sameKey(keys[k], ii)) {
-          switch(merge) {
-            case USE_FIRST:
-            case UNSPECIFIED:
-              final Value[] uf = values.clone();
-              uf[k] = leaf.value;
-              return new TrieList(hash, keys, uf);
-            case USE_LAST:
-              return this;
-            case COMBINE:
-              final Value[] cm = values.clone();
-              cm[k] = ValueBuilder.concat(leaf.value, cm[k], qc);
-              return new TrieList(hash, keys, cm);
-            default:
-              throw MERGE_DUPLICATE_X.get(ii, leaf.key);
-          }
-        }
-      }
-      return new TrieList(hash, Array.add(keys, leaf.key), Array.add(values, leaf.value));
-    }
-
-    final TrieNode[] ch = new TrieNode[KIDS];
-    final int k = key(hash, level), ok = key(leaf.hash, level), nu;
-
-    // same key? add recursively
-    if(k == ok) {
-      ch[k] = add(leaf, level + 1, merge, qc, ii);
-      nu = 1 << k;
-    } else {
-      ch[k] = this;
-      ch[ok] = leaf;
-      nu = 1 << k | 1 << ok;
-    }
-
-    return new TrieBranch(ch, nu, size + 1);
-  }
-
-  @Override
-  TrieNode add(final TrieList list, final int level, final MergeDuplicates merge,
-      final QueryContext qc, final InputInfo ii) throws QueryException {
-
-    qc.checkStop();
-    if(hash == list.hash) {
-      final Value[] vs0 = list.values;
-      Item[] ks = list.keys;
-      Value[] vs = vs0;
-      final BitSet unmatched = new BitSet(list.size);
-      unmatched.set(0, list.size);
-
-      OUTER:
-      for(int i = 0; i < size; i++) {
-        final Item ok = keys[i];
-        // check if the key is already in the list
-        for(int j = unmatched.nextSetBit(0); j >= 0; j = unmatched.nextSetBit(j + 1)) {
-          final Item k = list.keys[j];
-          if(k.sameKey(ok, ii)) {
-            unmatched.clear(j);
-            switch(merge) {
-              case USE_FIRST:
-              case UNSPECIFIED:
-                // no change, skip the entry
-                break;
-              case USE_LAST:
-                // left value is overwritten
-                if(vs == vs0) vs = vs0.clone();
-                vs[j] = values[i];
-                break;
-              case COMBINE:
-                // right value is appended
-                if(vs == vs0) vs = vs0.clone();
-                vs[j] = ValueBuilder.concat(vs[j], values[i], qc);
-                break;
-              default:
-                throw MERGE_DUPLICATE_X.get(ii, k);
-            }
-            continue OUTER;
-          }
-        }
-        // key is not in this list, add it
-        ks = Array.add(ks, ok);
-        vs = Array.add(vs, values[i]);
-      }
-      return vs == vs0 ? list : new TrieList(hash, ks, vs);
-    }
-
-    final TrieNode[] ch = new TrieNode[KIDS];
-    final int k = key(hash, level), ok = key(list.hash, level), nu;
-
-    // same key? add recursively
-    if(k == ok) {
-      ch[k] = add(list, level + 1, merge, qc, ii);
-      nu = 1 << k;
-    } else {
-      ch[k] = this;
-      ch[ok] = list;
-      nu = 1 << k | 1 << ok;
-    }
-    return new TrieBranch(ch, nu, size + list.size);
-  }
-
-  @Override
-  TrieNode add(final TrieBranch branch, final int level, final MergeDuplicates merge,
-      final QueryContext qc, final InputInfo ii) throws QueryException {
-
-    final int k = key(hash, level);
-    final TrieNode[] ch = branch.copyKids();
-    final TrieNode old = ch[k];
-    ch[k] = old == null ? this : old.addAll(this, level + 1, merge, qc, ii);
-    return new TrieBranch(ch, branch.used | 1 << k,
-        branch.size + size - (old != null ? old.size : 0));
+  TrieNode addAll(final TrieNode node, final TrieUpdate update, final InputInfo ii)
+      throws QueryException {
+    update.checkStop();
+    TrieNode nd = node;
+    for(int i = 0; i < size; i++) nd = update.put(nd, hash, keys[i], values[i], ii);
+    return nd;
   }
 
   @Override
@@ -298,9 +178,7 @@ final class TrieList extends TrieNode {
   @Override
   boolean materialized() {
     for(final Value value : values)  {
-      for(final Item item : value) {
-        if(item.persistent() || item.materialize(null, false) == null) return false;
-      }
+      if(!materialized(value)) return false;
     }
     return true;
   }
@@ -313,15 +191,8 @@ final class TrieList extends TrieNode {
 
   @Override
   boolean instanceOf(final AtomType kt, final SeqType dt) {
-    if(kt != null) {
-      for(final Item key : keys) {
-        if(!key.type.instanceOf(kt)) return false;
-      }
-    }
-    if(dt != null) {
-      for(final Value value : values) {
-        if(!dt.instance(value)) return false;
-      }
+    for(int i = 0; i < size; i++) {
+      if(!instanceOf(keys[i], values[i], kt, dt)) return false;
     }
     return true;
   }
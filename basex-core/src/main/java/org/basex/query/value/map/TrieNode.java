@@ -23,60 +23,8 @@ abstract class TrieNode {
   /** Mask for the bits used on the current level. */
   private static final int MASK = KIDS - 1;
 
-  /** The empty node. */
-  static final TrieNode EMPTY = new TrieNode(0) {
-    @Override
-    TrieNode delete(final int hash, final Item key, final int level, final InputInfo ii) {
-      return this; }
-    @Override
-    Value get(final int hash, final Item key, final int level, final InputInfo ii) {
-      return null; }
-    @Override
-    boolean contains(final int hash, final Item key, final int level, final InputInfo ii) {
-      return false; }
-    @Override
-    TrieNode addAll(final TrieNode node, final int level, final MergeDuplicates merge,
-        final QueryContext qc, final InputInfo ii) { return node; }
-    @Override
-    TrieNode add(final TrieLeaf leaf, final int level, final MergeDuplicates merge,
-        final QueryContext qc, final InputInfo ii) { return leaf; }
-    @Override
-    TrieNode add(final TrieList list, final int level, final MergeDuplicates merge,
-        final QueryContext qc, final InputInfo ii) { return list; }
-    @Override
-    TrieNode add(final TrieBranch branch, final int level, final MergeDuplicates merge,
-        final QueryContext qc, final InputInfo ii) { return branch; }
-    @Override
-    boolean verify() { return true; }
-    @Override
-    void keys(final ItemList ks) { }
-    @Override
-    void values(final ValueBuilder vs) { }
-    @Override
-    void cache(final boolean lazy, final InputInfo ii) { }
-    @Override
-    boolean materialized() { return true; }
-    @Override
-    boolean instanceOf(final AtomType kt, final SeqType dt) { return true; }
-    @Override
-    int hash(final InputInfo ii) { return 0; }
-    @Override
-    boolean deep(final TrieNode node, final Collation coll, final InputInfo ii) {
-return this == node; }
-    @Override
-    public TrieNode put(final int hash, final Item key, final Value value, final int level,
-        final InputInfo ii) { return new TrieLeaf(hash, key, value); }
-    @Override
-    void forEach(final ValueBuilder vb, final FItem func, final QueryContext qc,
-        final InputInfo ii) { }
-    @Override
-    StringBuilder append(final StringBuilder sb, final String indent) { return sb.append("{ }"); }
-    @Override
-    StringBuilder append(final StringBuilder sb) { return sb; }
-  };
-
-  /** Size of this node. */
-  final int size;
+  /** Size of this node (only modified in place by the owner of a node). */
+  int size;
   /**
    * Constructor.
    * @param size size
@@ -86,17 +34,19 @@ return this == node; }
   }
 
   /**
-   * Puts the given value into this map and replaces existing keys.
+   * Puts the given value into this map. If the key exists, the entry is resolved via the update.
+   * Nodes that are owned by the update are modified in place.
    * @param hash hash code used as key
    * @param key key to insert
    * @param value value to insert
    * @param level level
+   * @param update update context
    * @param ii input info
-   * @return updated map if changed, {@code this} otherwise
+   * @return updated node if changed, {@code this} otherwise
    * @throws QueryException query exception
    */
-  abstract TrieNode put(int hash, Item key, Value value, int level, InputInfo ii)
-      throws QueryException;
+  abstract TrieNode put(int hash, Item key, Value value, int level, TrieUpdate update,
+      InputInfo ii) throws QueryException;
 
   /**
    * Deletes a key from this map.
@@ -104,7 +54,8 @@ return this == node; }
    * @param key key to delete
    * @param level level
    * @param ii input info
-   * @return updated map if changed, {@code null} if deleted, {@code this} otherwise
+   * @return updated node if changed, {@code null} if deleted, {@code this} otherwise.
+   *   A returned node with a single entry must be inlined by the caller.
    * @throws QueryException query exception
    */
   abstract TrieNode delete(int hash, Item key, int level, InputInfo ii) throws QueryException;
@@ -132,59 +83,15 @@ return this == node; }
   abstract boolean contains(int hash, Item key, int level, InputInfo ii) throws QueryException;
 
   /**
-   * <p> Inserts all bindings from the given node into this one.
-   * <p> This method is part of the <i>double dispatch</i> pattern and
-   *     should be implemented as {@code return o.add(this, lvl, ii);}.
-   * @param node other node
-   * @param level level
-   * @param merge merge duplicates
-   * @param qc query context
-   * @param ii input info
-   * @return updated map if changed, {@code this} otherwise
-   * @throws QueryException query exception
-   */
-  abstract TrieNode addAll(TrieNode node, int level, MergeDuplicates merge, QueryContext qc,
-      InputInfo ii) throws QueryException;
-
-  /**
-   * Add a leaf to this node if the key isn't already used.
-   * @param leaf leaf to insert
-   * @param level level
-   * @param merge merge duplicates
-   * @param qc query context
-   * @param ii input info
-   * @return updated map if changed, {@code this} otherwise
-   * @throws QueryException query exception
-   */
-  abstract TrieNode add(TrieLeaf leaf, int level, MergeDuplicates merge, QueryContext qc,
-      InputInfo ii) throws QueryException;
-
-  /**
-   * Add an overflow list to this node if the key isn't already used.
-   * @param list leaf to insert
-   * @param level level
-   * @param merge merge duplicates
-   * @param qc query context
-   * @param ii input info
-   * @return updated map if changed, {@code this} otherwise
-   * @throws QueryException query exception
-   */
-  abstract TrieNode add(TrieList list, int level, MergeDuplicates merge, QueryContext qc,
-      InputInfo ii) throws QueryException;
-
-  /**
-   * Add all bindings of the given branch to this node for which the key isn't
-   * already used.
-   * @param branch leaf to insert
-   * @param level level
-   * @param merge merge duplicates
-   * @param qc query context
+   * Adds all entries of this node to the specified node.
+   * @param node target node
+   * @param update update context
    * @param ii input info
-   * @return updated map if changed, {@code this} otherwise
+   * @return updated target node
    * @throws QueryException query exception
    */
-  abstract TrieNode add(TrieBranch branch, int level, MergeDuplicates merge, QueryContext qc,
-      InputInfo ii) throws QueryException;
+  abstract TrieNode addAll(TrieNode node, TrieUpdate update, InputInfo ii)
+      throws QueryException;
 
   /**
    * Verifies the tree.
@@ -247,6 +154,31 @@ return this == node; }
    */
   abstract boolean instanceOf(AtomType kt, SeqType dt);
 
+  /**
+   * Checks if an entry has the specified key and value type.
+   * @param key key
+   * @param value value
+   * @param kt key type (can be {@code null})
+   * @param dt declared type (can be {@code null})
+   * @return {@code true} if the type fits, {@code false} otherwise
+   */
+  static boolean instanceOf(final Item key, final Value value, final AtomType kt,
+      final SeqType dt) {
+    return (kt == null || key.type.instanceOf(kt)) && (dt == null || dt.instance(value));
+  }
+
+  /**
+   * Checks if a value is materialized.
+   * @param value value
+   * @return result of check
+   */
+  static boolean materialized(final Value value) {
+    for(final Item item : value) {
+      if(item.persistent() || item.materialize(null, false) == null) return false;
+    }
+    return true;
+  }
+
   /**
    * Compares two values.
    * @param value1 first value
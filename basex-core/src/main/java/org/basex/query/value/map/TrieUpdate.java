@@ -0,0 +1,109 @@
+package org.basex.query.value.map;
+
+import static org.basex.query.QueryError.*;
+
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * Context of an update operation on a trie.
+ *
+ * A persistent update copies all nodes on the path to the updated entry. A transient update
+ * has an owner: nodes created by a transient update are owned by it, and they will be modified
+ * in place by subsequent operations of the same update. Owned nodes must never be visible
+ * to other parties before the update has been finished.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class TrieUpdate {
+  /** Owner of the nodes that can be modified in place ({@code null}: persistent update). */
+  final Object owner;
+  /** Handling of duplicate keys ({@code null}: replace existing entries). */
+  MergeDuplicates merge;
+  /** Query context (can be {@code null}). */
+  QueryContext qc;
+
+  /** Indicates if the last operation added an entry. */
+  boolean added;
+  /** Key of a resolved duplicate entry. */
+  Item key;
+  /** Value of a resolved duplicate entry. */
+  Value value;
+
+  /**
+   * Constructor.
+   * @param owner owner of modifiable nodes ({@code null}: persistent update)
+   */
+  TrieUpdate(final Object owner) {
+    this.owner = owner;
+  }
+
+  /**
+   * Checks if a node is owned by this update.
+   * @param own owner of the node (can be {@code null})
+   * @return result of check
+   */
+  boolean owns(final Object own) {
+    return own != null && own == owner;
+  }
+
+  /**
+   * Puts an entry into the specified root node.
+   * @param root root node
+   * @param hash hash code of the key
+   * @param key key
+   * @param value value
+   * @param ii input info
+   * @return updated root node if changed, {@code root} otherwise
+   * @throws QueryException query exception
+   */
+  TrieNode put(final TrieNode root, final int hash, final Item key, final Value value,
+      final InputInfo ii) throws QueryException {
+    added = false;
+    return root.put(hash, key, value, 0, this, ii);
+  }
+
+  /**
+   * Resolves an entry with a key that already exists. The key and value of the resulting entry
+   * are assigned to {@link #key} and {@link #value}.
+   * @param oldKey existing key
+   * @param oldValue existing value
+   * @param newKey new key
+   * @param newValue new value
+   * @param ii input info
+   * @return {@code true} if the existing entry needs to be replaced
+   * @throws QueryException query exception
+   */
+  boolean duplicate(final Item oldKey, final Value oldValue, final Item newKey,
+      final Value newValue, final InputInfo ii) throws QueryException {
+
+    if(merge != null) {
+      switch(merge) {
+        case USE_FIRST:
+        case UNSPECIFIED:
+          return false;
+        case USE_LAST:
+          break;
+        case COMBINE:
+          key = newKey;
+          value = ValueBuilder.concat(oldValue, newValue, qc);
+          return true;
+        default:
+          throw MERGE_DUPLICATE_X.get(ii, newKey);
+      }
+    }
+    key = newKey;
+    value = newValue;
+    return true;
+  }
+
+  /**
+   * Interrupts the operation if the query has been stopped.
+   */
+  void checkStop() {
+    if(qc != null) qc.checkStop();
+  }
+}
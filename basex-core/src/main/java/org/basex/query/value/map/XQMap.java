@@ -25,18 +25,18 @@ import org.basex.util.*;
  */
 public final class XQMap extends XQData {
   /** The empty map. */
-  public static final XQMap EMPTY = new XQMap(TrieNode.EMPTY);
+  public static final XQMap EMPTY = new XQMap(TrieBranch.EMPTY);
   /** Number of bits per level, maximum is 5 because {@code 1 << 5 == 32}. */
   static final int BITS = 5;
 
   /** Wrapped immutable map. */
-  private final TrieNode root;
+  final TrieNode root;
 
   /**
    * Constructor.
    * @param root map
    */
-  private XQMap(final TrieNode root) {
+  XQMap(final TrieNode root) {
     super(SeqType.MAP);
     this.root = root;
   }
@@ -97,9 +97,10 @@ public final class XQMap extends XQData {
   public XQMap addAll(final XQMap map, final MergeDuplicates merge, final QueryContext qc,
       final InputInfo ii) throws QueryException {
 
-    if(map == EMPTY) return this;
-    final TrieNode upd = root.addAll(map.root, 0, merge, qc, ii);
-    return upd == map.root ? map : new XQMap(upd);
+    if(map.root.size == 0) return this;
+    if(root.size == 0) return map;
+    final XQMap mp = new MapBuilder(this).merge(map, merge, qc, ii).finish();
+    return mp.root == root ? this : mp;
   }
 
   @Override
@@ -146,7 +147,7 @@ public final class XQMap extends XQData {
    * @throws QueryException query exception
    */
   public XQMap put(final Item key, final Value value, final InputInfo ii) throws QueryException {
-    final TrieNode ins = root.put(key.hash(ii), key, value, 0, ii);
+    final TrieNode ins = new TrieUpdate(null).put(root, key.hash(ii), key, value, ii);
     return ins == root ? this : new XQMap(ins);
   }
 
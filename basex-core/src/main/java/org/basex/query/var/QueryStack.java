@@ -48,6 +48,17 @@ public final class QueryStack {
     end = s + size;
   }
 
+  /**
+   * Creates a new stack frame with the variables of the current frame of another stack.
+   * @param qs stack to copy the variables from
+   */
+  public void adopt(final QueryStack qs) {
+    final int s = qs.start, size = qs.end - s;
+    enterFrame(size);
+    Array.copy(qs.stack, s, size, stack, start);
+    Array.copy(qs.vars, s, size, vars, start);
+  }
+
   /**
    * Exits a stack frame and makes all bound variables eligible for garbage collection.
    * @param frame frame pointer of the underlying stack frame
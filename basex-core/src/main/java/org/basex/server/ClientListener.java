@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
 
 import org.basex.*;
@@ -29,8 +30,8 @@ public final class ClientListener extends Thread implements ClientInfo {
   /** Prints trace output to the evaluation info. */
   private static final QueryTracer PASS = info -> true;
 
-  /** Timer for authentication time out. */
-  public final Timer timeout = new Timer();
+  /** Authentication timeout (can be {@code null}). */
+  public volatile TimerWheel.Task timeout;
   /** Timestamp of last interaction. */
   public long last;
 
@@ -51,10 +52,10 @@ public final class ClientListener extends Thread implements ClientInfo {
   private PrintOutput out;
   /** Current command. */
   private Command command;
+  /** Nonce of the digest authentication. */
+  private String nonce;
   /** Query id counter. */
   private int id;
-  /** Indicates if the server thread is running. */
-  private volatile boolean authenticated;
   /** Indicates if the server has been closed. */
   private boolean closed;
 
@@ -74,124 +75,170 @@ public final class ClientListener extends Thread implements ClientInfo {
 
   @Override
   public void run() {
-    if(!authenticate()) return;
+    if(authenticate()) {
+      while(process());
+    }
+  }
 
+  /**
+   * Processes a single client request.
+   * @return {@code true} if the session is still active
+   */
+  boolean process() {
+    command = null;
     try {
-      while(authenticated) {
-        command = null;
-        String cmd;
-        final ServerCmd sc;
-        try {
-          final int b = in.read();
-          if(b == -1) {
-            // end of stream: exit session
-            close();
-            break;
-          }
-
-          last = System.currentTimeMillis();
-          perf.ns();
-          sc = ServerCmd.get(b);
-          cmd = null;
-          if(sc == ServerCmd.CREATE) {
-            create();
-          } else if(sc == ServerCmd.ADD) {
-            add();
-          } else if(sc == ServerCmd.REPLACE) {
-            replace();
-          } else if(sc == ServerCmd.STORE) {
-            store();
-          } else if(sc != ServerCmd.COMMAND) {
-            query(sc);
-          } else {
-            // database command
-            cmd = new ByteList().add(b).add(in.readBytes()).toString();
-          }
-        } catch(final IOException ex) {
-          // this exception may be thrown if a session is stopped
-          Util.debug(ex);
+      String cmd;
+      final ServerCmd sc;
+      try {
+        final int b = in.read();
+        if(b == -1) {
+          // end of stream: exit session
           close();
-          break;
-        }
-        if(sc != ServerCmd.COMMAND) continue;
-
-        // parse input and create command instance
-        try {
-          command = CommandParser.get(cmd, context).parseSingle();
-          command.jc().tracer = PASS;
-          log(LogType.REQUEST, command.toString(true));
-        } catch(final QueryException ex) {
-          // log invalid command
-          final String msg = ex.getMessage();
-          log(LogType.REQUEST, cmd);
-          log(LogType.ERROR, msg);
-          // send 0 to mark end of potential result
-          out.write(0);
-          // send {INFO}0
-          out.print(msg);
-          out.write(0);
-          // send 1 to mark error
-          send(false);
-          continue;
+          return false;
         }
 
-        // execute command and send {RESULT}
-        boolean ok = true;
-        String info;
-        try {
-          // run command
-          command.execute(context, new ServerOutput(out));
-          info = command.info();
-        } catch(final BaseXException ex) {
-          Util.debug(ex);
-          ok = false;
-          info = ex.getMessage();
+        last = System.currentTimeMillis();
+        perf.ns();
+        sc = ServerCmd.get(b);
+        cmd = null;
+        if(sc == ServerCmd.CREATE) {
+          create();
+        } else if(sc == ServerCmd.ADD) {
+          add();
+        } else if(sc == ServerCmd.REPLACE) {
+          replace();
+        } else if(sc == ServerCmd.STORE) {
+          store();
+        } else if(sc != ServerCmd.COMMAND) {
+          query(sc);
+        } else {
+          // database command
+          cmd = new ByteList().add(b).add(in.readBytes()).toString();
         }
-
-        // send 0 to mark end of result
+      } catch(final IOException ex) {
+        // this exception may be thrown if a session is stopped
+        Util.debug(ex);
+        close();
+        return false;
+      }
+      if(sc != ServerCmd.COMMAND) return true;
+
+      // parse input and create command instance
+      try {
+        command = CommandParser.get(cmd, context).parseSingle();
+        command.jc().tracer = PASS;
+        log(LogType.REQUEST, command.toString(true));
+      } catch(final QueryException ex) {
+        // log invalid command
+        final String msg = ex.getMessage();
+        log(LogType.REQUEST, cmd);
+        log(LogType.ERROR, msg);
+        // send 0 to mark end of potential result
+        out.write(0);
+        // send {INFO}0
+        out.print(msg);
         out.write(0);
-        // send info
-        info(info, ok);
+        // send 1 to mark error
+        send(false);
+        return true;
+      }
 
-        // stop console
-        if(command instanceof Exit) {
-          command = null;
-          close();
-        }
+      // execute command and send {RESULT}
+      boolean ok = true;
+      String info;
+      try {
+        // run command
+        command.execute(context, new ServerOutput(out));
+        info = command.info();
+      } catch(final BaseXException ex) {
+        Util.debug(ex);
+        ok = false;
+        info = ex.getMessage();
       }
+
+      // send 0 to mark end of result
+      out.write(0);
+      // send info
+      info(info, ok);
+
+      // stop console
+      if(command instanceof Exit) {
+        command = null;
+        close();
+        return false;
+      }
+      command = null;
+      return true;
     } catch(final IOException ex) {
       log(LogType.ERROR, Util.message(ex));
       command = null;
       close();
+      return false;
     }
-    command = null;
   }
 
   /**
    * Initializes a session via digest authentication.
    * @return success flag
    */
-  private boolean authenticate() {
-    boolean auth = false;
+  boolean authenticate() {
+    if(!greet()) return false;
     try {
-      final String nonce = Long.toString(System.nanoTime());
-      final byte[] address = socket.getInetAddress().getAddress();
+      // receive {USER}0{DIGEST-HASH}0
+      final String name = in.readString(), hash = in.readString();
+      return login(name, user(name, hash));
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      server.remove(this);
+      return false;
+    }
+  }
 
+  /**
+   * Starts the digest authentication by sending a nonce to the client.
+   * @return success flag
+   */
+  boolean greet() {
+    try {
+      nonce = Long.toString(System.nanoTime());
       // send {REALM:TIMESTAMP}0
       out = PrintOutput.get(socket.getOutputStream());
       out.print(Prop.NAME + ':' + nonce);
       send(true);
-
-      // evaluate login data
       in = BufferInput.get(socket.getInputStream());
-      // receive {USER}0{DIGEST-HASH}0
-      final String name = in.readString(), hash = in.readString();
-      final User user = context.users.get(name);
-      auth = user != null &&
-          Strings.md5(user.code(Algorithm.DIGEST, Code.HASH) + nonce).equals(hash);
+      return true;
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      server.remove(this);
+      return false;
+    }
+  }
 
+  /**
+   * Returns the user with the specified login data.
+   * @param name user name
+   * @param hash digest hash
+   * @return user, or {@code null} if the login data is invalid
+   */
+  User user(final String name, final String hash) {
+    final User user = context.users.get(name);
+    return user != null &&
+        Strings.md5(user.code(Algorithm.DIGEST, Code.HASH) + nonce).equals(hash) ? user : null;
+  }
+
+  /**
+   * Completes the authentication. The response to invalid login data is delayed.
+   * @param name user name
+   * @param user user, or {@code null} if the login data is invalid
+   * @return success flag
+   */
+  boolean login(final String name, final User user) {
+    boolean auth = false;
+    try {
+      final byte[] address = socket.getInetAddress().getAddress();
       // write log information
-      if(auth) {
+      if(user != null) {
+        auth = true;
         context.user(user);
         // send {OK}
         send(true);
@@ -212,7 +259,6 @@ public final class ClientListener extends Thread implements ClientInfo {
     }
 
     server.remove(this);
-    authenticated = auth;
     return auth;
   }
 
@@ -248,6 +294,22 @@ public final class ClientListener extends Thread implements ClientInfo {
     return context;
   }
 
+  /**
+   * Returns the socket channel of this session.
+   * @return channel, or {@code null} if the socket was not created by a channel
+   */
+  SocketChannel channel() {
+    return socket.getChannel();
+  }
+
+  /**
+   * Checks if request data has already been buffered.
+   * @return result of check
+   */
+  boolean buffered() {
+    return in.buffered() > 0;
+  }
+
   @Override
   public String clientName() {
     final User user = context.user();
@@ -0,0 +1,264 @@
+package org.basex.server;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.core.users.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class multiplexes client sessions over a fixed number of worker threads.
+ *
+ * Idle connections are registered with a selector. If new input arrives, the connection
+ * is deregistered, switched to blocking mode and passed on to a worker thread, which processes
+ * all pending requests of the client. Afterwards, the connection is registered again.
+ * As the requests are processed by {@link ClientListener}, the wire protocol is the same as
+ * with one thread per session.
+ *
+ * The login data of new sessions is read by the selector thread without blocking. Worker threads
+ * are only occupied by requests that have been sent completely.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientSelector implements Runnable {
+  /** Selector. */
+  private final Selector selector;
+  /** Worker threads. */
+  private final ExecutorService workers;
+  /** Sessions to be registered. */
+  private final Queue<ClientListener> idle = new ConcurrentLinkedQueue<>();
+  /** New sessions to be registered for reading their login data. */
+  private final Queue<ClientListener> created = new ConcurrentLinkedQueue<>();
+  /** Buffer for reading login data (only accessed by the selector thread). */
+  private final ByteBuffer buffer = ByteBuffer.allocate(IO.BLOCKSIZE);
+  /** Indicates if the selector is running. */
+  private volatile boolean running = true;
+
+  /**
+   * Constructor.
+   * @param threads number of worker threads
+   * @throws IOException I/O exception
+   */
+  public ClientSelector(final int threads) throws IOException {
+    selector = Selector.open();
+
+    final AtomicInteger count = new AtomicInteger();
+    workers = Executors.newFixedThreadPool(threads, r -> {
+      final Thread thread = new Thread(r, "ClientWorker-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    final Thread thread = new Thread(this, "ClientSelector");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Starts a new session. The nonce is sent by the calling thread, and the login data is read
+   * by the selector thread.
+   * @param client client session
+   */
+  public void start(final ClientListener client) {
+    if(client.greet() && blocking(client, false)) {
+      created.add(client);
+      selector.wakeup();
+    }
+  }
+
+  @Override
+  public void run() {
+    final ArrayList<ClientListener> ready = new ArrayList<>();
+    final ArrayList<Login> logins = new ArrayList<>();
+    try {
+      while(running) {
+        selector.select();
+
+        // register new and idle sessions
+        for(ClientListener client; (client = created.poll()) != null;) {
+          register(client, new Login(client));
+        }
+        for(ClientListener client; (client = idle.poll()) != null;) register(client, client);
+
+        // deregister sessions with new requests or complete login data
+        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while(keys.hasNext()) {
+          final SelectionKey key = keys.next();
+          keys.remove();
+          final Object attachment = key.attachment();
+          if(attachment instanceof Login) {
+            final Login login = (Login) attachment;
+            if(!read(login)) continue;
+            logins.add(login);
+          } else {
+            ready.add((ClientListener) attachment);
+          }
+          key.cancel();
+        }
+        if(ready.isEmpty() && logins.isEmpty()) continue;
+
+        // complete deregistration before channels are switched to blocking mode
+        selector.selectNow();
+        for(final Login login : logins) login(login);
+        for(final ClientListener client : ready) workers.execute(() -> process(client));
+        logins.clear();
+        ready.clear();
+      }
+    } catch(final IOException | ClosedSelectorException ex) {
+      // thrown if selector has been closed
+      Util.debug(ex);
+    }
+  }
+
+  /**
+   * Stops the selector and the worker threads.
+   */
+  public void close() {
+    running = false;
+    workers.shutdownNow();
+    try {
+      selector.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Reads the login data of a client that is available without blocking.
+   * @param login login
+   * @return {@code true} if the login data is complete
+   */
+  private boolean read(final Login login) {
+    final ByteBuffer bb = buffer;
+    try {
+      while(true) {
+        bb.clear();
+        final int n = login.client.channel().read(bb);
+        // the client closed the connection: evaluate the data that has been received so far
+        if(n == -1) return true;
+        if(n == 0) return false;
+        for(int b = 0; b < n; b++) {
+          if(login.add(bb.get(b))) return true;
+        }
+      }
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      return true;
+    }
+  }
+
+  /**
+   * Completes the authentication of a client.
+   * Invalid logins are delayed, so they are completed by a separate thread.
+   * @param login login
+   */
+  private void login(final Login login) {
+    final ClientListener client = login.client;
+    final String name = login.name.toString(), hash = login.hash.toString();
+    if(!blocking(client, true)) return;
+
+    final User user = client.user(name, hash);
+    if(user != null) {
+      if(client.login(name, user)) register(client);
+    } else {
+      final Thread thread = new Thread(() -> client.login(name, null), "ClientLogin");
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /**
+   * Processes all requests of a client that have been sent so far.
+   * @param client client session
+   */
+  private void process(final ClientListener client) {
+    if(!blocking(client, true)) return;
+    boolean active;
+    do active = client.process(); while(active && client.buffered());
+    if(active) register(client);
+  }
+
+  /**
+   * Registers a client session as idle.
+   * @param client client session
+   */
+  private void register(final ClientListener client) {
+    if(blocking(client, false)) {
+      idle.add(client);
+      selector.wakeup();
+    }
+  }
+
+  /**
+   * Registers the channel of a client with the selector.
+   * @param client client session
+   * @param attachment attachment of the selection key
+   */
+  private void register(final ClientListener client, final Object attachment) {
+    try {
+      client.channel().register(selector, SelectionKey.OP_READ, attachment);
+    } catch(final IOException ex) {
+      // channel has been closed in the meantime
+      Util.debug(ex);
+      client.close();
+    }
+  }
+
+  /**
+   * Switches the channel of a client to blocking or non-blocking mode.
+   * The client is closed if the mode cannot be changed.
+   * @param client client session
+   * @param block blocking mode
+   * @return success flag
+   */
+  private static boolean blocking(final ClientListener client, final boolean block) {
+    try {
+      client.channel().configureBlocking(block);
+      return true;
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      client.close();
+      return false;
+    }
+  }
+
+  /** Login data of a client: {USER}0{DIGEST-HASH}0. */
+  private static final class Login {
+    /** Client session. */
+    private final ClientListener client;
+    /** User name. */
+    private final ByteList name = new ByteList();
+    /** Digest hash. */
+    private final ByteList hash = new ByteList();
+    /** Number of strings that have been completely read. */
+    private int strings;
+
+    /**
+     * Constructor.
+     * @param client client session
+     */
+    private Login(final ClientListener client) {
+      this.client = client;
+    }
+
+    /**
+     * Adds a byte.
+     * @param b byte
+     * @return {@code true} if the login data is complete
+     */
+    private boolean add(final byte b) {
+      if(b == 0) return ++strings == 2;
+      (strings == 0 ? name : hash).add(b);
+      return false;
+    }
+  }
+}
@@ -41,8 +41,15 @@ public final class Log implements QueryTracer {
   /** Static options. */
   private final StaticOptions sopts;
 
+  /** Lock for accessing the log file (never taken by request threads if entries are buffered). */
+  private final Object fileLock = new Object();
+
   /** Current log file. */
-  private LogFile file;
+  private volatile LogFile file;
+  /** Asynchronous writer (can be {@code null}). */
+  private volatile LogWriter writer;
+  /** Closed flag. */
+  private volatile boolean closed;
 
   /**
    * Constructor.
@@ -58,6 +65,7 @@ public final class Log implements QueryTracer {
    * @return log file, or {@code null} if it does not exist
    */
   public LogFile file(final String name) {
+    flush();
     LogFile lf = file;
     if(lf == null || !lf.valid(name)) lf = new LogFile(name, dir());
     return lf.exists() ? lf : null;
@@ -135,33 +143,54 @@ public final class Log implements QueryTracer {
     if(perf != null) tb.add('\t').add(perf);
     tb.add(Prop.NL);
 
+    // pass on entry to asynchronous writer, or write it directly
+    final String name = DateTime.format(date, DateTime.DATE);
+    final byte[] line = tb.finish();
+    final LogWriter lw = writer();
+    if(lw == null || !lw.add(name, line)) write(name, line);
+  }
+
+  /**
+   * Writes log entries to the specified log file.
+   * @param name name of log file
+   * @param lines log entries
+   */
+  void write(final String name, final byte[] lines) {
     try {
-      synchronized(sopts) {
+      synchronized(fileLock) {
         // create new log file and write log entry
-        final String name = DateTime.format(date, DateTime.DATE);
-        if(file != null && !file.valid(name)) close();
+        if(file != null && !file.valid(name)) closeFile();
         if(file == null) file = LogFile.create(name, dir());
         // write log entry
-        file.write(tb.finish());
+        file.write(lines);
       }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
   }
 
+  /**
+   * Waits until all buffered log entries have been written.
+   */
+  public void flush() {
+    final LogWriter lw = writer;
+    if(lw != null) lw.flush();
+  }
+
   /**
    * Closes the log file.
    */
   public void close() {
-    try {
-      synchronized(sopts) {
-        if(file != null) {
-          file.close();
-          file = null;
-        }
-      }
-    } catch(final IOException ex) {
-      Util.stack(ex);
+    // the writer must be closed without lock, as it needs to write pending entries
+    final LogWriter lw;
+    synchronized(this) {
+      lw = writer;
+      writer = null;
+      closed = true;
+    }
+    if(lw != null) lw.close();
+    synchronized(fileLock) {
+      closeFile();
     }
   }
 
@@ -170,9 +199,47 @@ public final class Log implements QueryTracer {
    * @return log directory
    */
   public IOFile[] files() {
+    flush();
     return dir().children(".*\\" + IO.LOGSUFFIX);
   }
 
+  /**
+   * Returns the asynchronous writer. The writer is created with the first log entry;
+   * afterwards, it is returned without locking.
+   * @return writer, or {@code null} if entries are to be written synchronously
+   */
+  private LogWriter writer() {
+    LogWriter lw = writer;
+    if(lw == null && !closed) {
+      final int size = sopts.get(StaticOptions.LOGBUFFER);
+      if(size > 0) {
+        synchronized(this) {
+          lw = writer;
+          if(lw == null && !closed) {
+            lw = new LogWriter(this, size, sopts.get(StaticOptions.LOGFLUSH));
+            lw.start();
+            writer = lw;
+          }
+        }
+      }
+    }
+    return lw;
+  }
+
+  /**
+   * Closes the current log file.
+   */
+  private void closeFile() {
+    if(file != null) {
+      try {
+        file.close();
+      } catch(final IOException ex) {
+        Util.stack(ex);
+      }
+      file = null;
+    }
+  }
+
   /**
    * Returns a reference to the log directory.
    * @return log directory
@@ -0,0 +1,186 @@
+package org.basex.server;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+import org.basex.util.*;
+
+/**
+ * Background thread for writing log entries. Entries are added to a bounded buffer and
+ * written in batches. If the buffer is full, the calling thread is blocked until
+ * space is available again, so no log entries will be lost. Entries that are added after the
+ * writer has been closed, or after the thread has terminated, are rejected and must be
+ * written synchronously.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class LogWriter extends Thread {
+  /** Buffered log entries. */
+  private final ArrayBlockingQueue<Entry> queue;
+  /** Log. */
+  private final Log log;
+  /** Flush interval (ms). */
+  private final long interval;
+  /** Lock for adding entries (shared) and closing the writer (exclusive). */
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** Number of added entries. */
+  private long added;
+  /** Number of written entries. */
+  private long written;
+  /** Flush request. */
+  private boolean flush;
+  /** Closed flag. */
+  private volatile boolean closed;
+
+  /**
+   * Constructor.
+   * @param log log
+   * @param size buffer size
+   * @param interval flush interval (ms)
+   */
+  LogWriter(final Log log, final int size, final long interval) {
+    super("LogWriter");
+    this.log = log;
+    this.interval = interval;
+    queue = new ArrayBlockingQueue<>(size);
+    setDaemon(true);
+  }
+
+  /**
+   * Adds an entry. Blocks if the buffer is full.
+   * @param name name of log file
+   * @param line log line
+   * @return success flag ({@code false} if the writer has been closed or has terminated)
+   */
+  boolean add(final String name, final byte[] line) {
+    final Entry entry = new Entry(name, line);
+    lock.readLock().lock();
+    try {
+      if(closed) return false;
+      // the writer cannot be closed while an entry is being added
+      while(!queue.offer(entry, 100, TimeUnit.MILLISECONDS)) {
+        if(!isAlive()) return false;
+      }
+      synchronized(this) {
+        added++;
+      }
+      return true;
+    } catch(final InterruptedException ex) {
+      Util.debug(ex);
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Waits until all entries that have been added so far have been written.
+   */
+  synchronized void flush() {
+    final long target = added;
+    flush = true;
+    notifyAll();
+    boolean interrupted = false;
+    while(written < target && isAlive()) {
+      try {
+        wait(1000);
+      } catch(final InterruptedException ex) {
+        Util.debug(ex);
+        interrupted = true;
+      }
+    }
+    flush = false;
+    if(interrupted) Thread.currentThread().interrupt();
+  }
+
+  /**
+   * Writes all pending entries and stops the thread.
+   */
+  void close() {
+    // wait until all entries that are currently being added are in the buffer
+    lock.writeLock().lock();
+    try {
+      closed = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    flush();
+    interrupt();
+    try {
+      join();
+    } catch(final InterruptedException ex) {
+      Util.debug(ex);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void run() {
+    final ArrayList<Entry> batch = new ArrayList<>();
+    boolean stop = false;
+    while(!stop) {
+      try {
+        // wait for first entry, then for the flush interval
+        batch.add(queue.take());
+        if(interval > 0) {
+          synchronized(this) {
+            final long end = System.currentTimeMillis() + interval;
+            for(long ms; !flush && !closed && (ms = end - System.currentTimeMillis()) > 0;) {
+              wait(ms);
+            }
+          }
+        }
+      } catch(final InterruptedException ex) {
+        // thread is interrupted when the writer is closed
+        Util.debug(ex);
+        stop = closed;
+      }
+      queue.drainTo(batch);
+      write(batch);
+    }
+  }
+
+  /**
+   * Writes a batch of entries.
+   * @param batch entries
+   */
+  private void write(final ArrayList<Entry> batch) {
+    // write consecutive entries of the same log file with a single call
+    final int bs = batch.size();
+    final TokenBuilder tb = new TokenBuilder();
+    for(int b = 0; b < bs; b++) {
+      final Entry entry = batch.get(b);
+      tb.add(entry.line);
+      if(b + 1 == bs || !batch.get(b + 1).name.equals(entry.name)) {
+        log.write(entry.name, tb.next());
+      }
+    }
+    batch.clear();
+    synchronized(this) {
+      written += bs;
+      notifyAll();
+    }
+  }
+
+  /** Log entry. */
+  private static final class Entry {
+    /** Name of log file. */
+    private final String name;
+    /** Log line. */
+    private final byte[] line;
+
+    /**
+     * Constructor.
+     * @param name name of log file
+     * @param line log line
+     */
+    private Entry(final String name, final byte[] line) {
+      this.name = name;
+      this.line = line;
+    }
+  }
+}
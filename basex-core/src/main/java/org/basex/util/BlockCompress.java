@@ -0,0 +1,161 @@
+package org.basex.util;
+
+import java.util.*;
+
+/**
+ * This class compresses and decompresses blocks of data. It uses a fast LZ77 variant, which is
+ * similar to the LZ4 block format: The compressed data consists of sequences. Each sequence
+ * starts with a token byte, which contains the number of literals (upper 4 bits) and the length
+ * of a match minus 4 (lower 4 bits). If a length is 15 or larger, the remaining length is stored
+ * in additional bytes with the value 255 and a final byte with a smaller value. The token is
+ * followed by the literals and the 2-byte offset of the match (little endian). The last sequence
+ * of a block contains no match.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class BlockCompress {
+  /** Minimum length of a match. */
+  private static final int MIN_MATCH = 4;
+  /** Maximum offset of a match. */
+  private static final int MAX_OFFSET = 0xFFFF;
+  /** Number of bits used for hashing. */
+  private static final int HASH_BITS = 12;
+  /** Number of final bytes that will always be stored as literals. */
+  private static final int LAST_LITERALS = 5;
+  /** Minimum input length for finding matches. */
+  private static final int MIN_LENGTH = 13;
+
+  /** Private constructor. */
+  private BlockCompress() { }
+
+  /**
+   * Compresses the specified data.
+   * @param data data
+   * @param len number of bytes to compress
+   * @return compressed data
+   */
+  public static byte[] pack(final byte[] data, final int len) {
+    final byte[] out = new byte[len + len / 255 + 16];
+    final int[] table = new int[1 << HASH_BITS];
+    final int limit = len - LAST_LITERALS - MIN_MATCH, end = len - LAST_LITERALS;
+
+    int o = 0, anchor = 0, p = 0, misses = 0;
+    while(len >= MIN_LENGTH && p <= limit) {
+      final int seq = read4(data, p), h = seq * 0x9E3779B1 >>> 32 - HASH_BITS;
+      int ref = table[h] - 1;
+      table[h] = p + 1;
+      if(ref < 0 || p - ref > MAX_OFFSET || read4(data, ref) != seq) {
+        // no match: skip bytes faster if data seems to be incompressible
+        p += 1 + (misses++ >>> 6);
+        continue;
+      }
+      misses = 0;
+
+      // extend match backward and forward
+      int m = MIN_MATCH;
+      while(p > anchor && ref > 0 && data[p - 1] == data[ref - 1]) {
+        p--;
+        ref--;
+        m++;
+      }
+      while(p + m < end && data[ref + m] == data[p + m]) m++;
+      o = sequence(data, anchor, p - anchor, p - ref, m, out, o);
+      p += m;
+      anchor = p;
+    }
+    o = sequence(data, anchor, len - anchor, 0, 0, out, o);
+    return Arrays.copyOf(out, o);
+  }
+
+  /**
+   * Decompresses the specified data.
+   * @param data compressed data
+   * @param len number of uncompressed bytes
+   * @return uncompressed data
+   */
+  public static byte[] unpack(final byte[] data, final int len) {
+    final byte[] out = new byte[len];
+    final int dl = data.length;
+    int i = 0, o = 0;
+    while(i < dl) {
+      final int token = data[i++] & 0xFF;
+      // copy literals
+      int l = token >>> 4;
+      if(l == 15) {
+        int b;
+        do l += b = data[i++] & 0xFF; while(b == 255);
+      }
+      System.arraycopy(data, i, out, o, l);
+      i += l;
+      o += l;
+      if(i >= dl) break;
+
+      // copy match (may overlap with the target range)
+      final int off = data[i++] & 0xFF | (data[i++] & 0xFF) << 8;
+      int m = token & 0x0F;
+      if(m == 15) {
+        int b;
+        do m += b = data[i++] & 0xFF; while(b == 255);
+      }
+      m += MIN_MATCH;
+      for(int s = o - off, e = o + m; o < e;) out[o++] = out[s++];
+    }
+    return out;
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Writes a sequence.
+   * @param data input data
+   * @param start offset of the first literal
+   * @param lits number of literals
+   * @param off offset of the match
+   * @param match length of the match ({@code 0}: last sequence without match)
+   * @param out output array
+   * @param pos output position
+   * @return new output position
+   */
+  private static int sequence(final byte[] data, final int start, final int lits, final int off,
+      final int match, final byte[] out, final int pos) {
+
+    int o = pos;
+    final int ml = match == 0 ? 0 : match - MIN_MATCH;
+    out[o++] = (byte) (Math.min(lits, 15) << 4 | Math.min(ml, 15));
+    if(lits >= 15) o = length(lits - 15, out, o);
+    System.arraycopy(data, start, out, o, lits);
+    o += lits;
+    if(match != 0) {
+      out[o++] = (byte) off;
+      out[o++] = (byte) (off >>> 8);
+      if(ml >= 15) o = length(ml - 15, out, o);
+    }
+    return o;
+  }
+
+  /**
+   * Writes the remaining bytes of a length.
+   * @param length length
+   * @param out output array
+   * @param pos output position
+   * @return new output position
+   */
+  private static int length(final int length, final byte[] out, final int pos) {
+    int l = length, o = pos;
+    for(; l >= 255; l -= 255) out[o++] = (byte) 255;
+    out[o++] = (byte) l;
+    return o;
+  }
+
+  /**
+   * Reads an integer value from the specified array.
+   * @param data data
+   * @param pos position
+   * @return value
+   */
+  private static int read4(final byte[] data, final int pos) {
+    return (data[pos] & 0xFF) << 24 | (data[pos + 1] & 0xFF) << 16 |
+      (data[pos + 2] & 0xFF) << 8 | data[pos + 3] & 0xFF;
+  }
+}
@@ -0,0 +1,95 @@
+package org.basex.util;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.core.jobs.*;
+
+/**
+ * This class runs tasks in parallel threads.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class Parallel {
+  /** Private constructor. */
+  private Parallel() { }
+
+  /**
+   * Task that may throw an I/O exception.
+   */
+  @FunctionalInterface
+  public interface Task {
+    /**
+     * Runs the task.
+     * @throws IOException I/O exception
+     */
+    void run() throws IOException;
+  }
+
+  /** Thread pool shared by all parallel tasks (lazy instantiation). */
+  private static ForkJoinPool pool;
+
+  /**
+   * Runs the specified tasks and waits until all of them have been finished.
+   * The tasks are run by a work-stealing thread pool, which is shared by all callers: The total
+   * number of threads is bounded by the number of processors, and nested calls will not block
+   * the threads of the pool. If a task fails, the remaining tasks will be stopped, and the first
+   * exception will be thrown after all tasks have been finished.
+   * @param tasks tasks to be run
+   * @param threads maximum number of tasks to be run at the same time
+   * @param stop function for stopping the remaining tasks
+   * @throws IOException I/O exception
+   */
+  public static void run(final List<Task> tasks, final int threads, final Runnable stop)
+      throws IOException {
+
+    final int tl = tasks.size(), tc = Math.max(1, Math.min(threads, tl));
+    final Throwable[] errors = new Throwable[tl];
+    final AtomicInteger next = new AtomicInteger();
+    // each worker runs tasks until all tasks have been started
+    final ArrayList<ForkJoinTask<?>> workers = new ArrayList<>(tc);
+    for(int w = 0; w < tc; w++) {
+      workers.add(ForkJoinTask.adapt(() -> {
+        for(int t; (t = next.getAndIncrement()) < tl;) {
+          try {
+            tasks.get(t).run();
+          } catch(final Throwable th) {
+            errors[t] = th;
+            stop.run();
+          }
+        }
+      }));
+    }
+
+    // fork tasks in a worker thread of the pool, submit them otherwise
+    final ForkJoinPool fjp = pool();
+    final boolean fork = ForkJoinTask.getPool() == fjp;
+    for(final ForkJoinTask<?> worker : workers) {
+      if(fork) worker.fork();
+      else fjp.execute(worker);
+    }
+    for(final ForkJoinTask<?> worker : workers) worker.join();
+
+    // remember first exception, prefer original errors to interruptions caused by stopped jobs
+    Throwable error = null;
+    for(final Throwable th : errors) {
+      if(th != null && (error == null || error instanceof JobException)) error = th;
+    }
+    if(error instanceof IOException) throw (IOException) error;
+    if(error instanceof RuntimeException) throw (RuntimeException) error;
+    if(error instanceof Error) throw (Error) error;
+    if(error != null) throw new IOException(error);
+  }
+
+  /**
+   * Returns the shared thread pool.
+   * @return thread pool
+   */
+  private static synchronized ForkJoinPool pool() {
+    if(pool == null) pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    return pool;
+  }
+}
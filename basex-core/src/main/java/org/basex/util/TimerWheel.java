@@ -0,0 +1,318 @@
+package org.basex.util;
+
+import java.util.*;
+
+/**
+ * Hierarchical timer wheel. All tasks are managed by a single daemon thread, which is started
+ * when the first task is scheduled and which waits as long as no tasks exist. Scheduling and
+ * canceling a task takes constant time.
+ *
+ * The wheel has {@link #LEVELS} levels with {@link #SLOTS} slots each. The slots of the first
+ * level cover one tick, the slots of each subsequent level cover all slots of the previous level.
+ * Whenever the ticks of a slot of a higher level are reached, its tasks are moved to the lower
+ * levels. Tasks of the first level are run when their tick is reached. The timer thread sleeps
+ * until the tick of the next occupied slot is reached.
+ *
+ * Tasks are run by the timer thread: they must complete quickly and should delegate
+ * expensive work to other threads.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class TimerWheel {
+  /** Duration of a tick (ms). */
+  private static final long TICK = 10;
+  /** Duration of a tick (ns). */
+  private static final long NS = TICK * 1000000;
+  /** Number of bits per level. */
+  private static final int BITS = 6;
+  /** Number of slots per level. */
+  private static final int SLOTS = 1 << BITS;
+  /** Number of levels (covers more than 20 years). */
+  private static final int LEVELS = 6;
+  /** Maximum number of ticks that can be represented by the wheel. */
+  private static final long MAX = (1L << LEVELS * BITS) - 1;
+
+  /** Slots with doubly linked task lists. */
+  private final Task[][] slots = new Task[LEVELS][SLOTS];
+  /** Start time (ns). */
+  private final long start = System.nanoTime();
+  /** Current tick. */
+  private long tick;
+  /** Number of scheduled tasks. */
+  private int size;
+  /** Tick until which the timer thread waits. */
+  private long wakeup = Long.MAX_VALUE;
+  /** Timer thread (lazy instantiation). */
+  private Thread thread;
+  /** Closed flag. */
+  private boolean closed;
+
+  /**
+   * Schedules a task for single execution.
+   * @param task task
+   * @param delay delay (ms)
+   * @return task
+   */
+  public Task schedule(final Runnable task, final long delay) {
+    return schedule(task(task), delay, 0);
+  }
+
+  /**
+   * Schedules a task for repeated execution at a fixed rate.
+   * @param task task
+   * @param delay delay (ms)
+   * @param interval interval (ms)
+   * @return task
+   */
+  public Task schedule(final Runnable task, final long delay, final long interval) {
+    return schedule(task(task), delay, interval);
+  }
+
+  /**
+   * Schedules a task.
+   * @param task task
+   * @param delay delay (ms)
+   * @param interval interval (ms; no repetition: {@code 0})
+   * @return task
+   */
+  public synchronized Task schedule(final Task task, final long delay, final long interval) {
+    if(task.wheel != null) throw new IllegalStateException("Task has already been scheduled.");
+    task.wheel = this;
+    if(closed) {
+      task.canceled = true;
+      return task;
+    }
+
+    // compute tick of the first execution (at least one tick ahead).
+    // the current tick may lag behind while the timer thread is waiting
+    final long now = now();
+    if(size == 0) tick = Math.max(tick, now);
+    final long first = (System.nanoTime() - start + Math.max(0, delay) * 1000000 + NS - 1) / NS;
+    task.deadline = Math.max(Math.max(tick, now) + 1, first);
+    task.interval = interval > 0 ? Math.max(1, (interval + TICK - 1) / TICK) : 0;
+    add(task);
+    size++;
+
+    if(thread == null) {
+      thread = new Thread(this::run, "TimerWheel");
+      thread.setDaemon(true);
+      thread.start();
+    } else if(task.deadline < wakeup) {
+      notifyAll();
+    }
+    return task;
+  }
+
+  /**
+   * Cancels all tasks and stops the timer thread.
+   */
+  public synchronized void close() {
+    for(final Task[] level : slots) {
+      for(int s = 0; s < SLOTS; s++) {
+        for(Task task = level[s]; task != null; task = task.next) task.canceled = true;
+        level[s] = null;
+      }
+    }
+    size = 0;
+    closed = true;
+    notifyAll();
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Main loop of the timer thread.
+   */
+  private void run() {
+    final ArrayList<Task> expired = new ArrayList<>();
+    while(true) {
+      synchronized(this) {
+        try {
+          while(!closed && size == 0) wait();
+          if(closed) return;
+          final long now = now();
+          while(tick < now && size > 0) advance(expired);
+          if(expired.isEmpty() && size > 0) {
+            // wait until the next occupied slot is reached, or until an earlier task is scheduled
+            wakeup = next();
+            final long ms = (wakeup * NS + start - System.nanoTime() + 999999) / 1000000;
+            if(ms > 0) wait(ms);
+            wakeup = Long.MAX_VALUE;
+          }
+        } catch(final InterruptedException ex) {
+          Util.debug(ex);
+          return;
+        }
+      }
+      // run expired tasks outside the lock
+      for(final Task task : expired) {
+        try {
+          task.run();
+        } catch(final Throwable th) {
+          Util.stack(th);
+        }
+      }
+      // reschedule repeated tasks
+      synchronized(this) {
+        for(final Task task : expired) {
+          if(task.interval > 0 && !task.canceled && !closed) {
+            // skip executions that have been missed
+            task.deadline = Math.max(task.deadline + task.interval, tick + 1);
+            add(task);
+            size++;
+          }
+        }
+      }
+      expired.clear();
+    }
+  }
+
+  /**
+   * Advances the wheel by one tick and collects the expired tasks.
+   * @param expired list for expired tasks
+   */
+  private void advance(final ArrayList<Task> expired) {
+    final long t = ++tick;
+    // move tasks of higher levels to lower levels
+    for(int l = 1; l < LEVELS && (t & (1L << l * BITS) - 1) == 0; l++) {
+      final int s = (int) (t >>> l * BITS) & SLOTS - 1;
+      Task task = slots[l][s];
+      slots[l][s] = null;
+      while(task != null) {
+        final Task next = task.next;
+        add(task);
+        task = next;
+      }
+    }
+    // collect expired tasks
+    final int s = (int) t & SLOTS - 1;
+    Task task = slots[0][s];
+    slots[0][s] = null;
+    while(task != null) {
+      final Task next = task.next;
+      task.prev = null;
+      task.next = null;
+      if(task.deadline > t) {
+        // deadline exceeded the range of the wheel: add again
+        add(task);
+      } else {
+        task.level = -1;
+        size--;
+        expired.add(task);
+      }
+      task = next;
+    }
+  }
+
+  /**
+   * Returns the first tick at which tasks will be run or moved to lower levels.
+   * @return tick
+   */
+  private long next() {
+    long next = tick + MAX;
+    for(int l = 0; l < LEVELS; l++) {
+      // slots of higher levels are processed when the ticks of all lower levels are 0
+      final int shift = l * BITS;
+      final long base = tick >>> shift;
+      for(int i = 1; i <= SLOTS; i++) {
+        if(slots[l][(int) (base + i) & SLOTS - 1] != null) {
+          next = Math.min(next, base + i << shift);
+          break;
+        }
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Adds a task to the slot of its deadline.
+   * @param task task
+   */
+  private void add(final Task task) {
+    // choose the level of the highest bit in which the deadline and the current tick differ
+    final long d = Math.min(task.deadline, tick + MAX), diff = d ^ tick;
+    final int l = Math.min(LEVELS - 1, (63 - Long.numberOfLeadingZeros(diff | 1)) / BITS);
+    final int s = (int) (d >>> l * BITS) & SLOTS - 1;
+    final Task head = slots[l][s];
+    task.level = l;
+    task.slot = s;
+    task.prev = null;
+    task.next = head;
+    if(head != null) head.prev = task;
+    slots[l][s] = task;
+  }
+
+  /**
+   * Removes a task from its slot.
+   * @param task task
+   * @return {@code true} if the task was scheduled
+   */
+  private synchronized boolean remove(final Task task) {
+    final boolean scheduled = !task.canceled && (task.level != -1 || task.interval > 0);
+    task.canceled = true;
+    if(task.level == -1) return scheduled;
+
+    if(task.prev != null) task.prev.next = task.next;
+    else slots[task.level][task.slot] = task.next;
+    if(task.next != null) task.next.prev = task.prev;
+    task.prev = null;
+    task.next = null;
+    task.level = -1;
+    size--;
+    return scheduled;
+  }
+
+  /**
+   * Returns the current tick.
+   * @return tick
+   */
+  private long now() {
+    return (System.nanoTime() - start) / NS;
+  }
+
+  /**
+   * Wraps a runnable into a task.
+   * @param runnable runnable
+   * @return task
+   */
+  private static Task task(final Runnable runnable) {
+    return new Task() {
+      @Override
+      public void run() {
+        runnable.run();
+      }
+    };
+  }
+
+  /**
+   * Task that can be scheduled by a timer wheel.
+   */
+  public abstract static class Task implements Runnable {
+    /** Timer wheel (assigned when the task is scheduled). */
+    private volatile TimerWheel wheel;
+    /** Tick of the next execution. */
+    private long deadline;
+    /** Interval (ticks; no repetition: {@code 0}). */
+    private long interval;
+    /** Level of the slot ({@code -1}: not assigned). */
+    private int level = -1;
+    /** Slot. */
+    private int slot;
+    /** Previous task in the slot. */
+    private Task prev;
+    /** Next task in the slot. */
+    private Task next;
+    /** Canceled flag. */
+    private boolean canceled;
+
+    /**
+     * Cancels the task. The task can be canceled while it is being run.
+     * @return {@code true} if future executions were prevented
+     */
+    public boolean cancel() {
+      final TimerWheel tw = wheel;
+      return tw != null && tw.remove(this);
+    }
+  }
+}
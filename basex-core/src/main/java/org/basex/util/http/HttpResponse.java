@@ -9,6 +9,7 @@ import java.util.*;
 import java.util.Map.*;
 
 import org.basex.core.*;
+import org.basex.io.*;
 import org.basex.query.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
@@ -23,6 +24,9 @@ import org.basex.util.*;
  * @author Rositsa Shadura
  */
 public final class HttpResponse {
+  /** Maximum number of bytes that will be consumed from an unread response. */
+  private static final int DRAIN = 1 << 16;
+
   /** Input information. */
   private final InputInfo info;
   /** Database options. */
@@ -92,10 +96,22 @@ public final class HttpResponse {
       try {
         response.add(hp.parse(type, error, conn.getHeaderField(CONTENT_ENCODING)));
         if(body) items.add(hp.payloads());
+        drain(is);
       } finally {
         is.close();
       }
     }
     return items.value();
   }
+
+  /**
+   * Consumes a small remainder of the response. Connections will only be kept alive and reused
+   * by subsequent requests to the same host if the response has been read completely.
+   * @param is input stream
+   * @throws IOException I/O Exception
+   */
+  private static void drain(final InputStream is) throws IOException {
+    final byte[] buffer = new byte[IO.BLOCKSIZE];
+    for(int r = 0; r < DRAIN && is.read(buffer) != -1; r += buffer.length);
+  }
 }
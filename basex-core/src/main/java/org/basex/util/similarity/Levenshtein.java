@@ -75,18 +75,33 @@ public final class Levenshtein {
    * @return true if the arrays are similar
    */
   public boolean similar(final byte[] token, final byte[] sub, final int err) {
+    return mismatch(token, sub, err) == -1;
+  }
+
+  /**
+   * Compares two character arrays for similarity. If the arrays are not similar, the length of
+   * the shortest prefix of the first token is returned that rules out a similarity:
+   * all other tokens starting with the same prefix will not be similar either.
+   * @param token token to be compared
+   * @param sub second token to be compared
+   * @param err number of allowed errors; dynamic calculation if value is 0
+   * @return {@code -1} if the arrays are similar, or length of the prefix (in bytes)
+   */
+  public int mismatch(final byte[] token, final byte[] sub, final int err) {
     final int sl = sub.length, tl = token.length;
     int slen = 0, tlen = 0;
     for(int s = 0; s < sl; s += cl(sub, s)) ++slen;
     for(int t = 0; t < tl; t += cl(token, t)) ++tlen;
-    if(tlen == 0) return false;
+    if(tlen == 0) return tl;
 
     // use exact search for too short and too long values
-    if(err == 0 && slen < 4 || tlen > MAX || slen > MAX) return slen == tlen && same(token, sub);
+    if(err == 0 && slen < 4 || tlen > MAX || slen > MAX) {
+      return slen == tlen && same(token, sub) ? -1 : tl;
+    }
 
     // skip different tokens with too different lengths
     final int k = err == 0 ? Math.max(1, slen >> 2) : err;
-    return Math.abs(slen - tlen) <= k && ls(token, tlen, sub, slen, k);
+    return Math.abs(slen - tlen) <= k ? ls(token, tlen, sub, slen, k) : tl;
   }
 
   /**
@@ -96,9 +111,10 @@ public final class Levenshtein {
    * @param sb sub token to be compared
    * @param sl string length
    * @param k maximum number of accepted errors
-   * @return true if the arrays are similar
+   * @return {@code -1} if the arrays are similar, or length of the prefix that rules out
+   *   a similarity
    */
-  private boolean ls(final byte[] tk, final int tl, final byte[] sb, final int sl, final int k) {
+  private int ls(final byte[] tk, final int tl, final byte[] sb, final int sl, final int k) {
     int[][] mx = matrix;
     if(mx == null) {
       mx = new int[MAX + 2][MAX + 2];
@@ -122,10 +138,11 @@ public final class Levenshtein {
         d = Math.min(d, c);
         f2 = f;
       }
-      if(d > k) return false;
+      // the current row only depends on the characters of the token that have been parsed so far
+      if(d > k) return t + cl(tk, t);
       e2 = e;
     }
-    return mx[tl][sl] <= k;
+    return mx[tl][sl] <= k ? -1 : tk.length;
   }
 
   /**
@@ -0,0 +1,186 @@
+package org.basex.data;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.basex.query.value.node.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for reading snapshots of databases that are updated.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class SnapshotTest extends SandboxTest {
+  /** Root of the test database. */
+  private static final String ROOT = _DB_OPEN.args(NAME) + "/*";
+  /** Initial database. */
+  private static final String XML = "<a>{ (1 to 5000) ! <x a='{ . }'>{ 'text' || . }</x> }</a>";
+
+  /** Enables snapshots. */
+  @BeforeEach public void init() {
+    set(MainOptions.SNAPSHOTS, true);
+  }
+
+  /** Drops the test database. */
+  @AfterEach public void finish() {
+    set(MainOptions.SNAPSHOTS, false);
+    set(MainOptions.BLOCKCOMPRESS, false);
+    set(MainOptions.UPDINDEX, false);
+    set(MainOptions.FTINDEX, false);
+    execute(new DropDB(NAME));
+  }
+
+  /** Snapshots are not affected by updates. */
+  @Test public void update() {
+    update(false);
+  }
+
+  /** Snapshots of databases with compressed text blocks are not affected by updates. */
+  @Test public void updateBlocks() {
+    update(true);
+  }
+
+  /**
+   * Readers access snapshots of databases that are currently write-locked.
+   * @throws Exception exception
+   */
+  @Test public void locked() throws Exception {
+    execute(new CreateDB(NAME, query(XML)));
+    final String count = "count(" + ROOT + "/x)";
+    final Thread writer = new Thread(() -> query("if(" + _PROF_SLEEP.args(2000) + ") then () "
+        + "else delete node (" + ROOT + "/x)[position() <= 100]"));
+    writer.start();
+    Performance.sleep(500);
+
+    // reader will not wait for the writer
+    final long time = System.nanoTime();
+    assertEquals("5000", query(count));
+    assertTrue(System.nanoTime() - time < 1500000000L);
+
+    writer.join();
+    assertEquals("4900", query(count));
+  }
+
+  /**
+   * Readers that may access index structures wait for the writer.
+   * @throws Exception exception
+   */
+  @Test public void lockedIndex() throws Exception {
+    set(MainOptions.UPDINDEX, true);
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, query(XML)));
+    final Thread writer = new Thread(() -> query("if(" + _PROF_SLEEP.args(2000) + ") then () "
+        + "else delete node (" + ROOT + "/x)[position() > 4900]"));
+    writer.start();
+    Performance.sleep(500);
+
+    // reader waits for the writer, and the index structures are up-to-date
+    final long time = System.nanoTime();
+    assertEquals("0", query("count(" + _DB_TEXT.args(NAME, "text4950") + ")"));
+    assertTrue(System.nanoTime() - time > 1000000000L);
+    writer.join();
+
+    assertEquals("0", query("count(" + _FT_SEARCH.args(NAME, "text4950") + ")"));
+    assertEquals("0", query("count(" + ROOT + "/x[text() = 'text4950'])"));
+    assertEquals("1", query("count(" + ROOT + "/x[text() = 'text4900'])"));
+  }
+
+  /**
+   * Readers with a partial context wait for the writer.
+   * @throws Exception exception
+   */
+  @Test public void lockedPartial() throws Exception {
+    execute(new CreateDB(NAME));
+    execute(new Add("a.xml", query(XML)));
+    execute(new Add("b.xml", query(XML)));
+    execute(new Add("c.xml", query(XML)));
+    final Context reader = new Context(context);
+    reader.user(context.user());
+    try {
+      new Open(NAME, "b.xml").execute(reader);
+      final Thread writer = new Thread(() -> query("if(" + _PROF_SLEEP.args(2000) + ") then () "
+          + "else delete node " + _DB_OPEN.args(NAME, "c.xml") + "/*/x[position() <= 100]"));
+      writer.start();
+      Performance.sleep(500);
+
+      // reader waits for the writer, and its context still refers to the opened document
+      final long time = System.nanoTime();
+      assertEquals("5000", new XQuery("count(*/x)").execute(reader));
+      assertTrue(System.nanoTime() - time > 1000000000L);
+      writer.join();
+    } finally {
+      new Close().execute(reader);
+    }
+  }
+
+  /**
+   * Updates a database while snapshots are read.
+   * @param blocks compressed text blocks
+   */
+  private static void update(final boolean blocks) {
+    set(MainOptions.BLOCKCOMPRESS, blocks);
+    execute(new CreateDB(NAME, query(XML)));
+    final Data data = context.data();
+    final String texts = texts(data);
+
+    final Data snapshot = data.snapshot();
+    assertNotNull(snapshot);
+    try {
+      for(int u = 0; u < 5; u++) {
+        query("delete node " + ROOT + "/x[position() mod 7 = 0]");
+        query("for $x in " + ROOT + "/x[position() mod 3 = 0] "
+            + "return replace value of node $x with 'new' || $x");
+        query("insert node (1 to 1000) ! <y>{ . }</y> into " + ROOT);
+        query("for $x in " + ROOT + "/x[position() mod 5 = 0] "
+            + "return replace value of node $x/@a with 'new' || $x/@a");
+        assertEquals(texts, texts(snapshot));
+      }
+      // new snapshot reflects the current state of the database
+      final Data current = data.snapshot();
+      assertNotNull(current);
+      try {
+        assertEquals(texts(data), texts(current));
+      } finally {
+        current.close();
+      }
+    } finally {
+      snapshot.close();
+    }
+
+    // database is consistent after closing the snapshot and reopening it
+    final String updated = texts(data);
+    query("delete node " + ROOT + "/y[position() mod 2 = 0]");
+    final String deleted = texts(data);
+    assertNotEquals(updated, deleted);
+    execute(new Close());
+    execute(new Open(NAME));
+    assertEquals(deleted, texts(context.data()));
+    execute(new CreateIndex(CmdIndex.TEXT));
+    assertEquals(deleted, texts(context.data()));
+  }
+
+  /**
+   * Returns a string representation of all texts and attribute values of a database.
+   * @param data data reference
+   * @return string
+   */
+  private static String texts(final Data data) {
+    final StringBuilder sb = new StringBuilder();
+    final int size = data.meta.size;
+    for(int pre = 0; pre < size; pre++) {
+      final int kind = data.kind(pre);
+      if(kind == Data.TEXT || kind == Data.ATTR) {
+        sb.append(Token.string(new DBNode(data, pre).string())).append('|');
+      }
+    }
+    return sb.toString();
+  }
+}
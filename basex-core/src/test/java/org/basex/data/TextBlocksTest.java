@@ -0,0 +1,102 @@
+package org.basex.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for databases with compressed text blocks.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class TextBlocksTest extends SandboxTest {
+  /** Test file. */
+  private static final String FILE = "src/test/resources/factbook.zip";
+  /** Name of the reference database. */
+  private static final String REF = NAME + "ref";
+  /** Query for all texts and attribute values. */
+  private static final String TEXTS = "string-join(//(text() | @* | comment() | "
+      + "processing-instruction()), '|')";
+
+  /** Creates the test databases. */
+  @BeforeEach public void init() {
+    execute(new CreateDB(REF, FILE));
+    set(MainOptions.BLOCKCOMPRESS, true);
+    execute(new CreateDB(NAME, FILE));
+    set(MainOptions.BLOCKCOMPRESS, false);
+  }
+
+  /** Drops the test databases. */
+  @AfterEach public void finish() {
+    set(MainOptions.BLOCKCOMPRESS, false);
+    execute(new DropDB(NAME));
+    execute(new DropDB(REF));
+  }
+
+  /** Reads texts. */
+  @Test public void read() {
+    check();
+    assertTrue(size(NAME, DataText.DATAATV) * 2 < size(REF, DataText.DATAATV));
+    assertEquals(query("count(db:open('" + REF + "')//*[text() = 'Europe'])"),
+        query("count(db:open('" + NAME + "')//*[text() = 'Europe'])"));
+    assertEquals(query("sum(db:open('" + REF + "')//@population ! string-length())"),
+        query("sum(db:open('" + NAME + "')//@population ! string-length())"));
+  }
+
+  /** Updates texts, reopens and optimizes the database. */
+  @Test public void update() {
+    for(final String db : new String[] { NAME, REF }) {
+      final String root = "db:open('" + db + "')";
+      query("for $t in " + root + "//text()[position() mod 5 = 0] "
+          + "return replace value of node $t with upper-case($t)");
+      query("for $a in " + root + "//@*[position() mod 3 = 0] "
+          + "return replace value of node $a with $a || $a");
+      query("insert node <new a='{ (1 to 100) ! 'x' }'>{ (1 to 10000) ! string() }</new> "
+          + "into " + root + "/*");
+      query("delete node " + root + "//text()[position() mod 7 = 0]");
+    }
+    check();
+    execute(new Open(NAME));
+    execute(new Close());
+    check();
+    // optimize database: keep block compression
+    set(MainOptions.BLOCKCOMPRESS, true);
+    execute(new Open(NAME));
+    execute(new OptimizeAll());
+    execute(new Close());
+    assertTrue(size(NAME, DataText.DATAATV + 'b') > 0);
+    check();
+
+    // optimize database: disable block compression
+    set(MainOptions.BLOCKCOMPRESS, false);
+    execute(new Open(NAME));
+    execute(new OptimizeAll());
+    execute(new Close());
+    assertEquals(0, size(NAME, DataText.DATAATV + 'b'));
+    check();
+  }
+
+  /**
+   * Compares the texts of both databases.
+   */
+  private static void check() {
+    assertEquals(query("db:open('" + REF + "') ! " + TEXTS),
+        query("db:open('" + NAME + "') ! " + TEXTS));
+  }
+
+  /**
+   * Returns the size of a database file.
+   * @param db database
+   * @param file file name
+   * @return size
+   */
+  private static long size(final String db, final String file) {
+    return new IOFile(context.soptions.dbPath(db), file + IO.BASEXSUFFIX).length();
+  }
+}
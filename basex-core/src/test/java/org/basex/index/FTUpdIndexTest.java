@@ -0,0 +1,237 @@
+package org.basex.index;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the incremental update of the full-text index.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class FTUpdIndexTest extends SandboxTest {
+  /** Name of the reference database without full-text index. */
+  private static final String REF = NAME + "ref";
+  /** Search terms. */
+  private static final String[] TERMS = { "apple", "banana", "cherry", "date", "ban*", "appel" };
+
+  /** Initializes a test. */
+  @BeforeEach public void init() {
+    set(MainOptions.UPDINDEX, true);
+  }
+
+  /** Finalizes a test. */
+  @AfterEach public void finish() {
+    set(MainOptions.UPDINDEX, false);
+    set(MainOptions.FTINDEX, false);
+    set(MainOptions.FTINCLUDE, "");
+    execute(new DropDB(NAME));
+    execute(new DropDB(REF));
+  }
+
+  /** Small database: updates are merged with the main index files. */
+  @Test public void merge() {
+    create(10);
+    check();
+    update();
+    check();
+    reopen();
+    check();
+  }
+
+  /** Large database: updates are stored in a delta structure. */
+  @Test public void delta() {
+    create(20000);
+    update();
+    assertTrue(file("d").exists());
+    check();
+    reopen();
+    check();
+    execute(new Open(NAME));
+    execute(new Optimize());
+    execute(new Close());
+    check();
+
+    // large updates will trigger a merge
+    for(final String db : new String[] { NAME, REF }) {
+      query("insert node (1 to 20000) ! <a>cherry { . }</a> into db:open('" + db + "')/x");
+    }
+    assertFalse(file("d").exists());
+    check();
+    update();
+    assertTrue(file("d").exists());
+    check();
+  }
+
+  /** Opened database: large updates are merged in the background. */
+  @Test public void background() {
+    create(20000);
+    execute(new Open(NAME));
+    for(final String db : new String[] { NAME, REF }) {
+      query("insert node (1 to 20000) ! <a>cherry { . }</a> into db:open('" + db + "')/x");
+    }
+    // changes are appended to a second delta file until the merge has been completed
+    assertTrue(file("e").exists());
+    check();
+    update();
+    check();
+    execute(new Close());
+    for(final String name : new String[] { "e", "m", "mx", "1x" }) {
+      assertFalse(file(name).exists(), name);
+    }
+    check();
+    reopen();
+    check();
+  }
+
+  /** Included element names. */
+  @Test public void ftinclude() {
+    set(MainOptions.FTINCLUDE, "a");
+    create(10);
+    update();
+    query("for $n in db:open('" + NAME + "')//b return rename node $n as 'a'");
+    query("for $n in db:open('" + REF + "')//b return rename node $n as 'a'");
+    check("//a/text()");
+    for(final String db : new String[] { NAME, REF }) {
+      query("for $n in db:open('" + db + "')//a[position() mod 2 = 0] "
+          + "return rename node $n as 'b'");
+    }
+    check("//a/text()");
+    reopen();
+    check("//a/text()");
+  }
+
+  /** Full-text indexes of older versions, which store pre values, are recreated. */
+  @Test public void preValues() {
+    create(10);
+    update();
+    // simulate an index without node ids
+    execute(new Open(NAME));
+    context.data().meta.ftids = false;
+    context.data().meta.dirty = true;
+    execute(new Close());
+
+    execute(new Open(NAME));
+    assertEquals("false", query(_DB_INFO.args(NAME) + "//ftindex = 'true'"));
+    execute(new Optimize());
+    execute(new Close());
+    check();
+  }
+
+  /**
+   * Interrupted merges are completed or discarded.
+   * @throws IOException I/O exception
+   */
+  @Test public void recover() throws IOException {
+    create(10);
+
+    // incomplete merge: merged files are discarded
+    file("1x").write(Token.token("x"));
+    file("mx").write(Token.token("x"));
+    reopen();
+    assertFalse(file("1x").exists());
+    assertFalse(file("mx").exists());
+    check();
+
+    // merged files have been written, swap has been interrupted
+    for(final String name : new String[] { "x", "y", "z" }) file(name).copyTo(file('m' + name));
+    file("m").write(Token.EMPTY);
+    assertTrue(file("x").delete());
+    assertTrue(file("mx").rename(file("x")));
+    assertTrue(file("y").delete());
+    reopen();
+    for(final String name : new String[] { "m", "mx", "my", "mz" }) {
+      assertFalse(file(name).exists(), name);
+    }
+    check();
+    update();
+    check();
+  }
+
+  /**
+   * Creates the test databases.
+   * @param size number of elements
+   */
+  private static void create(final int size) {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 0; i < size; i++) {
+      sb.append("<a>apple ").append(i).append("</a><b>banana date</b>");
+    }
+    final String input = sb.append("</x>").toString();
+    set(MainOptions.FTINDEX, false);
+    execute(new CreateDB(REF, input));
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, input));
+  }
+
+  /**
+   * Performs updates on both databases.
+   */
+  private static void update() {
+    for(final String db : new String[] { NAME, REF }) {
+      final String root = "db:open('" + db + "')/x";
+      query("insert node (<a>cherry apple</a>, <b>bananas</b>) into " + root);
+      query("delete node " + root + "/a[1]");
+      query("replace value of node " + root + "/b[2]/text() with 'cherry pie'");
+      query("for $t in " + root + "/a[position() <= 2]/text() "
+          + "return replace value of node $t with 'date ' || $t");
+      query("insert node <a>apple<c>banana cherry</c></a> as first into " + root);
+      query("delete node " + root + "/a[last()]");
+    }
+  }
+
+  /**
+   * Returns a file of the full-text index.
+   * @param name name of the file, without prefix and suffix
+   * @return file
+   */
+  private static IOFile file(final String name) {
+    return new IOFile(context.soptions.dbPath(NAME), DataText.DATAFTX + name + IO.BASEXSUFFIX);
+  }
+
+  /**
+   * Closes and reopens the database with the full-text index.
+   */
+  private static void reopen() {
+    execute(new Close());
+    execute(new Open(NAME));
+    execute(new Close());
+  }
+
+  /**
+   * Compares the results of index-based and sequential full-text queries.
+   */
+  private static void check() {
+    check("//text()");
+  }
+
+  /**
+   * Compares the results of index-based and sequential full-text queries.
+   * @param path path to the indexed text nodes
+   */
+  private static void check(final String path) {
+    assertEquals("true", query(_DB_INFO.args(NAME) + "//ftindex = 'true'"));
+    for(final String term : TERMS) {
+      final String options = term.endsWith("*") ? " using wildcards" :
+        term.equals("appel") ? " using fuzzy" : "";
+      final String search = " contains text '" + term + "'" + options;
+      final String expected = query("count(db:open('" + REF + "')" + path + "[." + search + "])");
+      final String query = "count(db:open('" + NAME + "')" + path + "[." + search + "])";
+      assertEquals(expected, query(query), query);
+      assertEquals(expected, query("count(" + _FT_SEARCH.args(NAME, term,
+          " map { " + (options.isEmpty() ? "" : "'" + options.substring(7) + "': true()")
+          + " }") + ")"), term);
+    }
+  }
+}
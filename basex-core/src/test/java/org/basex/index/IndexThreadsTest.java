@@ -0,0 +1,121 @@
+package org.basex.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for building index structures with multiple threads.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexThreadsTest extends SandboxTest {
+  /** Number of elements. */
+  private static final int SIZE = 200000;
+
+  /** Initializes a test. */
+  @BeforeEach public void init() {
+    set(MainOptions.INDEXTHREADS, 4);
+    set(MainOptions.TOKENINDEX, true);
+    // enforce partial index structures
+    set(MainOptions.SPLITSIZE, 1);
+  }
+
+  /** Finalizes a test. */
+  @AfterEach public void finish() {
+    execute(new DropDB(NAME));
+    set(MainOptions.INDEXTHREADS, 1);
+    set(MainOptions.TOKENINDEX, false);
+    set(MainOptions.SPLITSIZE, 0);
+    set(MainOptions.UPDINDEX, false);
+  }
+
+  /** Creates indexes. */
+  @Test public void create() {
+    createDB();
+    check();
+  }
+
+  /** Creates incremental indexes. */
+  @Test public void updindex() {
+    set(MainOptions.UPDINDEX, true);
+    createDB();
+    check();
+  }
+
+  /** Rebuilds indexes. */
+  @Test public void optimize() {
+    createDB();
+    execute(new OptimizeAll());
+    check();
+    execute(new DropIndex(CmdIndex.TEXT));
+    execute(new CreateIndex(CmdIndex.TEXT));
+    check();
+  }
+
+  /**
+   * Runs nested tasks in the shared thread pool.
+   * @throws IOException I/O exception
+   */
+  @Test public void nested() throws IOException {
+    final int size = Runtime.getRuntime().availableProcessors() * 2;
+    final AtomicInteger count = new AtomicInteger();
+    final ArrayList<Parallel.Task> tasks = new ArrayList<>();
+    for(int t = 0; t < size; t++) {
+      tasks.add(() -> {
+        final ArrayList<Parallel.Task> nested = new ArrayList<>();
+        for(int n = 0; n < size; n++) nested.add(count::incrementAndGet);
+        Parallel.run(nested, size, () -> { });
+      });
+    }
+    Parallel.run(tasks, size, () -> { });
+    assertEquals(size * size, count.get());
+
+    // first error is thrown after all tasks have been finished
+    tasks.add(() -> { throw new IOException("error"); });
+    try {
+      Parallel.run(tasks, size, () -> { });
+      fail("Error expected.");
+    } catch(final IOException ex) {
+      assertEquals("error", ex.getMessage());
+    }
+    assertEquals(size * size * 2, count.get());
+  }
+
+  /**
+   * Creates the test database.
+   */
+  private static void createDB() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 1; i <= SIZE; i++) {
+      sb.append("<a b='").append(i % 1000).append("'>");
+      sb.append(i % 1000).append(" t").append(i % 7).append("</a>");
+    }
+    execute(new CreateDB(NAME, sb.append("</x>").toString()));
+  }
+
+  /**
+   * Checks the index results.
+   */
+  private static void check() {
+    assertEquals("29", query("count(db:text('" + NAME + "', '5 t5'))"));
+    assertEquals("200", query("count(db:attribute('" + NAME + "', '5'))"));
+    assertEquals("200", query("count(db:token('" + NAME + "', '5'))"));
+    // results must be returned in document order
+    assertEquals("true", query("let $n := db:text('" + NAME + "', '5 t5')/.. "
+        + "return deep-equal($n, $n/.)"));
+    assertEquals("5 7005 14005", query("string-join(db:open('" + NAME + "')//a"
+        + "[text() = '5 t5'][position() <= 3] ! (count(preceding-sibling::a) + 1), ' ')"));
+  }
+}
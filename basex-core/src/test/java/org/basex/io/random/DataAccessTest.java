@@ -3,7 +3,9 @@ package org.basex.io.random;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.*;
+import java.lang.ref.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.io.*;
 import org.basex.util.*;
@@ -312,6 +314,133 @@ public class DataAccessTest {
     assertContent(pos, CINT1_BIN);
   }
 
+  /** Test method for {@link DataAccess#reader()}. */
+  @Test public final void testReader() {
+    final DataReader dr = da.reader();
+    assertEquals(STR, Token.string(dr.readToken(0L)));
+    assertEquals(STR, Token.string(dr.readToken(BLOCK_BOUNDARY_POS)));
+
+    final long off = STR_BIN.length + BYTE_BIN.length;
+    assertEquals(LONG, dr.read5(off));
+    assertEquals(INT, dr.read4());
+    assertEquals(CINT5, dr.readNum());
+    assertEquals(CINT4, dr.readNum());
+    assertEquals(off + LONG_BIN.length + INT_BIN.length + CINT5_BIN.length + CINT4_BIN.length,
+        dr.cursor());
+  }
+
+  /** Test method for {@link DataAccess#reader()}, reading unflushed and flushed updates. */
+  @Test public final void testReaderUpdates() {
+    final DataReader dr = da.reader();
+    assertEquals(STR, Token.string(dr.readToken(0L)));
+
+    da.writeToken(0L, Token.token(STR_LONG));
+    final long pos = da.length();
+    da.writeToken(pos, Token.token(STR));
+    assertEquals(STR_LONG, Token.string(dr.readToken(0L)));
+    assertEquals(STR, Token.string(dr.readToken(pos)));
+
+    da.flush();
+    assertEquals(STR_LONG, Token.string(dr.readToken(0L)));
+    assertEquals(STR, Token.string(dr.readToken(pos)));
+  }
+
+  /**
+   * Test method for {@link DataAccess#reader()}, reading a memory-mapped file.
+   * @throws IOException I/O exception
+   */
+  @Test public final void testReaderMapped() throws IOException {
+    da.close();
+    da = new DataAccess(file, true);
+    testReader();
+
+    // extend file: mapping must be updated after flush
+    final long pos = da.length();
+    da.writeToken(pos, Token.token(STR_LONG));
+    final DataReader dr = da.reader();
+    assertEquals(STR_LONG, Token.string(dr.readToken(pos)));
+    da.flush();
+    assertEquals(STR_LONG, Token.string(dr.readToken(pos)));
+    assertEquals(STR, Token.string(dr.readToken(BLOCK_BOUNDARY_POS)));
+  }
+
+  /**
+   * Closes a memory-mapped file that has been resized several times: the file must be deletable.
+   * @throws IOException I/O exception
+   */
+  @Test public final void testMappedClosed() throws IOException {
+    da.close();
+    da = new DataAccess(file, true);
+    for(int i = 0; i < 3; i++) {
+      final long pos = da.length();
+      da.writeToken(pos, Token.token(STR_LONG));
+      da.flush();
+      assertEquals(STR_LONG, Token.string(da.reader().readToken(pos)));
+    }
+    assertEquals(STR, Token.string(da.reader().readToken(BLOCK_BOUNDARY_POS)));
+    da.close();
+    assertTrue(file.delete());
+    da = new DataAccess(file);
+  }
+
+  /**
+   * Reads the file with concurrent threads.
+   * @throws Exception exception
+   */
+  @Test public final void testReaderConcurrent() throws Exception {
+    final Thread[] threads = new Thread[8];
+    final boolean[] ok = new boolean[threads.length];
+    for(int t = 0; t < threads.length; t++) {
+      final int n = t;
+      threads[t] = new Thread(() -> {
+        boolean success = true;
+        for(int i = 0; i < 1000 && success; i++) {
+          final DataReader dr = da.reader();
+          success = STR.equals(Token.string(dr.readToken(BLOCK_BOUNDARY_POS))) &&
+            INT == dr.read4(STR_BIN.length + BYTE_BIN.length + LONG_BIN.length);
+        }
+        ok[n] = success;
+      });
+      threads[t].start();
+    }
+    for(int t = 0; t < threads.length; t++) {
+      threads[t].join();
+      assertTrue(ok[t]);
+    }
+  }
+
+  /**
+   * Checks that a closed file is not kept reachable by the readers of other threads.
+   * @throws Exception exception
+   */
+  @Test public final void testReaderReleased() throws Exception {
+    final ExecutorService thread = Executors.newSingleThreadExecutor();
+    try {
+      final WeakReference<DataAccess> ref = readClosed(thread);
+      for(int i = 0; i < 100 && ref.get() != null; i++) {
+        System.gc();
+        Thread.sleep(10);
+      }
+      assertNull(ref.get());
+    } finally {
+      thread.shutdown();
+    }
+  }
+
+  /**
+   * Reads the test file in the specified thread and closes it.
+   * @param thread thread
+   * @return weak reference to the closed file
+   * @throws Exception exception
+   */
+  private WeakReference<DataAccess> readClosed(final ExecutorService thread) throws Exception {
+    final DataAccess access = new DataAccess(file);
+    assertEquals(INT, (int) thread.submit(() ->
+      access.reader().read4(STR_BIN.length + BYTE_BIN.length + LONG_BIN.length)).get());
+    access.close();
+    return new WeakReference<>(access);
+  }
+
   /** Test method for {@link DataAccess#free(long, int)}. */
   @Disabled
   @Test public final void testFree() {
@@ -0,0 +1,96 @@
+package org.basex.io.random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for class {@link PageCache}.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class PageCacheTest {
+  /** Cache instance. */
+  private static final PageCache CACHE = PageCache.get();
+  /** Number of pages in a cache with 1 MB. */
+  private static final int PAGES = (1 << 20) / IO.BLOCKSIZE;
+
+  /** Resets the cache size. */
+  @BeforeEach public void init() {
+    CACHE.size(1);
+  }
+
+  /** Restores the default cache size. */
+  @AfterAll public static void finish() {
+    CACHE.size(StaticOptions.PAGECACHE.value());
+  }
+
+  /** Reads and updates cached pages. */
+  @Test public void readUpdate() {
+    final int id = PageCache.id();
+    final byte[] data = page(1), target = new byte[IO.BLOCKSIZE];
+    assertFalse(CACHE.read(id, 0, target));
+
+    CACHE.add(id, 0, data);
+    assertTrue(CACHE.read(id, 0, target));
+    assertArrayEquals(data, target);
+
+    CACHE.update(id, 0, page(2));
+    assertTrue(CACHE.read(id, 0, target));
+    assertArrayEquals(page(2), target);
+
+    CACHE.remove(id);
+    assertFalse(CACHE.read(id, 0, target));
+  }
+
+  /** Creating new contexts does not resize the cache. */
+  @Test public void contexts() {
+    new Context().close();
+    CACHE.size(1);
+    new Context().close();
+    CACHE.init(0);
+    assertEquals(PAGES, CACHE.max());
+  }
+
+  /** Checks that the cache size is limited, and that scans do not evict hot pages. */
+  @Test public void scan() {
+    final int id = PageCache.id();
+    final byte[] target = new byte[IO.BLOCKSIZE];
+
+    // request page 0 twice: second request promotes it to the main queue
+    CACHE.add(id, 0, page(0));
+    for(int p = 1; p <= PAGES; p++) CACHE.add(id, p, page(p));
+    assertFalse(CACHE.read(id, 0, target));
+    CACHE.add(id, 0, page(0));
+
+    // scan pages that will only be requested once
+    for(int p = PAGES + 1; p <= PAGES * 5; p++) CACHE.add(id, p, page(p));
+    assertTrue(CACHE.pages() <= PAGES);
+    assertTrue(CACHE.read(id, 0, target));
+    CACHE.remove(id);
+  }
+
+  /** Disables the cache. */
+  @Test public void disable() {
+    final int id = PageCache.id();
+    CACHE.add(id, 0, page(0));
+    CACHE.size(0);
+    assertEquals(0, CACHE.pages());
+    CACHE.add(id, 0, page(0));
+    assertFalse(CACHE.read(id, 0, new byte[IO.BLOCKSIZE]));
+  }
+
+  /**
+   * Creates a page with the specified content.
+   * @param value value
+   * @return page
+   */
+  private static byte[] page(final int value) {
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    data[0] = (byte) value;
+    return data;
+  }
+}
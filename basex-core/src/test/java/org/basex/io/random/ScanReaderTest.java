@@ -0,0 +1,106 @@
+package org.basex.io.random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.io.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for class {@link ScanReader}.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class ScanReaderTest extends SandboxTest {
+  /** Number of pages in the test file. */
+  private static final int PAGES = 1000;
+  /** Test file. */
+  private static final IOFile FILE = new IOFile(sandbox(), "scan");
+
+  /**
+   * Creates the test file.
+   * @throws Exception exception
+   */
+  @BeforeAll public static void init() throws Exception {
+    final byte[] data = new byte[PAGES * IO.BLOCKSIZE];
+    for(int p = 0; p < PAGES; p++) {
+      data[p * IO.BLOCKSIZE] = (byte) p;
+      data[p * IO.BLOCKSIZE + IO.BLOCKSIZE - 1] = (byte) (p >>> 8);
+    }
+    FILE.write(data);
+  }
+
+  /** Deletes the test file. */
+  @AfterAll public static void finish() {
+    FILE.delete();
+  }
+
+  /**
+   * Sequential scan.
+   * @throws Exception exception
+   */
+  @Test public void scan() throws Exception {
+    try(BlockReader br = new BlockReader(FILE)) {
+      final ScanReader scan = new ScanReader();
+      final byte[] data = new byte[IO.BLOCKSIZE];
+      int supplied = 0;
+      for(int p = 0; p < PAGES; p++) {
+        if(scan.read(br, p, PAGES, data)) {
+          check(p, data);
+          supplied++;
+        }
+      }
+      // only the first pages are not supplied
+      assertTrue(supplied >= PAGES - 8, "Pages: " + supplied);
+    }
+  }
+
+  /**
+   * Random access and interrupted scans.
+   * @throws Exception exception
+   */
+  @Test public void random() throws Exception {
+    try(BlockReader br = new BlockReader(FILE)) {
+      final ScanReader scan = new ScanReader();
+      final byte[] data = new byte[IO.BLOCKSIZE];
+      for(int p = 0; p < PAGES; p += 3) assertFalse(scan.read(br, p, PAGES, data));
+
+      // skip pages, go back, scan until the end of the file
+      final int[] pages = { 10, 11, 12, 13, 14, 15, 80, 81, 82, 83, 84, 85, 86, 87, 84, 85, 86,
+        87, 88, 89, 200, 201, 202, 203, 204, 205, 206, 990, 991, 992, 993, 994, 995, 996, 997,
+        998, 999 };
+      for(final int p : pages) {
+        if(scan.read(br, p, PAGES, data)) check(p, data);
+      }
+      // reading a page that is not part of the file will leave scanning mode
+      assertFalse(scan.read(br, PAGES, PAGES, data));
+    }
+  }
+
+  /**
+   * Scans a table with more than hundred pages.
+   */
+  @Test public void table() {
+    query("db:create('" + NAME + "', <a>{ (1 to 20000) ! <x>{ 'x' || . }</x> }</a>, 'a.xml', "
+        + "map { 'textindex': false() })");
+    try {
+      for(int i = 0; i < 2; i++) {
+        assertEquals("1", query("count(db:open('" + NAME + "')//*[text() = 'x123'])"));
+        assertEquals("x20000", query("db:open('" + NAME + "')//x[last()] ! string()"));
+      }
+    } finally {
+      query("db:drop('" + NAME + "')");
+    }
+  }
+
+  /**
+   * Checks the contents of a page.
+   * @param page expected page
+   * @param data page data
+   */
+  private static void check(final int page, final byte[] data) {
+    assertEquals((byte) page, data[0]);
+    assertEquals((byte) (page >>> 8), data[IO.BLOCKSIZE - 1]);
+  }
+}
@@ -100,4 +100,48 @@ public final class ModuleTest extends SandboxTest {
       assertEquals(qp.value().serialize().toString(), "OK");
     }
   }
+
+  /**
+   * Checks that cached modules are updated after a change.
+   * @throws Exception exception
+   */
+  @Test public void cached() throws Exception {
+    final IOFile file = new IOFile(sandbox(), "c.xqm");
+    final String query = "import module namespace c='c' at '" + file.url() + "'; c:c()";
+    write(file, "module namespace c='c'; declare function c:c(){1};");
+    assertEquals("1", query(query));
+    write(file, "module namespace c='c'; declare function c:c(){123};");
+    assertEquals("123", query(query));
+  }
+
+  /**
+   * Checks that cached modules are updated after a change that does not affect the size and
+   * time stamp of the file.
+   * @throws Exception exception
+   */
+  @Test public void cachedSameLength() throws Exception {
+    final IOFile file = new IOFile(sandbox(), "d.xqm");
+    final String query = "import module namespace d='d' at '" + file.url() + "'; d:d()";
+    write(file, "module namespace d='d'; declare function d:d(){1};");
+    final long time = file.timeStamp();
+    assertEquals("1", query(query));
+    write(file, "module namespace d='d'; declare function d:d(){2};");
+    assertTrue(file.file().setLastModified(time));
+    assertEquals("2", query(query));
+  }
+
+  /**
+   * Checks that cached modules with older time stamps are updated after a change.
+   * @throws Exception exception
+   */
+  @Test public void cachedOld() throws Exception {
+    final IOFile file = new IOFile(sandbox(), "e.xqm");
+    final String query = "import module namespace e='e' at '" + file.url() + "'; e:e()";
+    write(file, "module namespace e='e'; declare function e:e(){1};");
+    assertTrue(file.file().setLastModified(System.currentTimeMillis() - 60000));
+    assertEquals("1", query(query));
+    assertEquals("1", query(query));
+    write(file, "module namespace e='e'; declare function e:e(){2};");
+    assertEquals("2", query(query));
+  }
 }
@@ -4,6 +4,7 @@ import static org.basex.query.QueryError.*;
 import static org.basex.query.func.Function.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.basex.core.*;
 import org.basex.query.ast.*;
 import org.basex.query.expr.constr.*;
 import org.basex.query.expr.gflwor.*;
@@ -433,4 +434,151 @@ public final class GFLWORTest extends QueryPlanTest {
     check("for $x allowing empty in () return $x", "", empty());
     check("for $x allowing empty in prof:void(1) return $x", "", exists(GFLWOR.class));
   }
+
+  /** Sorts a limited number of tuples. */
+  @Test public void orderByLimit() {
+    final String flwor = "for $i in (1 to 100000) ! (. mod 1000) order by $i descending ";
+    query("head(" + flwor + "return $i)", 999);
+    query("(" + flwor + "return $i)[3]", 999);
+    query("(" + flwor + "return $i)[position() <= 3]", "999\n999\n999");
+    query("subsequence(" + flwor + "return $i, 99, 3)", "999\n999\n998");
+    query("subsequence(" + flwor + "return ($i, -$i), 1, 3)", "999\n-999\n999");
+    query("count(util:item(" + flwor + "return ($i, -$i), 3))", 1);
+
+    // limit belongs to the rewritten expression, and it is preserved by copies
+    query("let $s := (" + flwor + "return $i) return (head($s), count($s))", "999\n100000");
+    query("let $f := function() { head(" + flwor + "return $i) } return ($f(), $f())",
+        "999\n999");
+
+    // tuples with equal keys keep their order
+    query("(for $i in 1 to 10 order by $i mod 2 return $i)[position() <= 4]", "2\n4\n6\n8");
+    query("head(for $i in (3, 1, 2) order by () return $i)", 3);
+    query("(for $i in 1 to 100 order by $i mod 3, $i descending return $i)[position() <= 4]",
+        "99\n96\n93\n90");
+    query("(for $i in 1 to 10 order by $i mod 2 descending return -$i)[position() <= 3]",
+        "-1\n-3\n-5");
+    // tuples with empty results
+    query("head(for $i in 1 to 3 order by $i return $i[. > 1])", 2);
+  }
+
+  /** Spills sorted runs of tuples to disk. */
+  @Test public void orderBySpill() {
+    spill(
+      "string-join(for $i in 1 to 10000 order by $i mod 100, -$i return $i, ',')",
+      "string-join(for $i in 1 to 10000 order by $i mod 10 descending return $i, ',')",
+      "string-join(for $i in 1 to 2000 let $d := ($i div 7e0, string($i)) "
+        + "order by $d[2] return $d[1], ',')",
+      "string-join(for $i in 1 to 2000 let $k := ($i mod 5)[. > 0] ! xs:double(.) "
+        + "let $k := if($i mod 7 = 0) then xs:double('NaN') else $k "
+        + "order by $k empty greatest return $i, ',')",
+      "string-join(for $i in 1 to 2000 let $k := ($i mod 5)[. > 0] "
+        + "order by $k descending empty least, $i mod 3 return $i || ':' || $k, ',')",
+      "string-join(for $i in 1 to 2000 let $e := <e>{ $i }</e> order by $i mod 9 return $e, ',')",
+      "string-join(for $i in 1 to 2000 let $v := if($i mod 2 = 0) then <e>{ $i }</e> else $i "
+        + "order by $i mod 9 return $v, ',')",
+      "string-join(for $i in 1 to 2000 let $d := xs:date('2000-01-01') + $i * "
+        + "xs:dayTimeDuration('P1D') order by $i mod 31, $d descending return $d, ',')",
+      "count(for $i in 1 to 10000 order by -$i return $i)"
+    );
+  }
+
+  /** Aggregates values of non-grouping variables. */
+  @Test public void groupByAggregate() {
+    final String flwor = "for $i in 1 to 100000 group by $g := $i mod 3 order by $g ";
+    query(flwor + "return count($i)", "33333\n33334\n33333");
+    query(flwor + "return sum($i)", "1666683333\n1666716667\n1666650000");
+    query(flwor + "return avg($i)", "50001\n50000.5\n50000");
+    query(flwor + "return min($i) + max($i)", "100002\n100001\n100000");
+    // different functions: values are cached
+    query(flwor + "return count($i) + sum($i)", "1666716666\n1666750001\n1666683333");
+    query(flwor + "let $c := count($i) where $c > 33333 return $c", 33334);
+
+    // type promotion, empty values, untyped values
+    query("for $i in (1, 2.5, 3e0) group by $g := 1 return (sum($i), min($i), max($i))",
+        "6.5\n1\n3");
+    query("for $i in (1, 2.5, 3e0) group by $g := 1 return (sum($i), min($i), max($i)) ! "
+        + "(. instance of xs:double)", "true\ntrue\ntrue");
+    query("for $i in 1 to 3 let $e := $i[. > 3] group by $g := 1 "
+        + "return (count($e), sum($e), avg($e), min($e))", "0\n0");
+    query("for $i in (<a>1</a>, <a>2</a>) group by $g := 1 return (sum($i), avg($i), min($i))",
+        "3\n1.5\n1");
+    query("for $i in (xs:dayTimeDuration('PT1H'), xs:dayTimeDuration('PT2H')) "
+        + "group by $g := 1 return (sum($i), avg($i))", "PT3H\nPT1H30M");
+
+    // errors are only raised if aggregate function is evaluated
+    query("for $i in (1, 'a') group by $g := 1 return if($g = 2) then sum($i) else 0", 0);
+    error("for $i in (1, 'a') group by $g := 1 return sum($i)", CMP_X_X_X);
+    error("for $i in (1, 'a') group by $g := 1 return max($i)", CMP_X_X_X);
+    query("for $i in (<a>1</a>, <a>x</a>, <a>2</a>) group by $g := 1 "
+        + "return if($g = 2) then sum($i) else 0", 0);
+    error("for $i in (<a>1</a>, <a>x</a>, <a>2</a>) group by $g := 1 return sum($i)",
+        FUNCCAST_X_X);
+    // integer overflow is only raised if the aggregated sum is evaluated and out of range
+    final String max = "for $i in (9223372036854775807, 1";
+    query(max + ") group by $g := 1 return if($g = 2) then sum($i) else 0", 0);
+    error(max + ") group by $g := 1 return sum($i)", RANGE_X);
+    error(max + ") group by $g := 1 return avg($i)", RANGE_X);
+    query(max + ", -2) group by $g := 1 return sum($i)", "9223372036854775806");
+    query(max + ", -2) group by $g := 1 return avg($i)", "3074457345618258602");
+    query(max + ", 0.5) group by $g := 1 return sum($i)", "9223372036854775808.5");
+  }
+
+  /** Spills groups to disk. */
+  @Test public void groupBySpill() {
+    spill(
+      "for $i in 1 to 10000 group by $g := $i mod 100 order by $g "
+        + "return $g || ':' || count($i) || ':' || sum($i) || ':' || avg($i) || ':' || max($i)",
+      "for $i in 1 to 10000 let $s := string($i mod 7) group by $g := $i mod 50 order by $g "
+        + "return string-join($s[position() <= 20])",
+      "for $i in 1 to 2000 let $d := $i div 7e0 group by $g := $i mod 13 order by $g "
+        + "return string-join($d ! string(), ',')",
+      "for $i in 1 to 2000 let $d := (xs:date('2000-01-01') + $i * xs:dayTimeDuration('P1D'), "
+        + "$i mod 3 = 0, xs:float($i) div 3) group by $g := string($i mod 11) order by $g "
+        + "return string-join($d ! string(), ',')",
+      "for $i in 1 to 1000 let $e := <e>{ $i }</e> group by $g := $i mod 10 order by $g "
+        + "return count($e) || ':' || $e[last()]",
+      "for $i in 1 to 1000 let $v := if($i mod 2 = 0) then <e>{ $i }</e> else $i "
+        + "group by $g := $i mod 10 order by $g return string-join($v, ',')",
+      "for $i in 1 to 1000 group by $g := QName('', 'x' || $i mod 5) order by string($g) "
+        + "return count($i)",
+      "for $i in 1 to 1000 group by $g := ($i mod 10)[. > 0] order by $g return sum($i)",
+      "count(for $i in 1 to 10000 group by $g := $i return $g)"
+    );
+  }
+
+  /** Parallel evaluation. */
+  @Test public void parallel() {
+    final String pragma = "(# basex:parallel #) ";
+    query("count(" + pragma + "{ for $i in 1 to 100000 return $i * 2 })", 100000);
+    query("(" + pragma + "{ for $i in 1 to 100000 return $i * 2 })[last()]", 200000);
+    query("sum(" + pragma + "{ for $i at $p in 1 to 1000 return $i - $p })", 0);
+    query("let $a := 3 return " + pragma + "{ for $i in 1 to 10 let $j := $i * $a "
+        + "where $j mod 2 = 0 return $j }", "6\n12\n18\n24\n30");
+    query("<x>{ (1 to 5) ! <y/> }</x> ! (" + pragma + "{ for $y in y return count($y/..) })",
+        "1\n1\n1\n1\n1");
+    query("deep-equal(" + pragma + "{ for $i in 1 to 10000 return string($i) }, "
+        + "(1 to 10000) ! string())", true);
+
+    // order by clause: sequential evaluation
+    query(pragma + "{ for $i in 1 to 5 order by $i descending return $i }", "5\n4\n3\n2\n1");
+    // errors are passed on
+    error(pragma + "{ for $i in 1 to 1000 return if($i = 500) then error() else $i }",
+        FUNERR1);
+  }
+
+  /**
+   * Compares the results of queries with and without spilling tuples to disk.
+   * @param queries queries
+   */
+  private static void spill(final String... queries) {
+    for(final String query : queries) {
+      final String expected = query(query);
+      set(MainOptions.SPILLSIZE, 7);
+      try {
+        query(query, expected);
+      } finally {
+        set(MainOptions.SPILLSIZE, 0);
+      }
+    }
+  }
 }
@@ -125,4 +125,15 @@ public final class SimpleMapTest extends QueryPlanTest {
     check("(<a/>, <b/>) ! data()", "\n", root(DATA));
     check("(<a/>, <b/>) ! data(.)", "\n", root(DATA));
   }
+
+  /** Parallel evaluation. */
+  @Test public void parallel() {
+    final String pragma = "(# basex:parallel #) ";
+    query("(" + pragma + "{ (1 to 100000) ! (. * 2) })[last()]", 200000);
+    query("(" + pragma + "{ (1 to 10000) ! position() })[last()]", 10000);
+    query(pragma + "{ (1 to 5) ! last() }", "5\n5\n5\n5\n5");
+    query(pragma + "{ (1 to 3) ! (1 to .) ! (. * 10) }", "10\n10\n20\n10\n20\n30");
+    query(pragma + "{ (1 to 3) ! (1 to .) ! position() }", "1\n2\n3\n4\n5\n6");
+    error(pragma + "{ (1 to 1000) ! (if(. = 500) then error() else .) }", FUNERR1);
+  }
 }
@@ -63,6 +63,105 @@ public final class FTIndexQueryTest extends FTData {
     assertQuery("Mix", "//mix[text() contains text 'A'][1]");
   }
 
+  /**
+   * Tests fuzzy queries.
+   */
+  @Test public void fuzzy() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    final String[] words = { "house", "mouse", "horse", "hose", "houses", "hause", "souse",
+      "assignments", "azzignments", "assignment", "consignments", "tom", "tim", "tome" };
+    for(final String word : words) sb.append("<a>").append(word).append("</a>");
+    for(int i = 0; i < 1000; i++) sb.append("<a>w").append(Integer.toString(i, 7)).append("</a>");
+    init(sb.append("</x>").toString());
+
+    try {
+      for(int e = 0; e <= 3; e++) {
+        set(MainOptions.LSERROR, e);
+        for(final String word : words) {
+          assertQuery("Fuzzy", "//a[text() contains text '" + word + "' using fuzzy]");
+        }
+        for(final String word : new String[] { "w1234", "w12", "w6666", "w10000", "x0", "w" }) {
+          assertQuery("Fuzzy", "count(//a[text() contains text '" + word + "' using fuzzy])");
+        }
+      }
+    } finally {
+      set(MainOptions.LSERROR, 0);
+    }
+  }
+
+  /** Intersections and unions of frequent and rare terms. */
+  @Test public void skip() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 0; i < 2000; i++) {
+      sb.append("<a>common ").append(i % 3 == 0 ? "fizz " : "").append(i % 5 == 0 ? "buzz " : "");
+      sb.append(i % 397 == 0 ? "rare" : "").append("</a>");
+    }
+    init(sb.append("</x>").toString());
+
+    for(final String query : new String[] {
+      "'common' ftand 'rare'", "'rare' ftand 'common'", "'fizz' ftand 'buzz' ftand 'rare'",
+      "{ 'rare', 'fizz' } all words", "{ 'buzz', 'common', 'fizz' } all",
+      "('fizz' ftor 'buzz') ftand 'rare'", "{ 'fizz', 'rare' } any ftand 'buzz'",
+      "'common fizz' ftand 'buzz'", "'common buzz' ftand 'rare'"
+    }) {
+      assertQuery("Skip", "count(//a[text() contains text " + query + "])");
+      assertQuery("Skip", "//a[text() contains text " + query + "][last()]");
+    }
+  }
+
+  /** Ranked queries, limited number of results. */
+  @Test public void topK() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 0; i < 2000; i++) {
+      sb.append("<a>");
+      for(int j = i % 7; j >= 0; j--) sb.append("filler ");
+      for(int j = i % 5; j >= 0; j--) sb.append("term ");
+      sb.append(i % 11 == 0 ? "other" : "").append("</a>");
+    }
+    init(sb.append("</x>").toString());
+
+    // scores of index-based and sequential queries differ: compare with completely sorted results
+    for(final String db : new String[] { NAME, NAME + "ix" }) {
+      execute(new Open(db));
+      for(final String query : new String[] { "'term'", "{ 'term', 'other' } any", "'other'" }) {
+        final String flwor = "for $n score $s in //a[text() contains text " + query + "] "
+            + "order by $s descending return ";
+        for(final String ret : new String[] { "$n", "$s" }) {
+          assertEquals(query("subsequence(" + flwor + ret + ", 1, 1e10)[position() <= 20]"),
+              query("(" + flwor + ret + ")[position() <= 20]"));
+        }
+      }
+    }
+  }
+
+  /** Skip tables of long index entries, created with and without splitting. */
+  @Test public void skipTables() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 0; i < 3000; i++) {
+      sb.append("<a>");
+      for(int j = i % 50; j >= 0; j--) sb.append("x ");
+      sb.append(i % 7 == 0 ? "y " : "").append(i % 293 == 0 ? "z" : "").append("</a>");
+    }
+    final String input = sb.append("</x>").toString();
+
+    for(final int split : new int[] { 0, 1 }) {
+      set(MainOptions.SPLITSIZE, split);
+      try {
+        init(input);
+      } finally {
+        set(MainOptions.SPLITSIZE, 0);
+      }
+      for(final String query : new String[] {
+        "'x' ftand 'z'", "'z' ftand 'y' ftand 'x'", "'x x x' ftand 'z'",
+        "{ 'y', 'z' } all words", "'x' ftand 'y'"
+      }) {
+        final String path = "//a[text() contains text " + query + ']';
+        assertQuery("Skip tables", "count(" + path + ')');
+        assertQuery("Skip tables", "sum(" + path + " ! string-length())");
+      }
+    }
+  }
+
   /**
    * Asserts that a query returns the same result with and without ft index.
    * @param name name of query
@@ -0,0 +1,88 @@
+package org.basex.query.func;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
+import org.basex.*;
+import org.junit.jupiter.api.*;
+
+import com.sun.net.httpserver.*;
+
+/**
+ * This class tests the functions of the HTTP Module with a local stub server.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class HttpModuleTest extends SandboxTest {
+  /** Stub server. */
+  private static HttpServer server;
+  /** Remote ports of the client connections. */
+  private static final Set<Integer> PORTS = Collections.synchronizedSet(new HashSet<>());
+
+  /**
+   * Starts the stub server, which returns the path of the request.
+   * @throws IOException I/O exception
+   */
+  @BeforeAll public static void start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      PORTS.add(exchange.getRemoteAddress().getPort());
+      final byte[] response = ("<path>" + exchange.getRequestURI().getPath() + "</path>").
+          getBytes("UTF-8");
+      exchange.getResponseHeaders().add("Content-Type", "application/xml");
+      exchange.sendResponseHeaders(200, response.length);
+      try(OutputStream out = exchange.getResponseBody()) {
+        out.write(response);
+      }
+    });
+    server.start();
+  }
+
+  /** Stops the stub server. */
+  @AfterAll public static void stop() {
+    server.stop(0);
+  }
+
+  /** Test method. */
+  @Test public void sendRequest() {
+    final Function func = _HTTP_SEND_REQUEST;
+    PORTS.clear();
+    for(int i = 0; i < 20; i++) {
+      query(func.args(" <http:request xmlns:http='http://expath.org/ns/http-client' "
+          + "method='GET'/>", url("/a" + i)) + "[2]/path/string()", "/a" + i);
+    }
+    // responses without body
+    for(int i = 0; i < 20; i++) {
+      query(func.args(" <http:request xmlns:http='http://expath.org/ns/http-client' "
+          + "method='GET' status-only='true'/>", url("/b" + i)) + "/@status/string()", 200);
+    }
+    // connections are kept alive and reused
+    assertEquals(1, PORTS.size(), "Connections: " + PORTS);
+  }
+
+  /** Test method. */
+  @Test public void sendRequests() {
+    final Function func = _HTTP_SEND_REQUESTS;
+    final String request = " (1 to 50) ! <http:request xmlns:http='http://expath.org/ns/"
+        + "http-client' method='GET' href='" + url("/") + "{ . }'/>";
+    // responses are returned in the order of the requests
+    query(func.args(request) + " ! .(1)[2]/path/string() => string-join(',')",
+        query("(1 to 50) ! ('/' || .) => string-join(',')"));
+    query("count(" + func.args(request, " map { 'parallel': 1 }") + ')', 50);
+    query(func.args(" ()"), "");
+  }
+
+  /**
+   * Returns the URL of the stub server.
+   * @param path path
+   * @return URL
+   */
+  private static String url(final String path) {
+    return "http://localhost:" + server.getAddress().getPort() + path;
+  }
+}
@@ -1,5 +1,8 @@
 package org.basex.query.func;
 
+import static org.basex.query.QueryError.*;
+import static org.basex.query.func.Function.*;
+
 import org.basex.*;
 import org.junit.jupiter.api.*;
 
@@ -21,6 +24,15 @@ public final class SqlModuleTest extends SandboxTest {
 
   /** Test method. */
   @Test public void connect() {
+    final Function func = _SQL_CONNECT;
+    // connection pools
+    error(func.args("jdbc:unknown:a", "", "", " map { 'pool': 'p', 'pool-size': 'x' }"),
+        SQL_OPTION_X_X);
+    error(func.args("jdbc:unknown:a", "", "", " map { 'pool': 'p', 'pool-timeout': 0 }"),
+        SQL_OPTION_X_X);
+    // pools are only registered if a connection can be established
+    error(func.args("jdbc:unknown:a", "", "", " map { 'pool': 'p' }"), SQL_ERROR_X);
+    error(func.args("jdbc:unknown:b", "", "", " map { 'pool': 'p' }"), SQL_ERROR_X);
   }
 
   /** Test method. */
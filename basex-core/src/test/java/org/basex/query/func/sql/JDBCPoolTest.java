@@ -0,0 +1,242 @@
+package org.basex.query.func.sql;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+import org.basex.*;
+import org.basex.query.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for the JDBC connection pools.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class JDBCPoolTest extends SandboxTest {
+  /** URL prefix of the test driver. */
+  private static final String URL = "jdbc:test:";
+  /** Test driver. */
+  private static final TestDriver DRIVER = new TestDriver();
+
+  /** Pools. */
+  private JDBCPools pools;
+  /** Query context. */
+  private QueryContext qc;
+
+  /**
+   * Registers the test driver.
+   * @throws SQLException SQL exception
+   */
+  @BeforeAll public static void register() throws SQLException {
+    DriverManager.registerDriver(DRIVER);
+  }
+
+  /**
+   * Deregisters the test driver.
+   * @throws SQLException SQL exception
+   */
+  @AfterAll public static void deregister() throws SQLException {
+    DriverManager.deregisterDriver(DRIVER);
+  }
+
+  /** Initializes a test. */
+  @BeforeEach public void init() {
+    pools = new JDBCPools();
+    qc = new QueryContext(context);
+    DRIVER.created.set(0);
+  }
+
+  /** Finalizes a test. */
+  @AfterEach public void finish() {
+    pools.close();
+    qc.close();
+  }
+
+  /**
+   * Released connections are reused.
+   * @throws SQLException SQL exception
+   */
+  @Test public void reuse() throws SQLException {
+    final JDBCPool pool = pool("reuse", URL + "a", null, 2);
+    final Connection conn = pool.connection(qc);
+    pool.release(conn);
+    assertSame(conn, pool.connection(qc));
+    assertEquals(1, DRIVER.created.get());
+
+    // second connection is created while the first one is in use
+    final Connection conn2 = pool.connection(qc);
+    assertFalse(conn == conn2);
+    assertEquals(2, DRIVER.created.get());
+
+    // same pool is returned for the same database, no pool for another database
+    assertSame(pool, pool("reuse", URL + "a", null, 2));
+    assertNull(pool("reuse", URL + "b", null, 2));
+  }
+
+  /**
+   * Pending transactions are rolled back when a connection is released.
+   * @throws SQLException SQL exception
+   */
+  @Test public void rollback() throws SQLException {
+    final JDBCPool pool = pool("rollback", URL + "a", false, 1);
+    final Connection conn = pool.connection(qc);
+    assertFalse(conn.getAutoCommit());
+    pool.release(conn);
+    assertEquals(1, TestDriver.state(conn).rollbacks);
+
+    // auto-commit mode is restored
+    final Connection conn2 = pool.connection(qc);
+    assertSame(conn, conn2);
+    conn2.setAutoCommit(true);
+    pool.release(conn2);
+    assertFalse(pool.connection(qc).getAutoCommit());
+  }
+
+  /**
+   * Queries wait for a connection if all connections are in use.
+   * @throws Exception exception
+   */
+  @Test public void waiting() throws Exception {
+    final JDBCPool pool = pool("waiting", URL + "a", null, 1);
+    final Connection conn = pool.connection(qc);
+    final AtomicReference<Connection> next = new AtomicReference<>();
+    final Thread thread = new Thread(() -> {
+      try {
+        next.set(pool.connection(qc));
+      } catch(final SQLException ex) {
+        Util.stack(ex);
+      }
+    });
+    thread.start();
+    Performance.sleep(300);
+    assertNull(next.get());
+    pool.release(conn);
+    thread.join(5000);
+    assertSame(conn, next.get());
+    assertEquals(1, DRIVER.created.get());
+  }
+
+  /**
+   * Pools are only registered if the first connection can be established.
+   * @throws SQLException SQL exception
+   */
+  @Test public void failed() throws SQLException {
+    assertThrows(SQLException.class, () -> pool("failed", "jdbc:unknown:a", null, 1));
+    assertNotNull(pool("failed", URL + "a", null, 1));
+  }
+
+  /**
+   * Closing the pools closes idle connections.
+   * @throws SQLException SQL exception
+   */
+  @Test public void close() throws SQLException {
+    final JDBCPool pool = pool("close", URL + "a", null, 2);
+    final Connection idle = pool.connection(qc), used = pool.connection(qc);
+    pool.release(idle);
+    pools.close();
+    assertTrue(idle.isClosed());
+    assertFalse(used.isClosed());
+    pool.release(used);
+    assertTrue(used.isClosed());
+    assertThrows(SQLException.class, () -> pool.connection(qc));
+  }
+
+  /**
+   * Returns a pool.
+   * @param name name
+   * @param url URL
+   * @param autocommit auto-commit mode
+   * @param size maximum number of connections
+   * @return pool
+   * @throws SQLException SQL exception
+   */
+  private JDBCPool pool(final String name, final String url, final Boolean autocommit,
+      final int size) throws SQLException {
+    return pools.get(name, url, new Properties(), autocommit, size, 60000, null, context.jobs);
+  }
+
+  /** Driver that creates dummy connections. */
+  private static final class TestDriver implements Driver {
+    /** Number of created connections. */
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Override
+    public Connection connect(final String url, final Properties info) {
+      if(!acceptsURL(url)) return null;
+      created.incrementAndGet();
+      final State state = new State();
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+          new Class<?>[] { Connection.class }, state);
+    }
+
+    /**
+     * Returns the state of a connection.
+     * @param conn connection
+     * @return state
+     */
+    private static State state(final Connection conn) {
+      return (State) Proxy.getInvocationHandler(conn);
+    }
+
+    @Override
+    public boolean acceptsURL(final String url) {
+      return url.startsWith(URL);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(final String url, final Properties info) {
+      return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+      return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+      return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+      return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      throw new SQLFeatureNotSupportedException();
+    }
+  }
+
+  /** State of a dummy connection. */
+  private static final class State implements InvocationHandler {
+    /** Closed flag. */
+    private boolean closed;
+    /** Auto-commit mode. */
+    private boolean autocommit = true;
+    /** Number of rollbacks. */
+    private int rollbacks;
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+      switch(method.getName()) {
+        case "close":         closed = true; return null;
+        case "isClosed":      return closed;
+        case "getAutoCommit": return autocommit;
+        case "setAutoCommit": autocommit = (Boolean) args[0]; return null;
+        case "rollback":      rollbacks++; return null;
+        case "hashCode":      return System.identityHashCode(proxy);
+        case "equals":        return proxy == args[0];
+        default:              throw new UnsupportedOperationException(method.getName());
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package org.basex.query.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.index.stats.*;
+import org.basex.query.ast.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the value statistics that are used to estimate the costs of index requests.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexStatsTest extends QueryPlanTest {
+  /**
+   * Initializes the tests.
+   */
+  @BeforeAll public static void start() {
+    // distinct strings, distinct numbers, numbers with duplicates, strings with few values
+    execute(new CreateDB(NAME, query("<xml>{ for $i in 1 to 3000 return <r>"
+        + "<x>k{ format-integer($i, '0000') }</x><y>m{ $i }</y><n>{ $i mod 1000 }</n>"
+        + "<z>{ ('a', 'b', 'c')[$i mod 3 + 1] }</z></r> }</xml>")));
+  }
+
+  /**
+   * Finishes the tests.
+   */
+  @AfterAll public static void finish() {
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Estimates of distinct values and ranges; persistence of the histograms.
+   */
+  @Test public void estimates() {
+    execute(new Open(NAME));
+    for(int i = 0; i < 2; i++) {
+      final Stats x = stats("x"), n = stats("n"), z = stats("z");
+      assertEquals(3, z.distinct());
+      assertEquals(1000, z.count(Token.token("a"), Token.token("a")));
+
+      assertNotNull(x.histogram);
+      assertEquals(3000, x.distinct(), 300);
+      assertEquals(1000, x.count(Token.token("k1000"), Token.token("k1999")), 300);
+      assertEquals(-1, x.count(0, 1000));
+
+      assertNotNull(n.histogram);
+      assertEquals(1000, n.distinct(), 100);
+      assertEquals(300, n.count(100, 199), 150);
+      assertTrue(n.count(5000, 6000) >= 0);
+
+      // histograms are persisted with the statistics
+      execute(new Close());
+      execute(new Open(NAME));
+    }
+  }
+
+  /**
+   * Chooses the most selective range predicate.
+   */
+  @Test public void ranges() {
+    execute(new Open(NAME));
+    check("//r[x >= 'k0000' and x <= 'k2999'][y >= 'm2999' and y <= 'm3'] ! string(n)",
+        "3\n999", exists("StringRangeAccess[@min = 'm2999']"),
+        empty("StringRangeAccess[@min = 'k0000']"));
+    check("count(//r[y >= 'm1' and y <= 'm3'][x >= 'k0100' and x <= 'k0109'])", 10,
+        exists("StringRangeAccess[@min = 'k0100']"));
+  }
+
+  /**
+   * Chooses the most selective predicate with dynamic search terms.
+   */
+  @Test public void dynamic() {
+    execute(new Open(NAME));
+    check("let $z := 'a' for $x in ('k0003', 'k0006') return //r[z = $z][x = $x] ! string(n)",
+        "3\n6", exists("CmpG[SingleIterPath/IterStep/@test = 'z']"),
+        empty("CmpG[SingleIterPath/IterStep/@test = 'x']"));
+  }
+
+  /**
+   * Returns the statistics of the specified element.
+   * @param name element name
+   * @return statistics
+   */
+  private static Stats stats(final String name) {
+    final Data data = context.data();
+    return data.elemNames.stats(data.elemNames.id(Token.token(name)));
+  }
+}
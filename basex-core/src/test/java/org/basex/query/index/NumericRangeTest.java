@@ -0,0 +1,97 @@
+package org.basex.query.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.CmdIndex;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.query.ast.*;
+import org.basex.query.expr.index.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests if numeric range queries are correctly evaluated with(out) the index.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class NumericRangeTest extends QueryPlanTest {
+  /**
+   * Initializes the tests.
+   */
+  @BeforeAll public static void start() {
+    // integers, negative numbers and doubles with different string lengths
+    execute(new CreateDB(NAME, query("<xml>{ (-500 to 1500) ! (<n>{ . }</n>, <d>{ . div 8 }</d>,"
+        + "<a v='{ . * 3 }'/>) }</xml>")));
+  }
+
+  /**
+   * Finishes the tests.
+   */
+  @AfterAll public static void finish() {
+    set(MainOptions.UPDINDEX, false);
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Simple ranges.
+   */
+  @Test public void simple() {
+    test("count(//n[text() >= 100 and text() <= 199])", 100);
+    test("count(//n[text() > 100 and text() < 199])", 98);
+    test("count(//a[@v >= 300 and @v <= 599])", 100);
+  }
+
+  /**
+   * Ranges with negative numbers, doubles and values of different string length.
+   */
+  @Test public void complex() {
+    test("count(//n[text() >= -5 and text() <= 10])", 16);
+    test("count(//n[text() >= 5 and text() <= 1000])", 996);
+    test("count(//d[text() >= 1.5 and text() <= 2.5])", 9);
+    test("count(//d[text() >= -0.25 and text() < 0.25])", 4);
+    test("count(//d[text() > 185])", 20);
+    test("count(//a[@v >= -1 and @v <= 1.5e3])", 501);
+    test("count(//n[text() >= 1490])", 11);
+  }
+
+  /**
+   * Updatable indexes: no numeric keys are stored.
+   */
+  @Test public void updindex() {
+    final IOFile file = new IOFile(context.soptions.dbPath(NAME), DataText.DATATXT + 'n' +
+        IO.BASEXSUFFIX);
+    execute(new Open(NAME));
+    execute(new CreateIndex(CmdIndex.TEXT));
+    assertTrue(file.exists());
+
+    set(MainOptions.UPDINDEX, true);
+    execute(new OptimizeAll());
+    assertFalse(file.exists());
+    check("count(//n[text() >= 100 and text() <= 199])", 100, exists(RangeAccess.class));
+    check("count(//n[text() >= 5 and text() <= 1000])", 996, empty(RangeAccess.class));
+
+    set(MainOptions.UPDINDEX, false);
+    execute(new OptimizeAll());
+    assertTrue(file.exists());
+    check("count(//n[text() >= 5 and text() <= 1000])", 996, exists(RangeAccess.class));
+  }
+
+  /**
+   * Tests a query with and without index.
+   * @param query query
+   * @param result expected result
+   */
+  private static void test(final String query, final Object result) {
+    execute(new Open(NAME));
+    execute(new CreateIndex(CmdIndex.TEXT));
+    execute(new CreateIndex(CmdIndex.ATTRIBUTE));
+    check(query, result, exists(RangeAccess.class));
+    execute(new DropIndex(CmdIndex.TEXT));
+    execute(new DropIndex(CmdIndex.ATTRIBUTE));
+    check(query, result, empty(RangeAccess.class));
+  }
+}
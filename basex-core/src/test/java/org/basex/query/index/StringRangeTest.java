@@ -2,6 +2,7 @@ package org.basex.query.index;
 
 import java.util.*;
 
+import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.core.parse.Commands.CmdIndex;
 import org.basex.query.ast.*;
@@ -87,6 +88,48 @@ public final class StringRangeTest extends QueryPlanTest {
     test("count(//*[text() > '@'])", 900);
   }
 
+  /**
+   * Testing main-memory databases.
+   */
+  @Test public void mainMem() {
+    final String db = NAME + "mem";
+    final String query = "db:open('" + db + "')//";
+    try {
+      set(MainOptions.MAINMEM, true);
+      execute(new CreateDB(db, query("<xml>{ (1 to 1000) ! (<n>{ . }</n>, <x a='{ . mod 100 }'/>) }"
+          + "</xml>")));
+      check("count(" + query + "*[text() >= '990' and text() <= '999'])", 10,
+          exists(StringRangeAccess.class));
+      check("count(" + query + "*[text() > '990' and text() < '999'])", 8,
+          exists(StringRangeAccess.class));
+      check("count(" + query + "*[text() >= '10' and text() <= '11'])", 13,
+          exists(StringRangeAccess.class));
+      check("count(" + query + "*[@a >= '10' and @a <= '19'])", 100,
+          exists(StringRangeAccess.class));
+      check("count(" + query + "n[text() >= 200 and text() <= 299])", 100,
+          exists(RangeAccess.class));
+      check("count(" + query + "x[@a >= 10 and @a <= 19])", 100,
+          exists(RangeAccess.class));
+      check("count(db:text-range('" + db + "', '1', '2'))", 113);
+
+      // updated index structures
+      set(MainOptions.UPDINDEX, true);
+      execute(new CreateDB(db, query("<xml>{ (1 to 100) ! <n>{ . }</n> }</xml>")));
+      query("for $n in " + query + "n[text() < 50] return delete node $n");
+      query("insert node (150 to 159) ! <n>{ . }</n> into db:open('" + db + "')/xml");
+      check("count(" + query + "*[text() >= '40' and text() <= '99'])", 50,
+          exists(StringRangeAccess.class));
+      check("count(" + query + "*[text() >= '155' and text() <= '159'])", 5,
+          exists(StringRangeAccess.class));
+      check("count(" + query + "*[text() >= '99' and text() <= '999'])", 1,
+          exists(StringRangeAccess.class));
+    } finally {
+      set(MainOptions.UPDINDEX, false);
+      set(MainOptions.MAINMEM, false);
+      execute(new DropDB(db));
+    }
+  }
+
   /**
    * Tests a query with and without index.
    * @param query query
@@ -0,0 +1,120 @@
+package org.basex.query.value.array;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for the {@link NativeArray} implementations.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class NativeArrayTest extends ArrayTest {
+  /** Arrays with members of the same type are stored natively. */
+  @Test public void build() {
+    assertTrue(ints(100) instanceof IntArray);
+    assertTrue(build(Dbl.get(1), 100) instanceof DblArray);
+    assertTrue(build(Str.get("a"), 100) instanceof StrArray);
+
+    // small arrays, members of different types
+    assertTrue(ints(3) instanceof SmallArray);
+    final ArrayBuilder ab = new ArrayBuilder();
+    for(int i = 0; i < 100; i++) ab.append(Int.get(i));
+    ab.append(Dbl.get(1));
+    assertFalse(ab.freeze() instanceof NativeArray);
+  }
+
+  /**
+   * Slices and modifications.
+   * @throws QueryException query exception
+   */
+  @Test public void modify() throws QueryException {
+    final XQArray array = ints(100);
+    XQArray sub = array.subArray(10, 50, qc).tail().init();
+    assertTrue(sub instanceof IntArray);
+    sub.checkInvariants();
+    assertEquals(48, sub.arraySize());
+    assertEquals(Int.get(11), sub.get(0));
+    assertEquals(Int.get(58), sub.get(47));
+
+    sub = sub.put(0, Str.get("x")).snoc(Int.get(1));
+    sub.checkInvariants();
+    assertEquals(49, sub.arraySize());
+    assertEquals(Str.get("x"), sub.get(0));
+    assertEquals(Int.get(12), sub.get(1));
+    assertEquals(Int.get(11), array.get(11));
+    assertTrue(array.deep(ints(100), null, null));
+  }
+
+  /**
+   * Atomization and type checks.
+   * @throws QueryException query exception
+   */
+  @Test public void atomize() throws QueryException {
+    final XQArray array = ints(100);
+    final Value value = array.atomValue(qc, null);
+    assertTrue(value instanceof IntSeq);
+    assertEquals(100, value.size());
+    assertEquals(100, array.atomSize());
+    assertTrue(array.instanceOf(ArrayType.get(SeqType.ITR_O)));
+    assertFalse(array.instanceOf(ArrayType.get(SeqType.STR_O)));
+  }
+
+  /**
+   * Sorts arrays.
+   * @throws QueryException query exception
+   */
+  @Test public void sort() throws QueryException {
+    final ArrayBuilder ab = new ArrayBuilder();
+    for(int i = 100; i > 0; i--) ab.append(Int.get(i));
+    XQArray sorted = ((NativeArray) ab.freeze()).sort(null, qc);
+    assertTrue(sorted.deep(ints(100).tail().snoc(Int.get(100)), null, null));
+
+    final double[] doubles = { 2, -0d, Double.NaN, 0d, -1 };
+    final ArrayBuilder db = new ArrayBuilder();
+    for(int i = 0; i < 20; i++) db.append(Dbl.get(doubles[i % doubles.length]));
+    sorted = ((NativeArray) db.freeze()).sort(null, qc);
+    assertTrue(Double.isNaN(((Dbl) sorted.get(0)).dbl()));
+    assertEquals(-1d, ((Dbl) sorted.get(4)).dbl());
+    // order of positive and negative zero is preserved
+    for(int i = 8; i < 16; i++) {
+      assertEquals(i % 2 == 0 ? -0d : 0d, ((Dbl) sorted.get(i)).dbl());
+    }
+    assertEquals(2d, ((Dbl) sorted.get(19)).dbl());
+
+    final ArrayBuilder sb = new ArrayBuilder();
+    for(int i = 100; i > 0; i--) sb.append(Str.get(Integer.toString(i)));
+    sorted = ((NativeArray) sb.freeze()).sort(null, qc);
+    assertEquals(Str.get("1"), sorted.get(0));
+    assertEquals(Str.get("99"), sorted.get(99));
+  }
+
+  /**
+   * Builds an array with the integers {@code 0} to {@code size - 1}.
+   * @param size size
+   * @return array
+   */
+  private static XQArray ints(final int size) {
+    final ArrayBuilder ab = new ArrayBuilder();
+    for(int i = 0; i < size; i++) ab.append(Int.get(i));
+    return ab.freeze();
+  }
+
+  /**
+   * Builds an array with identical members.
+   * @param member member
+   * @param size size
+   * @return array
+   */
+  private static XQArray build(final Value member, final int size) {
+    final ArrayBuilder ab = new ArrayBuilder();
+    for(int i = 0; i < size; i++) ab.append(member);
+    return ab.freeze();
+  }
+}
@@ -0,0 +1,130 @@
+package org.basex.query.value.map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.basex.*;
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for the {@link XQMap} data structure.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class XQMapTest extends SandboxTest {
+  /**
+   * Random insertions and deletions, compared with a Java map.
+   * @throws QueryException query exception
+   */
+  @Test public void putDelete() throws QueryException {
+    final Random rnd = new Random(1);
+    final HashMap<Long, Long> ref = new HashMap<>();
+    XQMap map = XQMap.EMPTY;
+    for(int i = 0; i < 20000; i++) {
+      final long k = rnd.nextInt(5000);
+      if(rnd.nextInt(3) == 0) {
+        map = map.delete(Int.get(k), null);
+        ref.remove(k);
+      } else {
+        map = map.put(Int.get(k), Int.get(i), null);
+        ref.put(k, (long) i);
+      }
+    }
+    assertEquals(ref.size(), map.mapSize());
+    for(final Map.Entry<Long, Long> entry : ref.entrySet()) {
+      assertEquals((long) entry.getValue(), ((Int) map.get(Int.get(entry.getKey()), null)).itr());
+    }
+    for(final Long k : ref.keySet()) map = map.delete(Int.get(k), null);
+    assertSame(XQMap.EMPTY, map);
+  }
+
+  /**
+   * Keys with identical hash codes.
+   * @throws QueryException query exception
+   */
+  @Test public void collisions() throws QueryException {
+    // integers and strings with the same digits have the same hash code
+    XQMap map = XQMap.EMPTY;
+    for(int i = 0; i < 1000; i++) {
+      map = map.put(Int.get(i), Int.get(i), null).put(Str.get(Integer.toString(i)), Str.ZERO,
+          null);
+    }
+    assertEquals(2000, map.mapSize());
+    assertEquals(Str.ZERO, map.get(Str.get("999"), null));
+    assertEquals(Int.get(999), map.get(Int.get(999), null));
+
+    for(int i = 0; i < 1000; i++) map = map.delete(Str.get(Integer.toString(i)), null);
+    assertEquals(1000, map.mapSize());
+    assertTrue(map.deep(build(1000), null, null));
+    assertEquals(build(1000).hash(null), map.hash(null));
+  }
+
+  /**
+   * Maps that are built with a builder are equal to maps that are built via the persistent API.
+   * @throws QueryException query exception
+   */
+  @Test public void builder() throws QueryException {
+    XQMap map = XQMap.EMPTY;
+    for(int i = 0; i < 5000; i++) map = map.put(Int.get(i), Int.get(i), null);
+    final XQMap built = build(5000);
+    assertTrue(map.deep(built, null, null));
+    assertEquals(map.hash(null), built.hash(null));
+    assertEquals(map.keys().toString(), built.keys().toString());
+
+    // initial map is not modified by the builder
+    final XQMap updated = new MapBuilder(built).put(Int.get(0), Str.ZERO).finish();
+    assertEquals(Int.get(0), built.get(Int.get(0), null));
+    assertEquals(Str.ZERO, updated.get(Int.get(0), null));
+    assertEquals(5000, updated.mapSize());
+  }
+
+  /**
+   * Merges maps.
+   * @throws QueryException query exception
+   */
+  @Test public void merge() throws QueryException {
+    final QueryContext qc = new QueryContext(context);
+    final XQMap map1 = build(1000), map2 = build(2000).delete(Int.get(0), null);
+    assertEquals(2000, map1.addAll(map2, MergeDuplicates.USE_FIRST, qc, null).mapSize());
+
+    // inserted maps are not modified
+    final XQMap first = map1.addAll(map2, MergeDuplicates.USE_FIRST, qc, null);
+    final XQMap last = map1.addAll(map2, MergeDuplicates.USE_LAST, qc, null);
+    final XQMap combined = map1.addAll(map2, MergeDuplicates.COMBINE, qc, null);
+    assertEquals(1000, map1.mapSize());
+    assertEquals(1999, map2.mapSize());
+    assertEquals(1, first.get(Int.get(1), null).size());
+    assertEquals(1, last.get(Int.get(1), null).size());
+    assertEquals(2, combined.get(Int.get(1), null).size());
+    assertEquals(1, combined.get(Int.get(0), null).size());
+
+    final MapBuilder mb = new MapBuilder();
+    for(int i = 0; i < 10; i++) mb.merge(map1, MergeDuplicates.COMBINE, qc, null);
+    final Value value = mb.finish().get(Int.get(999), null);
+    assertEquals(10, value.size());
+    assertEquals(1, map1.get(Int.get(999), null).size());
+
+    assertThrows(QueryException.class, () -> map1.addAll(map2, MergeDuplicates.REJECT, qc, null));
+    assertSame(map1, map1.addAll(XQMap.EMPTY, MergeDuplicates.REJECT, qc, null));
+    assertSame(map1, XQMap.EMPTY.addAll(map1, MergeDuplicates.REJECT, qc, null));
+    assertSame(Empty.VALUE, XQMap.EMPTY.get(Int.ZERO, null));
+  }
+
+  /**
+   * Builds a map with integer keys and values.
+   * @param size number of entries
+   * @return map
+   * @throws QueryException query exception
+   */
+  private static XQMap build(final int size) throws QueryException {
+    final MapBuilder mb = new MapBuilder();
+    for(int i = 0; i < size; i++) mb.put(Int.get(i), Int.get(i));
+    return mb.finish();
+  }
+}
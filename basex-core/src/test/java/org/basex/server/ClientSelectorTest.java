@@ -0,0 +1,87 @@
+package org.basex.server;
+
+import static org.basex.core.Text.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.net.*;
+
+import org.basex.*;
+import org.basex.api.client.*;
+import org.basex.core.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * This class tests the client/server session API, with sessions being multiplexed over
+ * a small number of worker threads.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientSelectorTest extends ClientSessionTest {
+  /** Number of worker threads. */
+  private static final int THREADS = 2;
+  /** Server reference. */
+  private static BaseXServer server;
+
+  /**
+   * Starts the server.
+   * @throws IOException I/O exception
+   */
+  @BeforeAll public static void startServer() throws IOException {
+    Prop.put(StaticOptions.SERVERTHREADS, Integer.toString(THREADS));
+    try {
+      server = createServer();
+    } finally {
+      Prop.clear();
+    }
+  }
+
+  /**
+   * Stops the server.
+   * @throws IOException I/O exception
+   */
+  @AfterAll public static void stop() throws IOException {
+    stopServer(server);
+  }
+
+  /**
+   * Runs requests of more sessions than worker threads.
+   * @throws IOException I/O exception
+   */
+  @Test public void sessions() throws IOException {
+    final ClientSession[] sessions = new ClientSession[THREADS * 8];
+    try {
+      final int sl = sessions.length;
+      for(int s = 0; s < sl; s++) sessions[s] = createClient();
+      for(int r = 0; r < 3; r++) {
+        for(int s = 0; s < sl; s++) {
+          assertEquals(Integer.toString(s + r), sessions[s].query(s + "+" + r).execute());
+        }
+      }
+    } finally {
+      for(final ClientSession cs : sessions) {
+        if(cs != null) cs.close();
+      }
+    }
+  }
+
+  /**
+   * Runs requests while more connections than worker threads have not sent their login data.
+   * @throws IOException I/O exception
+   */
+  @Test public void pendingLogins() throws IOException {
+    final Socket[] sockets = new Socket[THREADS * 2];
+    try {
+      for(int s = 0; s < sockets.length; s++) sockets[s] = new Socket(S_LOCALHOST, DB_PORT);
+      try(ClientSession cs = createClient()) {
+        assertEquals("1", cs.query("1").execute());
+      }
+    } finally {
+      for(final Socket socket : sockets) {
+        if(socket != null) socket.close();
+      }
+    }
+  }
+}
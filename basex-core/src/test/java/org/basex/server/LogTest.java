@@ -0,0 +1,121 @@
+package org.basex.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.server.Log.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for writing log entries.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class LogTest extends SandboxTest {
+  /** Number of threads. */
+  private static final int THREADS = 8;
+  /** Number of entries per thread. */
+  private static final int ENTRIES = 500;
+
+  /** Finalizes a test. */
+  @AfterEach public void finish() {
+    final StaticOptions sopts = context.soptions;
+    sopts.set(StaticOptions.LOGBUFFER, StaticOptions.LOGBUFFER.value());
+    sopts.set(StaticOptions.LOGFLUSH, StaticOptions.LOGFLUSH.value());
+    final Log log = new Log(sopts);
+    for(final IOFile file : log.files()) file.delete();
+  }
+
+  /** Synchronous writing. */
+  @Test public void sync() {
+    write(0, 0);
+  }
+
+  /** Asynchronous writing. */
+  @Test public void async() {
+    write(1024, 0);
+  }
+
+  /** Asynchronous writing, small buffer. */
+  @Test public void overflow() {
+    write(2, 0);
+  }
+
+  /** Asynchronous writing, flush interval. */
+  @Test public void interval() {
+    write(16, 10);
+  }
+
+  /** Asynchronous writing, log is closed while entries are added. */
+  @Test public void close() {
+    write(2, 0, true);
+  }
+
+  /**
+   * Writes log entries with multiple threads and checks the results.
+   * @param size buffer size
+   * @param interval flush interval
+   */
+  private static void write(final int size, final int interval) {
+    write(size, interval, false);
+  }
+
+  /**
+   * Writes log entries with multiple threads and checks the results.
+   * @param size buffer size
+   * @param interval flush interval
+   * @param close close log while entries are added
+   */
+  private static void write(final int size, final int interval, final boolean close) {
+    final StaticOptions sopts = context.soptions;
+    sopts.set(StaticOptions.LOGBUFFER, size);
+    sopts.set(StaticOptions.LOGFLUSH, interval);
+
+    final Log log = new Log(sopts);
+    final ArrayList<Thread> threads = new ArrayList<>();
+    for(int t = 0; t < THREADS; t++) {
+      final int thread = t;
+      threads.add(new Thread(() -> {
+        for(int e = 0; e < ENTRIES; e++) log.write(LogType.INFO, thread + ":" + e, null, context);
+      }));
+    }
+    for(final Thread thread : threads) thread.start();
+    // remaining entries will be written synchronously
+    if(close) log.close();
+    try {
+      for(final Thread thread : threads) thread.join();
+    } catch(final InterruptedException ex) {
+      throw new AssertionError(ex);
+    }
+
+    // buffered entries must be visible before the log is closed
+    final LogFile file = log.file(DateTime.format(new Date(), DateTime.DATE));
+    assertNotNull(file);
+    final StringList lines;
+    try {
+      lines = file.read();
+    } catch(final IOException ex) {
+      throw new AssertionError(ex);
+    } finally {
+      log.close();
+    }
+    assertEquals(THREADS * ENTRIES, lines.size());
+
+    // entries of each thread must be written in order
+    final int[] next = new int[THREADS];
+    for(final String line : lines) {
+      final String[] entry = line.split("\t")[4].split(":");
+      final int thread = Integer.parseInt(entry[0]);
+      assertEquals(next[thread]++, Integer.parseInt(entry[1]));
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package org.basex.util;
+
+import static org.basex.util.Token.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.basex.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Class for testing the {@link BlockCompress} methods.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class BlockCompressTest extends SandboxTest {
+  /** Short and empty inputs. */
+  @Test public void small() {
+    run(EMPTY);
+    run(token("a"));
+    run(token("abcabcabcabc"));
+    run(token("abcabcabcabcabcabc"));
+  }
+
+  /** Repetitive inputs with long literal and match runs. */
+  @Test public void repetitive() {
+    final byte[] bytes = new byte[100000];
+    run(bytes);
+    assertTrue(BlockCompress.pack(bytes, bytes.length).length < 1000);
+
+    for(int b = 0; b < bytes.length; b++) bytes[b] = (byte) (b % 1000 * 7);
+    run(bytes);
+    final TokenBuilder tb = new TokenBuilder();
+    for(int i = 0; i < 5000; i++) tb.add("<item id='").addInt(i).add("'>text ").addInt(i % 7);
+    run(tb.finish());
+  }
+
+  /** Incompressible input. */
+  @Test public void random() {
+    final Random rnd = new Random(0);
+    for(final int size : new int[] { 20, 300, 70000 }) {
+      final byte[] bytes = new byte[size];
+      rnd.nextBytes(bytes);
+      run(bytes);
+    }
+  }
+
+  /** Texts of a document. */
+  @Test public void texts() {
+    final byte[] bytes = token(query("string-join(doc('src/test/resources/factbook.zip')"
+        + "//(text() | @*), ' ')"));
+    run(bytes);
+    assertTrue(BlockCompress.pack(bytes, bytes.length).length < bytes.length * 3 / 5);
+  }
+
+  /**
+   * Tests the correctness of the compressed data.
+   * @param data test data
+   */
+  private static void run(final byte[] data) {
+    final byte[] packed = BlockCompress.pack(data, data.length);
+    assertArrayEquals(data, BlockCompress.unpack(packed, data.length));
+    // pack subrange
+    final int len = data.length / 2;
+    assertArrayEquals(Arrays.copyOf(data, len),
+        BlockCompress.unpack(BlockCompress.pack(data, len), len));
+  }
+}
@@ -0,0 +1,112 @@
+package org.basex.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for the {@link TimerWheel} implementation.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class TimerWheelTest {
+  /** Timer wheel. */
+  private TimerWheel wheel;
+
+  /** Creates the timer wheel. */
+  @BeforeEach public void init() {
+    wheel = new TimerWheel();
+  }
+
+  /** Closes the timer wheel. */
+  @AfterEach public void finish() {
+    wheel.close();
+  }
+
+  /**
+   * Tasks are run in the order of their deadlines.
+   * @throws Exception exception
+   */
+  @Test public void order() throws Exception {
+    final List<Integer> list = Collections.synchronizedList(new ArrayList<>());
+    final CountDownLatch latch = new CountDownLatch(5);
+    for(final int delay : new int[] { 400, 100, 300, 0, 200 }) {
+      wheel.schedule(() -> {
+        list.add(delay);
+        latch.countDown();
+      }, delay);
+    }
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList(0, 100, 200, 300, 400), list);
+  }
+
+  /**
+   * Tasks with delays that exceed the first level of the wheel.
+   * @throws Exception exception
+   */
+  @Test public void cascade() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final long time = System.nanoTime();
+    wheel.schedule(latch::countDown, 1500);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    final long ms = (System.nanoTime() - time) / 1000000;
+    assertTrue(ms >= 1500, "Elapsed: " + ms);
+  }
+
+  /**
+   * Tasks that are scheduled while the timer thread waits for a later task.
+   * @throws Exception exception
+   */
+  @Test public void earlier() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    wheel.schedule(() -> fail("Task was run."), 60000);
+    Thread.sleep(100);
+    final long time = System.nanoTime();
+    wheel.schedule(latch::countDown, 200);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    final long ms = (System.nanoTime() - time) / 1000000;
+    assertTrue(ms >= 200 && ms < 2000, "Elapsed: " + ms);
+  }
+
+  /**
+   * Canceled tasks are not run.
+   * @throws Exception exception
+   */
+  @Test public void cancel() throws Exception {
+    final AtomicInteger count = new AtomicInteger();
+    final ArrayList<TimerWheel.Task> tasks = new ArrayList<>();
+    for(int t = 0; t < 1000; t++) tasks.add(wheel.schedule(count::incrementAndGet, 100 + t % 200));
+    for(int t = 0; t < 1000; t += 2) assertTrue(tasks.get(t).cancel());
+    // second cancelation has no effect
+    assertFalse(tasks.get(0).cancel());
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    wheel.schedule(latch::countDown, 400);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals(500, count.get());
+  }
+
+  /**
+   * Repeated tasks.
+   * @throws Exception exception
+   */
+  @Test public void repeat() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(5);
+    final TimerWheel.Task task = wheel.schedule(latch::countDown, 0, 50);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertTrue(task.cancel());
+    assertFalse(task.cancel());
+  }
+
+  /** Tasks that are scheduled after the wheel has been closed will not be run. */
+  @Test public void close() {
+    wheel.close();
+    final TimerWheel.Task task = wheel.schedule(() -> fail("Task was run."), 0);
+    assertFalse(task.cancel());
+  }
+}